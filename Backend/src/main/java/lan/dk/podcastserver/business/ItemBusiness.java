@@ -7,13 +7,14 @@ import lan.dk.podcastserver.entity.Podcast;
 import lan.dk.podcastserver.entity.Status;
 import lan.dk.podcastserver.entity.Tag;
 import lan.dk.podcastserver.manager.ItemDownloadManager;
+import lan.dk.podcastserver.manager.SearchIndexer;
 import lan.dk.podcastserver.repository.ItemRepository;
 import lan.dk.podcastserver.service.MimeTypeService;
 import lan.dk.podcastserver.service.properties.PodcastServerParameters;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.io.FilenameUtils;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
@@ -41,12 +42,14 @@ import static lan.dk.podcastserver.repository.dsl.ItemDSL.getSearchSpecification
 public class ItemBusiness {
 
     private static final String UPLOAD_PATTERN = "yyyy-MM-dd";
+    private static final String PERTINENCE = "pertinence";
 
     private final ItemDownloadManager itemDownloadManager;
     private final PodcastServerParameters podcastServerParameters;
     private final ItemRepository itemRepository;
     private final PodcastBusiness podcastBusiness;
     private final MimeTypeService mimeTypeService;
+    private final SearchIndexer searchIndexer;
 
     @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
     public Page<Item> findAll(Pageable pageable) {
@@ -55,37 +58,21 @@ public class ItemBusiness {
 
     @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
     public Page<Item> findByTagsAndFullTextTerm(String term, Set<Tag> tags, Set<Status> statuses, Pageable page) {
-        return Option(page.getSort())
-                .flatMap(s -> Option(s.getOrderFor("pertinence")))
-                .map(v -> findByTagsAndFullTextTermOrderByPertinence(term, tags, statuses, page))
-                .getOrElse(() -> itemRepository.findAll(getSearchSpecifications((StringUtils.isEmpty(term)) ? null : itemRepository.fullTextSearch(term), tags, statuses), page));
-    }
+        if (StringUtils.isEmpty(term)) {
+            return itemRepository.findAll(getSearchSpecifications(null, tags, statuses), withoutPertinence(page));
+        }
 
-    private Page<Item> findByTagsAndFullTextTermOrderByPertinence(String term, Set<Tag> tags, Set<Status> state, Pageable page) {
-        // List with the order of pertinence of search result :
-        List<UUID> fullTextIdsWithOrder = itemRepository.fullTextSearch(term);
+        return itemRepository.fullTextSearch(term, tags, statuses, page);
+    }
 
-        // Reverse if order is ASC
-        String order = Option(page.getSort())
-                .flatMap(s -> Option(s.getOrderFor("pertinence")))
-                .map(Sort.Order::getDirection)
-                .map(Object::toString)
-                .getOrElse(org.apache.commons.lang3.StringUtils.EMPTY);
+    /* Without term, there is no pertinence to sort on, and it isn't a property of Item for the database */
+    private static Pageable withoutPertinence(Pageable page) {
+        List<Sort.Order> orders = Option(page.getSort())
+                .map(List::ofAll)
+                .getOrElse(List::empty)
+                .filter(o -> !PERTINENCE.equals(o.getProperty()));
 
-        if ("ASC".equals(order)) {
-            fullTextIdsWithOrder = fullTextIdsWithOrder.reverse();
-        }
-        
-        // List of all the item matching the search result :
-        List<Item> allResult = List.ofAll(itemRepository.findAll(getSearchSpecifications(fullTextIdsWithOrder, tags, state)));
-
-        //Re-order and transform to page :
-        return fullTextIdsWithOrder
-                .flatMap(id -> allResult.find(item -> id.equals(item.getId())))
-                // Keep only the needed element for the page
-                .drop(page.getOffset())
-                .take(page.getPageSize())
-                .transform(v -> new PageImpl<>(v.toJavaList(), page, v.length()));
+        return new PageRequest(page.getPageNumber(), page.getPageSize(), orders.isEmpty() ? null : new Sort(orders.toJavaList()));
     }
 
     public Item save(Item entity) {
@@ -113,8 +100,8 @@ public class ItemBusiness {
         return itemRepository.findByPodcast(idPodcast, pageable);
     }
 
-    public void reindex() throws InterruptedException {
-        itemRepository.reindex();
+    public void reindex() {
+        searchIndexer.rebuild();
     }
 
     public Item reset(UUID id) {
@@ -123,7 +110,10 @@ public class ItemBusiness {
         if (itemDownloadManager.isInDownloadingQueue(itemToReset))
             return null;
 
-        return save(itemToReset.reset());
+        /* A state of the item still pending in the journal would undo the reset when written */
+        itemDownloadManager.discardPartialDownload(itemToReset);
+        itemDownloadManager.saveState(itemToReset.reset());
+        return save(itemToReset);
     }
 
     public Item addItemByUpload(UUID podcastId, MultipartFile uploadedFile) throws IOException, URISyntaxException {
@@ -0,0 +1,152 @@
+package lan.dk.podcastserver.business.update;
+
+import io.vavr.collection.List;
+import io.vavr.collection.Set;
+import io.vavr.control.Option;
+import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.repository.ItemRepository;
+import lan.dk.podcastserver.repository.PodcastRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+import static io.vavr.API.Option;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Next time each podcast is due to be updated. The next publication of a podcast is expected from the interval between
+ * its last items, and it is updated at this time. While nothing new is found, the delay before the next update doubles.
+ * The first update of a podcast is placed at a random point before its due time, so they are spread over the day, and
+ * the next ones are moved a little earlier by each podcast, so they don't gather again. The next update is kept with the
+ * podcast, to be planned at the same time after a restart.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UpdatePlanner {
+
+    static final int NUMBER_OF_PUB_DATES = 10;
+    static final Duration MIN_DELAY = Duration.ofMinutes(15);
+    static final Duration MAX_DELAY = Duration.ofDays(1);
+    private static final int MAX_BACK_OFF = 6;
+    /* Next updates are moved earlier by at most a tenth of their delay */
+    private static final int SPREAD_OF_NEXT_UPDATES = 10;
+
+    private final ItemRepository itemRepository;
+    private final PodcastRepository podcastRepository;
+
+    private final Map<UUID, Plan> plans = new HashMap<>();
+    private final PriorityQueue<Plan> queue = new PriorityQueue<>(Comparator.comparing(Plan::getDueAt));
+
+    public Set<Podcast> due(Set<Podcast> podcasts) {
+        return due(podcasts, ZonedDateTime.now());
+    }
+
+    /**
+     * Podcasts due at this time. They stay planned a little later, in case their update never ends
+     */
+    synchronized Set<Podcast> due(Set<Podcast> podcasts, ZonedDateTime now) {
+        java.util.Set<UUID> ids = podcasts.map(Podcast::getId).toJavaSet();
+        plans.keySet().retainAll(ids);
+        queue.removeIf(p -> !ids.contains(p.getId()));
+
+        podcasts
+                .filter(p -> !plans.containsKey(p.getId()))
+                .forEach(p -> schedule(firstPlanOf(p, now)));
+
+        List<UUID> due = List.empty();
+        while (!queue.isEmpty() && !queue.peek().getDueAt().isAfter(now)) {
+            Plan plan = queue.poll();
+            due = due.prepend(plan.getId());
+            schedule(new Plan(plan.getId(), now.plus(MIN_DELAY), plan.getMisses()));
+        }
+
+        java.util.Set<UUID> dueIds = due.toJavaSet();
+        log.debug("{} podcast(s) due over {}", dueIds.size(), ids.size());
+        return podcasts.filter(p -> dueIds.contains(p.getId()));
+    }
+
+    public void updated(Podcast podcast, Boolean hasNewItems) {
+        updated(podcast, hasNewItems, ZonedDateTime.now());
+    }
+
+    /**
+     * Plan the next update of the podcast after one of its update, an update failed or without new item is a miss
+     */
+    synchronized void updated(Podcast podcast, Boolean hasNewItems, ZonedDateTime now) {
+        int misses = hasNewItems ? 0 : Option(plans.get(podcast.getId())).map(p -> p.getMisses() + 1).getOrElse(1);
+        ZonedDateTime dueAt = nextUpdateOf(itemRepository.findLastPubDates(podcast.getId(), NUMBER_OF_PUB_DATES), misses, now);
+        ZonedDateTime nextUpdate = earlier(podcast.getId(), dueAt, Duration.between(now.plus(MIN_DELAY), dueAt).dividedBy(SPREAD_OF_NEXT_UPDATES));
+        schedule(new Plan(podcast.getId(), nextUpdate, misses));
+        podcastRepository.updateNextUpdate(podcast.getId(), nextUpdate);
+    }
+
+    Option<ZonedDateTime> dueAt(UUID id) {
+        return Option(plans.get(id)).map(Plan::getDueAt);
+    }
+
+    /* The next update kept with the podcast is planned again, unless it's already passed */
+    private Plan firstPlanOf(Podcast podcast, ZonedDateTime now) {
+        UUID id = podcast.getId();
+        Option<ZonedDateTime> planned = Option(podcast.getNextUpdate()).filter(now::isBefore);
+        if (planned.isDefined()) {
+            return new Plan(id, planned.get(), 0);
+        }
+
+        ZonedDateTime dueAt = nextUpdateOf(itemRepository.findLastPubDates(id, NUMBER_OF_PUB_DATES), 0, now);
+        return new Plan(id, earlier(id, dueAt, Duration.between(now, dueAt)), 0);
+    }
+
+    /* Moved earlier by a part of the range, which depends only on the podcast */
+    private static ZonedDateTime earlier(UUID id, ZonedDateTime dueAt, Duration range) {
+        return dueAt.minusSeconds(Math.floorMod(id.getLeastSignificantBits() ^ id.getMostSignificantBits(), range.getSeconds() + 1));
+    }
+
+    private void schedule(Plan plan) {
+        Option(plans.put(plan.getId(), plan)).forEach(queue::remove);
+        queue.add(plan);
+    }
+
+    /* The next publication is expected after the median interval between the last ones */
+    static ZonedDateTime nextUpdateOf(List<ZonedDateTime> pubDates, int misses, ZonedDateTime now) {
+        ZonedDateTime min = now.plus(MIN_DELAY);
+        ZonedDateTime max = now.plus(MAX_DELAY);
+
+        ZonedDateTime dueAt = expectedPublicationOf(pubDates)
+                .filter(now::isBefore)
+                .getOrElse(() -> now.plus(MIN_DELAY.multipliedBy(1L << Math.min(misses, MAX_BACK_OFF))));
+
+        if (dueAt.isBefore(min)) return min;
+        return dueAt.isAfter(max) ? max : dueAt;
+    }
+
+    static Option<ZonedDateTime> expectedPublicationOf(List<ZonedDateTime> pubDates) {
+        List<ZonedDateTime> dates = pubDates.sorted(Comparator.reverseOrder());
+        if (dates.size() < 2) {
+            return Option.none();
+        }
+
+        List<Duration> intervals = dates.zip(dates.tail())
+                .map(t -> Duration.between(t._2(), t._1()))
+                .sorted();
+
+        return Option(dates.head().plus(intervals.get(intervals.size() / 2)));
+    }
+
+    @Value
+    private static class Plan {
+        private final UUID id;
+        private final ZonedDateTime dueAt;
+        private final int misses;
+    }
+}
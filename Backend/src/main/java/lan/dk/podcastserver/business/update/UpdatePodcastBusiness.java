@@ -2,12 +2,14 @@ package lan.dk.podcastserver.business.update;
 
 import io.vavr.Tuple3;
 import io.vavr.collection.HashSet;
+import io.vavr.collection.List;
 import io.vavr.collection.Set;
 import lan.dk.podcastserver.business.CoverBusiness;
 import lan.dk.podcastserver.business.PodcastBusiness;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
 import lan.dk.podcastserver.entity.Status;
+import lan.dk.podcastserver.manager.CoverDownloadQueue;
 import lan.dk.podcastserver.manager.worker.selector.UpdaterSelector;
 import lan.dk.podcastserver.manager.worker.updater.Updater;
 import lan.dk.podcastserver.repository.ItemRepository;
@@ -20,22 +22,26 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.annotation.PostConstruct;
 import javax.validation.Validator;
 import java.nio.file.Files;
 import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
 
+import static io.vavr.API.Option;
 import static io.vavr.API.Try;
-import static java.util.concurrent.CompletableFuture.supplyAsync;
-import static java.util.function.Function.identity;
+import static java.util.Objects.isNull;
 
 @Slf4j
 @Component
@@ -43,8 +49,16 @@ public class UpdatePodcastBusiness  {
 
     private static final String WS_TOPIC_UPDATING = "/topic/updating";
 
+    private static final int NUMBER_OF_SLOWEST = 5;
+    private static final long CHECK_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
     private TimeUnit timeUnit = TimeUnit.MINUTES;
     private Integer timeValue = 5;
+    private TimeUnit globalTimeUnit = TimeUnit.MINUTES;
+    private Integer globalTimeValue;
+    /* Tasks of each update running, a manual update can run during a full one */
+    private final java.util.Queue<List<UpdateTask>> runs = new ConcurrentLinkedQueue<>();
+    private volatile List<UpdateTask> lastRun = List.empty();
     private @Getter ZonedDateTime lastFullUpdate;
 
     private final CoverBusiness coverBusiness;
@@ -52,16 +66,17 @@ public class UpdatePodcastBusiness  {
     private final PodcastRepository podcastRepository;
     private final ItemRepository itemRepository;
     private final UpdaterSelector updaterSelector;
+    private final UpdatePlanner updatePlanner;
+    private final CoverDownloadQueue coverDownloadQueue;
     private final SimpMessagingTemplate template;
 
     private final ThreadPoolTaskExecutor updateExecutor;
     private final ThreadPoolTaskExecutor manualExecutor;
     private final Validator validator;
-
-    private AtomicBoolean isUpdating = new AtomicBoolean(false);
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public UpdatePodcastBusiness(PodcastRepository podcastRepository, ItemRepository itemRepository, UpdaterSelector updaterSelector, SimpMessagingTemplate template, PodcastServerParameters podcastServerParameters, @Qualifier("UpdateExecutor") ThreadPoolTaskExecutor updateExecutor, @Qualifier("ManualUpdater") ThreadPoolTaskExecutor manualExecutor, @Qualifier("Validator") Validator validator, CoverBusiness coverBusiness) {
+    public UpdatePodcastBusiness(PodcastRepository podcastRepository, ItemRepository itemRepository, UpdaterSelector updaterSelector, SimpMessagingTemplate template, PodcastServerParameters podcastServerParameters, @Qualifier("UpdateExecutor") ThreadPoolTaskExecutor updateExecutor, @Qualifier("ManualUpdater") ThreadPoolTaskExecutor manualExecutor, @Qualifier("Validator") Validator validator, CoverBusiness coverBusiness, UpdatePlanner updatePlanner, CoverDownloadQueue coverDownloadQueue, TransactionTemplate transactionTemplate) {
         this.podcastRepository = podcastRepository;
         this.itemRepository = itemRepository;
         this.updaterSelector = updaterSelector;
@@ -71,18 +86,28 @@ public class UpdatePodcastBusiness  {
         this.manualExecutor = manualExecutor;
         this.validator = validator;
         this.coverBusiness = coverBusiness;
+        this.updatePlanner = updatePlanner;
+        this.coverDownloadQueue = coverDownloadQueue;
+        this.transactionTemplate = transactionTemplate;
     }
 
-    @Transactional
     public void updatePodcast() {
         updatePodcast(podcastRepository.findByUrlIsNotNull(), updateExecutor);
         lastFullUpdate = ZonedDateTime.now();
     }
 
-    @Transactional
+    /**
+     * Update of the podcasts due at this time according to the {@link UpdatePlanner}
+     */
+    public void updateDuePodcasts() {
+        Set<Podcast> due = updatePlanner.due(podcastRepository.findByUrlIsNotNull());
+        if (due.isEmpty()) return;
+
+        updatePodcast(due, updateExecutor);
+    }
+
     public void updatePodcast(UUID id) { updatePodcast(HashSet.of(podcastRepository.findOne(id)), manualExecutor); }
 
-    @Transactional
     public void forceUpdatePodcast (UUID id){
         log.info("Lancement de l'update forcé");
         Podcast podcast = podcastRepository.findOne(id);
@@ -92,49 +117,123 @@ public class UpdatePodcastBusiness  {
     }
 
     public Boolean isUpdating() {
-        return isUpdating.get();
+        return !runs.isEmpty();
     }
 
+    /**
+     * Progress of the updates running, or of the last one if none is running
+     */
+    public UpdateProgress getProgress() {
+        boolean updating = !runs.isEmpty();
+        List<UpdateTask> current = updating ? List.ofAll(runs).flatMap(t -> t) : lastRun;
+        long now = System.nanoTime();
+
+        int failed = current.count(UpdateTask::isFailed);
+        int done = current.count(t -> t.isEnded() && !t.isFailed());
+        List<UpdateProgress.Slowest> slowest = current
+                .filter(UpdateTask::isStarted)
+                .sortBy(t -> -t.duration(now))
+                .take(NUMBER_OF_SLOWEST)
+                .map(t -> new UpdateProgress.Slowest(t.getPodcast().getId(), t.getPodcast().getTitle(), t.duration(now)));
+
+        return new UpdateProgress(updating, current.size(), done, failed, current.size() - done - failed, slowest);
+    }
+
+    /**
+     * Results are handled in the order of completion, so a slow podcast doesn't delay the others. Each podcast has
+     * its own deadline, starting when its update runs, and the whole update has a global one. New items of a podcast
+     * are committed with it as soon as its update is done
+     */
     private void updatePodcast(Set<Podcast> podcasts, Executor selectedExecutor) {
-        changeAndCommunicateUpdate(Boolean.TRUE);
+        List<UpdateTask> current = podcasts.toList().map(p -> new UpdateTask(p, podcast -> updaterSelector.of(podcast.getUrl()).update(podcast)));
+        runs.add(current);
+        try {
+            run(current, selectedExecutor);
+        } finally {
+            lastRun = current;
+            runs.removeIf(r -> r == current);
+            communicateUpdate();
+        }
+    }
 
-        log.info("Update launch");
-        log.info("About to update {} podcast(s)", podcasts.size());
+    private void run(List<UpdateTask> current, Executor selectedExecutor) {
+        communicateUpdate();
 
-        podcasts
-            .map(podcast -> supplyAsync(() -> updaterSelector.of(podcast.getUrl()).update(podcast), selectedExecutor))
-            .toStream()
-            .map(this::wait)
-            .filter(tuple -> tuple != Updater.NO_MODIFICATION_TUPLE)
-            .peek(tuple -> changeAndCommunicateUpdate(Boolean.TRUE))
-            .map(t -> attachNewItemsToPodcast(t._1(), t._2(), t._3()))
-            .flatMap(identity())
-            .forEach(coverBusiness::download);
+        log.info("Update launch");
+        log.info("About to update {} podcast(s)", current.size());
+
+        CompletionService<Tuple3<Podcast, Set<Item>, Predicate<Item>>> completion = new ExecutorCompletionService<>(selectedExecutor);
+        Map<Future<Tuple3<Podcast, Set<Item>, Predicate<Item>>>, UpdateTask> running = new HashMap<>();
+        current.forEach(task -> Try(() -> completion.submit(task))
+                .onSuccess(f -> running.put(f, task))
+                .onFailure(e -> { log.error("Update of {} not submitted", task.getPodcast().getTitle(), e); task.fail(); }));
+
+        long deadline = System.nanoTime() + globalTimeUnit.toNanos(Option(globalTimeValue).getOrElse(podcastServerParameters::getUpdateTimeout));
+        long timeout = timeUnit.toNanos(timeValue);
+
+        while (!running.isEmpty()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                log.error("Update not finished in time, {} podcast(s) cancelled", running.size());
+                running.forEach(this::cancel);
+                break;
+            }
+
+            Future<Tuple3<Podcast, Set<Item>, Predicate<Item>>> next;
+            try {
+                next = completion.poll(Math.min(remaining, Math.min(timeout, CHECK_INTERVAL)), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running.forEach(this::cancel);
+                break;
+            }
+
+            cancelLateUpdates(running, timeout);
+
+            UpdateTask task = isNull(next) ? null : running.remove(next);
+            if (isNull(task)) continue;
+
+            Set<Item> added = Try(next::get)
+                .onFailure(e -> { log.error("Error during update of {}", task.getPodcast().getTitle(), e); task.fail(); })
+                .filter(tuple -> tuple != Updater.NO_MODIFICATION_TUPLE)
+                .flatMap(t -> Try(() -> transactionTemplate.execute(s -> attachNewItemsToPodcast(t._1(), t._2(), t._3())))
+                        .onFailure(e -> { log.error("Items of {} not saved", task.getPodcast().getTitle(), e); task.fail(); forget(t._1()); }))
+                .getOrElse(HashSet::empty);
+
+            coverDownloadQueue.add(added);
+            updatePlanner.updated(task.getPodcast(), !added.isEmpty());
+
+            communicateUpdate();
+        }
 
-        log.info("Fin du traitement des {} podcasts", podcasts.size());
+        log.info("Fin du traitement des {} podcasts", current.size());
+    }
 
-        changeAndCommunicateUpdate(Boolean.FALSE);
+    private void cancelLateUpdates(Map<Future<Tuple3<Podcast, Set<Item>, Predicate<Item>>>, UpdateTask> running, long timeout) {
+        long now = System.nanoTime();
+        running.entrySet().removeIf(e -> {
+            if (!e.getValue().isLate(now, timeout)) return false;
+            log.error("Update of {} too long, cancelled", e.getValue().getPodcast().getTitle());
+            cancel(e.getKey(), e.getValue());
+            return true;
+        });
     }
 
-    private void changeAndCommunicateUpdate(Boolean isUpdating) {
-        this.isUpdating.set(isUpdating);
-        this.template.convertAndSend(WS_TOPIC_UPDATING, this.isUpdating.get());
+    private void cancel(Future<?> future, UpdateTask task) {
+        future.cancel(true);
+        task.fail();
+        updatePlanner.updated(task.getPodcast(), false);
     }
 
-    private Tuple3<Podcast, Set<Item>, Predicate<Item>> wait(CompletableFuture<Tuple3<Podcast, Set<Item>, Predicate<Item>>> future) {
-       return Try(() -> future.get(timeValue, timeUnit))
-            .onFailure(e -> {
-                log.error("Error during update", e);
-                future.cancel(true);
-            })
-            .getOrElse(Updater.NO_MODIFICATION_TUPLE);
+    private void communicateUpdate() {
+        this.template.convertAndSend(WS_TOPIC_UPDATING, getProgress());
     }
 
     private Set<Item> attachNewItemsToPodcast(Podcast podcast, Set<Item> items, Predicate<Item> filter) {
 
         if (items == null || items.isEmpty() ) {
             log.info("Reset de la signature afin de forcer le prochain update de : {}", podcast.getTitle());
-            podcastRepository.save(podcast.setSignature(""));
+            forget(podcast);
             return HashSet.empty();
         }
 
@@ -147,15 +246,25 @@ public class UpdatePodcastBusiness  {
             return itemsToAdd;
         }
 
-        itemRepository.save(itemsToAdd
-                .peek(podcast::add)
-                .map(i -> i.setStatus(Status.NOT_DOWNLOADED)));
+        /* Items are saved on their own, so the items of the podcast are never loaded */
+        itemRepository.save(itemsToAdd.map(i -> i.setStatus(Status.NOT_DOWNLOADED).setCoverPending(CoverDownloadQueue.hasCoverToDownload(i))));
 
         podcastRepository.save(podcast.lastUpdateToNow());
 
         return itemsToAdd;
     }
 
+    /* Without signature nor validators, the next update parses the feed again */
+    private void forget(Podcast podcast) {
+        Try(() -> podcastRepository.save(podcast
+                .setSignature("")
+                .setEtag(null)
+                .setLastModified(null)
+                .setContentLength(null)
+                .setContentDigest(null)
+        )).onFailure(e -> log.error("Signature of {} not reset", podcast.getTitle(), e));
+    }
+
     public void deleteOldEpisode() {
         log.info("Deletion of olds items");
 
@@ -172,6 +281,11 @@ public class UpdatePodcastBusiness  {
         this.timeUnit = timeUnit;
     }
 
+    void setGlobalTimeOut(Integer timeValue, TimeUnit timeUnit) {
+        this.globalTimeValue = timeValue;
+        this.globalTimeUnit = timeUnit;
+    }
+
     public void deleteOldCover() {
         log.info("Deletion of old covers item");
         itemRepository
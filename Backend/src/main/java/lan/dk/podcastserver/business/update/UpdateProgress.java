@@ -0,0 +1,30 @@
+package lan.dk.podcastserver.business.update;
+
+import io.vavr.collection.List;
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * State of the current update, sent to clients each time a podcast is done
+ */
+@Value
+public class UpdateProgress {
+
+    private final boolean updating;
+    private final int total;
+    private final int done;
+    private final int failed;
+    private final int pending;
+    private final List<Slowest> slowest;
+
+    @Value
+    public static class Slowest {
+        private final UUID id;
+        private final String title;
+        /* in milliseconds, up to now if the update of the podcast isn't finished */
+        private final long duration;
+    }
+}
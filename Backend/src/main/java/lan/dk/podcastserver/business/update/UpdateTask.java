@@ -0,0 +1,62 @@
+package lan.dk.podcastserver.business.update;
+
+import io.vavr.Tuple3;
+import io.vavr.collection.Set;
+import lan.dk.podcastserver.entity.Item;
+import lan.dk.podcastserver.entity.Podcast;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Update of one podcast, which keeps when it started to be run and when it ended
+ */
+@RequiredArgsConstructor
+class UpdateTask implements Callable<Tuple3<Podcast, Set<Item>, Predicate<Item>>> {
+
+    @Getter private final Podcast podcast;
+    private final Function<Podcast, Tuple3<Podcast, Set<Item>, Predicate<Item>>> update;
+
+    private volatile long startedAt = 0L;
+    private volatile long endedAt = 0L;
+    @Getter private volatile boolean failed = false;
+
+    @Override
+    public Tuple3<Podcast, Set<Item>, Predicate<Item>> call() {
+        startedAt = System.nanoTime();
+        try {
+            return update.apply(podcast);
+        } finally {
+            endedAt = System.nanoTime();
+        }
+    }
+
+    void fail() {
+        failed = true;
+        if (isStarted() && endedAt == 0L) endedAt = System.nanoTime();
+    }
+
+    boolean isStarted() {
+        return startedAt != 0L;
+    }
+
+    boolean isEnded() {
+        return endedAt != 0L;
+    }
+
+    /* A task waiting for a thread isn't late, its own deadline starts when it runs */
+    boolean isLate(long now, long timeout) {
+        return isStarted() && !isEnded() && now - startedAt > timeout;
+    }
+
+    long duration(long now) {
+        if (!isStarted()) return 0L;
+        return TimeUnit.NANOSECONDS.toMillis((isEnded() ? endedAt : now) - startedAt);
+    }
+}
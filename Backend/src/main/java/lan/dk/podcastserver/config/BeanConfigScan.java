@@ -4,6 +4,8 @@ import io.vavr.collection.HashSet;
 import io.vavr.collection.Set;
 import lan.dk.podcastserver.service.properties.Api;
 import lan.dk.podcastserver.service.properties.Backup;
+import lan.dk.podcastserver.service.properties.Bandwidth;
+import lan.dk.podcastserver.service.properties.Caches;
 import lan.dk.podcastserver.service.properties.ExternalTools;
 import lan.dk.podcastserver.service.properties.PodcastServerParameters;
 import org.apache.tika.Tika;
@@ -18,6 +20,7 @@ import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalTime;
 
 import static lan.dk.podcastserver.service.MimeTypeService.TikaProbeContentType;
 
@@ -26,7 +29,7 @@ import static lan.dk.podcastserver.service.MimeTypeService.TikaProbeContentType;
  */
 @EnableCaching
 @Configuration
-@EnableConfigurationProperties({PodcastServerParameters.class, Api.class, Backup.class, ExternalTools.class})
+@EnableConfigurationProperties({PodcastServerParameters.class, Api.class, Backup.class, ExternalTools.class, Bandwidth.class, Caches.class})
 @ComponentScan(basePackages = { "lan.dk.podcastserver.utils", "lan.dk.podcastserver.service", "lan.dk.podcastserver.business"})
 public class BeanConfigScan {
 
@@ -51,6 +54,18 @@ public class BeanConfigScan {
         };
     }
 
+    @Bean
+    @ConfigurationPropertiesBinding
+    Converter<String, LocalTime> localTimeConverter() {
+        return new Converter<String, LocalTime>(){
+
+            @Override
+            public LocalTime convert(String source) {
+                return LocalTime.parse(source);
+            }
+        };
+    }
+
     @Bean
     Converter<String, Set<String>> stringToSet() {
         return new Converter<String, Set<String>>() {
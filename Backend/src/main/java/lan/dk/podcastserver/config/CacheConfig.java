@@ -0,0 +1,21 @@
+package lan.dk.podcastserver.config;
+
+import lan.dk.podcastserver.service.cache.BoundedCacheManager;
+import lan.dk.podcastserver.service.cache.JsonWeigher;
+import lan.dk.podcastserver.service.properties.Caches;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public BoundedCacheManager cacheManager(Caches caches) {
+        return new BoundedCacheManager(caches, new JsonWeigher(), Clock.systemDefaultZone());
+    }
+}
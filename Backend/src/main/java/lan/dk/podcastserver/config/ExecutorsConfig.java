@@ -6,9 +6,12 @@ import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 import javax.annotation.Resource;
 
+import static lan.dk.podcastserver.service.FfmpegService.JOBS_BY_DOWNLOAD;
+
 /**
  * Created by kevin on 08/02/2014.
  */
@@ -29,6 +32,16 @@ public class ExecutorsConfig {
         return executor;
     }
 
+    @Bean(name = "UpdateFetchExecutor")
+    public ThreadPoolTaskExecutor updateFetchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(podcastServerParameters.getConcurrentFetchByUpdate());
+        executor.setMaxPoolSize(podcastServerParameters.getConcurrentFetchByUpdate());
+        executor.setThreadNamePrefix("Update-Fetch-");
+        executor.initialize();
+        return executor;
+    }
+
     @Bean(name = "ManualUpdater")
     public ThreadPoolTaskExecutor singleThreadExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
@@ -47,4 +60,38 @@ public class ExecutorsConfig {
         executor.initialize();
         return executor;
     }
+
+    /* Connections of the segmented downloads, shared by all of them */
+    @Bean(name = "SegmentExecutor")
+    public ThreadPoolTaskExecutor segmentExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(podcastServerParameters.getConcurrentDownload() * podcastServerParameters.getConcurrentSegmentByDownload());
+        executor.setMaxPoolSize(podcastServerParameters.getConcurrentDownload() * podcastServerParameters.getConcurrentSegmentByDownload());
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("Segment-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "CoverExecutor")
+    public ThreadPoolTaskScheduler coverExecutor() {
+        ThreadPoolTaskScheduler executor = new ThreadPoolTaskScheduler();
+        executor.setPoolSize(podcastServerParameters.getConcurrentCoverDownload());
+        executor.setThreadNamePrefix("Cover-");
+        executor.initialize();
+        return executor;
+    }
+
+    /* Jobs last as long as their download, so each one gets a thread up to the limit and only the extra ones wait */
+    @Bean(name = "FfmpegJobExecutor")
+    public ThreadPoolTaskExecutor ffmpegJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(podcastServerParameters.getConcurrentDownload() * JOBS_BY_DOWNLOAD);
+        executor.setMaxPoolSize(podcastServerParameters.getConcurrentDownload() * JOBS_BY_DOWNLOAD);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setQueueCapacity(podcastServerParameters.getConcurrentDownload() * JOBS_BY_DOWNLOAD);
+        executor.setThreadNamePrefix("Ffmpeg-");
+        executor.initialize();
+        return executor;
+    }
 }
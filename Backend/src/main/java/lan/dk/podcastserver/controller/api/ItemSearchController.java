@@ -6,9 +6,9 @@ import lan.dk.podcastserver.business.ItemBusiness;
 import lan.dk.podcastserver.business.TagBusiness;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Status;
+import lan.dk.podcastserver.manager.SearchCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -27,15 +27,24 @@ public class ItemSearchController {
 
     private final ItemBusiness itemBusiness;
     private final TagBusiness tagBusiness;
+    private final SearchCache searchCache;
 
-    @Cacheable("search")
     @GetMapping("search")
     @JsonView(Item.ItemSearchListView.class)
     public Page<Item> search(@RequestParam(value = "q", required = false, defaultValue = "") String q,
                              @RequestParam(value = "tags", required = false, defaultValue = "") Set<String> tags,
                              @RequestParam(value = "status", required = false, defaultValue = "") Set<String> _statuses,
                              Pageable pageable) {
+        return searchCache.get(() -> find(q, tags, _statuses, pageable), q, tags, _statuses, pageable);
+    }
+
+    @GetMapping("reindex")
+    @ResponseStatus(value = HttpStatus.NO_CONTENT)
+    public void reindex() {
+        itemBusiness.reindex();
+    }
 
+    private Page<Item> find(String q, Set<String> tags, Set<String> _statuses, Pageable pageable) {
         if (!isSearch(q, tags, _statuses)) {
             return itemBusiness.findAll(pageable);
         }
@@ -48,12 +57,6 @@ public class ItemSearchController {
         );
     }
 
-    @GetMapping("reindex")
-    @ResponseStatus(value = HttpStatus.NO_CONTENT)
-    public void reindex() throws InterruptedException {
-        itemBusiness.reindex();
-    }
-
     private static Boolean isSearch(String q, Set<String> tags, Set<String> statuses) {
         return !(StringUtils.isEmpty(q) && tags.isEmpty() && statuses.isEmpty());
     }
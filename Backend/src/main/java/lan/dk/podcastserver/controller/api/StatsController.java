@@ -4,7 +4,6 @@ import io.vavr.collection.List;
 import lan.dk.podcastserver.business.stats.StatsBusiness;
 import lan.dk.podcastserver.business.stats.StatsPodcastType;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -21,19 +20,16 @@ public class StatsController {
     private final StatsBusiness itemStatsBusiness;
 
     @PostMapping("byDownloadDate")
-    @Cacheable(value = "stats", key = "{#root.methodName, #numberOfMonth}")
     public List<StatsPodcastType> byDownloadDate(@RequestBody Integer numberOfMonth) {
         return itemStatsBusiness.allStatsByTypeAndDownloadDate(numberOfMonth);
     }
 
     @PostMapping("byCreationDate")
-    @Cacheable(value = "stats", key = "{#root.methodName, #numberOfMonth}")
     public List<StatsPodcastType> byCreationDate(@RequestBody Integer numberOfMonth) {
         return itemStatsBusiness.allStatsByTypeAndCreationDate(numberOfMonth);
     }
 
     @PostMapping("byPubDate")
-    @Cacheable(value = "stats", key = "{#root.methodName, #numberOfMonth}")
     public List<StatsPodcastType> byPubDate(@RequestBody Integer numberOfMonth) {
         return itemStatsBusiness.allStatsByTypeAndPubDate(numberOfMonth);
     }
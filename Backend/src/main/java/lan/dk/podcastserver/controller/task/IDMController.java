@@ -1,5 +1,6 @@
 package lan.dk.podcastserver.controller.task;
 
+import io.vavr.collection.Map;
 import io.vavr.collection.Queue;
 import io.vavr.collection.Set;
 import lan.dk.podcastserver.entity.Item;
@@ -53,6 +54,37 @@ public class IDMController {
         IDM.setLimitParallelDownload(setLimitParallelDownload);
     }
 
+    @GetMapping("/bandwidth")
+    public long getBandwidthLimit() {
+        return IDM.getBandwidthLimit();
+    }
+
+    @PostMapping("/bandwidth")
+    public void setBandwidthLimit(@RequestBody long limit) {
+        IDM.setBandwidthLimit(limit);
+    }
+
+    @DeleteMapping("/bandwidth")
+    @ResponseStatus(value = HttpStatus.NO_CONTENT)
+    public void resetBandwidthLimit() {
+        IDM.setBandwidthLimit(null);
+    }
+
+    @GetMapping("/bandwidth/download")
+    public long getBandwidthLimitByDownload() {
+        return IDM.getBandwidthLimitByDownload();
+    }
+
+    @PostMapping("/bandwidth/download")
+    public void setBandwidthLimitByDownload(@RequestBody long limit) {
+        IDM.setBandwidthLimitByDownload(limit);
+    }
+
+    @GetMapping("/throughput")
+    public Map<UUID, Long> getThroughputs() {
+        return IDM.getThroughputs();
+    }
+
     @GetMapping("/launch")
     @ResponseStatus(value = HttpStatus.NO_CONTENT)
     public void launchDownload() {
@@ -1,6 +1,7 @@
 package lan.dk.podcastserver.controller.ws;
 
 import lan.dk.podcastserver.business.update.UpdatePodcastBusiness;
+import lan.dk.podcastserver.business.update.UpdateProgress;
 import lombok.RequiredArgsConstructor;
 import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
@@ -15,7 +16,7 @@ public class UpdateControllerWS {
     private final UpdatePodcastBusiness updatePodcastBusiness;
 
     @SubscribeMapping("/updating")
-    public Boolean isUpdating() {
-        return updatePodcastBusiness.isUpdating();
+    public UpdateProgress progress() {
+        return updatePodcastBusiness.getProgress();
     }
 }
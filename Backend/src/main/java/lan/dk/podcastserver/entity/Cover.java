@@ -10,9 +10,12 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
 import java.util.UUID;
 
 @Entity
+@Table(name = "cover", indexes = @Index(name = "cover_url", columnList = "url"))
 @Builder(toBuilder = true)
 @Setter @Getter
 @NoArgsConstructor
@@ -0,0 +1,49 @@
+package lan.dk.podcastserver.entity;
+
+import lombok.*;
+import lombok.experimental.Accessors;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Number of items of a podcast published, created or downloaded during a day
+ */
+@Entity
+@Table(
+        name = "daily_stat",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"podcast_id", "kind", "stat_date"}),
+        indexes = @Index(name = "daily_stat_kind_date", columnList = "kind,stat_date")
+)
+@Builder
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Accessors(chain = true)
+public class DailyStat {
+
+    @Id
+    @GeneratedValue
+    @Column(columnDefinition = "UUID")
+    private UUID id;
+
+    @Column(name = "podcast_id", columnDefinition = "UUID")
+    private UUID podcastId;
+
+    private String type;
+
+    @Enumerated(EnumType.STRING)
+    private Kind kind;
+
+    @Column(name = "stat_date")
+    private LocalDate date;
+
+    private Long numberOfItems;
+
+    public enum Kind {
+        PUBLICATION, CREATION, DOWNLOAD
+    }
+}
@@ -2,6 +2,10 @@ package lan.dk.podcastserver.entity;
 
 import com.fasterxml.jackson.annotation.*;
 import io.vavr.control.Option;
+import lan.dk.podcastserver.entity.bridge.PodcastIdBridge;
+import lan.dk.podcastserver.entity.bridge.SortableDateBridge;
+import lan.dk.podcastserver.entity.listener.ItemDates;
+import lan.dk.podcastserver.entity.listener.ItemListener;
 import lan.dk.podcastserver.manager.worker.updater.UploadUpdater;
 import lombok.*;
 import lombok.experimental.Accessors;
@@ -9,10 +13,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.hibernate.search.annotations.Analyze;
 import org.hibernate.search.annotations.Boost;
 import org.hibernate.search.annotations.DocumentId;
 import org.hibernate.search.annotations.Field;
+import org.hibernate.search.annotations.FieldBridge;
 import org.hibernate.search.annotations.Indexed;
+import org.hibernate.search.annotations.SortableField;
 import org.hibernate.validator.constraints.NotEmpty;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -30,6 +37,7 @@ import java.util.UUID;
 
 import static io.vavr.API.Option;
 import static io.vavr.API.Try;
+import static java.lang.Boolean.TRUE;
 import static java.util.Objects.nonNull;
 
 @Entity
@@ -42,7 +50,7 @@ import static java.util.Objects.nonNull;
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 @NoArgsConstructor @AllArgsConstructor(access = AccessLevel.PRIVATE)
 @JsonIgnoreProperties(ignoreUnknown = true, value = { "numberOfTry", "localUri", "addATry", "deleteDownloadedFile", "localPath", "proxyURLWithoutExtention", "extention", "hasValidURL", "reset", "coverPath" })
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, ItemListener.class})
 public class Item {
 
     public  static Path rootFolder;
@@ -60,6 +68,7 @@ public class Item {
 
     @ManyToOne(cascade={CascadeType.MERGE}, fetch = FetchType.EAGER)
     @JsonBackReference("podcast-item")
+    @Field(analyze = Analyze.NO, bridge = @FieldBridge(impl = PodcastIdBridge.class))
     private Podcast podcast;
 
     @NotNull
@@ -71,7 +80,9 @@ public class Item {
     @JsonView(ItemSearchListView.class)
     private String url;
 
+    @SortableField
     @JsonView(ItemPodcastListView.class)
+    @Field(analyze = Analyze.NO, bridge = @FieldBridge(impl = SortableDateBridge.class))
     private ZonedDateTime pubDate;
 
     @Field
@@ -90,6 +101,7 @@ public class Item {
 
     /* Value for the Download */
     @Enumerated(EnumType.STRING)
+    @Field(analyze = Analyze.NO)
     @JsonView(ItemSearchListView.class)
     private Status status = Status.NOT_DOWNLOADED;
 
@@ -97,15 +109,26 @@ public class Item {
     @JsonView(ItemDetailsView.class)
     private Integer progression = 0;
 
-    @Transient
+    /* Kept across restarts to bound the retries, existing rows start from zero */
+    @Column(columnDefinition = "integer default 0")
     private Integer numberOfTry = 0;
 
+    @SortableField
     @JsonView(ItemDetailsView.class)
+    @Field(analyze = Analyze.NO, bridge = @FieldBridge(impl = SortableDateBridge.class))
     private ZonedDateTime downloadDate;
 
     @CreatedDate
     private ZonedDateTime creationDate;
 
+    /* The cover is queued for download, the remote one is shown until then */
+    @JsonIgnore
+    private Boolean coverPending = false;
+
+    /* Dates as last read or written in database, set by the ItemListener */
+    @Transient @JsonIgnore
+    private ItemDates storedDates;
+
     @JsonIgnore
     @ManyToMany(mappedBy = "items", cascade = CascadeType.REFRESH)
     private java.util.Set<WatchList> watchLists = new HashSet<>();
@@ -257,7 +280,7 @@ public class Item {
     @JsonProperty("cover") @JsonView(ItemSearchListView.class)
     public Cover getCoverOfItemOrPodcast() {
         return Option(cover)
-                .map(c -> String.format(COVER_PROXY_URL, podcast.getId(), id, FilenameUtils.getExtension(c.getUrl())))
+                .map(c -> TRUE.equals(coverPending) ? c.getUrl() : String.format(COVER_PROXY_URL, podcast.getId(), id, FilenameUtils.getExtension(c.getUrl())))
                 .map(url -> cover.toBuilder().url(url).build())
                 .getOrElse(() -> podcast.getCover());
     }
@@ -275,6 +298,7 @@ public class Item {
         setStatus(Status.NOT_DOWNLOADED);
         downloadDate = null;
         fileName = null;
+        numberOfTry = 0;
         return this;
     }
 
@@ -31,7 +31,7 @@ import static io.vavr.API.Try;
 @Accessors(chain = true)
 @NoArgsConstructor @AllArgsConstructor(access = AccessLevel.PRIVATE)
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
-@JsonIgnoreProperties(ignoreUnknown = true, value = {"signature", "items", "contains", "add", "lastUpdateToNow" })
+@JsonIgnoreProperties(ignoreUnknown = true, value = {"signature", "etag", "lastModified", "contentLength", "contentDigest", "nextUpdate", "items", "contains", "add", "lastUpdateToNow" })
 public class Podcast implements Serializable {
 
     public static Path rootFolder;
@@ -51,12 +51,21 @@ public class Podcast implements Serializable {
     private String url;
     private String signature;
 
+    /* Validators of the last response of the page of the podcast, to skip an update when it hasn't changed */
+    private String etag;
+    private String lastModified;
+    private Integer contentLength;
+    private String contentDigest;
+
     @JsonView(PodcastListingView.class)
     private String type;
 
     @JsonView(PodcastListingView.class)
     private ZonedDateTime lastUpdate;
 
+    /* Next update planned, to be kept after a restart */
+    private ZonedDateTime nextUpdate;
+
     @OneToMany(mappedBy = "podcast", fetch = FetchType.LAZY, cascade=CascadeType.ALL, orphanRemoval=true)
     @OrderBy("PUB_DATE DESC")
     @Fetch(FetchMode.SUBSELECT)
@@ -0,0 +1,23 @@
+package lan.dk.podcastserver.entity.bridge;
+
+import lan.dk.podcastserver.entity.Podcast;
+import org.hibernate.search.bridge.StringBridge;
+
+import static io.vavr.API.Option;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Only the id of the podcast is indexed with the item, it never changes so the item isn't indexed again when its podcast is
+ */
+public class PodcastIdBridge implements StringBridge {
+
+    @Override
+    public String objectToString(Object object) {
+        return Option(object)
+                .map(Podcast.class::cast)
+                .map(Podcast::getId)
+                .map(Object::toString)
+                .getOrNull();
+    }
+}
@@ -0,0 +1,25 @@
+package lan.dk.podcastserver.entity.bridge;
+
+import org.hibernate.search.bridge.StringBridge;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Date indexed as a fixed width UTC string, so the lexicographic order of the index is the chronological order
+ */
+public class SortableDateBridge implements StringBridge {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS").withZone(ZoneOffset.UTC);
+
+    @Override
+    public String objectToString(Object object) {
+        if (isNull(object)) return null;
+        return FORMATTER.format((ZonedDateTime) object);
+    }
+}
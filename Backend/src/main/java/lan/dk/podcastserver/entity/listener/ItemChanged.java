@@ -0,0 +1,38 @@
+package lan.dk.podcastserver.entity.listener;
+
+import lan.dk.podcastserver.entity.Item;
+import lan.dk.podcastserver.entity.Podcast;
+import io.vavr.control.Option;
+import lombok.Value;
+
+import java.util.UUID;
+
+import static io.vavr.API.Option;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Change of an {@link Item} written in database, with the values of the item at the time of the change and its dates
+ * as they were in database before, if the item was read or written before
+ */
+@Value
+public class ItemChanged {
+
+    public enum Type { PERSISTED, UPDATED, REMOVED }
+
+    private final Type type;
+    private final UUID podcastId;
+    private final String url;
+    private final ItemDates dates;
+    private final Option<ItemDates> previousDates;
+
+    public static ItemChanged of(Type type, Item item) {
+        return new ItemChanged(
+                type,
+                Option(item.getPodcast()).map(Podcast::getId).getOrNull(),
+                item.getUrl(),
+                ItemDates.of(item),
+                Option(item.getStoredDates())
+        );
+    }
+}
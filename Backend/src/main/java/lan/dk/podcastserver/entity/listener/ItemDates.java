@@ -0,0 +1,23 @@
+package lan.dk.podcastserver.entity.listener;
+
+import lan.dk.podcastserver.entity.Item;
+import lombok.Value;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Dates of an {@link Item} counted by day in the stats
+ */
+@Value
+public class ItemDates {
+
+    private final ZonedDateTime pubDate;
+    private final ZonedDateTime creationDate;
+    private final ZonedDateTime downloadDate;
+
+    public static ItemDates of(Item item) {
+        return new ItemDates(item.getPubDate(), item.getCreationDate(), item.getDownloadDate());
+    }
+}
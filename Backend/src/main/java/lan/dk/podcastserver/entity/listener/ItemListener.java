@@ -0,0 +1,62 @@
+package lan.dk.podcastserver.entity.listener;
+
+import lan.dk.podcastserver.entity.Item;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Entity listener of {@link Item}, publishing an {@link ItemChanged} event for each item persisted, updated or removed.
+ * The dates of the item read or written in database are kept with it, to be part of the next change.
+ * The listener is created by JPA, the publisher is the one of the application context, set when the bean is created.
+ * Components interested by the changes committed listen to the event with a
+ * {@link org.springframework.transaction.event.TransactionalEventListener}
+ */
+@Component
+public class ItemListener {
+
+    private static ApplicationEventPublisher publisher;
+
+    public ItemListener() {}
+
+    @Autowired
+    public ItemListener(ApplicationEventPublisher publisher) {
+        ItemListener.publisher = publisher;
+    }
+
+    @PostLoad
+    public void loaded(Item item) {
+        item.setStoredDates(ItemDates.of(item));
+    }
+
+    @PostPersist
+    public void persisted(Item item) {
+        publish(ItemChanged.of(ItemChanged.Type.PERSISTED, item));
+        item.setStoredDates(ItemDates.of(item));
+    }
+
+    @PostUpdate
+    public void updated(Item item) {
+        publish(ItemChanged.of(ItemChanged.Type.UPDATED, item));
+        item.setStoredDates(ItemDates.of(item));
+    }
+
+    @PostRemove
+    public void removed(Item item) {
+        publish(ItemChanged.of(ItemChanged.Type.REMOVED, item));
+    }
+
+    private static void publish(ItemChanged event) {
+        if (isNull(publisher)) return;
+        publisher.publishEvent(event);
+    }
+}
@@ -0,0 +1,218 @@
+package lan.dk.podcastserver.manager;
+
+import io.vavr.collection.List;
+import io.vavr.collection.Set;
+import io.vavr.control.Try;
+import lan.dk.podcastserver.business.CoverBusiness;
+import lan.dk.podcastserver.entity.Cover;
+import lan.dk.podcastserver.entity.Item;
+import lan.dk.podcastserver.repository.ItemRepository;
+import lan.dk.podcastserver.service.properties.PodcastServerParameters;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.vavr.API.Option;
+import static io.vavr.API.Try;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Objects.nonNull;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Covers of new items, downloaded by their own executor once the items are committed. Items sharing the same cover url
+ * are served by a single download, the number of downloads by host is limited and a failed download is retried later.
+ * Items stay with a pending cover, served from its remote url, until their cover is on disk. Those left pending at
+ * shutdown are queued at startup, and those not queued because the queue was full are queued once it is empty.
+ */
+@Slf4j
+@Component
+public class CoverDownloadQueue {
+
+    static final int MAX_QUEUED = 10_000;
+    static final int MAX_TRY = 3;
+    static final Duration RETRY_DELAY = Duration.ofSeconds(10);
+    static final Duration BUSY_HOST_DELAY = Duration.ofSeconds(1);
+
+    private final CoverBusiness coverBusiness;
+    private final ItemRepository itemRepository;
+    private final PodcastServerParameters podcastServerParameters;
+    private final TaskScheduler coverExecutor;
+    private final SearchCache searchCache;
+
+    int maxQueued = MAX_QUEUED;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> downloadsByHost = new ConcurrentHashMap<>();
+    private final java.util.Set<String> failed = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean hasPendingNotQueued = new AtomicBoolean();
+
+    public CoverDownloadQueue(CoverBusiness coverBusiness, ItemRepository itemRepository, PodcastServerParameters podcastServerParameters, @Qualifier("CoverExecutor") TaskScheduler coverExecutor, SearchCache searchCache) {
+        this.coverBusiness = coverBusiness;
+        this.itemRepository = itemRepository;
+        this.podcastServerParameters = podcastServerParameters;
+        this.coverExecutor = coverExecutor;
+        this.searchCache = searchCache;
+    }
+
+    public static Boolean hasCoverToDownload(Item item) {
+        return Option(item.getCover()).map(Cover::getUrl).exists(StringUtils::isNotEmpty);
+    }
+
+    /**
+     * Items are queued at once, or after the commit of the transaction saving them if any. The update of podcasts
+     * commits each podcast on its own, so its covers are queued as soon as its items are saved
+     */
+    public void add(Set<Item> items) {
+        Set<Item> withCover = items.filter(CoverDownloadQueue::hasCoverToDownload);
+        if (withCover.isEmpty()) return;
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            withCover.forEach(this::add);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                withCover.forEach(CoverDownloadQueue.this::add);
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void addPendingCovers() {
+        Set<Item> pending = itemRepository.findAllWithCoverPending();
+        log.info("{} cover(s) pending since the last run", pending.size());
+        add(pending);
+    }
+
+    /* A cover which failed during this run isn't downloaded again before the next start */
+    private void add(Item item) {
+        String url = item.getCover().getUrl();
+        Job job;
+
+        synchronized (this) {
+            if (failed.contains(url)) {
+                return;
+            }
+
+            job = jobs.get(url);
+            if (nonNull(job)) {
+                job.getItems().add(item);
+                return;
+            }
+
+            if (jobs.size() >= maxQueued) {
+                log.warn("Queue of covers full, cover of {} kept pending", item.getId());
+                hasPendingNotQueued.set(true);
+                return;
+            }
+
+            job = new Job(url);
+            job.getItems().add(item);
+            jobs.put(url, job);
+        }
+
+        schedule(job, Duration.ZERO);
+    }
+
+    private void schedule(Job job, Duration delay) {
+        Try(() -> coverExecutor.schedule(() -> run(job), Date.from(Instant.now().plus(delay))))
+                .onFailure(e -> {
+                    log.error("Download of cover {} not scheduled, kept pending", job.getUrl(), e);
+                    hasPendingNotQueued.set(true);
+                    jobs.remove(job.getUrl());
+                });
+    }
+
+    void run(Job job) {
+        Integer limit = podcastServerParameters.getConcurrentCoverDownloadByHost();
+        AtomicInteger downloads = downloadsByHost.computeIfAbsent(hostOf(job.getUrl()), h -> new AtomicInteger());
+        int running = downloads.incrementAndGet();
+        if (nonNull(limit) && limit > 0 && running > limit) {
+            downloads.decrementAndGet();
+            schedule(job, BUSY_HOST_DELAY);
+            return;
+        }
+
+        Boolean downloaded;
+        try {
+            downloaded = Try(() -> coverBusiness.download(job.getItems().get(0))).getOrElse(false);
+        } finally {
+            downloads.decrementAndGet();
+        }
+
+        int tries = job.getTries().incrementAndGet();
+        if (!downloaded && tries < MAX_TRY) {
+            log.info("Download of cover {} failed, retry {} of {}", job.getUrl(), tries, MAX_TRY - 1);
+            schedule(job, RETRY_DELAY.multipliedBy(1L << (tries - 1)));
+            return;
+        }
+
+        end(job, downloaded);
+    }
+
+    /**
+     * The cover is copied for the other items with the same url, added until the end of the job. Items whose cover
+     * can't be downloaded stay pending, so their remote cover is still shown
+     */
+    private void end(Job job, Boolean downloaded) {
+        List<Item> items;
+        boolean isEmpty;
+        synchronized (this) {
+            jobs.remove(job.getUrl());
+            items = List.ofAll(job.getItems());
+            if (!downloaded) failed.add(job.getUrl());
+            isEmpty = jobs.isEmpty();
+        }
+
+        if (downloaded) {
+            Path cover = coverBusiness.getCoverPathOf(items.head());
+            items.tail().forEach(i -> Try(() -> Files.copy(cover, coverBusiness.getCoverPathOf(i), REPLACE_EXISTING))
+                    .onFailure(e -> log.error("Error during copy of the cover of item {}", i.getId(), e)));
+
+            itemRepository.updateCoverPending(items.map(Item::getId).filter(Objects::nonNull).toSet(), false);
+            searchCache.invalidate();
+        } else {
+            log.warn("Cover {} not downloaded, its remote url is kept for {} item(s)", job.getUrl(), items.size());
+        }
+
+        if (isEmpty && hasPendingNotQueued.compareAndSet(true, false)) {
+            log.info("Queue of covers empty, covers kept pending are queued");
+            add(itemRepository.findAllWithCoverPending());
+        }
+    }
+
+    private static String hostOf(String url) {
+        return Try(() -> new URL(url).getHost()).getOrElse(StringUtils.EMPTY);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    static class Job {
+        private final String url;
+        private final java.util.List<Item> items = new CopyOnWriteArrayList<>();
+        private final AtomicInteger tries = new AtomicInteger();
+    }
+}
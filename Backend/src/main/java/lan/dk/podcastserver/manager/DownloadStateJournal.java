@@ -0,0 +1,237 @@
+package lan.dk.podcastserver.manager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.collection.Set;
+import io.vavr.control.Try;
+import lan.dk.podcastserver.entity.DailyStat;
+import lan.dk.podcastserver.entity.Item;
+import lan.dk.podcastserver.entity.Status;
+import lan.dk.podcastserver.repository.ItemRepository;
+import lan.dk.podcastserver.service.properties.PodcastServerParameters;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.vavr.API.Option;
+import static io.vavr.API.Set;
+import static io.vavr.API.Try;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.*;
+import static java.util.Objects.isNull;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Write-behind store of the download state of items. Each change is appended to a journal on disk and kept in memory,
+ * then written to the database in bulk by {@link #flush()}. The journal holds only the states not yet in database
+ * and is replayed at startup, so a crash between two flushes doesn't lose any transition. Downloads in progress at the
+ * time of the crash are replayed as not downloaded, nothing downloads them anymore after a restart.
+ *
+ * Appends aren't synced one by one, the journal is synced in group by {@link #sync()} and at each compaction.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DownloadStateJournal {
+
+    static final String JOURNAL = ".download-state.journal";
+    private static final Set<Status> IN_PROGRESS = Set(Status.STARTED, Status.PAUSED);
+
+    private final ItemRepository itemRepository;
+    private final SearchCache searchCache;
+    private final ObjectMapper mapper;
+    private final PodcastServerParameters podcastServerParameters;
+    private final StatsRollup statsRollup;
+    private final java.util.Map<UUID, DownloadState> pending = new ConcurrentHashMap<>();
+    private FileChannel output;
+    private boolean unsynced;
+
+    public void record(Item item) {
+        if (isNull(item.getId())) return;
+
+        DownloadState state = DownloadState.of(item);
+        synchronized (this) {
+            pending.put(state.getId(), state);
+            Try.run(() -> write(output(), toLine(state)))
+                    .andThen(() -> unsynced = true)
+                    .onFailure(e -> log.error("Error during write of the state of {} in the journal", item.getId(), e));
+        }
+    }
+
+    /**
+     * Sync of the states appended since the last sync, all of them at once
+     */
+    public synchronized void sync() {
+        if (!unsynced || isNull(output)) return;
+
+        Try.run(() -> output.force(false))
+                .andThen(() -> unsynced = false)
+                .onFailure(e -> log.error("Error during sync of the journal", e));
+    }
+
+    /**
+     * Write all the pending states in database, grouping status-only transitions by status
+     */
+    public void flush() {
+        Map<UUID, DownloadState> batch;
+        synchronized (this) {
+            batch = HashMap.ofAll(pending);
+        }
+
+        if (batch.isEmpty()) return;
+
+        Try<Void> written = Try.run(() -> write(batch.values().toList()));
+        if (written.isFailure()) {
+            log.error("Error during write of {} download state(s), will be retried", batch.size(), written.getCause());
+            return;
+        }
+
+        synchronized (this) {
+            batch.forEach((id, state) -> pending.remove(id, state));
+            compact();
+        }
+
+        if (batch.values().exists(s -> !IN_PROGRESS.contains(s.getStatus()))) {
+            searchCache.invalidate();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+        synchronized (this) {
+            sync();
+            closeOutput();
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void replay() {
+        Path journal = journal();
+        if (Files.notExists(journal)) return;
+
+        List<DownloadState> states = Try(() -> List.ofAll(Files.readAllLines(journal, StandardCharsets.UTF_8)))
+                .getOrElse(List::empty)
+                .filter(l -> !l.trim().isEmpty())
+                .flatMap(l -> Try(() -> mapper.readValue(l, DownloadState.class)).onFailure(e -> log.warn("Ignored line of the journal {}", l)))
+                .map(s -> IN_PROGRESS.contains(s.getStatus()) ? s.interrupted() : s);
+
+        log.info("Replay of {} download state(s) from the journal", states.size());
+        synchronized (this) {
+            states.forEach(s -> pending.put(s.getId(), s));
+        }
+        flush();
+    }
+
+    private void write(List<DownloadState> states) {
+        states
+                .filter(DownloadState::hasOnlyStatus)
+                .groupBy(DownloadState::getStatus)
+                .forEach((status, s) -> itemRepository.updateStatus(s.map(DownloadState::getId).toSet(), status));
+
+        states
+                .filter(s -> !s.hasOnlyStatus())
+                .forEach(s -> {
+                    itemRepository.updateDownloadState(s.getId(), s.getStatus(), s.getLength(), s.getMimeType(), s.getFileName(), s.getDownloadDate(), s.getNumberOfTry());
+                    statsRollup.changed(DailyStat.Kind.DOWNLOAD, s.getDownloadDate());
+                });
+    }
+
+    /* The journal is rewritten with the states still pending, replaced atomically to never be half written */
+    private void compact() {
+        Path journal = journal();
+        Path compacted = journal.resolveSibling(JOURNAL + ".tmp");
+        closeOutput();
+
+        Try.run(() -> {
+            if (pending.isEmpty()) {
+                Files.deleteIfExists(journal);
+                return;
+            }
+
+            try (FileChannel channel = FileChannel.open(compacted, CREATE, WRITE, TRUNCATE_EXISTING)) {
+                for (DownloadState state : pending.values()) write(channel, toLine(state));
+                channel.force(false);
+            }
+            Files.move(compacted, journal, ATOMIC_MOVE, REPLACE_EXISTING);
+        })
+                .onFailure(e -> log.error("Error during compaction of the journal", e));
+    }
+
+    private FileChannel output() throws IOException {
+        if (isNull(output)) {
+            output = FileChannel.open(journal(), CREATE, WRITE, APPEND);
+        }
+        return output;
+    }
+
+    /* Synced by the compaction or the deletion of the journal which follow */
+    private void closeOutput() {
+        Option(output).forEach(o -> Try.run(o::close));
+        output = null;
+        unsynced = false;
+    }
+
+    private static void write(FileChannel channel, byte[] line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private byte[] toLine(DownloadState state) throws IOException {
+        return (mapper.writeValueAsString(state) + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Path journal() {
+        return podcastServerParameters.getRootfolder().resolve(JOURNAL);
+    }
+
+    @Value
+    static class DownloadState {
+        private final UUID id;
+        private final Status status;
+        private final Long length;
+        private final String mimeType;
+        private final String fileName;
+        private final ZonedDateTime downloadDate;
+        private final Integer numberOfTry;
+
+        static DownloadState of(Item item) {
+            return new DownloadState(item.getId(), item.getStatus(), item.getLength(), item.getMimeType(), item.getFileName(), item.getDownloadDate(), item.getNumberOfTry());
+        }
+
+        DownloadState interrupted() {
+            return new DownloadState(id, Status.NOT_DOWNLOADED, length, mimeType, fileName, downloadDate, numberOfTry);
+        }
+
+        /**
+         * Only a finished download carries a file and only a retried one a number of try, others just change the
+         * status. A reset clears the file, so it is written whole, like a finished download
+         */
+        boolean hasOnlyStatus() {
+            return status != Status.FINISH && status != Status.NOT_DOWNLOADED && Option(numberOfTry).getOrElse(0) == 0;
+        }
+    }
+}
@@ -7,22 +7,32 @@ import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
 import lan.dk.podcastserver.entity.Status;
 import lan.dk.podcastserver.manager.worker.downloader.Downloader;
+import lan.dk.podcastserver.manager.worker.downloader.PartialDownload;
 import lan.dk.podcastserver.manager.worker.selector.DownloaderSelector;
 import lan.dk.podcastserver.repository.ItemRepository;
+import lan.dk.podcastserver.service.BandwidthService;
+import lan.dk.podcastserver.service.FfmpegService;
 import lan.dk.podcastserver.service.properties.PodcastServerParameters;
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
+import java.net.URI;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
 
+import static io.vavr.API.Option;
+import static io.vavr.API.Try;
+import static io.vavr.API.Tuple;
+import static java.util.Objects.isNull;
 import static java.util.concurrent.CompletableFuture.runAsync;
 import static lan.dk.podcastserver.manager.worker.selector.DownloaderSelector.NO_OP_DOWNLOADER;
 
@@ -38,18 +48,33 @@ public class ItemDownloadManager {
     private final PodcastServerParameters podcastServerParameters;
     private final DownloaderSelector downloaderSelector;
     private final ThreadPoolTaskExecutor downloadExecutor;
+    private final BandwidthService bandwidthService;
+    private final ProgressBroadcaster progressBroadcaster;
+    private final DownloadStateJournal downloadStateJournal;
+    private final FfmpegService ffmpegService;
     private final ReentrantLock mainLock = new ReentrantLock();
+    private final Integer concurrentDownloadByHost;
+    private final Integer concurrentDownloadByPodcast;
 
-    private @Getter Queue<Item> waitingQueue = Queue.empty();
-    private @Getter Map<Item, Downloader> downloadingQueue = HashMap.empty();
+    private final WaitingQueue waitingQueue = new WaitingQueue();
+    private final java.util.Map<UUID, Tuple2<Item, Downloader>> downloadingQueue = new ConcurrentHashMap<>();
+    private final java.util.Map<String, Integer> downloadsByHost = new ConcurrentHashMap<>();
+    private final java.util.Map<UUID, Integer> downloadsByPodcast = new ConcurrentHashMap<>();
+    private volatile String lastStartedHost;
 
     @Autowired
-    public ItemDownloadManager(SimpMessagingTemplate template, ItemRepository itemRepository, PodcastServerParameters podcastServerParameters, DownloaderSelector downloaderSelector, @Qualifier("DownloadExecutor") ThreadPoolTaskExecutor downloadExecutor) {
+    public ItemDownloadManager(SimpMessagingTemplate template, ItemRepository itemRepository, PodcastServerParameters podcastServerParameters, DownloaderSelector downloaderSelector, @Qualifier("DownloadExecutor") ThreadPoolTaskExecutor downloadExecutor, BandwidthService bandwidthService, DownloadStateJournal downloadStateJournal, FfmpegService ffmpegService, ProgressBroadcaster progressBroadcaster) {
         this.template = template;
         this.itemRepository = itemRepository;
         this.podcastServerParameters = podcastServerParameters;
         this.downloaderSelector = downloaderSelector;
         this.downloadExecutor = downloadExecutor;
+        this.bandwidthService = bandwidthService;
+        this.progressBroadcaster = progressBroadcaster;
+        this.downloadStateJournal = downloadStateJournal;
+        this.ffmpegService = ffmpegService;
+        this.concurrentDownloadByHost = podcastServerParameters.getConcurrentDownloadByHost();
+        this.concurrentDownloadByPodcast = podcastServerParameters.getConcurrentDownloadByPodcast();
 
         Item.rootFolder = podcastServerParameters.getRootfolder();
         Podcast.rootFolder = podcastServerParameters.getRootfolder();
@@ -62,6 +87,7 @@ public class ItemDownloadManager {
 
     public void setLimitParallelDownload(Integer limitParallelDownload) {
         downloadExecutor.setCorePoolSize(limitParallelDownload);
+        ffmpegService.setConcurrentDownload(limitParallelDownload);
         manageDownload();
     }
 
@@ -69,36 +95,179 @@ public class ItemDownloadManager {
         return downloadingQueue.size();
     }
 
+    public Queue<Item> getWaitingQueue() {
+        return waitingQueue.snapshot();
+    }
+
+    public Map<Item, Downloader> getDownloadingQueue() {
+        return HashMap.ofEntries(downloadingQueue.values());
+    }
+
+    public long getBandwidthLimit() {
+        return bandwidthService.getLimit();
+    }
+
+    public void setBandwidthLimit(Long limit) {
+        bandwidthService.setLimit(limit);
+    }
+
+    public long getBandwidthLimitByDownload() {
+        return bandwidthService.getLimitByDownload();
+    }
+
+    public void setBandwidthLimitByDownload(long limit) {
+        bandwidthService.setLimitByDownload(limit);
+    }
+
+    public Map<UUID, Long> getThroughputs() {
+        return bandwidthService.throughputs();
+    }
+
+    /* BANDWIDTH */
+    /**
+     * Record bytes transferred by the download of this item and block the caller while it is over the bandwidth limits
+     */
+    public void consumeBandwidth(Item item, long bytes) {
+        Option(item.getId()).map(bandwidthService::meter).forEach(m -> m.consume(bytes));
+    }
+
+    /**
+     * Record bytes transferred by an external process for this item, without blocking it. The bytes are still taken
+     * from the global limit, shared with the other downloads
+     */
+    public void recordBandwidth(Item item, long bytes) {
+        Option(item.getId()).map(bandwidthService::meter).forEach(m -> m.reserve(bytes));
+    }
+
+    public Boolean isBandwidthLimited() {
+        return bandwidthService.getLimit() > 0 || bandwidthService.getLimitByDownload() > 0;
+    }
+
+    /* PROGRESSION */
+    /**
+     * Record the progression of the download of this item, sent to clients at the next {@link #broadcastProgressions()}
+     */
+    public void progress(Item item, long bytes) {
+        Option(item.getId()).forEach(id -> progressBroadcaster.update(id, item.getProgression(), bytes));
+    }
+
+    /**
+     * Send in one frame the progression, speed and estimated remaining time of downloads which have changed
+     */
+    public void broadcastProgressions() {
+        Map<UUID, Long> throughputs = bandwidthService.throughputs();
+        progressBroadcaster.broadcast(id -> throughputs.get(id).getOrElse(0L));
+    }
+
+    /* STATE */
+    /**
+     * Record the download state of this item, written in database in bulk by the {@link DownloadStateJournal}
+     */
+    public void saveState(Item item) {
+        downloadStateJournal.record(item);
+    }
+
     /* METHODS */
     private void manageDownload() {
+        startDownloads();
+        this.convertAndSendWaitingQueue();
+    }
+
+    /**
+     * Downloads which were waiting for bandwidth are started once some is free again, the waiting queue is sent only if
+     * one of them started
+     */
+    public void startDownloadsWithFreeBandwidth() {
+        if (waitingQueue.isEmpty() || downloadingQueue.size() >= downloadExecutor.getCorePoolSize()) {
+            return;
+        }
+
+        if (startDownloads()) {
+            this.convertAndSendWaitingQueue();
+        }
+    }
+
+    /**
+     * A download is started only while the global limit of bandwidth isn't fully used by the others. Hosts take turns,
+     * the first eligible item of another host than the last one started goes first
+     */
+    private boolean startDownloads() {
         final ReentrantLock manageDownloadLock = this.mainLock;
+        boolean started = false;
 
         manageDownloadLock.lock();
         try {
-            while (downloadingQueue.size() < downloadExecutor.getCorePoolSize() && !waitingQueue.isEmpty()) {
-                Tuple2<Item, Queue<Item>> dequeue = waitingQueue.dequeue();
-                Item currentItem = dequeue._1();
-                this.waitingQueue = dequeue._2();
-                if (!isStartedOrFinished(currentItem)) {
-                    getDownloaderByTypeAndRun(currentItem);
-                }
+            while (downloadingQueue.size() < downloadExecutor.getCorePoolSize() && !waitingQueue.isEmpty() && bandwidthService.available() > 0) {
+                String lastHost = lastStartedHost;
+                Option<Item> next = waitingQueue.pollFirst(i -> isEligible(i) && !hostOf(i).equals(lastHost))
+                        .orElse(() -> waitingQueue.pollFirst(this::isEligible));
+                if (next.isEmpty()) break;
+
+                started = true;
+                next
+                    .filter(item -> !isStartedOrFinished(item))
+                    .forEach(this::getDownloaderByTypeAndRun);
             }
         } finally {
             manageDownloadLock.unlock();
         }
 
-        this.convertAndSendWaitingQueue();
+        return started;
     }
 
     private boolean isStartedOrFinished(Item currentItem) {
         return Status.STARTED == currentItem.getStatus() || Status.FINISH == currentItem.getStatus();
     }
 
+    /**
+     * Item which can't be started now because of its host or podcast budget stay in place in the waiting queue. The
+     * budgets are checked against counters of the current downloads, kept up to date when a download starts or ends
+     */
+    private boolean isEligible(Item item) {
+        if (isStartedOrFinished(item)) {
+            return true;
+        }
+
+        return isUnderLimit(downloadsByHost, hostOf(item), concurrentDownloadByHost) &&
+                isUnderLimit(downloadsByPodcast, podcastIdOf(item), concurrentDownloadByPodcast);
+    }
+
+    private static <T> boolean isUnderLimit(java.util.Map<T, Integer> downloads, T key, Integer limit) {
+        if (isNull(limit) || limit <= 0 || isNull(key)) {
+            return true;
+        }
+
+        return downloads.getOrDefault(key, 0) < limit;
+    }
+
+    private void countStarted(Item item) {
+        lastStartedHost = hostOf(item);
+        downloadsByHost.merge(hostOf(item), 1, Integer::sum);
+        Option(podcastIdOf(item)).forEach(id -> downloadsByPodcast.merge(id, 1, Integer::sum));
+    }
+
+    private void countEnded(Item item) {
+        downloadsByHost.computeIfPresent(hostOf(item), ItemDownloadManager::decrement);
+        Option(podcastIdOf(item)).forEach(id -> downloadsByPodcast.computeIfPresent(id, ItemDownloadManager::decrement));
+    }
+
+    private static <T> Integer decrement(T key, Integer count) {
+        return count > 1 ? count - 1 : null;
+    }
+
+    private static String hostOf(Item item) {
+        return Option(item.getUrl())
+                .flatMap(url -> Try(() -> new URI(url)).toOption())
+                .flatMap(uri -> Option(uri.getHost()))
+                .getOrElse("");
+    }
+
+    private static UUID podcastIdOf(Item item) {
+        return Option(item.getPodcast()).map(Podcast::getId).getOrElse(() -> null);
+    }
+
     private void initDownload() {
-        waitingQueue = waitingQueue
-                .enqueueAll(itemRepository.findAllToDownload(podcastServerParameters.limitDownloadDate())
-                .filter(item -> !waitingQueue.contains(item))
-        );
+        waitingQueue.addAll(itemRepository.findAllToDownload(podcastServerParameters.limitDownloadDate()));
     }
 
     public void launchDownload() {
@@ -106,24 +275,66 @@ public class ItemDownloadManager {
         this.manageDownload();
     }
 
+    /**
+     * Partial downloads left by a previous run are put back in the queue, the downloader will resume them. Those of
+     * items removed or not to download anymore are discarded
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePartialDownloads() {
+        Tuple2<List<Tuple2<PartialDownload, Option<Item>>>, List<Tuple2<PartialDownload, Option<Item>>>> partials = PartialDownload.findAll(podcastServerParameters.getRootfolder())
+                .map(p -> Tuple(p, Option(p.getItemId()).flatMap(id -> Option(itemRepository.findOne(id)))))
+                .partition(t -> t._2().exists(item -> Status.NOT_DOWNLOADED == item.getStatus()));
+
+        partials._2().forEach(t -> PartialDownload.discard(t._1().getPartial()));
+
+        List<Item> items = partials._1()
+                .flatMap(Tuple2::_2)
+                .distinctBy(Item::getId);
+
+        if (items.isEmpty()) {
+            return;
+        }
+
+        log.info("Resume of {} partial download(s)", items.size());
+        waitingQueue.addAll(items);
+        manageDownload();
+    }
+
+    /* A partial download is only resumed for an item still to download, once stopped, reset or deleted it is discarded */
+    public void discardPartialDownload(Item item) {
+        Option(item.getPodcast())
+                .map(Podcast::getTitle)
+                .map(podcastServerParameters.getRootfolder()::resolve)
+                .map(PartialDownload::findAll)
+                .getOrElse(List::empty)
+                .filter(p -> Objects.equals(item.getId(), p.getItemId()))
+                .forEach(p -> PartialDownload.discard(p.getPartial()));
+    }
+
     // Change status of all downloads :
     public void stopAllDownload() {
-        downloadingQueue.values().forEach(Downloader::stopDownload);
+        downloaders().forEach(this::stop);
     }
 
     public void pauseAllDownload() {
-        downloadingQueue.values().forEach(Downloader::pauseDownload);
+        downloaders().forEach(Downloader::pauseDownload);
     }
 
     public void restartAllDownload() {
-        List.ofAll(downloadingQueue.values())
+        downloaders()
                 .filter(downloader -> Status.PAUSED == downloader.getItem().getStatus())
                 .forEach(downloader -> runAsync(() -> getDownloaderByTypeAndRun(downloader.getItem())));
     }
 
     // Change State of id identified download
     public void stopDownload(UUID id) {
-        getDownloaderOfItemWithId(id).forEach(Downloader::stopDownload);
+        getDownloaderOfItemWithId(id).forEach(this::stop);
+    }
+
+    /* A download stopped on purpose won't be resumed */
+    private void stop(Downloader downloader) {
+        downloader.stopDownload();
+        discardPartialDownload(downloader.getItem());
     }
 
     public void pauseDownload(UUID id) {
@@ -131,11 +342,15 @@ public class ItemDownloadManager {
     }
 
     private Option<Downloader> getDownloaderOfItemWithId(UUID id) {
-        return downloadingQueue
-                .find(es -> Objects.equals(es._1().getId(), id))
+        return Option(id)
+                .flatMap(i -> Option(downloadingQueue.get(i)))
                 .map(Tuple2::_2);
     }
 
+    private List<Downloader> downloaders() {
+        return List.ofAll(downloadingQueue.values()).map(Tuple2::_2);
+    }
+
     public void restartDownload(UUID id) {
         getDownloaderOfItemWithId(id)
                 .map(Downloader::getItem)
@@ -165,7 +380,7 @@ public class ItemDownloadManager {
         if (waitingQueue.contains(item) || isInDownloadingQueue(item))
             return;
 
-        waitingQueue = waitingQueue.enqueue(item);
+        waitingQueue.add(item);
         manageDownload();
     }
 
@@ -174,33 +389,40 @@ public class ItemDownloadManager {
         Item item = itemRepository.findOne(id);
         this.removeItemFromQueue(item);
 
-        if (stopItem)
-            itemRepository.save(item.setStatus(Status.STOPPED));
+        if (stopItem) {
+            saveState(item.setStatus(Status.STOPPED));
+            discardPartialDownload(item);
+        }
 
         this.convertAndSendWaitingQueue();
     }
 
     private void removeItemFromQueue(Item item) {
-        waitingQueue = waitingQueue.remove(item);
+        waitingQueue.remove(item);
     }
 
     /* Helpers */
     public void removeACurrentDownload(Item item) {
-        downloadingQueue = downloadingQueue.remove(item);
+        Option(item.getId())
+                .flatMap(id -> Option(downloadingQueue.remove(id)))
+                .map(Tuple2::_1)
+                .forEach(this::countEnded);
+        Option(item.getId()).forEach(bandwidthService::release);
+        Option(item.getId()).forEach(progressBroadcaster::remove);
         manageDownload();
     }
 
     public Item getItemInDownloadingQueue(UUID id) {
-        return this.downloadingQueue
-                .keySet()
-                .find(i -> Objects.equals(i.getId(), id))
+        return Option(id)
+                .flatMap(i -> Option(downloadingQueue.get(i)))
+                .map(Tuple2::_1)
                 .getOrElse(() -> null);
     }
 
     private void getDownloaderByTypeAndRun(Item item) {
         if (isInDownloadingQueue(item)) { // case when the worker stay in the downloading queue
             log.debug("Start Item : " + item.getTitle());
-            Downloader downloader = downloadingQueue.get(item).getOrElse(NO_OP_DOWNLOADER);
+            Downloader downloader = getDownloaderOfItemWithId(item.getId()).getOrElse(NO_OP_DOWNLOADER);
             downloader.restartDownload();
         } else { // Case when the worker totally end when paused, need to launch as new
             launchWithNewWorkerFrom(item);
@@ -213,7 +435,9 @@ public class ItemDownloadManager {
                 .setItem(item)
                 .setItemDownloadManager(this);
 
-        downloadingQueue = downloadingQueue.put(item, worker);
+        if (isNull(downloadingQueue.put(item.getId(), Tuple(item, worker)))) {
+            countStarted(item);
+        }
         downloadExecutor.execute(worker);
     }
 
@@ -228,14 +452,15 @@ public class ItemDownloadManager {
         //* If the download is started or paused : *//
         if (isInDownloadingQueue(itemToRemove)) {
             stopDownload(itemToRemove.getId());
-        } else if (waitingQueue.contains(itemToRemove)) {
-            removeItemFromQueue(itemToRemove);
+        } else {
+            if (waitingQueue.contains(itemToRemove)) removeItemFromQueue(itemToRemove);
+            discardPartialDownload(itemToRemove);
         }
         this.convertAndSendWaitingQueue();
     }
 
     private void convertAndSendWaitingQueue() {
-        this.template.convertAndSend(WS_TOPIC_WAITING_LIST, this.waitingQueue);
+        this.template.convertAndSend(WS_TOPIC_WAITING_LIST, waitingQueue.snapshot());
     }
 
     public boolean canBeReset(Item item) {
@@ -243,30 +468,21 @@ public class ItemDownloadManager {
     }
 
     public Boolean isInDownloadingQueue(Item item) {
-        return downloadingQueue.containsKey(item);
+        return Option(item.getId())
+                .map(downloadingQueue::containsKey)
+                .getOrElse(false);
     }
 
     public Set<Item> getItemsInDownloadingQueue() {
-        return downloadingQueue.keySet();
+        return HashSet.ofAll(downloadingQueue.values()).map(Tuple2::_1);
     }
 
     public void moveItemInQueue(UUID itemId, Integer position) {
-        List<Item> copyWL = List.ofAll(waitingQueue);
-
-        Item itemToMove = copyWL
-            .find(item -> item.getId().equals(itemId))
-            .getOrElseThrow(() -> new RuntimeException("Moving element in waiting list not authorized : Element wasn't in the list"));
-
-        List<Item> reorderList = copyWL
-                .removeFirst(item -> item.getId().equals(itemId))
-                .insert(position, itemToMove);
-
-        waitingQueue = Queue.ofAll(reorderList);
-
+        waitingQueue.move(itemId, position);
         convertAndSendWaitingQueue();
     }
 
     public void clearWaitingQueue() {
-        waitingQueue = Queue.empty();
+        waitingQueue.clear();
     }
 }
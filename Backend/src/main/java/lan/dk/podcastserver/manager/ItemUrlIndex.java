@@ -0,0 +1,102 @@
+package lan.dk.podcastserver.manager;
+
+import lan.dk.podcastserver.entity.listener.ItemChanged;
+import lan.dk.podcastserver.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Urls of the items of each podcast, kept as a sorted array of 64 bits hashes, to know if an item is already in its
+ * podcast without loading the items. A podcast is loaded from the database the first time it is looked up, then urls of
+ * items persisted or removed are added and removed once the transaction which wrote them is committed.
+ */
+@Slf4j
+@Component
+public class ItemUrlIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final ItemRepository itemRepository;
+    private final Map<UUID, long[]> hashesByPodcast = new ConcurrentHashMap<>();
+
+    public ItemUrlIndex(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    public Boolean contains(UUID podcastId, String url) {
+        if (isNull(podcastId) || isNull(url)) return false;
+
+        long[] hashes = hashesByPodcast.computeIfAbsent(podcastId, this::load);
+        return Arrays.binarySearch(hashes, hashOf(url)) >= 0;
+    }
+
+    void add(UUID podcastId, String url) {
+        if (isNull(podcastId) || isNull(url)) return;
+        hashesByPodcast.computeIfPresent(podcastId, (id, hashes) -> with(hashes, hashOf(url)));
+    }
+
+    void remove(UUID podcastId, String url) {
+        if (isNull(podcastId) || isNull(url)) return;
+        hashesByPodcast.computeIfPresent(podcastId, (id, hashes) -> without(hashes, hashOf(url)));
+    }
+
+    private long[] load(UUID podcastId) {
+        long[] hashes = itemRepository.findUrlsByPodcast(podcastId)
+                .toJavaStream()
+                .mapToLong(ItemUrlIndex::hashOf)
+                .sorted()
+                .distinct()
+                .toArray();
+        log.debug("Index of podcast {} loaded with {} url(s)", podcastId, hashes.length);
+        return hashes;
+    }
+
+    private static long[] with(long[] hashes, long hash) {
+        int index = Arrays.binarySearch(hashes, hash);
+        if (index >= 0) return hashes;
+
+        int position = -(index + 1);
+        long[] added = new long[hashes.length + 1];
+        System.arraycopy(hashes, 0, added, 0, position);
+        added[position] = hash;
+        System.arraycopy(hashes, position, added, position + 1, hashes.length - position);
+        return added;
+    }
+
+    private static long[] without(long[] hashes, long hash) {
+        int index = Arrays.binarySearch(hashes, hash);
+        if (index < 0) return hashes;
+        if (hashes.length == 1) return EMPTY;
+
+        long[] removed = new long[hashes.length - 1];
+        System.arraycopy(hashes, 0, removed, 0, index);
+        System.arraycopy(hashes, index + 1, removed, index, hashes.length - index - 1);
+        return removed;
+    }
+
+    /* First 64 bits of the MD5 of the url, collisions between the urls of a podcast are negligible */
+    static long hashOf(String url) {
+        return ByteBuffer.wrap(DigestUtils.md5(url)).getLong();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChanged event) {
+        switch (event.getType()) {
+            case PERSISTED: add(event.getPodcastId(), event.getUrl()); break;
+            case REMOVED: remove(event.getPodcastId(), event.getUrl()); break;
+            default: break;
+        }
+    }
+}
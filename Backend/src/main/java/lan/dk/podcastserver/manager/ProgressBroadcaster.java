@@ -0,0 +1,86 @@
+package lan.dk.podcastserver.manager;
+
+import io.vavr.collection.List;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Last progression of each download of the {@link ItemDownloadManager}. Downloaders only record their progression here,
+ * and the changes since the previous tick are sent together in one compact frame instead of the whole item each time.
+ */
+@Component
+@RequiredArgsConstructor
+class ProgressBroadcaster {
+
+    static final String WS_TOPIC_PROGRESS = "/topic/download/progress";
+    static final long UNKNOWN = -1L;
+
+    private final SimpMessagingTemplate template;
+    private final Map<UUID, Progress> progressions = new ConcurrentHashMap<>();
+
+    void update(UUID id, int progression, long bytes) {
+        progressions.computeIfAbsent(id, k -> new Progress()).set(progression, bytes);
+    }
+
+    void remove(UUID id) {
+        progressions.remove(id);
+    }
+
+    void broadcast(Function<UUID, Long> speedOf) {
+        List<Frame> frames = List.ofAll(progressions.entrySet())
+                .filter(e -> e.getValue().hasChanged())
+                .map(e -> e.getValue().toFrame(e.getKey(), speedOf.apply(e.getKey())));
+
+        if (frames.isEmpty()) return;
+
+        template.convertAndSend(WS_TOPIC_PROGRESS, frames);
+    }
+
+    private static class Progress {
+
+        private int progression;
+        private long bytes;
+        private boolean changed;
+
+        synchronized void set(int progression, long bytes) {
+            changed = changed || this.progression != progression || this.bytes != bytes;
+            this.progression = progression;
+            this.bytes = bytes;
+        }
+
+        synchronized boolean hasChanged() {
+            return changed;
+        }
+
+        synchronized Frame toFrame(UUID id, long speed) {
+            changed = false;
+            return new Frame(id, progression, speed, eta(speed));
+        }
+
+        /* Size of the file is estimated from what has been received so far */
+        private long eta(long speed) {
+            if (speed <= 0 || progression <= 0 || bytes <= 0) return UNKNOWN;
+            long remaining = bytes * (100 - Math.min(progression, 100)) / progression;
+            return remaining / speed;
+        }
+    }
+
+    @Value
+    static class Frame {
+        private final UUID id;
+        private final int progression;
+        /* bytes per second */
+        private final long speed;
+        /* seconds */
+        private final long eta;
+    }
+}
@@ -0,0 +1,190 @@
+package lan.dk.podcastserver.manager;
+
+import io.vavr.collection.HashSet;
+import io.vavr.collection.List;
+import io.vavr.collection.Set;
+import lan.dk.podcastserver.entity.Item;
+import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.entity.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static io.vavr.API.Option;
+import static java.util.Objects.isNull;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Cache of the results of the item search, versioned by a generation. The generation only moves once a change which
+ * can alter a result is committed: a new or deleted item, a change of the searched, filtered or sorted fields of an
+ * item, or a change of the tags of a podcast. Saving an item for any other reason keeps the cached results. Bulk
+ * updates only move the generation, the results of the previous ones are left to the eviction of the cache.
+ */
+@Slf4j
+@Component
+public class SearchCache {
+
+    static final String NAME = "search";
+    static final Set<String> SEARCHED_PROPERTIES = HashSet.of("title", "description", "status", "pubDate", "downloadDate", "podcast");
+
+    private final CacheManager cacheManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SearchCache(CacheManager cacheManager, EntityManagerFactory entityManagerFactory) {
+        this.cacheManager = cacheManager;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    public void listen() {
+        Invalidation invalidation = new Invalidation(this);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        registry.appendListeners(EventType.POST_INSERT, invalidation);
+        registry.appendListeners(EventType.POST_UPDATE, invalidation);
+        registry.appendListeners(EventType.POST_DELETE, invalidation);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, invalidation);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, invalidation);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, invalidation);
+    }
+
+    /* The generation is read before the search, so a result computed during a change is never kept for the next generation */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Supplier<T> search, Object... parameters) {
+        Object key = new SimpleKey(List.of(parameters).prepend(generation.get()).toJavaArray());
+        Cache cache = cacheManager.getCache(NAME);
+
+        Cache.ValueWrapper cached = cache.get(key);
+        if (!isNull(cached)) {
+            hits.increment();
+            return (T) cached.get();
+        }
+
+        misses.increment();
+        T result = search.get();
+        cache.put(key, result);
+        return result;
+    }
+
+    public void invalidate() {
+        long current = generation.incrementAndGet();
+        log.debug("Search results of the generation {} invalidated", current - 1);
+    }
+
+    /* Results of the previous generations can't be reached anymore, they are dropped to free the heap */
+    public void clear() {
+        invalidate();
+        Option(cacheManager.getCache(NAME)).forEach(Cache::clear);
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    private void clearAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            clear();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                clear();
+            }
+        });
+    }
+
+    static class Invalidation implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+            PostCollectionRecreateEventListener, PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient SearchCache searchCache;
+
+        Invalidation(SearchCache searchCache) {
+            this.searchCache = searchCache;
+        }
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            if (event.getEntity() instanceof Item) searchCache.clearAfterCommit();
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (event.getEntity() instanceof Tag || event.getEntity() instanceof Item && isSearched(event)) {
+                searchCache.clearAfterCommit();
+            }
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (event.getEntity() instanceof Item || event.getEntity() instanceof Tag) searchCache.clearAfterCommit();
+        }
+
+        @Override
+        public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+            onTags(event);
+        }
+
+        @Override
+        public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+            onTags(event);
+        }
+
+        @Override
+        public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+            onTags(event);
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return false;
+        }
+
+        private void onTags(AbstractCollectionEvent event) {
+            if (event.getAffectedOwnerOrNull() instanceof Podcast && Option(event.getCollection().getRole()).exists(r -> r.endsWith(".tags"))) {
+                searchCache.clearAfterCommit();
+            }
+        }
+
+        /* Without dirty properties, Hibernate couldn't tell what changed */
+        private static Boolean isSearched(PostUpdateEvent event) {
+            if (isNull(event.getDirtyProperties())) return true;
+
+            String[] names = event.getPersister().getPropertyNames();
+            return List.ofAll(event.getDirtyProperties())
+                    .map(i -> names[i])
+                    .exists(SEARCHED_PROPERTIES::contains);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package lan.dk.podcastserver.manager;
+
+import io.vavr.collection.Set;
+import io.vavr.control.Try;
+import lan.dk.podcastserver.repository.ItemRepository;
+import lan.dk.podcastserver.service.properties.PodcastServerParameters;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.search.batchindexing.MassIndexerProgressMonitor;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.vavr.API.Try;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Items are indexed by Hibernate Search when they are committed, and by the repository after its bulk updates.
+ * {@link #check()} compares the number of items of the index and of the database, and only if they differ, their ids,
+ * to fix the differences item by item. The index is rebuilt in background only if it is empty, too far from the database
+ * or built with another mapping.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchIndexer {
+
+    static final int MAX_FIXES = 1000;
+    static final String MAPPING_VERSION_FILE = ".search-index.version";
+    /* To increase on each change of the indexed fields of Item, 2 for the status, podcast and dates of the search */
+    static final int MAPPING_VERSION = 2;
+
+    private final ItemRepository itemRepository;
+    private final PodcastServerParameters podcastServerParameters;
+    private final Progress progress = new Progress();
+    private Future<?> rebuilding = CompletableFuture.completedFuture(null);
+    private boolean hasMappingVersionToSave = false;
+
+    public synchronized Future<?> rebuild() {
+        if (!rebuilding.isDone()) {
+            return rebuilding;
+        }
+
+        log.info("Rebuild of the search index");
+        progress.reset();
+        rebuilding = itemRepository.reindex(progress);
+        hasMappingVersionToSave = true;
+        return rebuilding;
+    }
+
+    public synchronized boolean isRebuilding() {
+        return !rebuilding.isDone();
+    }
+
+    /* Index is read first, an item created between the two reads is indexed twice rather than purged */
+    public void check() {
+        if (isRebuilding()) return;
+        saveMappingVersionOfRebuild();
+
+        int mappingVersion = mappingVersion();
+        if (mappingVersion != MAPPING_VERSION) {
+            log.info("Search index built with the mapping version {} instead of {}", mappingVersion, MAPPING_VERSION);
+            rebuild();
+            return;
+        }
+
+        long numberOfIndexed = itemRepository.countIndexed();
+        long numberOfItems = itemRepository.count();
+        if (numberOfIndexed == numberOfItems) {
+            log.debug("Search index consistent with {} item(s)", numberOfItems);
+            return;
+        }
+
+        Set<UUID> indexed = itemRepository.findAllIndexedIds();
+        Set<UUID> items = itemRepository.findAllIds();
+        Set<UUID> missing = items.diff(indexed);
+        Set<UUID> removed = indexed.diff(items);
+
+        if (missing.isEmpty() && removed.isEmpty()) {
+            log.debug("Search index consistent with {} item(s)", items.size());
+            return;
+        }
+
+        if (indexed.isEmpty() || missing.size() + removed.size() > MAX_FIXES) {
+            rebuild();
+            return;
+        }
+
+        itemRepository.index(missing);
+        itemRepository.purge(removed);
+        log.info("Search index fixed, {} item(s) added and {} removed", missing.size(), removed.size());
+    }
+
+    public Progress progress() {
+        return progress;
+    }
+
+    /* An index without version was built before the mapping was versioned */
+    private int mappingVersion() {
+        Path version = mappingVersionFile();
+        if (Files.notExists(version)) return 1;
+
+        return Try(() -> Integer.valueOf(new String(Files.readAllBytes(version), StandardCharsets.UTF_8).trim()))
+                .onFailure(e -> log.warn("Unreadable version of the search index mapping in {}", version))
+                .getOrElse(0);
+    }
+
+    /* The rebuild starts with a purge of the index, so the version is saved only once it has completed without error */
+    private synchronized void saveMappingVersionOfRebuild() {
+        if (!hasMappingVersionToSave) return;
+
+        hasMappingVersionToSave = false;
+        Try(rebuilding::get)
+                .onSuccess(v -> saveMappingVersion())
+                .onFailure(e -> log.error("Error during rebuild of the search index, it will be rebuilt again", e));
+    }
+
+    private void saveMappingVersion() {
+        Try.run(() -> Files.write(mappingVersionFile(), String.valueOf(MAPPING_VERSION).getBytes(StandardCharsets.UTF_8)))
+                .onFailure(e -> log.error("Error during write of the version of the search index mapping", e));
+    }
+
+    private Path mappingVersionFile() {
+        return podcastServerParameters.getRootfolder().resolve(MAPPING_VERSION_FILE);
+    }
+
+    public static class Progress implements MassIndexerProgressMonitor {
+
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong loaded = new AtomicLong();
+        private final AtomicLong added = new AtomicLong();
+
+        @Override
+        public void addToTotalCount(long count) {
+            total.addAndGet(count);
+        }
+
+        @Override
+        public void entitiesLoaded(int size) {
+            loaded.addAndGet(size);
+        }
+
+        @Override
+        public void documentsBuilt(int number) {}
+
+        @Override
+        public void documentsAdded(long increment) {
+            added.addAndGet(increment);
+        }
+
+        @Override
+        public void indexingCompleted() {
+            log.info("Search index rebuilt with {} item(s)", added.get());
+        }
+
+        public long total() {
+            return total.get();
+        }
+
+        public long loaded() {
+            return loaded.get();
+        }
+
+        public long added() {
+            return added.get();
+        }
+
+        void reset() {
+            total.set(0);
+            loaded.set(0);
+            added.set(0);
+        }
+    }
+}
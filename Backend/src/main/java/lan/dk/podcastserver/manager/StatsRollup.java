@@ -0,0 +1,75 @@
+package lan.dk.podcastserver.manager;
+
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.HashSet;
+import io.vavr.collection.List;
+import io.vavr.collection.Set;
+import lan.dk.podcastserver.entity.DailyStat;
+import lan.dk.podcastserver.entity.listener.ItemChanged;
+import lan.dk.podcastserver.entity.listener.ItemDates;
+import lan.dk.podcastserver.repository.DailyStatRepository;
+import lan.dk.podcastserver.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Daily rollup of the number of items by podcast, for each kind of date. Days changed by the items persisted, updated,
+ * downloaded or removed are marked once the transaction is committed, the day an item leaves as well as the one it goes
+ * to, and counted again from the items by {@link #refresh()}, run on a schedule. {@link #rebuild()} counts every day again, for the changes made by bulk updates, which publish no {@link ItemChanged}.
+ */
+@Slf4j
+@Component
+public class StatsRollup {
+
+    private final ItemRepository itemRepository;
+    private final DailyStatRepository dailyStatRepository;
+    private final java.util.Set<Tuple2<DailyStat.Kind, LocalDate>> changedDays = ConcurrentHashMap.newKeySet();
+
+    public StatsRollup(ItemRepository itemRepository, DailyStatRepository dailyStatRepository) {
+        this.itemRepository = itemRepository;
+        this.dailyStatRepository = dailyStatRepository;
+    }
+
+    public synchronized void rebuild() {
+        changedDays.clear();
+        List.of(DailyStat.Kind.values())
+                .forEach(kind -> dailyStatRepository.replace(kind, itemRepository.countByDay(kind)));
+        log.info("Stats rolled up by day");
+    }
+
+    public synchronized void refresh() {
+        Set<Tuple2<DailyStat.Kind, LocalDate>> days = HashSet.ofAll(changedDays);
+        changedDays.removeAll(days.toJavaSet());
+        days.forEach(d -> dailyStatRepository.replace(d._1(), d._2(), itemRepository.countByDay(d._1(), d._2())));
+    }
+
+    public void changed(DailyStat.Kind kind, ZonedDateTime date) {
+        if (isNull(date)) return;
+        changedDays.add(Tuple.of(kind, date.withZoneSameInstant(ZoneId.systemDefault()).toLocalDate()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChanged event) {
+        event.getPreviousDates()
+                .filter(previous -> !previous.equals(event.getDates()))
+                .forEach(this::changed);
+        changed(event.getDates());
+    }
+
+    private void changed(ItemDates dates) {
+        changed(DailyStat.Kind.PUBLICATION, dates.getPubDate());
+        changed(DailyStat.Kind.CREATION, dates.getCreationDate());
+        changed(DailyStat.Kind.DOWNLOAD, dates.getDownloadDate());
+    }
+}
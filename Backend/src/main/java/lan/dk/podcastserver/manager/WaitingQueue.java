@@ -0,0 +1,245 @@
+package lan.dk.podcastserver.manager;
+
+import io.vavr.collection.Queue;
+import io.vavr.control.Option;
+import lan.dk.podcastserver.entity.Item;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Waiting list of the {@link ItemDownloadManager}, indexed by item id.
+ * Order is kept in an implicit treap (positional, size-augmented), so membership is O(1)
+ * and removal, insertion at a position and move are O(log n).
+ * Writers are serialized on the instance, readers use the cached immutable {@link #snapshot()}.
+ */
+class WaitingQueue {
+
+    private final Map<UUID, Node> index = new HashMap<>();
+    private Node root;
+    private volatile Queue<Item> snapshot = Queue.empty();
+
+    synchronized boolean add(Item item) {
+        if (isNull(item.getId()) || index.containsKey(item.getId())) {
+            return false;
+        }
+
+        Node node = new Node(item);
+        index.put(item.getId(), node);
+        root = detach(merge(root, node));
+        snapshot = null;
+        return true;
+    }
+
+    synchronized void addAll(Iterable<Item> items) {
+        items.forEach(this::add);
+    }
+
+    boolean contains(Item item) {
+        return !isNull(item.getId()) && contains(item.getId());
+    }
+
+    synchronized boolean contains(UUID id) {
+        return index.containsKey(id);
+    }
+
+    synchronized Option<Item> find(UUID id) {
+        return Option.of(index.get(id)).map(n -> n.item);
+    }
+
+    synchronized boolean remove(Item item) {
+        return !isNull(item.getId()) && removeNode(index.get(item.getId())).isDefined();
+    }
+
+    synchronized Option<Item> poll() {
+        return isNull(root) ? Option.none() : removeNode(nodeAt(0));
+    }
+
+    /**
+     * Remove and return the first item, in queue order, matching the predicate.
+     * Items which don't match keep their position.
+     */
+    synchronized Option<Item> pollFirst(Predicate<Item> predicate) {
+        Deque<Node> stack = new ArrayDeque<>();
+        Node current = root;
+        while (!isNull(current) || !stack.isEmpty()) {
+            while (!isNull(current)) {
+                stack.push(current);
+                current = current.left;
+            }
+            current = stack.pop();
+            if (predicate.test(current.item)) {
+                return removeNode(current);
+            }
+            current = current.right;
+        }
+        return Option.none();
+    }
+
+    synchronized void move(UUID id, int position) {
+        Node node = Option.of(index.get(id))
+                .getOrElseThrow(() -> new RuntimeException("Moving element in waiting list not authorized : Element wasn't in the list"));
+
+        removeNode(node);
+        node.reset();
+        index.put(id, node);
+
+        Node[] parts = split(root, Math.max(0, Math.min(position, size(root))));
+        root = detach(merge(merge(detach(parts[0]), node), detach(parts[1])));
+        snapshot = null;
+    }
+
+    synchronized void clear() {
+        index.clear();
+        root = null;
+        snapshot = Queue.empty();
+    }
+
+    synchronized int size() {
+        return size(root);
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    Queue<Item> snapshot() {
+        Queue<Item> current = snapshot;
+        return isNull(current) ? buildSnapshot() : current;
+    }
+
+    private synchronized Queue<Item> buildSnapshot() {
+        if (isNull(snapshot)) {
+            java.util.List<Item> items = new java.util.ArrayList<>(size(root));
+            Deque<Node> stack = new ArrayDeque<>();
+            Node current = root;
+            while (!isNull(current) || !stack.isEmpty()) {
+                while (!isNull(current)) {
+                    stack.push(current);
+                    current = current.left;
+                }
+                current = stack.pop();
+                items.add(current.item);
+                current = current.right;
+            }
+            snapshot = Queue.ofAll(items);
+        }
+        return snapshot;
+    }
+
+    /* Treap operations */
+    private Option<Item> removeNode(Node node) {
+        if (isNull(node)) {
+            return Option.none();
+        }
+
+        int position = positionOf(node);
+        Node[] left = split(root, position);
+        Node[] right = split(detach(left[1]), 1);
+        root = detach(merge(detach(left[0]), detach(right[1])));
+        index.remove(node.item.getId());
+        snapshot = null;
+        return Option.of(node.item);
+    }
+
+    private Node nodeAt(int position) {
+        Node current = root;
+        while (!isNull(current)) {
+            int leftSize = size(current.left);
+            if (position < leftSize) {
+                current = current.left;
+            } else if (position == leftSize) {
+                return current;
+            } else {
+                position -= leftSize + 1;
+                current = current.right;
+            }
+        }
+        return null;
+    }
+
+    private static int positionOf(Node node) {
+        int position = size(node.left);
+        Node current = node;
+        while (!isNull(current.parent)) {
+            if (current.parent.right == current) {
+                position += size(current.parent.left) + 1;
+            }
+            current = current.parent;
+        }
+        return position;
+    }
+
+    private static Node[] split(Node node, int count) {
+        if (isNull(node)) {
+            return new Node[] { null, null };
+        }
+
+        if (size(node.left) >= count) {
+            Node[] parts = split(node.left, count);
+            node.left = parts[1];
+            update(node);
+            return new Node[] { parts[0], node };
+        }
+
+        Node[] parts = split(node.right, count - size(node.left) - 1);
+        node.right = parts[0];
+        update(node);
+        return new Node[] { node, parts[1] };
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (isNull(left)) return right;
+        if (isNull(right)) return left;
+
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        if (!isNull(node.left)) node.left.parent = node;
+        if (!isNull(node.right)) node.right.parent = node;
+    }
+
+    private static Node detach(Node node) {
+        if (!isNull(node)) node.parent = null;
+        return node;
+    }
+
+    private static int size(Node node) {
+        return isNull(node) ? 0 : node.size;
+    }
+
+    private static class Node {
+        private final Item item;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private int size = 1;
+        private Node left, right, parent;
+
+        private Node(Item item) {
+            this.item = item;
+        }
+
+        private void reset() {
+            size = 1;
+            left = right = parent = null;
+        }
+    }
+}
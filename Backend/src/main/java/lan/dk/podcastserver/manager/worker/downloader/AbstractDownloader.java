@@ -8,6 +8,7 @@ import lan.dk.podcastserver.manager.ItemDownloadManager;
 import lan.dk.podcastserver.repository.ItemRepository;
 import lan.dk.podcastserver.repository.PodcastRepository;
 import lan.dk.podcastserver.service.MimeTypeService;
+import lan.dk.podcastserver.service.ProcessService;
 import lan.dk.podcastserver.service.properties.PodcastServerParameters;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -52,6 +53,7 @@ public abstract class AbstractDownloader implements Runnable, Downloader {
     protected Path target;
     private PathMatcher hasTempExtensionMatcher;
     AtomicBoolean stopDownloading = new AtomicBoolean(false);
+    long transferred = 0L;
 
     @Override
     public void run() {
@@ -63,7 +65,8 @@ public abstract class AbstractDownloader implements Runnable, Downloader {
     public void startDownload() {
         item.setStatus(Status.STARTED);
         stopDownloading.set(false);
-        saveSyncWithPodcast();
+        transferred = 0L;
+        saveState();
         convertAndSaveBroadcast();
         Try(this::download)
             .onFailure(e -> log.error("Error during download", e))
@@ -74,7 +77,7 @@ public abstract class AbstractDownloader implements Runnable, Downloader {
     public void pauseDownload() {
         item.setStatus(Status.PAUSED);
         stopDownloading.set(true);
-        saveSyncWithPodcast();
+        saveState();
         convertAndSaveBroadcast();
     }
 
@@ -82,12 +85,19 @@ public abstract class AbstractDownloader implements Runnable, Downloader {
     public void stopDownload() {
         item.setStatus(Status.STOPPED);
         stopDownloading.set(true);
-        saveSyncWithPodcast();
+        saveState();
         itemDownloadManager.removeACurrentDownload(item);
-        if (nonNull(target)) Try.run(() -> Files.deleteIfExists(target));
+        if (nonNull(target) && !isResumable()) Try.run(() -> Files.deleteIfExists(target));
         convertAndSaveBroadcast();
     }
 
+    /**
+     * A resumable download keeps its partial file when stopped, to continue from it later
+     */
+    protected boolean isResumable() {
+        return false;
+    }
+
     @Override
     @Transactional
     public void finishDownload() {
@@ -117,7 +127,7 @@ public abstract class AbstractDownloader implements Runnable, Downloader {
         item.setFileName(FilenameUtils.getName(target.getFileName().toString()));
         item.setDownloadDate(ZonedDateTime.now());
 
-        saveSyncWithPodcast();
+        saveState();
         convertAndSaveBroadcast();
     }
 
@@ -155,18 +165,47 @@ public abstract class AbstractDownloader implements Runnable, Downloader {
                 .getOrElseThrow(e -> new UncheckedIOException(IOException.class.cast(e)));
     }
 
-    private Path getDestinationFile(Item item) {
+    Path getDestinationFile(Item item) {
         String fileName = getFileName(item);
         return  podcastServerParameters.getRootfolder().resolve(item.getPodcast().getTitle()).resolve(fileName);
     }
 
-    @Transactional
-    protected void saveSyncWithPodcast() {
-        Try.run(() -> {
-            item.setPodcast(podcastRepository.findOne(item.getPodcast().getId()));
-            itemRepository.save(item);
-        })
-            .onFailure(e -> log.error("Error during save and Sync of the item {}", item, e));
+    /**
+     * Called with the number of bytes received since the beginning, blocks while the download is over the bandwidth limits
+     */
+    void consumeBandwidth(long count) {
+        itemDownloadManager.consumeBandwidth(item, count - transferred);
+        transferred = count;
+    }
+
+    /**
+     * Called with the number of bytes received by an external process since the beginning. The process is slowed down by
+     * its own options, the bytes are only recorded in the bandwidth used by the downloads
+     */
+    void recordBandwidth(long count) {
+        itemDownloadManager.recordBandwidth(item, count - transferred);
+        transferred = count;
+    }
+
+    /**
+     * External processes are slowed down by their own options only if a limit of bandwidth is set
+     */
+    Boolean isBandwidthLimited() {
+        return itemDownloadManager.isBandwidthLimited();
+    }
+
+    /**
+     * The state is journaled by the {@link ItemDownloadManager} and written later in database, with other transitions
+     */
+    protected void saveState() {
+        itemDownloadManager.saveState(item);
+    }
+
+    /**
+     * Progression is sent to clients by the {@link ItemDownloadManager} at a fixed rate, only status changes are broadcast immediately
+     */
+    void reportProgression(long bytes) {
+        itemDownloadManager.progress(item, bytes);
     }
 
     @Transactional
@@ -4,12 +4,14 @@ import com.github.axet.wget.WGet;
 import com.github.axet.wget.info.DownloadInfo;
 import com.github.axet.wget.info.ex.DownloadInterruptedError;
 import com.github.axet.wget.info.ex.DownloadMultipartError;
+import io.vavr.control.Option;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.manager.ItemDownloadManager;
 import lan.dk.podcastserver.repository.ItemRepository;
 import lan.dk.podcastserver.repository.PodcastRepository;
 import lan.dk.podcastserver.service.MimeTypeService;
 import lan.dk.podcastserver.service.UrlService;
+import lan.dk.podcastserver.service.factory.ResumableDownloadInfo;
 import lan.dk.podcastserver.service.factory.WGetFactory;
 import lan.dk.podcastserver.service.properties.PodcastServerParameters;
 import lombok.extern.slf4j.Slf4j;
@@ -19,8 +21,12 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Objects;
 
+import static io.vavr.API.Option;
+import static io.vavr.API.Try;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
@@ -33,6 +39,7 @@ public class HTTPDownloader extends AbstractDownloader {
     private final WGetFactory wGetFactory;
 
     DownloadInfo info = null;
+    PartialDownload partialDownload = null;
 
     private final HTTPWatcher itemSynchronisation = new HTTPWatcher(this);
 
@@ -50,6 +57,7 @@ public class HTTPDownloader extends AbstractDownloader {
             info = wGetFactory.newDownloadInfo(urlService.getRealURL(getItemUrl(item)));
             info.extract(stopDownloading, itemSynchronisation);
             target = getTargetFile(item);
+            prepareResume();
             WGet w = wGetFactory.newWGet(info, target.toFile());
             w.download(stopDownloading, itemSynchronisation);
         } catch (DownloadMultipartError e) {
@@ -69,6 +77,67 @@ public class HTTPDownloader extends AbstractDownloader {
         return item;
     }
 
+    /* If the partial file on disk isn't a prefix of the remote resource, we start from zero */
+    void prepareResume() {
+        PartialDownload remote = PartialDownload.builder()
+                .partial(target)
+                .itemId(item.getId())
+                .url(String.valueOf(info.getSource()))
+                .eTag(resumableInfo().map(ResumableDownloadInfo::getETag).getOrElse(() -> null))
+                .lastModified(resumableInfo().map(ResumableDownloadInfo::getLastModified).getOrElse(() -> null))
+                .length(info.getLength())
+                .build();
+
+        boolean canResume = info.getRange() && PartialDownload.of(target).exists(remote::isSameResourceAs);
+        if (!canResume) {
+            Try(() -> Files.deleteIfExists(target));
+            PartialDownload.delete(target);
+        }
+
+        partialDownload = remote.withCount(Try(() -> Files.size(target)).getOrElse(0L));
+        transferred = partialDownload.getCount();
+        if (info.getRange()) {
+            partialDownload.save();
+            log.debug("Download of {} starts at byte {}", item.getTitle(), partialDownload.getCount());
+        }
+    }
+
+    void saveProgress(long count) {
+        if (isResumable()) {
+            partialDownload = partialDownload.withCount(count);
+            partialDownload.save();
+        }
+    }
+
+    private Option<ResumableDownloadInfo> resumableInfo() {
+        return Option(info)
+                .filter(ResumableDownloadInfo.class::isInstance)
+                .map(ResumableDownloadInfo.class::cast);
+    }
+
+    @Override
+    protected boolean isResumable() {
+        return nonNull(info) && nonNull(partialDownload) && info.getRange();
+    }
+
+    @Override
+    public Path getTargetFile(Item item) {
+        if (nonNull(target)) return target;
+
+        return Option(item.getId())
+                .map(id -> getDestinationFile(item))
+                .map(f -> f.resolveSibling(f.getFileName() + temporaryExtension))
+                .filter(partial -> PartialDownload.of(partial).exists(p -> item.getId().equals(p.getItemId())))
+                .peek(partial -> log.info("Partial download found for {} at {}", item.getTitle(), partial))
+                .getOrElse(() -> super.getTargetFile(item));
+    }
+
+    @Override
+    public void finishDownload() {
+        Option(target).forEach(PartialDownload::delete);
+        super.finishDownload();
+    }
+
     @Override
     public Integer compatibility(String url) {
         return url.startsWith("http") ? Integer.MAX_VALUE-1 : Integer.MAX_VALUE;
@@ -107,13 +176,15 @@ public class HTTPDownloader extends AbstractDownloader {
                     log.debug(FilenameUtils.getName(String.valueOf(httpDownloader.getItemUrl(item))) + " " + info.getState() + " " + info.getDelay());
                     break;
                 case DOWNLOADING:
+                    httpDownloader.consumeBandwidth(info.getCount());
                     if (isNull(info.getLength()) || (nonNull(info.getLength()) && info.getLength() == 0L)) break;
 
                     int progression = (int) (info.getCount()*100 / (float) info.getLength());
                     if (item.getProgression() < progression) {
                         item.setProgression(progression);
                         log.debug("Progression de {} : {}%", item.getTitle(), progression);
-                        httpDownloader.convertAndSaveBroadcast();
+                        httpDownloader.saveProgress(info.getCount());
+                        httpDownloader.reportProgression(info.getCount());
                     }
                     break;
                 case STOP:
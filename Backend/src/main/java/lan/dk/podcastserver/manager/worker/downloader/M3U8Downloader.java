@@ -1,24 +1,54 @@
 package lan.dk.podcastserver.manager.worker.downloader;
 
 
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
 import io.vavr.control.Try;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Status;
 import lan.dk.podcastserver.repository.ItemRepository;
 import lan.dk.podcastserver.repository.PodcastRepository;
 import lan.dk.podcastserver.service.*;
+import lan.dk.podcastserver.service.M3U8Service.MediaPlaylist;
 import lan.dk.podcastserver.service.properties.PodcastServerParameters;
 import lombok.extern.slf4j.Slf4j;
 import net.bramp.ffmpeg.builder.FFmpegBuilder;
 import net.bramp.ffmpeg.progress.ProgressListener;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.springframework.context.annotation.Scope;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Resource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
+import static io.vavr.API.Option;
+import static io.vavr.API.Try;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
 @Slf4j
@@ -31,7 +61,11 @@ public class M3U8Downloader extends AbstractDownloader {
     protected final FfmpegService ffmpegService;
     protected final ProcessService processService;
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_RETRY_BY_SEGMENT = 3;
+
     protected Process process;
+    private TaskExecutor segmentExecutor = new SyncTaskExecutor();
 
     public M3U8Downloader(ItemRepository itemRepository, PodcastRepository podcastRepository, PodcastServerParameters podcastServerParameters, SimpMessagingTemplate template, MimeTypeService mimeTypeService, UrlService urlService, M3U8Service m3U8Service, FfmpegService ffmpegService, ProcessService processService) {
         super(itemRepository, podcastRepository, podcastServerParameters, template, mimeTypeService);
@@ -41,12 +75,51 @@ public class M3U8Downloader extends AbstractDownloader {
         this.processService = processService;
     }
 
+    @Resource(name = "SegmentExecutor")
+    public void setSegmentExecutor(TaskExecutor segmentExecutor) {
+        this.segmentExecutor = segmentExecutor;
+    }
+
     @Override
     public Item download() {
         log.debug("Download");
 
         target = getTargetFile(item);
+        if (isNull(target)) {
+            return item;
+        }
+
+        List<String> urls = getItemUrls();
+        Option<List<MediaPlaylist>> playlists = findMediaPlaylists(urls);
+        if (playlists.isEmpty()) {
+            return urls.size() == 1 ? downloadWithFfmpeg() : downloadPartsWithFfmpeg(urls);
+        }
+
+        downloadSegments(playlists.get());
+        return item;
+    }
+
+    /**
+     * Urls of the parts of the item, downloaded one after the other in the same file
+     */
+    protected List<String> getItemUrls() {
+        return List.of(getItemUrl(item));
+    }
+
+    /* Parts are natively downloaded only if all of them can be, and fragmented mp4 parts can't be chained */
+    private Option<List<MediaPlaylist>> findMediaPlaylists(List<String> urls) {
+        List<Option<MediaPlaylist>> playlists = inParallel(urls, url -> m3U8Service.findMediaPlaylist(url, withUserAgent()));
+
+        if (playlists.exists(Option::isEmpty)) {
+            return Option.none();
+        }
+
+        List<MediaPlaylist> found = playlists.map(Option::get);
+        return Option.of(found).filter(p -> p.size() == 1 || !p.exists(MediaPlaylist::isFragmentedMp4));
+    }
 
+    /* Streams not handled by the segment download are entirely delegated to ffmpeg */
+    private Item downloadWithFfmpeg() {
         Double duration = ffmpegService.getDurationOf(getItemUrl(item), withUserAgent());
 
         FFmpegBuilder command = new FFmpegBuilder()
@@ -60,7 +133,7 @@ public class M3U8Downloader extends AbstractDownloader {
                 .done();
 
 
-        process = ffmpegService.download(getItemUrl(item), command, handleProgression(0d, duration));
+        process = ffmpegService.download(getItemUrl(item), withBandwidthLimit(command), handleProgression(0d, duration));
 
         processService.waitFor(process);
 
@@ -70,18 +143,242 @@ public class M3U8Downloader extends AbstractDownloader {
         return item;
     }
 
+    /**
+     * Each part is downloaded by ffmpeg in a file next to the target, and all of them are concatenated at the end.
+     * Parts are downloaded one at a time, to be paused and restarted like a single process
+     */
+    private Item downloadPartsWithFfmpeg(List<String> urls) {
+        List<Double> durations = inParallel(urls, url -> ffmpegService.getDurationOf(url, withUserAgent()));
+        Double globalDuration = durations.sum().doubleValue();
+        Double alreadyDoneDuration = 0d;
+
+        List<Path> parts = List.empty();
+        for (Tuple2<String, Double> part : urls.zip(durations)) {
+            if (item.getStatus() == Status.STOPPED) break;
+
+            Path subTarget = generateTempFileNextTo(target);
+            parts = parts.append(subTarget);
+            log.debug("Download {} from {}", part._1(), item.getTitle());
+
+            FFmpegBuilder command = new FFmpegBuilder()
+                    .setUserAgent(withUserAgent())
+                    .addInput(part._1())
+                    .addOutput(subTarget.toAbsolutePath().toString())
+                    .setFormat("mp4")
+                    .setAudioBitStreamFilter(FfmpegService.AUDIO_BITSTREAM_FILTER_AAC_ADTSTOASC)
+                    .setVideoCodec(FfmpegService.CODEC_COPY)
+                    .setAudioCodec(FfmpegService.CODEC_COPY)
+                    .done();
+
+            process = ffmpegService.download(part._1(), withBandwidthLimit(command), handleProgression(alreadyDoneDuration, globalDuration));
+            processService.waitFor(process);
+
+            alreadyDoneDuration += part._2();
+        }
+
+        if (item.getStatus() == Status.STARTED)
+            ffmpegService.concat(target, parts.toJavaArray(Path.class));
+
+        parts.forEach(v -> Try(() -> Files.deleteIfExists(v)));
+
+        if (item.getStatus() == Status.STARTED)
+            finishDownload();
+
+        return item;
+    }
+
+    /**
+     * Segments of all parts are fetched in parallel by the connections shared by all the downloads, in a window of limited
+     * size, and appended in order to the stream of their part. MPEG-TS streams are then copied into a mp4 container,
+     * a fragmented mp4 stream is used as is
+     */
+    private void downloadSegments(List<MediaPlaylist> playlists) {
+        List<Tuple2<Integer, String>> parts = playlists.zipWithIndex()
+                .flatMap(p -> p._1().getInit().toList().appendAll(p._1().getSegments()).map(url -> Tuple.of(p._2().intValue(), url)));
+        boolean isFragmentedMp4 = playlists.size() == 1 && playlists.head().isFragmentedMp4();
+        List<Path> streams = isFragmentedMp4
+                ? List.of(target)
+                : playlists.size() == 1
+                    ? List.of(target.resolveSibling(target.getFileName() + ".ts"))
+                    : List.range(0, playlists.size()).map(i -> target.resolveSibling(target.getFileName() + "." + i + ".ts"));
+        if (parts.isEmpty()) {
+            log.error("No segment to download for {}", item.getTitle());
+            stopDownload();
+            return;
+        }
+
+        int window = parallelism();
+        log.debug("Download of {} segments of {} with {} connections", parts.size(), item.getTitle(), window);
+
+        boolean hasFailed;
+        FileChannel channel = null;
+        Deque<FutureTask<Tuple2<Integer, byte[]>>> fetching = new ArrayDeque<>();
+        try {
+            Iterator<Tuple2<Integer, String>> toFetch = parts.iterator();
+            int stream = -1;
+            long bytes = 0;
+            int done = 0;
+
+            while (!stopDownloading.get() && (toFetch.hasNext() || !fetching.isEmpty())) {
+                while (toFetch.hasNext() && fetching.size() < window) {
+                    Tuple2<Integer, String> part = toFetch.next();
+                    FutureTask<Tuple2<Integer, byte[]>> task = new FutureTask<>(() -> Tuple.of(part._1(), fetch(part._2())));
+                    fetching.add(task);
+                    segmentExecutor.execute(task);
+                }
+
+                Tuple2<Integer, byte[]> segment = fetching.poll().get();
+                if (stopDownloading.get()) break;
+
+                if (segment._1() != stream) {
+                    if (nonNull(channel)) channel.close();
+                    stream = segment._1();
+                    channel = FileChannel.open(streams.get(stream), CREATE, WRITE, TRUNCATE_EXISTING);
+                }
+
+                bytes += write(channel, segment._2());
+                broadcastProgression(++done * 100 / parts.size(), bytes);
+            }
+            hasFailed = false;
+        } catch (IOException | ExecutionException | InterruptedException e) {
+            log.error("Error during download of segments of {}", item.getTitle(), e);
+            hasFailed = true;
+        } finally {
+            fetching.forEach(f -> f.cancel(true));
+            FileChannel opened = channel;
+            if (nonNull(opened)) Try.run(opened::close);
+        }
+
+        if (hasFailed) {
+            if (!isFragmentedMp4) deleteAll(streams);
+            stopDownload();
+            return;
+        }
+
+        if (stopDownloading.get()) {
+            if (!isFragmentedMp4) deleteAll(streams);
+            log.debug("Arrêt du téléchargement");
+            return;
+        }
+
+        if (!isFragmentedMp4) {
+            Try<Path> remuxed = (streams.size() == 1 ? Try(() -> ffmpegService.remux(streams.head(), target)) : concat(streams, playlists.map(MediaPlaylist::getDuration)))
+                    .andFinally(() -> deleteAll(streams))
+                    .onFailure(e -> log.error("Error during remux of {}", item.getTitle(), e));
+
+            if (remuxed.isFailure()) {
+                stopDownload();
+                return;
+            }
+        }
+
+        if (item.getStatus() == Status.STARTED)
+            finishDownload();
+    }
+
+    /**
+     * Timestamps restart in each part, so parts are joined by the concat demuxer in one pass into the target. A part is
+     * deleted as soon as the output goes past its end, the demuxer having moved to the next one
+     */
+    private Try<Path> concat(List<Path> streams, List<Double> durations) {
+        List<Double> ends = durations.scanLeft(0d, Double::sum).tail();
+        AtomicInteger consumed = new AtomicInteger();
+
+        return Try(() -> ffmpegService.concatStreams(target, streams, p -> {
+            double done = TimeUnit.MICROSECONDS.toMillis(p.out_time_ms) / 1000d;
+            while (consumed.get() < streams.size() - 1 && ends.get(consumed.get()) < done) {
+                Path part = streams.get(consumed.getAndIncrement());
+                Try(() -> Files.deleteIfExists(part));
+            }
+        }));
+    }
+
+    private static void deleteAll(List<Path> files) {
+        files.forEach(f -> Try(() -> Files.deleteIfExists(f)));
+    }
+
+    /**
+     * Applies the function to all the values, with the connections shared by all the downloads, and keeps their order
+     */
+    protected <T, R> List<R> inParallel(List<T> values, Function<T, R> f) {
+        if (values.size() <= 1) {
+            return values.map(f);
+        }
+
+        List<FutureTask<R>> tasks = values.map(v -> new FutureTask<>(() -> f.apply(v)));
+        tasks.forEach(segmentExecutor::execute);
+        try {
+            return tasks.map(t -> Try(t::get).getOrElseThrow(e -> new RuntimeException("Error during parallel processing of " + item.getTitle(), e.getCause())));
+        } finally {
+            tasks.forEach(t -> t.cancel(true));
+        }
+    }
+
+    private int parallelism() {
+        return Math.max(1, podcastServerParameters.getConcurrentSegmentByDownload());
+    }
+
+    private byte[] fetch(String url) throws IOException {
+        IOException lastError = null;
+        for (int i = 0; i < MAX_RETRY_BY_SEGMENT && !stopDownloading.get(); i++) {
+            try {
+                return fetchOnce(url);
+            } catch (IOException e) {
+                log.debug("Error on segment {} of {} : {}", url, item.getTitle(), e.getMessage());
+                lastError = e;
+            }
+        }
+        throw Option(lastError).getOrElse(() -> new IOException("Download of " + url + " interrupted"));
+    }
+
+    private byte[] fetchOnce(String url) throws IOException {
+        try (CloseableHttpResponse response = urlService.open(url, withUserAgent())) {
+            int status = response.getStatusLine().getStatusCode();
+            if (status != HTTP_OK || isNull(response.getEntity())) {
+                throw new IOException("Segment not available, status " + status);
+            }
+
+            try (InputStream is = response.getEntity().getContent()) {
+                ByteArrayOutputStream segment = new ByteArrayOutputStream((int) Math.max(response.getEntity().getContentLength(), BUFFER_SIZE));
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while (!stopDownloading.get() && (read = is.read(buffer)) != -1) {
+                    segment.write(buffer, 0, read);
+                    itemDownloadManager.consumeBandwidth(item, read);
+                }
+                return segment.toByteArray();
+            }
+        }
+    }
+
+    private static long write(FileChannel channel, byte[] segment) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(segment);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return segment.length;
+    }
+
+    /* Under a limit of bandwidth, ffmpeg reads the stream at its own rate instead of as fast as possible */
+    FFmpegBuilder withBandwidthLimit(FFmpegBuilder command) {
+        return isBandwidthLimited() ? command.readAtNativeFrameRate() : command;
+    }
+
     protected String withUserAgent() {
         return UrlService.USER_AGENT_DESKTOP;
     }
 
     ProgressListener handleProgression(Double alreadyDoneDuration, Double globalDuration) {
-        return p -> broadcastProgression(((Float) ((Long.valueOf(p.out_time_ms).floatValue() + alreadyDoneDuration.longValue()) / globalDuration.floatValue() * 100)).intValue());
+        return p -> {
+            broadcastProgression(((Float) ((Long.valueOf(p.out_time_ms).floatValue() + alreadyDoneDuration.longValue()) / globalDuration.floatValue() * 100)).intValue(), p.total_size);
+            recordBandwidth(p.total_size);
+        };
     }
 
-    void broadcastProgression(int cpt) {
+    void broadcastProgression(int cpt, long bytes) {
         item.setProgression(cpt);
         log.debug("Progression : {}", item.getProgression());
-        convertAndSaveBroadcast();
+        reportProgression(bytes);
     }
 
     @Override
@@ -91,6 +388,11 @@ public class M3U8Downloader extends AbstractDownloader {
 
     @Override
     public void pauseDownload() {
+        if (isNull(process)) {
+            super.pauseDownload();
+            return;
+        }
+
         ProcessBuilder pauseProcess = processService.newProcessBuilder("kill", "-STOP", "" + processService.pidOf(process));
         processService
                 .start(pauseProcess)
@@ -103,12 +405,17 @@ public class M3U8Downloader extends AbstractDownloader {
 
     @Override
     public void restartDownload() {
+        if (isNull(process)) {
+            startDownload();
+            return;
+        }
+
         ProcessBuilder restart = new ProcessBuilder("kill", "-SIGCONT", "" + processService.pidOf(process));
 
         processService.start(restart)
                 .andThenTry(() -> {
                     item.setStatus(Status.STARTED);
-                    saveSyncWithPodcast();
+                    saveState();
                     convertAndSaveBroadcast();
                 })
                 .onFailure(e -> {
@@ -0,0 +1,143 @@
+package lan.dk.podcastserver.manager.worker.downloader;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static io.vavr.API.Option;
+import static io.vavr.API.Try;
+import static java.util.Objects.nonNull;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Sidecar stored next to a partial download. It keeps the validators of the remote resource,
+ * to decide if the partial file can be completed with a range request instead of starting from zero.
+ */
+@Slf4j
+@Getter
+@Builder(toBuilder = true)
+public class PartialDownload {
+
+    public static final String EXTENSION = ".resume";
+
+    private static final String ITEM = "item";
+    private static final String URL = "url";
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "last-modified";
+    private static final String LENGTH = "length";
+    private static final String COUNT = "count";
+    private static final String SEGMENTS = "segments";
+
+    private final Path partial;
+    private final UUID itemId;
+    private final String url;
+    private final String eTag;
+    private final String lastModified;
+    private final Long length;
+    private final Long count;
+    /* Ranges still to download by a segmented download, null for a download with a single connection */
+    private final String segments;
+
+    public boolean isSameResourceAs(PartialDownload other) {
+        if (!Objects.equals(itemId, other.itemId)) return false;
+        if (nonNull(length) && nonNull(other.length) && !length.equals(other.length)) return false;
+        if (nonNull(eTag) && nonNull(other.eTag)) return eTag.equals(other.eTag);
+        if (nonNull(lastModified) && nonNull(other.lastModified)) return lastModified.equals(other.lastModified);
+
+        return nonNull(length) && nonNull(other.length);
+    }
+
+    public PartialDownload withCount(Long count) {
+        return toBuilder().count(count).build();
+    }
+
+    public PartialDownload withSegments(String segments) {
+        return toBuilder().segments(segments).build();
+    }
+
+    public Try<PartialDownload> save() {
+        Properties properties = new Properties();
+        properties.setProperty(ITEM, String.valueOf(itemId));
+        Option(url).forEach(v -> properties.setProperty(URL, v));
+        Option(eTag).forEach(v -> properties.setProperty(ETAG, v));
+        Option(lastModified).forEach(v -> properties.setProperty(LAST_MODIFIED, v));
+        Option(length).forEach(v -> properties.setProperty(LENGTH, String.valueOf(v)));
+        Option(count).forEach(v -> properties.setProperty(COUNT, String.valueOf(v)));
+        Option(segments).forEach(v -> properties.setProperty(SEGMENTS, v));
+
+        return Try.withResources(() -> Files.newOutputStream(sidecarOf(partial)))
+                .of(os -> { properties.store(os, null); return this; })
+                .onFailure(e -> log.error("Error during save of resume information of {}", partial, e));
+    }
+
+    public static Option<PartialDownload> of(Path partial) {
+        Path sidecar = sidecarOf(partial);
+        if (Files.notExists(sidecar) || Files.notExists(partial)) {
+            return Option.none();
+        }
+
+        return Try.withResources(() -> Files.newInputStream(sidecar))
+                .of(PartialDownload::load)
+                .map(p -> p.partial(partial).build())
+                .onFailure(e -> log.error("Error during read of resume information of {}", partial, e))
+                .toOption();
+    }
+
+    public static void delete(Path partial) {
+        Try(() -> Files.deleteIfExists(sidecarOf(partial)));
+    }
+
+    /* The partial file goes with its sidecar, for a download which won't be resumed */
+    public static void discard(Path partial) {
+        Try(() -> Files.deleteIfExists(partial));
+        delete(partial);
+    }
+
+    /* A sidecar without partial file, or which can't be read, can't be resumed and is discarded */
+    public static List<PartialDownload> findAll(Path root) {
+        return Try.withResources(() -> Files.find(root, 2, (p, a) -> p.getFileName().toString().endsWith(EXTENSION)))
+                .of(PartialDownload::collect)
+                .getOrElse(List::empty)
+                .map(sidecar -> sidecar.resolveSibling(sidecar.getFileName().toString().replace(EXTENSION, "")))
+                .flatMap(partial -> {
+                    Option<PartialDownload> found = of(partial);
+                    if (found.isEmpty()) discard(partial);
+                    return found;
+                });
+    }
+
+    static Path sidecarOf(Path partial) {
+        return partial.resolveSibling(partial.getFileName() + EXTENSION);
+    }
+
+    private static List<Path> collect(Stream<Path> paths) {
+        return paths.collect(List.collector());
+    }
+
+    private static PartialDownloadBuilder load(InputStream is) throws java.io.IOException {
+        Properties properties = new Properties();
+        properties.load(is);
+
+        return PartialDownload.builder()
+                .itemId(Try(() -> UUID.fromString(properties.getProperty(ITEM))).getOrElse(() -> null))
+                .url(properties.getProperty(URL))
+                .eTag(properties.getProperty(ETAG))
+                .lastModified(properties.getProperty(LAST_MODIFIED))
+                .length(Option(properties.getProperty(LENGTH)).map(Long::valueOf).getOrElse(() -> null))
+                .count(Option(properties.getProperty(COUNT)).map(Long::valueOf).getOrElse(() -> null))
+                .segments(properties.getProperty(SEGMENTS));
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
 import java.io.*;
+import java.nio.file.Files;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -99,6 +100,11 @@ public class RTMPDownloader extends AbstractDownloader {
         return url.startsWith("rtmp://") ? 1 : Integer.MAX_VALUE;
     }
 
+    /* rtmpdump has no option to limit its rate, its bytes are only recorded in the bandwidth used */
+    void recordBandwidth() {
+        recordBandwidth(Try(() -> Files.size(target)).getOrElse(0L));
+    }
+
     @Slf4j
     @RequiredArgsConstructor
     static class RTMPWatcher implements Runnable {
@@ -126,7 +132,8 @@ public class RTMPDownloader extends AbstractDownloader {
                     Matcher m = RTMPDUMP_PROGRESSION_PATTERN_EXTRACTOR.matcher(line);
                     if (progressionHasChange(item, m)) {
                         item.setProgression(Integer.parseInt(m.group(1)));
-                        rtmpDownloader.convertAndSaveBroadcast();
+                        rtmpDownloader.recordBandwidth();
+                        rtmpDownloader.reportProgression(rtmpDownloader.transferred);
                     } else if (isDownloadComplete(line)) {
                         log.info("End of download");
                         rtmpDownloader.finishDownload();
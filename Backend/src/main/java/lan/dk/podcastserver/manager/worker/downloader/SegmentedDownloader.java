@@ -0,0 +1,302 @@
+package lan.dk.podcastserver.manager.worker.downloader;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import lan.dk.podcastserver.entity.Item;
+import lan.dk.podcastserver.manager.worker.downloader.Segments.Segment;
+import lan.dk.podcastserver.repository.ItemRepository;
+import lan.dk.podcastserver.repository.PodcastRepository;
+import lan.dk.podcastserver.service.MimeTypeService;
+import lan.dk.podcastserver.service.UrlService;
+import lan.dk.podcastserver.service.factory.WGetFactory;
+import lan.dk.podcastserver.service.properties.PodcastServerParameters;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.Header;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.springframework.context.annotation.Scope;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static io.vavr.API.Option;
+import static io.vavr.API.Tuple;
+import static io.vavr.API.Try;
+import static java.net.HttpURLConnection.HTTP_PARTIAL;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Download of a file over HTTP with many connections, each one fetching a range of the file
+ * and writing it at its position in the target. Resources without range support, too small
+ * or with a partial single stream download on disk are handled by the {@link HTTPDownloader}.
+ */
+@Slf4j
+@Scope("prototype")
+@Component("SegmentedDownloader")
+public class SegmentedDownloader extends HTTPDownloader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_RETRY_BY_SEGMENT = 3;
+    private static final String CONTENT_RANGE = "Content-Range";
+    private static final String ETAG = "ETag";
+    private static final String LAST_MODIFIED = "Last-Modified";
+    private static final Pattern CONTENT_RANGE_LENGTH = Pattern.compile("bytes (\\d+)-\\d+/(\\d+)");
+
+    long minimumSegmentSize = 1024 * 1024;
+    int readTimeout = UrlService.READ_TIMEOUT;
+    private TaskExecutor segmentExecutor = new SyncTaskExecutor();
+    private final AtomicLong downloaded = new AtomicLong();
+    private Segments segments;
+    private long length;
+
+    public SegmentedDownloader(ItemRepository itemRepository, PodcastRepository podcastRepository, PodcastServerParameters podcastServerParameters, SimpMessagingTemplate template, MimeTypeService mimeTypeService, UrlService urlService, WGetFactory wGetFactory) {
+        super(itemRepository, podcastRepository, podcastServerParameters, template, mimeTypeService, urlService, wGetFactory);
+    }
+
+    @Resource(name = "SegmentExecutor")
+    public void setSegmentExecutor(TaskExecutor segmentExecutor) {
+        this.segmentExecutor = segmentExecutor;
+    }
+
+    /**
+     * The first request asks for the resource from its first range to download. Its answer tells if the server serves
+     * ranges and the size of the resource, and its body is read as the first segment. Ranges written by a paused or
+     * stopped download are kept if the resource hasn't changed
+     */
+    @Override
+    public Item download() {
+        String url = urlService.getRealURL(getItemUrl(item));
+        partialDownload = null;
+        segments = null;
+
+        target = getTargetFile(item);
+        if (isNull(target)) {
+            return item;
+        }
+
+        Option<PartialDownload> previous = PartialDownload.of(target);
+        if (previous.exists(p -> isNull(p.getSegments()))) {
+            return super.download();
+        }
+
+        Option<Segments> remaining = previous.map(p -> Segments.of(p.getSegments(), podcastServerParameters.getConcurrentSegmentByDownload(), minimumSegmentSize));
+        long from = remaining.map(Segments::position).getOrElse(0L);
+
+        Try<CloseableHttpResponse> first = Try(() -> urlService.getRange(url, from, null, readTimeout));
+        Option<PartialDownload> remote = first.toOption().flatMap(r -> resourceOf(url, from, r));
+
+        if (remote.isEmpty() || (remaining.isEmpty() && remote.get().getLength() < 2 * minimumSegmentSize)) {
+            first.forEach(SegmentedDownloader::close);
+            return super.download();
+        }
+
+        if (remaining.isDefined() && !previous.get().isSameResourceAs(remote.get())) {
+            log.info("Remote file of {} has changed, its download starts from zero", item.getTitle());
+            first.forEach(SegmentedDownloader::close);
+            PartialDownload.discard(target);
+            return download();
+        }
+
+        segments = remaining.getOrElse(() -> new Segments(remote.get().getLength(), podcastServerParameters.getConcurrentSegmentByDownload(), minimumSegmentSize));
+        downloadBySegments(url, remote.get(), first.get(), remaining.isDefined());
+        return item;
+    }
+
+    private void downloadBySegments(String url, PartialDownload remote, CloseableHttpResponse first, boolean resumed) {
+        log.debug("Download of {} with {} connections from byte {}", item.getTitle(), segments.count(), segments.position());
+
+        length = remote.getLength();
+        downloaded.set(length - segments.remainingBytes());
+        partialDownload = remote.withSegments(segments.remaining());
+
+        boolean hasFailed;
+        List<FutureTask<Void>> connections = List.empty();
+        try (FileChannel channel = resumed ? FileChannel.open(target, WRITE) : FileChannel.open(target, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            if (!resumed) channel.write(ByteBuffer.allocate(1), length - 1);
+            partialDownload.save();
+
+            Option<Tuple2<Segment, CloseableHttpResponse>> head = segments.next().map(s -> Tuple(s, first));
+            connections = List.range(0, segments.count())
+                    .map(i -> new FutureTask<Void>(() -> fetchAll(url, channel, i == 0 ? head : Option.none()), null));
+            connections.forEach(segmentExecutor::execute);
+
+            hasFailed = connections
+                    .map(c -> Try(c::get).onFailure(e -> log.error("Error during download of a segment of {}", item.getTitle(), e)))
+                    .exists(Try::isFailure);
+        } catch (IOException | RuntimeException e) {
+            log.error("Error during download by segments of {}", target, e);
+            stopDownloading.set(true);
+            hasFailed = true;
+        } finally {
+            close(first);
+            connections.forEach(c -> c.cancel(true));
+        }
+
+        saveSegments();
+
+        if (hasFailed) {
+            stopDownload();
+            return;
+        }
+
+        if (stopDownloading.get()) {
+            log.debug("Arrêt du téléchargement");
+            return;
+        }
+
+        finishDownload();
+    }
+
+    /* The first segment, starting where the body of the first response starts, is read by the first connection */
+    private void fetchAll(String url, FileChannel channel, Option<Tuple2<Segment, CloseableHttpResponse>> head) {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        Try.run(() -> {
+            for (Tuple2<Segment, CloseableHttpResponse> first : head) {
+                fetch(url, first._1(), channel, buffer, Option(first._2()));
+            }
+            for (Option<Segment> segment = segments.next(); segment.isDefined() && !stopDownloading.get(); segment = segments.next()) {
+                fetch(url, segment.get(), channel, buffer, Option.none());
+            }
+        })
+                .onFailure(e -> stopDownloading.set(true))
+                .get();
+    }
+
+    /**
+     * A stalled connection times out and the rest of the segment is requested again, while idle connections take over
+     * its end. The segment fails only after many attempts in a row without any progress. An error during the write
+     * isn't retried and fails the download
+     */
+    private void fetch(String url, Segment segment, FileChannel channel, byte[] buffer, Option<CloseableHttpResponse> first) {
+        int failures = 0;
+        Option<CloseableHttpResponse> response = first;
+        while (!segment.isDone() && !stopDownloading.get()) {
+            long position = segment.getPosition();
+            try {
+                copy(response.isDefined() ? response.get() : open(url, segment), segment, channel, buffer);
+            } catch (IOException e) {
+                log.debug("Error on segment {} of {} : {}", segment, item.getTitle(), e.getMessage());
+            }
+            response = Option.none();
+
+            failures = segment.getPosition() > position ? 0 : failures + 1;
+            if (failures >= MAX_RETRY_BY_SEGMENT) {
+                throw new RuntimeException("Too many errors on segment " + segment + " of " + url);
+            }
+        }
+    }
+
+    private CloseableHttpResponse open(String url, Segment segment) throws IOException {
+        CloseableHttpResponse response = urlService.getRange(url, segment.getPosition(), segment.getEnd() - 1, readTimeout);
+        int status = response.getStatusLine().getStatusCode();
+        if (status != HTTP_PARTIAL || isNull(response.getEntity())) {
+            close(response);
+            throw new IOException("Range not respected, status " + status);
+        }
+        return response;
+    }
+
+    private void copy(CloseableHttpResponse response, Segment segment, FileChannel channel, byte[] buffer) throws IOException {
+        try (InputStream is = response.getEntity().getContent()) {
+            int read;
+            while (!segment.isDone() && !stopDownloading.get() && (read = is.read(buffer)) != -1) {
+                long position = segment.getPosition();
+                int reserved = segment.reserve(read);
+                write(channel, ByteBuffer.wrap(buffer, 0, reserved), position);
+                segment.written(reserved);
+                progress(reserved);
+                itemDownloadManager.consumeBandwidth(item, reserved);
+            }
+        } finally {
+            close(response);
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, long position) {
+        Try.run(() -> {
+            long current = position;
+            while (buffer.hasRemaining()) {
+                current += channel.write(buffer, current);
+            }
+        })
+                .getOrElseThrow(e -> new UncheckedIOException(IOException.class.cast(e)));
+    }
+
+    /* Ranges still to download are saved with the progression, so a download resumed after a crash loses at most 1% */
+    private void progress(long count) {
+        long bytes = downloaded.addAndGet(count);
+        int progression = (int) (bytes * 100 / length);
+
+        synchronized (this) {
+            if (item.getProgression() < progression) {
+                item.setProgression(progression);
+                log.debug("Progression de {} : {}%", item.getTitle(), progression);
+                reportProgression(bytes);
+                saveSegments();
+            }
+        }
+    }
+
+    private synchronized void saveSegments() {
+        if (isNull(partialDownload) || isNull(segments)) return;
+
+        partialDownload = partialDownload.withSegments(segments.remaining());
+        partialDownload.save();
+    }
+
+    /* The resource can be downloaded by ranges only if the server answers the first request with the range asked */
+    private Option<PartialDownload> resourceOf(String url, long from, CloseableHttpResponse response) {
+        if (response.getStatusLine().getStatusCode() != HTTP_PARTIAL || isNull(response.getEntity())) {
+            return Option.none();
+        }
+
+        return Option(response.getFirstHeader(CONTENT_RANGE))
+                .map(Header::getValue)
+                .map(CONTENT_RANGE_LENGTH::matcher)
+                .filter(Matcher::matches)
+                .filter(m -> Long.valueOf(m.group(1)) == from)
+                .map(m -> PartialDownload.builder()
+                        .partial(target)
+                        .itemId(item.getId())
+                        .url(url)
+                        .eTag(Option(response.getFirstHeader(ETAG)).map(Header::getValue).getOrElse(() -> null))
+                        .lastModified(Option(response.getFirstHeader(LAST_MODIFIED)).map(Header::getValue).getOrElse(() -> null))
+                        .length(Long.valueOf(m.group(2)))
+                        .build()
+                );
+    }
+
+    private static void close(CloseableHttpResponse response) {
+        Try.run(response::close);
+    }
+
+    /* Ranges already written are kept when the download stops on an error, to be resumed later */
+    @Override
+    protected boolean isResumable() {
+        return (nonNull(partialDownload) && nonNull(partialDownload.getSegments())) || super.isResumable();
+    }
+
+    @Override
+    public Integer compatibility(String url) {
+        return url.startsWith("http") && podcastServerParameters.getConcurrentSegmentByDownload() > 1 ? Integer.MAX_VALUE-2 : Integer.MAX_VALUE;
+    }
+}
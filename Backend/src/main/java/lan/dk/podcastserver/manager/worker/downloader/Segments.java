@@ -0,0 +1,168 @@
+package lan.dk.podcastserver.manager.worker.downloader;
+
+import io.vavr.control.Option;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.Comparator.comparing;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Byte ranges of a segmented download. Each connection works on its own {@link Segment}.
+ * A connection without work takes over the second half of the biggest remaining segment,
+ * so the fast connections relieve the slow ones until the end of the download.
+ */
+class Segments {
+
+    private static final String RANGES_SEPARATOR = ",";
+    private static final String BOUNDS_SEPARATOR = "-";
+
+    private final long minimumSize;
+    private final int count;
+    private final Deque<Segment> pending = new ArrayDeque<>();
+    private final List<Segment> active = new ArrayList<>();
+
+    Segments(long length, int numberOfSegments, long minimumSize) {
+        this.minimumSize = minimumSize;
+
+        count = (int) Math.max(1, Math.min(numberOfSegments, length / minimumSize));
+        long size = length / count;
+        for (int i = 0; i < count; i++) {
+            pending.add(new Segment(i * size, i == count - 1 ? length : (i + 1) * size));
+        }
+    }
+
+    private Segments(List<Segment> remaining, int numberOfSegments, long minimumSize) {
+        this.minimumSize = minimumSize;
+
+        long length = remaining.stream().mapToLong(Segment::remaining).sum();
+        count = (int) Math.max(1, Math.min(numberOfSegments, length / minimumSize));
+        pending.addAll(remaining);
+    }
+
+    /**
+     * Ranges still to download, as written by {@link #remaining()}, of a download which was paused or stopped
+     */
+    static Segments of(String remaining, int numberOfSegments, long minimumSize) {
+        List<Segment> segments = new ArrayList<>();
+        Stream.of(remaining.split(RANGES_SEPARATOR))
+                .filter(r -> !r.isEmpty())
+                .map(r -> r.split(BOUNDS_SEPARATOR))
+                .forEach(b -> segments.add(new Segment(Long.valueOf(b[0]), Long.valueOf(b[1]))));
+
+        return new Segments(segments, numberOfSegments, minimumSize);
+    }
+
+    int count() {
+        return count;
+    }
+
+    synchronized Option<Segment> next() {
+        active.removeIf(Segment::isWritten);
+
+        return Option.of(pending.poll())
+                .orElse(() -> Option.ofOptional(active.stream().max(comparing(Segment::remaining))).flatMap(s -> s.split(minimumSize)))
+                .peek(active::add);
+    }
+
+    /* Position of the first range to download */
+    synchronized long position() {
+        return Option.of(pending.peek()).map(Segment::getPosition).getOrElse(0L);
+    }
+
+    /**
+     * Ranges not written yet, a range reserved by a connection but not written yet is still part of them
+     */
+    synchronized String remaining() {
+        return Stream.concat(active.stream(), pending.stream())
+                .filter(s -> !s.isWritten())
+                .sorted(comparing(Segment::getWritten))
+                .map(s -> s.getWritten() + BOUNDS_SEPARATOR + s.getEnd())
+                .collect(joining(RANGES_SEPARATOR));
+    }
+
+    synchronized long remainingBytes() {
+        return Stream.concat(active.stream(), pending.stream())
+                .mapToLong(s -> s.getEnd() - s.getWritten())
+                .filter(r -> r > 0)
+                .sum();
+    }
+
+    /**
+     * Range [position, end[ of a download. The position is only moved by the connection owning the segment,
+     * the end can be reduced by another connection taking over the end of the segment. Bytes before written
+     * are on disk.
+     */
+    static class Segment {
+
+        private long position;
+        private long written;
+        private long end;
+
+        Segment(long position, long end) {
+            this.position = position;
+            this.written = position;
+            this.end = end;
+        }
+
+        synchronized long getPosition() {
+            return position;
+        }
+
+        synchronized long getWritten() {
+            return written;
+        }
+
+        synchronized long getEnd() {
+            return end;
+        }
+
+        synchronized long remaining() {
+            return end - position;
+        }
+
+        synchronized boolean isDone() {
+            return position >= end;
+        }
+
+        synchronized boolean isWritten() {
+            return written >= end;
+        }
+
+        /**
+         * Reserve at most length bytes from the current position, returns the number of bytes still part of this segment
+         */
+        synchronized int reserve(int length) {
+            int reserved = (int) Math.min(length, end - position);
+            position += reserved;
+            return reserved;
+        }
+
+        synchronized void written(int length) {
+            written += length;
+        }
+
+        synchronized Option<Segment> split(long minimumSize) {
+            long remaining = end - position;
+            if (remaining < 2 * minimumSize) {
+                return Option.none();
+            }
+
+            long middle = position + remaining / 2;
+            Segment segment = new Segment(middle, end);
+            end = middle;
+            return Option.of(segment);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "[" + position + "-" + end + "[";
+        }
+    }
+}
@@ -6,12 +6,11 @@ import com.jayway.jsonpath.TypeRef;
 import com.mashape.unirest.http.HttpResponse;
 import io.vavr.Lazy;
 import io.vavr.Tuple2;
-import io.vavr.collection.HashSet;
+import io.vavr.collection.List;
 import io.vavr.collection.Set;
 import io.vavr.control.Option;
 import io.vavr.control.Try;
 import lan.dk.podcastserver.entity.Item;
-import lan.dk.podcastserver.entity.Status;
 import lan.dk.podcastserver.manager.worker.updater.SixPlayUpdater;
 import lan.dk.podcastserver.repository.ItemRepository;
 import lan.dk.podcastserver.repository.PodcastRepository;
@@ -22,7 +21,6 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import net.bramp.ffmpeg.builder.FFmpegBuilder;
 import net.bramp.ffmpeg.progress.ProgressListener;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -31,9 +29,6 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-
 import static io.vavr.API.*;
 
 /**
@@ -44,15 +39,13 @@ import static io.vavr.API.*;
 @Component("SixPlayDownloader")
 public class SixPlayDownloader extends M3U8Downloader {
 
-    private static final TypeRef<Set<M6PlayItem>> TYPE_ITEMS = new TypeRef<Set<M6PlayItem>>(){};
+    private static final TypeRef<List<M6PlayItem>> TYPE_ITEMS = new TypeRef<List<M6PlayItem>>(){};
     private static final String ITEMS_EXTRACTOR = "mainStoreState.video.currentVideo.clips[*]";
 
     private final HtmlService htmlService;
     private final JsonService jsonService;
 
-    private final Lazy<Set<String>> urls = Lazy(this::_getItemUrls);
-    private Double globalDuration = 0d;
-    private Double alreadyDoneDuration = 0d;
+    private final Lazy<List<String>> urls = Lazy(this::_getItemUrls);
 
     public SixPlayDownloader(ItemRepository itemRepository, PodcastRepository podcastRepository, PodcastServerParameters podcastServerParameters, SimpMessagingTemplate template, MimeTypeService mimeTypeService, UrlService urlService, M3U8Service m3U8Service, FfmpegService ffmpegService, ProcessService processService, HtmlService htmlService, JsonService jsonService) {
         super(itemRepository, podcastRepository, podcastServerParameters, template, mimeTypeService, urlService, m3U8Service, ffmpegService, processService);
@@ -60,58 +53,6 @@ public class SixPlayDownloader extends M3U8Downloader {
         this.jsonService = jsonService;
     }
 
-    @Override
-    public Item download() {
-        if (urls.get().length() == 1) {
-            return super.download();
-        }
-
-        target = getTargetFile(item);
-
-        globalDuration = urls.get()
-                .map(url -> ffmpegService.getDurationOf(url, withUserAgent()))
-                .sum()
-                .doubleValue();
-
-        Set<Path> multiFiles = urls.get().map(this::download);
-
-        ffmpegService.concat(target, multiFiles.toJavaArray(Path.class));
-
-        multiFiles.forEach(v -> Try.run(() -> Files.delete(v)));
-
-        if (item.getStatus() == Status.STARTED)
-            finishDownload();
-
-        return item;
-    }
-
-    private Path download(String url) {
-        log.debug("Download {} from {}", url, item.getTitle());
-
-        Double duration = ffmpegService.getDurationOf(url, withUserAgent());
-
-        Path subTarget = this.generateTempFileNextTo(target);
-
-        FFmpegBuilder command = new FFmpegBuilder()
-                .setUserAgent(withUserAgent())
-                .addInput(url)
-                .addOutput(subTarget.toAbsolutePath().toString())
-                .setFormat("mp4")
-                .setAudioBitStreamFilter(FfmpegService.AUDIO_BITSTREAM_FILTER_AAC_ADTSTOASC)
-                .setVideoCodec(FfmpegService.CODEC_COPY)
-                .setAudioCodec(FfmpegService.CODEC_COPY)
-                .done();
-
-
-        process = ffmpegService.download(url, command, handleProgression(alreadyDoneDuration, globalDuration));
-
-        processService.waitFor(process);
-
-        alreadyDoneDuration += duration;
-
-        return subTarget;
-    }
-
     @Override
     public String getFileName(Item item) {
         // http://www.6play.fr/le-message-de-madenian-et-vdb-p_6730/mm-vdb-22-06-c_11699574
@@ -128,20 +69,27 @@ public class SixPlayDownloader extends M3U8Downloader {
         return urls.get().get();
     }
 
-    private Set<String> _getItemUrls() {
+    /* Clips are kept in the order of the page, to be assembled in the right order */
+    @Override
+    protected List<String> getItemUrls() {
+        return urls.get();
+    }
+
+    private List<String> _getItemUrls() {
         return htmlService.get(item.getUrl())
                 .map(d -> this.extractUrl(d.select("script")))
-                .getOrElse(HashSet::empty);
+                .getOrElse(List::empty);
     }
 
-    private Set<String> extractUrl(Elements script) {
-        Set<M6PlayItem> items = extractJson(script)
+    private List<String> extractUrl(Elements script) {
+        List<M6PlayItem> items = extractJson(script)
                 .map(JsonService.to(ITEMS_EXTRACTOR, TYPE_ITEMS))
-                .getOrElse(HashSet::empty);
+                .getOrElse(List::empty);
 
         return items
                 .flatMap(this::keepBestQuality)
-                .map(M6PlayAssets::getFull_physical_path);
+                .map(M6PlayAssets::getFull_physical_path)
+                .distinct();
     }
 
     private Option<M6PlayAssets> keepBestQuality(M6PlayItem item) {
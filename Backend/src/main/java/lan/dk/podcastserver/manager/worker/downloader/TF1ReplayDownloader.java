@@ -122,7 +122,7 @@ public class TF1ReplayDownloader extends M3U8Downloader {
     }
 
     private String getHighestQualityUrl(String url) {
-        String realUrl = urlService.getRealURL(url, c -> c.setRequestProperty("User-Agent", USER_AGENT_DESKTOP));
+        String realUrl = urlService.getRealURL(url, r -> r.setHeader("User-Agent", USER_AGENT_DESKTOP));
 
         return Try(() -> urlService.get(url)
                 .header(USER_AGENT, UrlService.USER_AGENT_MOBILE)
@@ -127,14 +127,14 @@ public class YoutubeDownloader extends AbstractDownloader {
     @Override
     public void pauseDownload() {
         item.setStatus(Status.PAUSED);
-        saveSyncWithPodcast();
+        saveState();
         convertAndSaveBroadcast();
     }
 
     @Override
     public void restartDownload() {
         item.setStatus(Status.STARTED);
-        saveSyncWithPodcast();
+        saveState();
         convertAndSaveBroadcast();
         synchronized (watcher) { watcher.notifyAll(); }
     }
@@ -281,11 +281,13 @@ public class YoutubeDownloader extends AbstractDownloader {
             }
 
             Long count = downloadInfo.stream().mapToLong(DownloadInfo::getCount).sum();
+            youtubeDownloader.consumeBandwidth(count);
+
             int currentState = (int) (count * 100 / (float) globalSize );
             if (item.getProgression() < currentState) {
                 item.setProgression(currentState);
                 log.debug("{} - {}%", item.getTitle(), item.getProgression());
-                youtubeDownloader.convertAndSaveBroadcast();
+                youtubeDownloader.reportProgression(count);
             }
         }
     }
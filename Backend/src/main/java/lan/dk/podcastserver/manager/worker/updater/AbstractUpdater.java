@@ -3,22 +3,34 @@ package lan.dk.podcastserver.manager.worker.updater;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.vavr.Tuple;
 import io.vavr.Tuple3;
+import io.vavr.collection.List;
 import io.vavr.collection.Set;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.manager.ItemUrlIndex;
 import lan.dk.podcastserver.service.SignatureService;
+import lan.dk.podcastserver.service.SignatureService.Validators;
+import lan.dk.podcastserver.service.UrlService;
 import lan.dk.podcastserver.service.properties.PodcastServerParameters;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.Resource;
 import javax.validation.Validator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 import static io.vavr.API.Try;
+import static java.util.Objects.isNull;
 
 @Slf4j
 @Transactional(noRollbackFor=Exception.class)
@@ -28,16 +40,77 @@ public abstract class AbstractUpdater implements Updater {
     final PodcastServerParameters podcastServerParameters;
     final SignatureService signatureService;
     final Validator validator;
+    final ItemUrlIndex itemUrlIndex;
+    private TaskExecutor fetchExecutor = new SyncTaskExecutor();
 
+    /**
+     * Pages fetched to compute the signature are fetched once and reused for the items. If the validated page of the
+     * podcast hasn't changed since the previous update, neither the signature nor the items are computed. The signature
+     * and the validators are set on the podcast only once its items are parsed
+     */
     public Tuple3<Podcast, Set<Item>, Predicate<Item>> update(Podcast podcast) {
         log.info("\"{}\" added to executor", podcast.getTitle());
 
-        return Try(() -> signatureOf(podcast))
-                .filter(signature -> !StringUtils.equals(signature, podcast.getSignature()))
-                .andThen(podcast::setSignature)
-                .map(s -> Tuple.of(podcast, getItems(podcast), notIn(podcast)))
-                .onFailure(e -> logError(e, podcast))
-                .getOrElse(NO_MODIFICATION_TUPLE);
+        return UrlService.fetchingOnce(() -> {
+            Validators validators = validatorsOf(podcast);
+            return Try(() -> validators.getUnchanged() ? podcast.getSignature() : signatureOf(podcast))
+                    .filter(signature -> !StringUtils.equals(signature, podcast.getSignature()))
+                    .map(signature -> Tuple.of(signature, getItems(podcast)))
+                    .map(t -> Tuple.of(validators.applyTo(podcast.setSignature(t._1())), t._2(), notIn(podcast)))
+                    .onFailure(e -> logError(e, podcast))
+                    .getOrElse(NO_MODIFICATION_TUPLE);
+        });
+    }
+
+    /* Items are looked up in the index of urls, so the items of the podcast aren't loaded */
+    @Override
+    public Predicate<Item> notIn(Podcast podcast) {
+        if (isNull(podcast.getId())) {
+            return Updater.super.notIn(podcast);
+        }
+
+        return item -> !itemUrlIndex.contains(podcast.getId(), item.getUrl());
+    }
+
+    /**
+     * Pool shared by all the updaters to fetch details of items, without it they are fetched by the updating thread
+     */
+    @Resource(name = "UpdateFetchExecutor")
+    public void setFetchExecutor(TaskExecutor fetchExecutor) {
+        this.fetchExecutor = fetchExecutor;
+    }
+
+    /**
+     * Details of each element of a page, fetched in parallel by a pool shared by all the updaters. Fetches share the
+     * pages already fetched by the update, and the details are returned in the order of the elements
+     */
+    protected <T, R> List<R> inParallel(Iterable<T> elements, Function<T, R> detailsOf) {
+        List<FutureTask<R>> futures = List.ofAll(elements)
+                .map(e -> UrlService.withFetchingContext(() -> detailsOf.apply(e)))
+                .map(s -> new FutureTask<>(s::get));
+
+        try {
+            futures.forEach(fetchExecutor::execute);
+
+            List<R> details = List.empty();
+            for (Future<R> future : futures) {
+                details = details.prepend(future.get());
+            }
+            return details.reverse();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private Validators validatorsOf(Podcast podcast) {
+        return validatedUrlOf(podcast)
+                .map(url -> signatureService.validate(podcast, url))
+                .getOrElse(Validators.NONE);
     }
 
     private void logError(Throwable e, Podcast podcast) {
@@ -7,6 +7,7 @@ import io.vavr.control.Option;
 import lan.dk.podcastserver.entity.Cover;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.manager.ItemUrlIndex;
 import lan.dk.podcastserver.service.HtmlService;
 import lan.dk.podcastserver.service.ImageService;
 import lan.dk.podcastserver.service.SignatureService;
@@ -55,8 +56,8 @@ public class BeInSportsUpdater extends AbstractUpdater {
     final HtmlService htmlService;
     final ImageService imageService;
 
-    public BeInSportsUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, HtmlService htmlService, ImageService imageService) {
-        super(podcastServerParameters, signatureService, validator);
+    public BeInSportsUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, ItemUrlIndex itemUrlIndex, HtmlService htmlService, ImageService imageService) {
+        super(podcastServerParameters, signatureService, validator, itemUrlIndex);
         this.htmlService = htmlService;
         this.imageService = imageService;
     }
@@ -70,7 +71,7 @@ public class BeInSportsUpdater extends AbstractUpdater {
     }
 
     private Set<Item> convertHtmlToItems(Elements htmlItems) {
-        return HashSet.ofAll(htmlItems).map(this::getItem);
+        return HashSet.ofAll(inParallel(htmlItems, this::getItem));
     }
 
     private ZonedDateTime getPubDateFromDescription(Element article) {
@@ -5,6 +5,7 @@ import io.vavr.collection.Set;
 import io.vavr.control.Option;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.manager.ItemUrlIndex;
 import lan.dk.podcastserver.service.*;
 import lan.dk.podcastserver.service.properties.PodcastServerParameters;
 import lombok.extern.slf4j.Slf4j;
@@ -54,8 +55,8 @@ public class CanalPlusUpdater extends AbstractUpdater {
     private final ImageService imageService;
     private final M3U8Service m3U8Service;
 
-    public CanalPlusUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, JdomService jdomService, HtmlService htmlService, ImageService imageService, M3U8Service m3U8Service) {
-        super(podcastServerParameters, signatureService, validator);
+    public CanalPlusUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, ItemUrlIndex itemUrlIndex, JdomService jdomService, HtmlService htmlService, ImageService imageService, M3U8Service m3U8Service) {
+        super(podcastServerParameters, signatureService, validator, itemUrlIndex);
         this.jdomService = jdomService;
         this.htmlService = htmlService;
         this.imageService = imageService;
@@ -66,6 +67,10 @@ public class CanalPlusUpdater extends AbstractUpdater {
         return this.getSetItemToPodcastFromFrontTools(getRealUrl(podcast));
     }
 
+    public Option<String> validatedUrlOf(Podcast podcast) {
+        return Option.of(getRealUrl(podcast));
+    }
+
     public String signatureOf(Podcast podcast) {
         return signatureService.generateSignatureFromURL(getRealUrl(podcast));
     }
@@ -99,11 +104,12 @@ public class CanalPlusUpdater extends AbstractUpdater {
     }
 
     private Set<Item> getSetItemToPodcastFromFrontTools(String urlFrontTools) {
-        return getHTMLListingEpisodeFromFrontTools(urlFrontTools)
+        Set<Integer> ids = getHTMLListingEpisodeFromFrontTools(urlFrontTools)
                 .filter(e -> !e.hasClass("blankMS"))
                 .map(e -> e.select("li._thumbs").first().id().replace("video_", ""))
-                .map(Integer::valueOf)
-                .map(this::getItemFromVideoId);
+                .map(Integer::valueOf);
+
+        return HashSet.ofAll(inParallel(ids, this::getItemFromVideoId));
     }
 
 
@@ -2,10 +2,12 @@ package lan.dk.podcastserver.manager.worker.updater;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.jayway.jsonpath.TypeRef;
+import io.vavr.control.Option;
 import io.vavr.collection.HashSet;
 import io.vavr.collection.Set;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.manager.ItemUrlIndex;
 import lan.dk.podcastserver.service.ImageService;
 import lan.dk.podcastserver.service.JsonService;
 import lan.dk.podcastserver.service.SignatureService;
@@ -41,8 +43,8 @@ public class DailymotionUpdater extends AbstractUpdater {
     private final JsonService jsonService;
     private final ImageService imageService;
 
-    public DailymotionUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, ImageService imageService, JsonService jsonService) {
-        super(podcastServerParameters, signatureService, validator);
+    public DailymotionUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, ItemUrlIndex itemUrlIndex, ImageService imageService, JsonService jsonService) {
+        super(podcastServerParameters, signatureService, validator, itemUrlIndex);
         this.imageService = imageService;
         this.jsonService = jsonService;
     }
@@ -69,6 +71,12 @@ public class DailymotionUpdater extends AbstractUpdater {
                 );
     }
 
+    @Override
+    public Option<String> validatedUrlOf(Podcast podcast) {
+        return USER_NAME_EXTRACTOR.on(podcast.getUrl()).group(1)
+                .map(u -> String.format(API_LIST_OF_ITEMS, u));
+    }
+
     @Override
     public String signatureOf(Podcast podcast) {
         return USER_NAME_EXTRACTOR.on(podcast.getUrl()).group(1)
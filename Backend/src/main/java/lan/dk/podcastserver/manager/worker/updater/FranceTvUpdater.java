@@ -2,11 +2,13 @@ package lan.dk.podcastserver.manager.worker.updater;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.vavr.control.Option;
 import io.vavr.collection.HashSet;
 import io.vavr.collection.List;
 import io.vavr.collection.Set;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.manager.ItemUrlIndex;
 import lan.dk.podcastserver.service.*;
 import lan.dk.podcastserver.service.properties.PodcastServerParameters;
 import lombok.Getter;
@@ -38,8 +40,8 @@ public class FranceTvUpdater extends AbstractUpdater {
     private final ImageService imageService;
     private final JsonService jsonService;
 
-    public FranceTvUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, HtmlService htmlService, ImageService imageService, JsonService jsonService) {
-        super(podcastServerParameters, signatureService, validator);
+    public FranceTvUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, ItemUrlIndex itemUrlIndex, HtmlService htmlService, ImageService imageService, JsonService jsonService) {
+        super(podcastServerParameters, signatureService, validator, itemUrlIndex);
         this.htmlService = htmlService;
         this.imageService = imageService;
         this.jsonService = jsonService;
@@ -50,8 +52,8 @@ public class FranceTvUpdater extends AbstractUpdater {
                 .map(p -> p.select(LAST_VIDEOS_SELECTOR))
                 .flatMap(v -> HashSet.ofAll(v).find(ul -> "wall".equals(ul.className())))
                 .map(ul -> ul.select("li"))
-                .map(HashSet::ofAll).getOrElse(HashSet::empty)
-                .map(this::htmlToItem);
+                .map(li -> inParallel(li, this::htmlToItem))
+                .map(HashSet::ofAll).getOrElse(HashSet::empty);
     }
 
     private Item htmlToItem(Element element) {
@@ -79,6 +81,11 @@ public class FranceTvUpdater extends AbstractUpdater {
                 .getOrElse("");
     }
 
+    @Override
+    public Option<String> validatedUrlOf(Podcast podcast) {
+        return Option.of(podcast.getUrl());
+    }
+
     @Override
     public String signatureOf(Podcast podcast) {
         String listOfIds = htmlService.get(podcast.getUrl())
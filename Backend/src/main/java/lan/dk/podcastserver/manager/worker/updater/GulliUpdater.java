@@ -7,6 +7,7 @@ import io.vavr.control.Option;
 import lan.dk.podcastserver.entity.Cover;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.manager.ItemUrlIndex;
 import lan.dk.podcastserver.service.HtmlService;
 import lan.dk.podcastserver.service.ImageService;
 import lan.dk.podcastserver.service.SignatureService;
@@ -37,8 +38,8 @@ public class GulliUpdater extends AbstractUpdater {
     private final HtmlService htmlService;
     private final ImageService imageService;
 
-    public GulliUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, HtmlService htmlService, ImageService imageService) {
-        super(podcastServerParameters, signatureService, validator);
+    public GulliUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, ItemUrlIndex itemUrlIndex, HtmlService htmlService, ImageService imageService) {
+        super(podcastServerParameters, signatureService, validator, itemUrlIndex);
         this.htmlService = htmlService;
         this.imageService = imageService;
     }
@@ -52,8 +53,7 @@ public class GulliUpdater extends AbstractUpdater {
     }
 
     private Set<Item> asItemsSet(Elements elements) {
-        return HashSet.ofAll(elements)
-                .map(this::findDetailsInFromPage);
+        return HashSet.ofAll(inParallel(elements, this::findDetailsInFromPage));
     }
 
     private Item findDetailsInFromPage(Element e) {
@@ -87,6 +87,11 @@ public class GulliUpdater extends AbstractUpdater {
                 .getOrElse(Cover.DEFAULT_COVER);
     }
 
+    @Override
+    public Option<String> validatedUrlOf(Podcast podcast) {
+        return Option(podcast.getUrl());
+    }
+
     @Override
     public String signatureOf(Podcast podcast) {
         return htmlService.get(podcast.getUrl())
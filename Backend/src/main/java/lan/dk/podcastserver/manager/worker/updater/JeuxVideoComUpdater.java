@@ -4,6 +4,7 @@ import io.vavr.collection.HashSet;
 import io.vavr.collection.Set;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.manager.ItemUrlIndex;
 import lan.dk.podcastserver.service.HtmlService;
 import lan.dk.podcastserver.service.ImageService;
 import lan.dk.podcastserver.service.SignatureService;
@@ -31,8 +32,8 @@ public class JeuxVideoComUpdater extends AbstractUpdater {
     private final HtmlService htmlService;
     private final ImageService imageService;
 
-    public JeuxVideoComUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, HtmlService htmlService, ImageService imageService) {
-        super(podcastServerParameters, signatureService, validator);
+    public JeuxVideoComUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, ItemUrlIndex itemUrlIndex, HtmlService htmlService, ImageService imageService) {
+        super(podcastServerParameters, signatureService, validator, itemUrlIndex);
         this.htmlService = htmlService;
         this.imageService = imageService;
     }
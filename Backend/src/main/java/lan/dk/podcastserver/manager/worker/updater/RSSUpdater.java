@@ -1,10 +1,13 @@
 package lan.dk.podcastserver.manager.worker.updater;
 
 import io.vavr.collection.HashSet;
+import io.vavr.collection.Iterator;
 import io.vavr.collection.Set;
+import io.vavr.control.Option;
 import lan.dk.podcastserver.entity.Cover;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.manager.ItemUrlIndex;
 import lan.dk.podcastserver.service.ImageService;
 import lan.dk.podcastserver.service.JdomService;
 import lan.dk.podcastserver.service.SignatureService;
@@ -18,9 +21,12 @@ import org.springframework.stereotype.Component;
 import javax.validation.Validator;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 import static io.vavr.API.*;
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
 @Slf4j
@@ -28,31 +34,53 @@ import static java.util.Objects.nonNull;
 public class RSSUpdater extends AbstractUpdater {
 
     private static final Namespace MEDIA = Namespace.getNamespace("media", "http://search.yahoo.com/mrss/");
+    private static final int KNOWN_ITEMS_BEFORE_STOP = 5;
     private static final Namespace FEED_BURNER = Namespace.getNamespace("feedburner", "http://rssnamespace.org/feedburner/ext/1.0");
 
     private final JdomService jdomService;
     private final ImageService imageService;
 
-    public RSSUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, JdomService jdomService, ImageService imageService) {
-        super(podcastServerParameters, signatureService, validator);
+    public RSSUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, ItemUrlIndex itemUrlIndex, JdomService jdomService, ImageService imageService) {
+        super(podcastServerParameters, signatureService, validator, itemUrlIndex);
         this.jdomService = jdomService;
         this.imageService = imageService;
     }
 
 
+    /**
+     * Items are streamed from the feed. In a feed sorted from the newest to the oldest, reading stops after a few items
+     * already known in a row, and at most the max number of items by feed are read
+     */
     public Set<Item> getItems(Podcast podcast) {
-        return jdomService
-                .parse(podcast.getUrl())
-                .map(p -> p.getRootElement().getChild("channel").getChildren("item"))
-                .map(HashSet::ofAll)
-                .map(this::elementsToItems)
-                .getOrElse(HashSet::empty);
+        Iterator<Item> entries = jdomService
+                .entriesOf(podcast.getUrl(), "item", Namespace.NO_NAMESPACE)
+                .filter(this::hasEnclosure)
+                .map(this::extractItem);
+
+        return readUntilKnown(entries, knownIn(podcast), podcastServerParameters.getMaxItemsByFeed());
+    }
+
+    private Predicate<Item> knownIn(Podcast podcast) {
+        return isNull(podcast.getId()) ? i -> false : notIn(podcast).negate();
     }
 
-    private Set<Item> elementsToItems(Set<Element> elements) {
-        return HashSet.ofAll(elements)
-                    .filter(this::hasEnclosure)
-                    .map(this::extractItem);
+    private Set<Item> readUntilKnown(Iterator<Item> entries, Predicate<Item> known, Integer max) {
+        java.util.List<Item> items = new ArrayList<>();
+        ZonedDateTime previous = null;
+        Boolean newestFirst = true;
+        int knownInARow = 0;
+
+        while (knownInARow < KNOWN_ITEMS_BEFORE_STOP && (max <= 0 || items.size() < max) && entries.hasNext()) {
+            Item item = entries.next();
+            ZonedDateTime pubDate = item.getPubDate();
+
+            newestFirst = newestFirst && (isNull(previous) || isNull(pubDate) || !pubDate.isAfter(previous));
+            knownInARow = newestFirst && known.test(item) ? knownInARow + 1 : 0;
+            previous = nonNull(pubDate) ? pubDate : previous;
+            items.add(item);
+        }
+
+        return HashSet.ofAll(items);
     }
 
     private Boolean hasEnclosure(Element item) {
@@ -105,6 +133,11 @@ public class RSSUpdater extends AbstractUpdater {
                 .getOrNull();
     }
 
+    @Override
+    public Option<String> validatedUrlOf(Podcast podcast) {
+        return Option(podcast.getUrl());
+    }
+
     @Override
     public String signatureOf(Podcast podcast) {
         return signatureService.generateSignatureFromURL(podcast.getUrl());
@@ -11,6 +11,7 @@ import io.vavr.collection.Set;
 import io.vavr.control.Option;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.manager.ItemUrlIndex;
 import lan.dk.podcastserver.service.HtmlService;
 import lan.dk.podcastserver.service.ImageService;
 import lan.dk.podcastserver.service.JsonService;
@@ -56,8 +57,8 @@ public class SixPlayUpdater extends AbstractUpdater {
     private final JsonService jsonService;
     private final ImageService imageService;
 
-    protected SixPlayUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, HtmlService htmlService, JsonService jsonService, ImageService imageService) {
-        super(podcastServerParameters, signatureService, validator);
+    protected SixPlayUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, ItemUrlIndex itemUrlIndex, HtmlService htmlService, JsonService jsonService, ImageService imageService) {
+        super(podcastServerParameters, signatureService, validator, itemUrlIndex);
         this.htmlService = htmlService;
         this.jsonService = jsonService;
         this.imageService = imageService;
@@ -8,6 +8,7 @@ import io.vavr.control.Option;
 import lan.dk.podcastserver.entity.Cover;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.manager.ItemUrlIndex;
 import lan.dk.podcastserver.service.HtmlService;
 import lan.dk.podcastserver.service.ImageService;
 import lan.dk.podcastserver.service.JsonService;
@@ -50,8 +51,8 @@ public class TF1ReplayUpdater extends AbstractUpdater {
     private final ImageService imageService;
     private final JsonService jsonService;
 
-    public TF1ReplayUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, HtmlService htmlService, ImageService imageService, JsonService jsonService) {
-        super(podcastServerParameters, signatureService, validator);
+    public TF1ReplayUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, ItemUrlIndex itemUrlIndex, HtmlService htmlService, ImageService imageService, JsonService jsonService) {
+        super(podcastServerParameters, signatureService, validator, itemUrlIndex);
         this.htmlService = htmlService;
         this.imageService = imageService;
         this.jsonService = jsonService;
@@ -66,7 +67,7 @@ public class TF1ReplayUpdater extends AbstractUpdater {
     }
 
     private Set<Item> itemsFromHtml(Elements els) {
-        return HashSet.ofAll(els).map(this::getItem);
+        return HashSet.ofAll(inParallel(els, this::getItem));
     }
 
     private Item getItem(Element e) {
@@ -110,6 +111,13 @@ public class TF1ReplayUpdater extends AbstractUpdater {
                 .getOrElse(ZonedDateTime::now);
     }
 
+    /* Replays are a part of all the videos, so the list of all of them is the one validated */
+    @Override
+    public Option<String> validatedUrlOf(Podcast podcast) {
+        return CHANNEL_PROGRAM_EXTRACTOR.on(podcast.getUrl()).groups()
+                .map(l -> String.format(AJAX_URL_FORMAT, l.get(0), l.get(1), ALL_CATEGORY));
+    }
+
     @Override
     public String signatureOf(Podcast podcast) {
         // Url origine : http://www.tf1.fr/tf1/19h-live/videos
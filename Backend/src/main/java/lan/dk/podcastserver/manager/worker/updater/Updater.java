@@ -3,6 +3,7 @@ package lan.dk.podcastserver.manager.worker.updater;
 import io.vavr.Tuple;
 import io.vavr.Tuple3;
 import io.vavr.collection.Set;
+import io.vavr.control.Option;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
 
@@ -19,6 +20,11 @@ public interface Updater {
 
     String signatureOf(Podcast podcast);
 
+    /* Page requested with the validators of the previous update, to skip it if nothing has changed */
+    default Option<String> validatedUrlOf(Podcast podcast) {
+        return Option.none();
+    }
+
     default Predicate<Item> notIn(Podcast podcast) {
         return item -> !podcast.contains(item);
     }
@@ -4,6 +4,7 @@ import io.vavr.collection.HashSet;
 import io.vavr.collection.Set;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.manager.ItemUrlIndex;
 import lan.dk.podcastserver.service.SignatureService;
 import lan.dk.podcastserver.service.properties.PodcastServerParameters;
 import org.springframework.stereotype.Component;
@@ -19,8 +20,8 @@ public class UploadUpdater extends AbstractUpdater {
 
     public static final Type TYPE = new Type("upload", "Upload");
 
-    UploadUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator) {
-        super(podcastServerParameters, signatureService, validator);
+    UploadUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, ItemUrlIndex itemUrlIndex) {
+        super(podcastServerParameters, signatureService, validator, itemUrlIndex);
     }
 
     @Override
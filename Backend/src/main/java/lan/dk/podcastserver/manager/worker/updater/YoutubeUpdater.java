@@ -8,6 +8,7 @@ import io.vavr.control.Option;
 import lan.dk.podcastserver.entity.Cover;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.manager.ItemUrlIndex;
 import lan.dk.podcastserver.service.HtmlService;
 import lan.dk.podcastserver.service.JdomService;
 import lan.dk.podcastserver.service.JsonService;
@@ -18,7 +19,6 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.Namespace;
 import org.springframework.stereotype.Component;
@@ -31,13 +31,13 @@ import java.util.Objects;
 import static io.vavr.API.*;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
-import static java.util.stream.Collectors.joining;
 import static lan.dk.podcastserver.entity.Cover.DEFAULT_COVER;
 
 @Slf4j
 @Component("YoutubeUpdater")
 public class YoutubeUpdater extends AbstractUpdater {
 
+    private static final Namespace ATOM_NAMESPACE = Namespace.getNamespace("http://www.w3.org/2005/Atom");
     private static final Namespace MEDIA_NAMESPACE = Namespace.getNamespace("media", "http://search.yahoo.com/mrss/");
     private static final Integer MAX_PAGE = 10;
 
@@ -53,8 +53,8 @@ public class YoutubeUpdater extends AbstractUpdater {
     private final HtmlService htmlService;
     private final Api api;
 
-    public YoutubeUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, JdomService jdomService, JsonService jsonService, HtmlService htmlService, Api api) {
-        super(podcastServerParameters, signatureService, validator);
+    public YoutubeUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, ItemUrlIndex itemUrlIndex, JdomService jdomService, JsonService jsonService, HtmlService htmlService, Api api) {
+        super(podcastServerParameters, signatureService, validator, itemUrlIndex);
         this.jdomService = jdomService;
         this.jsonService = jsonService;
         this.htmlService = htmlService;
@@ -132,26 +132,19 @@ public class YoutubeUpdater extends AbstractUpdater {
     private Set<Item> getItemsByRss(Podcast podcast) {
         log.info("Youtube Update by RSS");
 
-        Option<Element> element = xmlOf(podcast.getUrl()).map(Document::getRootElement);
-
-        return element
-            .map(d -> d.getChildren("entry", d.getNamespace()))
-            .map(HashSet::ofAll)
-            .map(entry -> this.xmlToItems(entry, element.map(Element::getNamespace).getOrElse(Namespace.NO_NAMESPACE)))
-            .getOrElse(HashSet::empty);
-    }
-
-    private Set<Item> xmlToItems(Set<Element> entry, Namespace defaultNamespace) {
-        return entry.map(elem -> generateItemFromElement(elem, defaultNamespace));
+        return jdomService
+                .entriesOf(rssUrlOf(podcast.getUrl()), "entry", ATOM_NAMESPACE)
+                .map(entry -> generateItemFromElement(entry, ATOM_NAMESPACE))
+                .toSet();
     }
 
+    /* Ids of the entries are streamed from the feed fetched for the items, without building its document */
     @Override
     public String signatureOf(Podcast podcast) {
-        Option<Element> element = xmlOf(podcast.getUrl()).map(Document::getRootElement);
-
-        return element
-                .map(d -> d.getChildren("entry", d.getNamespace()))
-                .map(entries -> entries.stream().map(elem -> elem.getChildText("id", element.map(Element::getNamespace).getOrElse(Namespace.NO_NAMESPACE))).collect(joining()))
+        return Try(() -> jdomService.entriesOf(rssUrlOf(podcast.getUrl()), "entry", ATOM_NAMESPACE)
+                        .map(entry -> entry.getChildText("id", ATOM_NAMESPACE))
+                        .mkString())
+                .filter(StringUtils::isNotEmpty)
                 .map(signatureService::generateMD5Signature)
                 .getOrElse(StringUtils.EMPTY);
     }
@@ -182,8 +175,8 @@ public class YoutubeUpdater extends AbstractUpdater {
         return String.format(URL_PAGE_BASE, idVideo);
     }
 
-    private Option<Document> xmlOf(String url) {
-        return jdomService.parse(isPlaylist(url) ? String.format(PLAYLIST_RSS_BASE, playlistIdOf(url)) : String.format(CHANNEL_RSS_BASE, channelIdOf(url)));
+    private String rssUrlOf(String url) {
+        return isPlaylist(url) ? String.format(PLAYLIST_RSS_BASE, playlistIdOf(url)) : String.format(CHANNEL_RSS_BASE, channelIdOf(url));
     }
 
     private String playlistIdOf(String url) {
@@ -7,4 +7,7 @@ import org.springframework.stereotype.Repository;
 import java.util.UUID;
 
 @Repository
-public interface CoverRepository extends JpaRepository<Cover, UUID> {}
+public interface CoverRepository extends JpaRepository<Cover, UUID> {
+
+    Cover findFirstByUrlAndWidthNotNullAndHeightNotNull(String url);
+}
@@ -0,0 +1,27 @@
+package lan.dk.podcastserver.repository;
+
+import io.vavr.collection.List;
+import lan.dk.podcastserver.entity.DailyStat;
+import lan.dk.podcastserver.entity.QDailyStat;
+import lan.dk.podcastserver.repository.custom.DailyStatRepositoryCustom;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.querydsl.QueryDslPredicateExecutor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@Repository
+public interface DailyStatRepository extends JpaRepository<DailyStat, UUID>, DailyStatRepositoryCustom, QueryDslPredicateExecutor<DailyStat> {
+
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
+    default List<DailyStat> findByPodcastAndKindAfter(UUID podcastId, DailyStat.Kind kind, LocalDate date) {
+        QDailyStat s = QDailyStat.dailyStat;
+        return List.ofAll(findAll(s.podcastId.eq(podcastId).and(s.kind.eq(kind)).and(s.date.after(date))));
+    }
+}
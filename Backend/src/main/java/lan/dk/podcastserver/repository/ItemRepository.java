@@ -7,7 +7,6 @@ import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Status;
 import lan.dk.podcastserver.manager.worker.updater.AbstractUpdater;
 import lan.dk.podcastserver.repository.custom.ItemRepositoryCustom;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -25,12 +24,6 @@ import static lan.dk.podcastserver.repository.dsl.ItemDSL.*;
 @Repository
 public interface ItemRepository extends JpaRepository<Item, UUID>, ItemRepositoryCustom, QueryDslPredicateExecutor<Item> {
 
-    @CacheEvict(value = {"search", "stats"}, allEntries = true)
-    Item save(Item item);
-
-    @CacheEvict(value = {"search", "stats"}, allEntries = true)
-    void delete(Item item);
-
     @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
     default Page<Item> findByPodcast(UUID idPodcast, Pageable pageRequest) {
         return findAll(isInPodcast(idPodcast), pageRequest);
@@ -56,6 +49,11 @@ public interface ItemRepository extends JpaRepository<Item, UUID>, ItemRepositor
         return HashSet.ofAll(findAll(hasStatus(status)));
     }
 
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
+    default Set<Item> findAllWithCoverPending() {
+        return HashSet.ofAll(findAll(hasCoverPending()));
+    }
+
     @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
     default Set<Item> findAllToDownload(ZonedDateTime date) {
         return findAllNotDownloadedAndNewerThan(date);
@@ -4,6 +4,7 @@ import io.vavr.collection.HashSet;
 import io.vavr.collection.Set;
 import lan.dk.podcastserver.entity.Podcast;
 import lan.dk.podcastserver.entity.QPodcast;
+import lan.dk.podcastserver.repository.custom.PodcastRepositoryCustom;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.querydsl.QueryDslPredicateExecutor;
@@ -12,12 +13,12 @@ import org.springframework.stereotype.Repository;
 import java.util.UUID;
 
 @Repository
-public interface PodcastRepository  extends JpaRepository<Podcast, UUID>, QueryDslPredicateExecutor<Podcast> {
+public interface PodcastRepository  extends JpaRepository<Podcast, UUID>, PodcastRepositoryCustom, QueryDslPredicateExecutor<Podcast> {
 
-    @CacheEvict(value = {"podcasts", "search", "stats"}, allEntries = true)
+    @CacheEvict(value = "podcasts", allEntries = true)
     Podcast save(Podcast p);
 
-    @CacheEvict(value = {"podcasts", "search", "stats"}, allEntries = true)
+    @CacheEvict(value = "podcasts", allEntries = true)
     void delete(UUID id);
 
     default Set<Podcast> findByUrlIsNotNull() {
@@ -0,0 +1,17 @@
+package lan.dk.podcastserver.repository.custom;
+
+import io.vavr.collection.List;
+import lan.dk.podcastserver.entity.DailyStat;
+
+import java.time.LocalDate;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+public interface DailyStatRepositoryCustom {
+
+    List<DailyStat> sumByTypeAndDateAfter(DailyStat.Kind kind, LocalDate date);
+    void replace(DailyStat.Kind kind, List<DailyStat> stats);
+    void replace(DailyStat.Kind kind, LocalDate date, List<DailyStat> stats);
+
+}
@@ -1,12 +1,35 @@
 package lan.dk.podcastserver.repository.custom;
 
 import io.vavr.collection.List;
+import io.vavr.collection.Set;
+import lan.dk.podcastserver.entity.DailyStat;
+import lan.dk.podcastserver.entity.Item;
+import lan.dk.podcastserver.entity.Status;
+import lan.dk.podcastserver.entity.Tag;
+import org.hibernate.search.batchindexing.MassIndexerProgressMonitor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
 import java.util.UUID;
+import java.util.concurrent.Future;
 
 public interface ItemRepositoryCustom {
 
-    void reindex() throws InterruptedException;
-    List<UUID> fullTextSearch(String term);
+    Future<?> reindex(MassIndexerProgressMonitor monitor);
+    Set<UUID> findAllIds();
+    Set<UUID> findAllIndexedIds();
+    long countIndexed();
+    void index(Set<UUID> ids);
+    void purge(Set<UUID> ids);
+    Page<Item> fullTextSearch(String term, Set<Tag> tags, Set<Status> statuses, Pageable page);
+    long updateStatus(Set<UUID> ids, Status status);
+    long updateCoverPending(Set<UUID> ids, Boolean pending);
+    long updateDownloadState(UUID id, Status status, Long length, String mimeType, String fileName, ZonedDateTime downloadDate, Integer numberOfTry);
+    List<ZonedDateTime> findLastPubDates(UUID podcastId, int count);
+    List<String> findUrlsByPodcast(UUID podcastId);
+    List<DailyStat> countByDay(DailyStat.Kind kind);
+    List<DailyStat> countByDay(DailyStat.Kind kind, LocalDate date);
 
 }
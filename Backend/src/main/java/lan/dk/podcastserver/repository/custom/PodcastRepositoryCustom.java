@@ -0,0 +1,13 @@
+package lan.dk.podcastserver.repository.custom;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+public interface PodcastRepositoryCustom {
+
+    long updateNextUpdate(UUID id, ZonedDateTime nextUpdate);
+
+}
@@ -0,0 +1,65 @@
+package lan.dk.podcastserver.repository.impl;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
+import io.vavr.collection.List;
+import lan.dk.podcastserver.entity.DailyStat;
+import lan.dk.podcastserver.entity.QDailyStat;
+import lan.dk.podcastserver.repository.custom.DailyStatRepositoryCustom;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.time.LocalDate;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+public class DailyStatRepositoryImpl implements DailyStatRepositoryCustom {
+
+    private static final QDailyStat Q_DAILY_STAT = QDailyStat.dailyStat;
+
+    private final EntityManager entityManager;
+
+    public DailyStatRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional
+    public List<DailyStat> sumByTypeAndDateAfter(DailyStat.Kind kind, LocalDate date) {
+        NumberExpression<Long> sum = Q_DAILY_STAT.numberOfItems.sum();
+
+        return List.ofAll(new JPAQuery<>(entityManager)
+                .select(Q_DAILY_STAT.type, Q_DAILY_STAT.date, sum)
+                .from(Q_DAILY_STAT)
+                .where(Q_DAILY_STAT.kind.eq(kind), Q_DAILY_STAT.date.after(date))
+                .groupBy(Q_DAILY_STAT.type, Q_DAILY_STAT.date)
+                .fetch())
+                .map(t -> DailyStat.builder()
+                        .kind(kind)
+                        .type(t.get(Q_DAILY_STAT.type))
+                        .date(t.get(Q_DAILY_STAT.date))
+                        .numberOfItems(t.get(sum))
+                        .build()
+                );
+    }
+
+    @Override
+    @Transactional
+    public void replace(DailyStat.Kind kind, List<DailyStat> stats) {
+        replace(Q_DAILY_STAT.kind.eq(kind), stats);
+    }
+
+    @Override
+    @Transactional
+    public void replace(DailyStat.Kind kind, LocalDate date, List<DailyStat> stats) {
+        replace(Q_DAILY_STAT.kind.eq(kind).and(Q_DAILY_STAT.date.eq(date)), stats);
+    }
+
+    private void replace(Predicate rows, List<DailyStat> stats) {
+        new JPADeleteClause(entityManager, Q_DAILY_STAT).where(rows).execute();
+        stats.forEach(entityManager::persist);
+    }
+}
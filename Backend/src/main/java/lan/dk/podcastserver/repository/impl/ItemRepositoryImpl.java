@@ -1,28 +1,55 @@
 package lan.dk.podcastserver.repository.impl;
 
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.DateTimePath;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import io.vavr.collection.HashSet;
 import io.vavr.collection.List;
-import lan.dk.podcastserver.entity.Item;
+import io.vavr.collection.Set;
+import lan.dk.podcastserver.entity.*;
 import lan.dk.podcastserver.repository.custom.ItemRepositoryCustom;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.CacheMode;
-import org.hibernate.search.batchindexing.impl.SimpleIndexingProgressMonitor;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.hibernate.search.batchindexing.MassIndexerProgressMonitor;
+import org.hibernate.search.engine.ProjectionConstants;
 import org.hibernate.search.jpa.FullTextEntityManager;
+import org.hibernate.search.jpa.FullTextQuery;
 import org.hibernate.search.query.dsl.BooleanJunction;
 import org.hibernate.search.query.dsl.QueryBuilder;
-import org.hibernate.transform.ResultTransformer;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 
 import javax.transaction.Transactional;
-import java.util.Arrays;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import static io.vavr.API.Option;
+import static java.util.Objects.nonNull;
 
 @Slf4j
 public class ItemRepositoryImpl implements ItemRepositoryCustom {
 
     private static final String[] SEARCH_FIELDS = new String[]{"description", "title"};
-    private static final HibernateIdExtractor RESULT_TRANSFORMER = new HibernateIdExtractor();
+    private static final String STATUS_FIELD = "status";
+    private static final String PODCAST_FIELD = "podcast";
+    private static final String PERTINENCE = "pertinence";
+    private static final Set<String> SORTABLE_FIELDS = HashSet.of("pubDate", "downloadDate");
+    private static final QItem Q_ITEM = QItem.item;
+    /* Each thread loading items holds a connection, with one more for the ids, some are left to the application */
+    private static final int THREADS_TO_LOAD_OBJECTS = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 4));
+    private static final int INDEX_BATCH_SIZE = 100;
 
     private final FullTextEntityManager fullTextEntityManager;
 
@@ -31,50 +58,268 @@ public class ItemRepositoryImpl implements ItemRepositoryCustom {
     }
 
     @Override
-    public void reindex() throws InterruptedException {
-        fullTextEntityManager
+    public Future<?> reindex(MassIndexerProgressMonitor monitor) {
+        return fullTextEntityManager
                 .createIndexer(Item.class)
-                    .batchSizeToLoadObjects(25)
-                    .cacheMode(CacheMode.NORMAL)
-                    .idFetchSize(150)
-                    .threadsToLoadObjects(1)
-                    .progressMonitor(new SimpleIndexingProgressMonitor(1000))
-                .startAndWait();
+                    .typesToIndexInParallel(1)
+                    .threadsToLoadObjects(THREADS_TO_LOAD_OBJECTS)
+                    .batchSizeToLoadObjects(INDEX_BATCH_SIZE)
+                    .idFetchSize(1000)
+                    .cacheMode(CacheMode.IGNORE)
+                    .progressMonitor(monitor)
+                .start();
     }
 
+    @Override
+    @Transactional
+    public Set<UUID> findAllIds() {
+        return HashSet.ofAll(new JPAQuery<>(fullTextEntityManager)
+                .select(Q_ITEM.id)
+                .from(Q_ITEM)
+                .fetch());
+    }
+
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public Set<UUID> findAllIndexedIds() {
+        QueryBuilder qbDsl = fullTextEntityManager.getSearchFactory()
+                .buildQueryBuilder().forEntity(Item.class).get();
+
+        java.util.List<Object[]> ids = fullTextEntityManager
+                .createFullTextQuery(qbDsl.all().createQuery(), Item.class)
+                .setProjection(ProjectionConstants.ID)
+                .getResultList();
+
+        return HashSet.ofAll(ids.stream().map(row -> (UUID) row[0]));
+    }
+
+    /* Only the number of documents is read, the index is not loaded */
+    @Override
+    @Transactional
+    public long countIndexed() {
+        QueryBuilder qbDsl = fullTextEntityManager.getSearchFactory()
+                .buildQueryBuilder().forEntity(Item.class).get();
+
+        FullTextQuery query = fullTextEntityManager.createFullTextQuery(qbDsl.all().createQuery(), Item.class);
+        query.setMaxResults(0);
+        return query.getResultSize();
+    }
+
+    @Override
+    @Transactional
+    public void index(Set<UUID> ids) {
+        ids.grouped(INDEX_BATCH_SIZE).forEach(batch -> {
+            batch.flatMap(id -> Option(fullTextEntityManager.find(Item.class, id)))
+                    .forEach(fullTextEntityManager::index);
+            fullTextEntityManager.flushToIndexes();
+            fullTextEntityManager.clear();
+        });
+    }
+
+    @Override
+    @Transactional
+    public void purge(Set<UUID> ids) {
+        ids.forEach(id -> fullTextEntityManager.purge(Item.class, id));
+    }
+
+    /**
+     * Filters, sort and paging are done by the index, so only the items of the page are loaded from the database.
+     * Items are sorted by relevance, or by their indexed publication or download date
+     */
     @Override
     @Transactional
     @SuppressWarnings("unchecked")
-    public List<UUID> fullTextSearch(String term) {
-        if (StringUtils.isEmpty(term))
-            return List.empty();
+    public Page<Item> fullTextSearch(String term, Set<Tag> tags, Set<Status> statuses, Pageable page) {
+        String[] words = StringUtils.split(StringUtils.defaultString(term));
+        if (words.length == 0) {
+            return new PageImpl<>(new ArrayList<>(), page, 0);
+        }
 
         QueryBuilder qbDsl = fullTextEntityManager.getSearchFactory()
                 .buildQueryBuilder().forEntity(Item.class).get();
 
         final BooleanJunction<BooleanJunction> query = qbDsl.bool();
-        Arrays.stream(term.split("\\s+"))
+        Stream.of(words)
                 .map(subTerm -> qbDsl.keyword().onFields(SEARCH_FIELDS).matching(subTerm).createQuery())
                 .forEach(query::must);
 
-        return Option(fullTextEntityManager.createFullTextQuery(query.createQuery(), Item.class)
-                .setProjection("id")
-                .setResultTransformer(RESULT_TRANSFORMER)
-                .<UUID>getResultList())
-                .map(l -> (java.util.List<UUID>) l)
-                .map(List::ofAll)
-                .getOrElse(List.empty());
-    }
+        if (!statuses.isEmpty()) {
+            query.must(anyOf(qbDsl, STATUS_FIELD, statuses.map(Status::name)));
+        }
 
-    static class HibernateIdExtractor implements ResultTransformer {
-        @Override
-        public Object transformTuple(Object[] tuple, String[] aliases) {
-            return tuple[0];
+        if (!tags.isEmpty()) {
+            Set<String> podcasts = podcastsWithTags(tags);
+            if (podcasts.isEmpty()) {
+                return new PageImpl<>(new ArrayList<>(), page, 0);
+            }
+            query.must(anyOf(qbDsl, PODCAST_FIELD, podcasts));
         }
 
-        @Override
-        public java.util.List transformList(java.util.List collection) {
-            return collection;
+        FullTextQuery fullTextQuery = fullTextEntityManager.createFullTextQuery(query.createQuery(), Item.class);
+        fullTextQuery
+                .setSort(sortOf(page.getSort()))
+                .setFirstResult(page.getOffset())
+                .setMaxResults(page.getPageSize());
+
+        java.util.List<Item> items = Option(fullTextQuery.getResultList()).getOrElse(ArrayList::new);
+        return new PageImpl<>(items, page, fullTextQuery.getResultSize());
+    }
+
+    private static Query anyOf(QueryBuilder qbDsl, String field, Set<String> values) {
+        BooleanJunction<?> any = qbDsl.bool();
+        values.forEach(v -> any.should(qbDsl.keyword().onField(field).ignoreFieldBridge().matching(v).createQuery()));
+        return any.createQuery();
+    }
+
+    private Set<String> podcastsWithTags(Set<Tag> tags) {
+        QPodcast podcast = QPodcast.podcast;
+        return HashSet.ofAll(new JPAQuery<>(fullTextEntityManager)
+                .select(podcast.id)
+                .from(podcast)
+                .where(tags.map(podcast.tags::contains).map(Predicate.class::cast).toJavaArray(Predicate.class))
+                .fetch())
+                .map(String::valueOf);
+    }
+
+    /* Relevance is sorted by the score, from the most relevant with a descending order */
+    private static Sort sortOf(org.springframework.data.domain.Sort sort) {
+        return Option(sort)
+                .flatMap(s -> List.ofAll(s).headOption())
+                .map(o -> SORTABLE_FIELDS.contains(o.getProperty())
+                        ? new Sort(new SortField(o.getProperty(), SortField.Type.STRING, !o.isAscending()), SortField.FIELD_SCORE)
+                        : new Sort(new SortField(null, SortField.Type.SCORE, PERTINENCE.equals(o.getProperty()) && o.isAscending())))
+                .getOrElse(Sort.RELEVANCE);
+    }
+
+    @Override
+    @Transactional
+    public long updateStatus(Set<UUID> ids, Status status) {
+        if (ids.isEmpty())
+            return 0L;
+
+        long updated = new JPAUpdateClause(fullTextEntityManager, Q_ITEM)
+                .set(Q_ITEM.status, status)
+                .where(Q_ITEM.id.in(ids.toJavaSet()))
+                .execute();
+
+        reindex(ids);
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public long updateCoverPending(Set<UUID> ids, Boolean pending) {
+        if (ids.isEmpty())
+            return 0L;
+
+        return new JPAUpdateClause(fullTextEntityManager, Q_ITEM)
+                .set(Q_ITEM.coverPending, pending)
+                .where(Q_ITEM.id.in(ids.toJavaSet()))
+                .execute();
+    }
+
+    @Override
+    @Transactional
+    public long updateDownloadState(UUID id, Status status, Long length, String mimeType, String fileName, ZonedDateTime downloadDate, Integer numberOfTry) {
+        JPAUpdateClause update = new JPAUpdateClause(fullTextEntityManager, Q_ITEM)
+                .set(Q_ITEM.status, status)
+                .set(Q_ITEM.length, length)
+                .set(Q_ITEM.mimeType, mimeType)
+                .set(Q_ITEM.fileName, fileName)
+                .set(Q_ITEM.downloadDate, downloadDate)
+                .where(Q_ITEM.id.eq(id));
+
+        /* States journaled before the number of try was, keep the one in database */
+        if (nonNull(numberOfTry)) update.set(Q_ITEM.numberOfTry, numberOfTry);
+
+        long updated = update.execute();
+
+        reindex(HashSet.of(id));
+        return updated;
+    }
+
+    /**
+     * Bulk updates bypass Hibernate Search, the items are read again from the database by one query to index their new
+     * state in a single batch. Each update runs in its own transaction, so none of them was loaded before in a stale state
+     */
+    private void reindex(Set<UUID> ids) {
+        ids.grouped(INDEX_BATCH_SIZE).forEach(batch -> {
+            new JPAQuery<Item>(fullTextEntityManager)
+                    .select(Q_ITEM)
+                    .from(Q_ITEM)
+                    .where(Q_ITEM.id.in(batch.toJavaSet()))
+                    .fetch()
+                    .forEach(fullTextEntityManager::index);
+            fullTextEntityManager.flushToIndexes();
+        });
+    }
+
+    @Override
+    @Transactional
+    public List<ZonedDateTime> findLastPubDates(UUID podcastId, int count) {
+        return List.ofAll(new JPAQuery<>(fullTextEntityManager)
+                .select(Q_ITEM.pubDate)
+                .from(Q_ITEM)
+                .where(Q_ITEM.podcast.id.eq(podcastId), Q_ITEM.pubDate.isNotNull())
+                .orderBy(Q_ITEM.pubDate.desc())
+                .limit(count)
+                .fetch());
+    }
+
+    @Override
+    @Transactional
+    public List<String> findUrlsByPodcast(UUID podcastId) {
+        return List.ofAll(new JPAQuery<>(fullTextEntityManager)
+                .select(Q_ITEM.url)
+                .from(Q_ITEM)
+                .where(Q_ITEM.podcast.id.eq(podcastId), Q_ITEM.url.isNotNull())
+                .fetch());
+    }
+
+    @Override
+    @Transactional
+    public List<DailyStat> countByDay(DailyStat.Kind kind) {
+        return countByDay(kind, dateOf(kind).isNotNull());
+    }
+
+    @Override
+    @Transactional
+    public List<DailyStat> countByDay(DailyStat.Kind kind, LocalDate date) {
+        ZonedDateTime startOfDay = date.atStartOfDay(ZoneId.systemDefault());
+        return countByDay(kind, dateOf(kind).goe(startOfDay).and(dateOf(kind).lt(startOfDay.plusDays(1))));
+    }
+
+    /* Dates are stored in the zone of the server, so days are grouped in this zone */
+    private List<DailyStat> countByDay(DailyStat.Kind kind, Predicate filter) {
+        DateTimePath<ZonedDateTime> date = dateOf(kind);
+        NumberExpression<Integer> year = date.year();
+        NumberExpression<Integer> month = date.month();
+        NumberExpression<Integer> day = date.dayOfMonth();
+        NumberExpression<Long> count = Q_ITEM.id.count();
+
+        return List.ofAll(new JPAQuery<>(fullTextEntityManager)
+                .select(Q_ITEM.podcast.id, Q_ITEM.podcast.type, year, month, day, count)
+                .from(Q_ITEM)
+                .where(filter)
+                .groupBy(Q_ITEM.podcast.id, Q_ITEM.podcast.type, year, month, day)
+                .fetch())
+                .map(t -> DailyStat.builder()
+                        .podcastId(t.get(Q_ITEM.podcast.id))
+                        .type(t.get(Q_ITEM.podcast.type))
+                        .kind(kind)
+                        .date(LocalDate.of(t.get(year), t.get(month), t.get(day)))
+                        .numberOfItems(t.get(count))
+                        .build()
+                );
+    }
+
+    private static DateTimePath<ZonedDateTime> dateOf(DailyStat.Kind kind) {
+        switch (kind) {
+            case PUBLICATION: return Q_ITEM.pubDate;
+            case CREATION: return Q_ITEM.creationDate;
+            case DOWNLOAD: return Q_ITEM.downloadDate;
+            default: throw new IllegalArgumentException("Unknown kind of stat " + kind);
         }
     }
 }
@@ -0,0 +1,34 @@
+package lan.dk.podcastserver.repository.impl;
+
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lan.dk.podcastserver.entity.QPodcast;
+import lan.dk.podcastserver.repository.custom.PodcastRepositoryCustom;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+public class PodcastRepositoryImpl implements PodcastRepositoryCustom {
+
+    private static final QPodcast Q_PODCAST = QPodcast.podcast;
+
+    private final EntityManager entityManager;
+
+    public PodcastRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /* Only the next update is written, the podcast may be saved at the same time by its update */
+    @Override
+    @Transactional
+    public long updateNextUpdate(UUID id, ZonedDateTime nextUpdate) {
+        return new JPAUpdateClause(entityManager, Q_PODCAST)
+                .set(Q_PODCAST.nextUpdate, nextUpdate)
+                .where(Q_PODCAST.id.eq(id))
+                .execute();
+    }
+}
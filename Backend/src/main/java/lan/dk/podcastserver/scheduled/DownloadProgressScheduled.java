@@ -0,0 +1,22 @@
+package lan.dk.podcastserver.scheduled;
+
+import lan.dk.podcastserver.manager.ItemDownloadManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@Component
+@RequiredArgsConstructor
+public class DownloadProgressScheduled {
+
+    private final ItemDownloadManager itemDownloadManager;
+
+    @Scheduled(fixedRateString = "${podcastserver.download-progress-rate:1000}")
+    public void broadcastProgressions() {
+        itemDownloadManager.broadcastProgressions();
+        itemDownloadManager.startDownloadsWithFreeBandwidth();
+    }
+}
@@ -0,0 +1,26 @@
+package lan.dk.podcastserver.scheduled;
+
+import lan.dk.podcastserver.manager.DownloadStateJournal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@Component
+@RequiredArgsConstructor
+public class DownloadStateScheduled {
+
+    private final DownloadStateJournal downloadStateJournal;
+
+    @Scheduled(fixedDelayString = "${podcastserver.download-state-flush-rate:5000}")
+    public void flush() {
+        downloadStateJournal.flush();
+    }
+
+    @Scheduled(fixedDelayString = "${podcastserver.download-state-sync-rate:1000}")
+    public void sync() {
+        downloadStateJournal.sync();
+    }
+}
@@ -1,6 +1,6 @@
 package lan.dk.podcastserver.scheduled;
 
-import lan.dk.podcastserver.business.ItemBusiness;
+import lan.dk.podcastserver.manager.SearchIndexer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -12,11 +12,11 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class HibernateSearchIndexation {
 
-    private final ItemBusiness itemBusiness;
+    private final SearchIndexer searchIndexer;
 
-    @Scheduled(fixedDelay = 86400000)
-    public void refreshIndex() throws InterruptedException {
-        itemBusiness.reindex();
+    @Scheduled(fixedDelay = 3600000)
+    public void checkIndex() {
+        searchIndexer.check();
     }
 
 }
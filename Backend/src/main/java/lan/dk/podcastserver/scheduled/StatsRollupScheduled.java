@@ -0,0 +1,26 @@
+package lan.dk.podcastserver.scheduled;
+
+import lan.dk.podcastserver.manager.StatsRollup;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@Component
+@RequiredArgsConstructor
+public class StatsRollupScheduled {
+
+    private final StatsRollup statsRollup;
+
+    @Scheduled(fixedDelay = 86400000)
+    public void rebuild() {
+        statsRollup.rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${podcastserver.stats-refresh-rate:60000}")
+    public void refresh() {
+        statsRollup.refresh();
+    }
+}
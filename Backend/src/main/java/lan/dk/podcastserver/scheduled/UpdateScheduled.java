@@ -18,11 +18,18 @@ public class UpdateScheduled {
     private final UpdatePodcastBusiness updatePodcastBusiness;
     private final ItemDownloadManager IDM;
 
+    /* Each run updates only the podcasts due, so it can run often */
+    @Scheduled(fixedDelayString = "${podcastserver.update-planner-rate:300000}")
+    public void updateDuePodcasts() {
+        log.debug(">>> Beginning of the update of podcasts due <<<");
+        updatePodcastBusiness.updateDuePodcasts();
+        log.debug(">>> End of the update of podcasts due <<<");
+    }
+
     @Scheduled(cron="${podcastserver.update-and-download.refresh.cron:0 0 * * * *}")
     public void updateAndDownloadPodcast() {
-        log.info(">>> Beginning of the update <<<");
-        updatePodcastBusiness.updatePodcast();
+        log.info(">>> Beginning of the download <<<");
         IDM.launchDownload();
-        log.info(">>> End of the update <<<");
+        log.info(">>> End of the download <<<");
     }
 }
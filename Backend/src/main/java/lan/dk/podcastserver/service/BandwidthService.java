@@ -0,0 +1,210 @@
+package lan.dk.podcastserver.service;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import lan.dk.podcastserver.service.properties.Bandwidth;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalTime;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static io.vavr.API.Option;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Token buckets shared by all the downloads. Each download has its own {@link Meter},
+ * consuming tokens in the global bucket and in the bucket of the download.
+ */
+@Slf4j
+@Service
+public class BandwidthService {
+
+    private static final long UNLIMITED = 0L;
+    private static final long REFRESH_OF_LIMIT = TimeUnit.SECONDS.toNanos(1);
+
+    private final Bandwidth bandwidth;
+    private final Clock clock;
+    private final TokenBucket global = new TokenBucket(UNLIMITED);
+    private final java.util.Map<UUID, Meter> meters = new ConcurrentHashMap<>();
+
+    private volatile Long limit = null;
+    private volatile long limitByDownload;
+    private volatile long lastRefresh = 0L;
+
+    @Autowired
+    public BandwidthService(Bandwidth bandwidth) {
+        this(bandwidth, Clock.systemDefaultZone());
+    }
+
+    BandwidthService(Bandwidth bandwidth, Clock clock) {
+        this.bandwidth = bandwidth;
+        this.clock = clock;
+        this.limitByDownload = Option(bandwidth.getLimitByDownload()).getOrElse(UNLIMITED);
+        refreshLimit();
+    }
+
+    /**
+     * Limit in use, set at runtime or else from the profile of the moment or else from the configuration
+     */
+    public long getLimit() {
+        return Option(limit)
+                .orElse(() -> List.ofAll(bandwidth.getProfiles()).find(p -> p.contains(LocalTime.now(clock))).map(Bandwidth.Profile::getLimit))
+                .orElse(() -> Option(bandwidth.getLimit()))
+                .getOrElse(UNLIMITED);
+    }
+
+    public void setLimit(Long limit) {
+        this.limit = limit;
+        refreshLimit();
+    }
+
+    public long getLimitByDownload() {
+        return limitByDownload;
+    }
+
+    public void setLimitByDownload(long limitByDownload) {
+        this.limitByDownload = limitByDownload;
+        meters.values().forEach(m -> m.bucket.setRate(limitByDownload));
+    }
+
+    public Meter meter(UUID id) {
+        return meters.computeIfAbsent(id, Meter::new);
+    }
+
+    public void release(UUID id) {
+        meters.remove(id);
+    }
+
+    /**
+     * Bytes per second of each download during the last seconds
+     */
+    public Map<UUID, Long> throughputs() {
+        return HashMap.ofAll(meters).mapValues(Meter::getThroughput);
+    }
+
+    /**
+     * Bytes per second still available under the global limit, {@link Long#MAX_VALUE} if there is no limit
+     */
+    public long available() {
+        long current = getLimit();
+        return current <= UNLIMITED
+                ? Long.MAX_VALUE
+                : Math.max(0L, current - throughputs().values().sum().longValue());
+    }
+
+    private void refreshLimit() {
+        lastRefresh = System.nanoTime();
+        global.setRate(getLimit());
+    }
+
+    private long reserve(TokenBucket bucket, long bytes) {
+        if (System.nanoTime() - lastRefresh > REFRESH_OF_LIMIT) {
+            refreshLimit();
+        }
+        return Math.max(global.reserve(bytes), bucket.reserve(bytes));
+    }
+
+    public class Meter {
+
+        private final UUID id;
+        private final TokenBucket bucket = new TokenBucket(limitByDownload);
+        private final ThroughputCounter counter = new ThroughputCounter();
+
+        private Meter(UUID id) {
+            this.id = id;
+        }
+
+        /**
+         * Record bytes already transferred and returns the time, in nanoseconds, to wait to stay under the limits
+         */
+        public long reserve(long bytes) {
+            if (bytes <= 0) return 0L;
+
+            counter.add(bytes);
+            return BandwidthService.this.reserve(bucket, bytes);
+        }
+
+        /**
+         * Record bytes already transferred and block the calling thread the time needed to stay under the limits
+         */
+        public void consume(long bytes) {
+            long delay = reserve(bytes);
+            if (delay <= 0) return;
+
+            try {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                log.debug("Interruption during bandwidth shaping of {}", id);
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        public long getThroughput() {
+            return counter.get();
+        }
+    }
+
+    static class TokenBucket {
+
+        private long rate;
+        private double tokens;
+        private long last = System.nanoTime();
+
+        TokenBucket(long rate) {
+            this.rate = rate;
+        }
+
+        synchronized void setRate(long rate) {
+            refill();
+            this.rate = rate;
+            tokens = Math.min(tokens, rate);
+        }
+
+        /* Tokens can go below zero, the debt is the time the caller has to wait */
+        synchronized long reserve(long bytes) {
+            if (rate <= UNLIMITED) return 0L;
+
+            refill();
+            tokens -= bytes;
+            return tokens >= 0 ? 0L : (long) (-tokens * TimeUnit.SECONDS.toNanos(1) / rate);
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            if (rate > UNLIMITED) {
+                tokens = Math.min(rate, tokens + (now - last) * rate / (double) TimeUnit.SECONDS.toNanos(1));
+            }
+            last = now;
+        }
+    }
+
+    static class ThroughputCounter {
+
+        private static final long WINDOW = TimeUnit.SECONDS.toNanos(2);
+
+        private long start = System.nanoTime();
+        private long bytes = 0L;
+        private long throughput = 0L;
+
+        synchronized void add(long count) {
+            long now = System.nanoTime();
+            bytes += count;
+            if (now - start >= WINDOW) {
+                throughput = bytes * TimeUnit.SECONDS.toNanos(1) / (now - start);
+                bytes = 0L;
+                start = now;
+            }
+        }
+
+        synchronized long get() {
+            return System.nanoTime() - start > 2 * WINDOW ? 0L : throughput;
+        }
+    }
+}
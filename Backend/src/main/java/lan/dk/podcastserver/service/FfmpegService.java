@@ -1,14 +1,18 @@
 package lan.dk.podcastserver.service;
 
+import io.vavr.collection.List;
+import io.vavr.control.Try;
 import lan.dk.podcastserver.utils.custom.ffmpeg.CustomRunProcessFunc;
-import lan.dk.podcastserver.utils.custom.ffmpeg.ProcessListener;
-import lombok.RequiredArgsConstructor;
+import lan.dk.podcastserver.utils.custom.ffmpeg.ProcessJob;
 import lombok.extern.slf4j.Slf4j;
 import net.bramp.ffmpeg.FFmpegExecutor;
 import net.bramp.ffmpeg.FFprobe;
 import net.bramp.ffmpeg.builder.FFmpegBuilder;
+import net.bramp.ffmpeg.job.FFmpegJob;
 import net.bramp.ffmpeg.progress.ProgressListener;
 import org.apache.commons.io.FilenameUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
@@ -16,43 +20,67 @@ import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import static io.vavr.API.List;
 import static io.vavr.API.Try;
 import static java.util.Objects.nonNull;
-import static java.util.concurrent.CompletableFuture.runAsync;
 
 /**
  * Created by kevin on 19/07/2014 for Podcast Server
  */
 @Slf4j
 @Component("FfmpegService")
-@RequiredArgsConstructor
 public class FfmpegService {
 
     public static final String AUDIO_BITSTREAM_FILTER_AAC_ADTSTOASC = "aac_adtstoasc";
     public static final String CODEC_COPY = "copy";
     private static final String FORMAT_CONCAT = "concat";
+    private static final long SPAWN_TIMEOUT = 30;
+    public static final int JOBS_BY_DOWNLOAD = 4;
 
     private final CustomRunProcessFunc runProcessFunc;
     private final FFmpegExecutor ffmpegExecutor;
     private final FFprobe ffprobe;
+    private final ThreadPoolTaskExecutor ffmpegJobExecutor;
+
+    public FfmpegService(CustomRunProcessFunc runProcessFunc, FFmpegExecutor ffmpegExecutor, FFprobe ffprobe, @Qualifier("FfmpegJobExecutor") ThreadPoolTaskExecutor ffmpegJobExecutor) {
+        this.runProcessFunc = runProcessFunc;
+        this.ffmpegExecutor = ffmpegExecutor;
+        this.ffprobe = ffprobe;
+        this.ffmpegJobExecutor = ffmpegJobExecutor;
+    }
+
+    /* Jobs follow the limit of parallel downloads, the maximum is raised before the core size and lowered after it */
+    public synchronized void setConcurrentDownload(Integer concurrentDownload) {
+        int jobs = concurrentDownload * JOBS_BY_DOWNLOAD;
+        if (jobs > ffmpegJobExecutor.getMaxPoolSize()) {
+            ffmpegJobExecutor.setMaxPoolSize(jobs);
+            ffmpegJobExecutor.setCorePoolSize(jobs);
+        } else {
+            ffmpegJobExecutor.setCorePoolSize(jobs);
+            ffmpegJobExecutor.setMaxPoolSize(jobs);
+        }
+    }
+
+    public int activeJobs() {
+        return ffmpegJobExecutor.getActiveCount();
+    }
+
+    public int queuedJobs() {
+        return ffmpegJobExecutor.getThreadPoolExecutor().getQueue().size();
+    }
+
+    public int maxJobs() {
+        return ffmpegJobExecutor.getMaxPoolSize();
+    }
 
     /* Concat files */
     public void concat(Path target, Path... files) {
         Path listOfFiles = null;
         try {
             Files.deleteIfExists(target);
-
-            String filesStrings = List(files)
-                    .map(f -> f.getFileName().toString())
-                    .map(p -> "file '" + p + "'")
-                    .mkString(System.getProperty("line.separator"));
-
-            listOfFiles = Files.createTempFile(target.getParent(), "ffmpeg-list-", ".txt");
-            Files.write(listOfFiles, filesStrings.getBytes());
+            listOfFiles = listOf(target, List(files));
 
             FFmpegBuilder builder = new FFmpegBuilder()
                     .setInput(listOfFiles.toAbsolutePath().toString())
@@ -72,6 +100,59 @@ public class FfmpegService {
             if (nonNull(listOfFiles)) Try(() -> Files.deleteIfExists(finalListOfFiles)); }
     }
 
+    /**
+     * Copy of MPEG-TS streams one after the other into a mp4 container, in one pass. The concat demuxer reads the
+     * streams in order and closes each of them before opening the next one, with timestamps following from one to the
+     * other
+     */
+    public Path concatStreams(Path target, List<Path> streams, ProgressListener progressListener) {
+        Path listOfFiles = Try(() -> listOf(target, streams)).getOrElseThrow(e -> new UncheckedIOException(IOException.class.cast(e)));
+
+        try {
+            FFmpegBuilder builder = new FFmpegBuilder()
+                    .setInput(listOfFiles.toAbsolutePath().toString())
+                    .setFormat(FORMAT_CONCAT)
+                    .addOutput(target.toAbsolutePath().toString())
+                    .setFormat("mp4")
+                    .setAudioBitStreamFilter(AUDIO_BITSTREAM_FILTER_AAC_ADTSTOASC)
+                    .setAudioCodec(CODEC_COPY)
+                    .setVideoCodec(CODEC_COPY)
+                    .done();
+
+            ffmpegExecutor.createJob(builder, progressListener).run();
+            return target;
+        } finally {
+            Try(() -> Files.deleteIfExists(listOfFiles));
+        }
+    }
+
+    /* Files are listed by name, so they have to be next to the target */
+    private static Path listOf(Path target, List<Path> files) throws IOException {
+        String filesStrings = files
+                .map(f -> f.getFileName().toString())
+                .map(p -> "file '" + p + "'")
+                .mkString(System.getProperty("line.separator"));
+
+        Path listOfFiles = Files.createTempFile(target.getParent(), "ffmpeg-list-", ".txt");
+        Files.write(listOfFiles, filesStrings.getBytes());
+        return listOfFiles;
+    }
+
+    /* Copy of the streams of a file into a mp4 container */
+    public Path remux(Path source, Path dest) {
+        FFmpegBuilder builder = new FFmpegBuilder()
+                .setInput(source.toAbsolutePath().toString())
+                .addOutput(dest.toAbsolutePath().toString())
+                .setFormat("mp4")
+                .setAudioBitStreamFilter(AUDIO_BITSTREAM_FILTER_AAC_ADTSTOASC)
+                .setAudioCodec(CODEC_COPY)
+                .setVideoCodec(CODEC_COPY)
+                .done();
+
+        ffmpegExecutor.createJob(builder).run();
+        return dest;
+    }
+
     /* Merge Audio and Video Files */
     public Path mergeAudioAndVideo(Path videoFile, Path audioFile, Path dest) {
         Path convertedAudio = convert(audioFile, audioFile.resolveSibling(changeExtension(audioFile, "aac")));
@@ -126,14 +207,14 @@ public class FfmpegService {
 
     /* Download delegation to ffmpeg-cli-wrapper */
     public Process download(String url, FFmpegBuilder ffmpegBuilder, ProgressListener progressListener) {
-        ProcessListener pl = new ProcessListener(url);
-        runProcessFunc.add(pl);
+        ProcessJob job = runProcessFunc.register(url);
+        FFmpegJob ffmpegJob = ffmpegExecutor.createJob(ffmpegBuilder, progressListener);
 
-        runAsync(ffmpegExecutor.createJob(ffmpegBuilder, progressListener));
+        Try.run(() -> ffmpegJobExecutor.execute(() -> runProcessFunc.execute(job, ffmpegJob)))
+                .onFailure(e -> runProcessFunc.abort(job, e));
 
-        Future<Process> process = pl.getProcess();
-        return Try(() -> process.get(2, TimeUnit.SECONDS))
-                .onFailure(e -> process.cancel(true))
-                .getOrElseThrow(e -> new UncheckedIOException(IOException.class.cast(e)));
+        return Try(() -> job.getProcess().get(SPAWN_TIMEOUT, TimeUnit.SECONDS))
+                .onFailure(e -> job.getProcess().cancel(true))
+                .getOrElseThrow(e -> new UncheckedIOException(new IOException("Ffmpeg process not started for " + url, e)));
     }
 }
@@ -1,6 +1,5 @@
 package lan.dk.podcastserver.service;
 
-import com.mashape.unirest.http.HttpResponse;
 import io.vavr.control.Option;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,11 +24,9 @@ public class HtmlService {
     private final UrlService urlService;
 
     public Option<Document> get(String url) {
-        return Try(() -> urlService.get(url)
-                    .header(UrlService.USER_AGENT_KEY, UrlService.USER_AGENT_DESKTOP)
-                .asBinary())
+        return Try(() -> urlService.fetch(url))
                     .filter(h -> h.getStatus() < 400)
-                    .map(HttpResponse::getBody)
+                    .map(UrlService.Fetched::asStream)
                     .mapTry(is -> Jsoup.parse(is, StandardCharsets.UTF_8.name(), ""))
                     .onFailure(e -> log.error("Error during HTML Fetching of {}", url, e))
                 .toOption();
@@ -1,7 +1,11 @@
 package lan.dk.podcastserver.service;
 
 
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.control.Option;
 import lan.dk.podcastserver.entity.Cover;
+import lan.dk.podcastserver.repository.CoverRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -11,33 +15,171 @@ import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static io.vavr.API.None;
+import static io.vavr.API.Option;
+import static io.vavr.API.Try;
+import static java.util.Objects.nonNull;
 
 /**
  * Created by kevin on 28/06/15 for Podcast Server
+ *
+ * Dimensions of a cover are read from the header of the image, requested with a range, and the image is decoded only
+ * if its format isn't recognized. Dimensions already known, in memory or in the covers saved in database, cost no request.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ImageService {
 
+    static final int HEADER_SIZE = 32 * 1024;
+    private static final int MAX_CACHED_DIMENSIONS = 10_000;
+
     final UrlService urlService;
+    final CoverRepository coverRepository;
+
+    private final Map<String, Tuple2<Integer, Integer>> dimensions = Collections.synchronizedMap(new Dimensions());
 
     public Cover getCoverFromURL(String url) {
         if (StringUtils.isEmpty(url))
             return Cover.DEFAULT_COVER;
 
+        return dimensionsOf(url)
+                .map(d -> Cover.builder().url(url).width(d._1()).height(d._2()).build())
+                .getOrElse(Cover.DEFAULT_COVER);
+    }
+
+    private Option<Tuple2<Integer, Integer>> dimensionsOf(String url) {
+        Tuple2<Integer, Integer> known = dimensions.get(url);
+        if (nonNull(known)) {
+            return Option(known);
+        }
+
+        Option<Tuple2<Integer, Integer>> found = savedDimensionsOf(url)
+                .orElse(() -> Try(() -> urlService.firstBytesOf(url, HEADER_SIZE))
+                        .map(ImageService::dimensionsOf)
+                        .getOrElse(None()))
+                .orElse(() -> decodedDimensionsOf(url));
+
+        found.forEach(d -> dimensions.put(url, d));
+        return found;
+    }
+
+    private Option<Tuple2<Integer, Integer>> savedDimensionsOf(String url) {
+        return Option(coverRepository.findFirstByUrlAndWidthNotNullAndHeightNotNull(url))
+                .map(c -> Tuple.of(c.getWidth(), c.getHeight()));
+    }
+
+    private Option<Tuple2<Integer, Integer>> decodedDimensionsOf(String url) {
         try (InputStream urlInputStream = urlService.asStream(url) ){
             final BufferedImage image = ImageIO.read(ImageIO.createImageInputStream(urlInputStream));
-            return Cover
-                    .builder()
-                        .url(url)
-                        .width(image.getWidth())
-                        .height(image.getHeight())
-                    .build();
+            return Option(image).map(i -> Tuple.of(i.getWidth(), i.getHeight()));
         } catch (IOException e) {
             log.error("Error during fetching Cover information for {}", url);
-            return Cover.DEFAULT_COVER;
+            return None();
+        }
+    }
+
+    /* Width and height read from the header of a PNG, GIF, JPEG or WebP image */
+    static Option<Tuple2<Integer, Integer>> dimensionsOf(byte[] header) {
+        if (startsWith(header, 0, 0x89, 'P', 'N', 'G') && header.length >= 24) {
+            return Option(Tuple.of(int32BigEndian(header, 16), int32BigEndian(header, 20)));
+        }
+
+        if (startsWith(header, 0, 'G', 'I', 'F') && header.length >= 10) {
+            return Option(Tuple.of(int16LittleEndian(header, 6), int16LittleEndian(header, 8)));
+        }
+
+        if (startsWith(header, 0, 0xFF, 0xD8)) {
+            return jpegDimensionsOf(header);
+        }
+
+        if (startsWith(header, 0, 'R', 'I', 'F', 'F') && startsWith(header, 8, 'W', 'E', 'B', 'P') && header.length >= 30) {
+            return webpDimensionsOf(header);
+        }
+
+        return None();
+    }
+
+    /* Segments are skipped up to the start of frame, which holds the height then the width */
+    private static Option<Tuple2<Integer, Integer>> jpegDimensionsOf(byte[] header) {
+        int i = 2;
+        while (i + 9 < header.length) {
+            if ((header[i] & 0xFF) != 0xFF) return None();
+
+            int marker = header[i + 1] & 0xFF;
+            if (marker == 0xFF) { i++; continue; }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD8)) { i += 2; continue; }
+
+            if (marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
+                return Option(Tuple.of(int16BigEndian(header, i + 7), int16BigEndian(header, i + 5)));
+            }
+
+            i += 2 + int16BigEndian(header, i + 2);
         }
+        return None();
+    }
+
+    private static Option<Tuple2<Integer, Integer>> webpDimensionsOf(byte[] header) {
+        String chunk = new String(header, 12, 4, StandardCharsets.US_ASCII);
+        switch (chunk) {
+            case "VP8 ":
+                return Option(Tuple.of(int16LittleEndian(header, 26) & 0x3FFF, int16LittleEndian(header, 28) & 0x3FFF));
+            case "VP8L":
+                int bits = int32LittleEndian(header, 21);
+                return Option(Tuple.of((bits & 0x3FFF) + 1, ((bits >> 14) & 0x3FFF) + 1));
+            case "VP8X":
+                return Option(Tuple.of(int24LittleEndian(header, 24) + 1, int24LittleEndian(header, 27) + 1));
+            default:
+                return None();
+        }
+    }
+
+    private static Boolean startsWith(byte[] bytes, int offset, int... prefix) {
+        if (bytes.length < offset + prefix.length) return false;
+
+        for (int i = 0; i < prefix.length; i++) {
+            if ((bytes[offset + i] & 0xFF) != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    private static int int16BigEndian(byte[] b, int i) {
+        return (b[i] & 0xFF) << 8 | (b[i + 1] & 0xFF);
+    }
+
+    private static int int32BigEndian(byte[] b, int i) {
+        return int16BigEndian(b, i) << 16 | int16BigEndian(b, i + 2);
+    }
+
+    private static int int16LittleEndian(byte[] b, int i) {
+        return (b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8;
+    }
+
+    private static int int24LittleEndian(byte[] b, int i) {
+        return int16LittleEndian(b, i) | (b[i + 2] & 0xFF) << 16;
+    }
+
+    private static int int32LittleEndian(byte[] b, int i) {
+        return int24LittleEndian(b, i) | (b[i + 3] & 0xFF) << 24;
     }
 
+    /* Least recently used dimensions are dropped first */
+    private static class Dimensions extends LinkedHashMap<String, Tuple2<Integer, Integer>> {
+
+        private static final long serialVersionUID = 1L;
+
+        Dimensions() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Tuple2<Integer, Integer>> eldest) {
+            return size() > MAX_CACHED_DIMENSIONS;
+        }
+    }
 }
@@ -1,6 +1,8 @@
 package lan.dk.podcastserver.service;
 
+import io.vavr.collection.Iterator;
 import io.vavr.control.Option;
+import io.vavr.control.Try;
 import lan.dk.podcastserver.entity.Cover;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
@@ -10,24 +12,34 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FilenameUtils;
 import org.jdom2.Document;
+import org.jdom2.JDOMException;
 import org.jdom2.Element;
 import org.jdom2.Namespace;
 import org.jdom2.Text;
 import org.jdom2.input.SAXBuilder;
+import org.jdom2.input.StAXStreamBuilder;
 import org.jdom2.output.Format;
 import org.jdom2.output.XMLOutputter;
 import org.springframework.stereotype.Service;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringWriter;
 import java.time.format.DateTimeFormatter;
 import java.util.Comparator;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.function.Function;
 
 import static io.vavr.API.*;
 import static java.lang.Boolean.TRUE;
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
+import static org.apache.commons.lang3.StringUtils.defaultString;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
 
 @Slf4j
@@ -69,16 +81,44 @@ public class JdomService {
     private static final String LINK_WATCHLIST_FORMAT = "%s/api/watchlists/%s/rss";
     private static final Comparator<Item> PUB_DATE_COMPARATOR = (one, another) -> one.getPubDate().isAfter(another.getPubDate()) ? -1 : 1;
 
+    private static final XMLInputFactory XML_INPUT_FACTORY = xmlInputFactory();
+
     private final PodcastServerParameters podcastServerParameters;
     private final MimeTypeService mimeTypeService;
     private final UrlService urlService;
 
+    private static XMLInputFactory xmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
     public Option<Document> parse(String url) {
-        return Try(() -> new SAXBuilder().build(urlService.asStream(url)))
+        return Try(() -> new SAXBuilder().build(urlService.fetch(url).asStream()))
                 .onFailure(e -> log.error("Error during parsing of {}", url, e))
                 .toOption();
     }
 
+    /**
+     * Entries of the feed, with the given name and namespace, read one at a time by a pull parser. The feed is fetched
+     * whole, but each entry is built as a detached element, so the document is never built. An error in the middle of
+     * the feed is raised by the iterator, so a truncated feed isn't taken for a complete one
+     */
+    public Iterator<Element> entriesOf(String url, String name, Namespace namespace) {
+        return Try(() -> urlService.fetch(url).asStream())
+                .map(stream -> entriesOf(stream, name, namespace))
+                .onFailure(e -> log.error("Error during parsing of {}", url, e))
+                .getOrElse(Iterator::empty);
+    }
+
+    public static Iterator<Element> entriesOf(InputStream stream, String name, Namespace namespace) {
+        return Try(() -> XML_INPUT_FACTORY.createXMLStreamReader(stream))
+                .map(reader -> Iterator.ofAll(new EntryIterator(reader, name, namespace.getURI())))
+                .onFailure(e -> log.error("Error during creation of the xml reader", e))
+                .getOrElse(Iterator::empty);
+    }
+
     public String podcastToXMLGeneric(Podcast podcast, String domainName, Boolean limit) throws IOException {
         return podcastToXMLGeneric( podcast, domainName, withNumberOfItem(podcast, limit));
     }
@@ -195,4 +235,47 @@ public class JdomService {
     private String getCoverUrl(Cover cover, String domainName) {
         return cover.getUrl().startsWith("/") ? (domainName + cover.getUrl()) : cover.getUrl();
     }
+
+    @RequiredArgsConstructor
+    private static class EntryIterator implements java.util.Iterator<Element> {
+
+        private final XMLStreamReader reader;
+        private final String name;
+        private final String namespaceUri;
+        private Element next;
+
+        @Override
+        public boolean hasNext() {
+            if (isNull(next)) {
+                next = Try(this::read)
+                        .onFailure(e -> Try.run(reader::close))
+                        .getOrElseThrow(e -> new RuntimeException("Error during streaming of the xml", e));
+            }
+            return nonNull(next);
+        }
+
+        @Override
+        public Element next() {
+            if (!hasNext()) throw new NoSuchElementException();
+
+            Element current = next;
+            next = null;
+            return current;
+        }
+
+        private Element read() throws XMLStreamException, JDOMException {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && isEntry()) {
+                    return (Element) new StAXStreamBuilder().fragment(reader);
+                }
+            }
+
+            reader.close();
+            return null;
+        }
+
+        private Boolean isEntry() {
+            return name.equals(reader.getLocalName()) && namespaceUri.equals(defaultString(reader.getNamespaceURI()));
+        }
+    }
 }
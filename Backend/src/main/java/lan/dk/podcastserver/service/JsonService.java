@@ -37,7 +37,7 @@ public class JsonService {
     }
 
     public Option<DocumentContext> parseUrl(String url) {
-        try (BufferedReader bufferedReader = urlService.asReader(url)) {
+        try (BufferedReader bufferedReader = urlService.fetch(url).asReader()) {
             return Option(parse(bufferedReader.lines().collect(joining())));
         } catch (IOException e) {
             log.error("Error during fetching of each items of {}", url, e);
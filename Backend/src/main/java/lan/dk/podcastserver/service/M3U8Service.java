@@ -4,9 +4,12 @@ import io.vavr.API;
 import io.vavr.Tuple2;
 import io.vavr.collection.List;
 import io.vavr.control.Option;
+import com.mashape.unirest.http.HttpResponse;
+import io.vavr.control.Try;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import org.apache.commons.lang3.StringUtils;
 import org.h2.expression.Function;
 import org.springframework.stereotype.Service;
@@ -16,6 +19,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.Comparator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static io.vavr.API.*;
 import static java.util.Objects.isNull;
@@ -27,6 +32,16 @@ import static java.util.Objects.isNull;
 @RequiredArgsConstructor
 public class M3U8Service {
 
+    private static final String STREAM_INF = "#EXT-X-STREAM-INF:";
+    private static final String KEY = "#EXT-X-KEY:";
+    private static final String MAP = "#EXT-X-MAP:";
+    private static final String BYTE_RANGE = "#EXT-X-BYTERANGE:";
+    private static final String SEGMENT_INF = "#EXTINF:";
+    private static final String END_LIST = "#EXT-X-ENDLIST";
+    private static final String NO_ENCRYPTION = "METHOD=NONE";
+    private static final Pattern URI_ATTRIBUTE = Pattern.compile("URI=\"([^\"]+)\"");
+    private static final int MAX_PLAYLIST_DEPTH = 2;
+
     private final UrlService urlService;
 
     public Option<String> findBestQuality(InputStream is) {
@@ -89,6 +104,72 @@ public class M3U8Service {
         }
     }
 
+    /**
+     * Segments of the media playlist behind the url, in the best quality if the url targets a master playlist.
+     * Live, encrypted or byte range playlists are not handled and give nothing, to be downloaded by other means
+     */
+    public Option<MediaPlaylist> findMediaPlaylist(String url, String userAgent) {
+        return findMediaPlaylist(url, userAgent, 0);
+    }
+
+    private Option<MediaPlaylist> findMediaPlaylist(String url, String userAgent, int depth) {
+        if (depth >= MAX_PLAYLIST_DEPTH) {
+            return None();
+        }
+
+        List<String> lines = Try(() -> urlService.get(url).header(UrlService.USER_AGENT_KEY, userAgent).asString())
+                .map(HttpResponse::getBody)
+                .map(b -> List.of(b.split("\\r?\\n")).map(String::trim).filter(l -> !l.isEmpty()))
+                .getOrElse(List::empty);
+
+        if (lines.exists(l -> l.startsWith(STREAM_INF))) {
+            return Try(() -> _findBestQuality(lines))
+                    .getOrElse(API::None)
+                    .map(u -> urlService.addDomainIfRelative(url, u))
+                    .flatMap(u -> findMediaPlaylist(u, userAgent, depth + 1));
+        }
+
+        if (!isHandled(lines)) {
+            return None();
+        }
+
+        Option<String> init = lines.find(l -> l.startsWith(MAP))
+                .map(URI_ATTRIBUTE::matcher)
+                .filter(Matcher::find)
+                .map(m -> urlService.addDomainIfRelative(url, m.group(1)));
+
+        List<String> segments = lines
+                .filter(l -> !l.startsWith("#"))
+                .map(s -> urlService.addDomainIfRelative(url, s));
+
+        Double duration = lines
+                .filter(l -> l.startsWith(SEGMENT_INF))
+                .map(l -> StringUtils.substringBefore(StringUtils.removeStart(l, SEGMENT_INF), ","))
+                .map(d -> Try(() -> Double.valueOf(d)).getOrElse(0d))
+                .sum().doubleValue();
+
+        return segments.isEmpty() ? None() : Option(new MediaPlaylist(init, segments, duration));
+    }
+
+    private static Boolean isHandled(List<String> lines) {
+        return lines.exists(l -> l.startsWith(END_LIST)) &&
+                lines.filter(l -> l.startsWith(KEY)).forAll(l -> l.contains(NO_ENCRYPTION)) &&
+                !lines.exists(l -> l.startsWith(BYTE_RANGE));
+    }
+
+    @Value
+    public static class MediaPlaylist {
+        /* Initialization section of fragmented mp4 streams, absent for MPEG-TS streams */
+        private final Option<String> init;
+        private final List<String> segments;
+        /* Sum of the durations of the segments, in seconds */
+        private final Double duration;
+
+        public Boolean isFragmentedMp4() {
+            return init.isDefined();
+        }
+    }
+
     @Builder
     private static class M3U8Parameters {
         @Getter private final String url;
@@ -1,15 +1,18 @@
 package lan.dk.podcastserver.service;
 
+import io.vavr.control.Try;
+import lan.dk.podcastserver.entity.Podcast;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.actuate.metrics.CounterService;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
-import java.io.IOException;
+import java.util.Objects;
 
-import static java.util.stream.Collectors.joining;
+import static io.vavr.API.Try;
 
 /**
  * Created by kevin on 24/01/15 for Podcast Server
@@ -19,18 +22,75 @@ import static java.util.stream.Collectors.joining;
 @RequiredArgsConstructor
 public class SignatureService {
 
+    static final String NOT_MODIFIED = "podcast.validators.not-modified";
+    static final String SAME_CONTENT = "podcast.validators.same-content";
+    static final String CHANGED = "podcast.validators.changed";
+
     final UrlService urlService;
+    final CounterService counterService;
 
     public String generateSignatureFromURL(String urlAsString) {
-        try(BufferedReader in = urlService.asReader(urlAsString)) {
-            return generateMD5Signature(in.lines().collect(joining()));
-        } catch (IOException e) {
-            log.error("Error during signature of podcast at url {}", urlAsString, e);
-        }
-        return StringUtils.EMPTY;
+        return Try(() -> urlService.fetch(urlAsString))
+                .map(UrlService.Fetched::getSignature)
+                .onFailure(e -> log.error("Error during signature of podcast at url {}", urlAsString, e))
+                .getOrElse(StringUtils.EMPTY);
     }
-    
+
     public String generateMD5Signature(String html){
         return DigestUtils.md5Hex(html);
     }
+
+    /**
+     * Conditional request of the url with the validators kept from the previous update of the podcast. It is unchanged
+     * if the server answers 304 or, for servers without validators, if the length and the digest of the content are the
+     * same. The podcast isn't modified, the validators of the response are returned to be kept once the items are saved,
+     * and the response is kept in the fetching context of the update.
+     */
+    public Validators validate(Podcast podcast, String url) {
+        Boolean forced = StringUtils.isEmpty(podcast.getSignature());
+
+        Try<UrlService.Fetched> response = Try(() -> forced
+                ? urlService.fetch(url)
+                : urlService.fetch(url, podcast.getEtag(), podcast.getLastModified())
+        );
+
+        if (response.isFailure() || response.get().getStatus() >= 400) {
+            return Validators.NONE;
+        }
+
+        UrlService.Fetched fetched = response.get();
+        if (fetched.isNotModified()) {
+            counterService.increment(NOT_MODIFIED);
+            return new Validators(true, podcast.getEtag(), podcast.getLastModified(), podcast.getContentLength(), podcast.getContentDigest());
+        }
+
+        Boolean sameContent = !forced &&
+                Objects.equals(podcast.getContentLength(), fetched.length()) &&
+                Objects.equals(podcast.getContentDigest(), fetched.getSignature());
+
+        counterService.increment(sameContent ? SAME_CONTENT : CHANGED);
+        return new Validators(sameContent, fetched.getEtag(), fetched.getLastModified(), fetched.length(), fetched.getSignature());
+    }
+
+    @Value
+    public static class Validators {
+        /* Without response, the podcast keeps the validators it has */
+        public static final Validators NONE = new Validators(false, null, null, null, null);
+
+        private final Boolean unchanged;
+        private final String etag;
+        private final String lastModified;
+        private final Integer contentLength;
+        private final String contentDigest;
+
+        public Podcast applyTo(Podcast podcast) {
+            if (this == NONE) return podcast;
+
+            return podcast
+                    .setEtag(etag)
+                    .setLastModified(lastModified)
+                    .setContentLength(contentLength)
+                    .setContentDigest(contentDigest);
+        }
+    }
 }
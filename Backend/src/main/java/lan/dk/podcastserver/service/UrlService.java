@@ -6,22 +6,60 @@ import com.mashape.unirest.request.BaseRequest;
 import com.mashape.unirest.request.GetRequest;
 import com.mashape.unirest.request.HttpRequestWithBody;
 import io.vavr.collection.HashSet;
+import io.vavr.collection.List;
 import io.vavr.collection.Set;
 import io.vavr.control.Option;
+import io.vavr.control.Try;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.http.Header;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
 import javax.servlet.http.HttpServletRequest;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
+import java.net.ProxySelector;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import static io.vavr.API.Option;
 import static io.vavr.API.Try;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 /**
  * Created by kevin on 21/07/2016.
@@ -33,13 +71,70 @@ public class UrlService {
     public static final String USER_AGENT_DESKTOP = "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_10_5) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/45.0.2454.85 Safari/537.36";
     public static final String USER_AGENT_MOBILE = "AppleCoreMedia/1.0.0.10B400 (iPod; U; CPU OS 6_1_5 like Mac OS X; fr_fr)";
     public static final String USER_AGENT_KEY = "User-agent";
+    public static final int CONNECT_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(10);
+    public static final int READ_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(30);
 
     private static final String PROTOCOL_SEPARATOR = "://";
     private static final Integer MAX_NUMBER_OF_REDIRECTION = 10;
-    private static final Consumer<HttpURLConnection> NO_MODIFICATION = x -> {};
+    private static final Consumer<HttpRequestBase> NO_MODIFICATION = x -> {};
     private static final Set<Integer> EMPTY_PORT = HashSet.of(80, 443);
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+    private static final String ETAG = "ETag";
+    private static final String LAST_MODIFIED = "Last-Modified";
+    private static final String RANGE = "Range";
+    private static final String LOCATION = "Location";
+    private static final String CACHE_CONTROL = "Cache-Control";
+    private static final String EXPIRES = "Expires";
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+    private static final Set<Integer> PERMANENT_REDIRECTIONS = HashSet.of(HttpURLConnection.HTTP_MOVED_PERM, 308);
+    private static final Set<Integer> REDIRECTIONS = PERMANENT_REDIRECTIONS.addAll(HashSet.of(HttpURLConnection.HTTP_MOVED_TEMP, HttpURLConnection.HTTP_SEE_OTHER, 307));
+    private static final int MAX_CONNECTIONS = 100;
+    private static final int MAX_CONNECTIONS_BY_HOST = 10;
+    private static final Duration CONNECTION_TTL = Duration.ofSeconds(30);
+    private static final int MAX_CACHED_REDIRECTIONS = 1_000;
+    private static final Duration REDIRECTION_TTL = Duration.ofHours(1);
+    private static final RequestConfig REQUEST_CONFIG = RequestConfig.custom()
+            .setConnectTimeout(CONNECT_TIMEOUT)
+            .setConnectionRequestTimeout(CONNECT_TIMEOUT)
+            .setSocketTimeout(READ_TIMEOUT)
+            .build();
+    private static final ThreadLocal<Map<String, Fetched>> FETCHED = new ThreadLocal<>();
 
-    public UrlService() {System.setProperty("http.agent", USER_AGENT_DESKTOP);}
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient client;
+    private final Map<String, Redirection> redirections = Collections.synchronizedMap(new Redirections());
+
+    /**
+     * A single client, with a pool of keep-alive connections by host, timeouts and gzip/deflate decoding, is used by
+     * Unirest and by the resolution of redirections, through the proxy of the jvm if any. The {@code http.agent} property is kept for the downloaders still
+     * using {@link HttpURLConnection}
+     */
+    public UrlService() {
+        System.setProperty("http.agent", USER_AGENT_DESKTOP);
+
+        connectionManager = new PoolingHttpClientConnectionManager(CONNECTION_TTL.getSeconds(), TimeUnit.SECONDS);
+        connectionManager.setMaxTotal(MAX_CONNECTIONS);
+        connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_BY_HOST);
+
+        client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(REQUEST_CONFIG)
+                .setUserAgent(USER_AGENT_DESKTOP)
+                .setRoutePlanner(new SystemDefaultRoutePlanner(ProxySelector.getDefault()))
+                .evictExpiredConnections()
+                .evictIdleConnections(CONNECTION_TTL.getSeconds(), TimeUnit.SECONDS)
+                .build();
+
+        Unirest.setHttpClient(client);
+    }
+
+    /* Connections of the pool are closed with the client */
+    @PreDestroy
+    public void close() {
+        Try.run(client::close)
+                .onFailure(e -> log.error("Error during close of the http client", e));
+    }
 
     /* Get, Post and Other standard request of UniREST */
     public GetRequest get(String url) { return Unirest.get(url); }
@@ -51,39 +146,106 @@ public class UrlService {
     public String getRealURL(String url) {
         return getRealURL(url, NO_MODIFICATION, 0);
     }
-    public String getRealURL(String url, Consumer<HttpURLConnection> connectionModifier) {
-        return getRealURL(url, connectionModifier, 0);
+    public String getRealURL(String url, Consumer<HttpRequestBase> requestModifier) {
+        return getRealURL(url, requestModifier, 0);
     }
-    private String getRealURL(String url, Consumer<HttpURLConnection> connectionModifier, Integer numberOfRedirection) {
+
+    /**
+     * Each hop is kept for a while, so urls redirected on each request (podtrac, feedburner...) are resolved without
+     * any request. The response of the last hop is closed without reading its body. Hops are kept by url and by the
+     * headers set by the request modifier, as the server may redirect differently for them
+     */
+    private String getRealURL(String url, Consumer<HttpRequestBase> requestModifier, Integer numberOfRedirection) {
         if (MAX_NUMBER_OF_REDIRECTION <= numberOfRedirection) {
             throw new RuntimeException("Too many redirects");
         }
 
-        HttpURLConnection con = Try(() -> new URL(url))
-                .mapTry(URL::openConnection)
-                .map(HttpURLConnection.class::cast)
-                .andThen(connectionModifier)
-                .andThen(c -> c.setInstanceFollowRedirects(false))
-                .onFailure(e -> log.error("Error during retrieval of the real URL for {} at {} redirection", url, numberOfRedirection, e))
-                .get();
+        String key = keyOf(url, requestModifier);
+        Option<String> location = Option(redirections.get(key))
+                .filter(Redirection::isValid)
+                .map(Redirection::getLocation)
+                .getOrElse(() -> redirectionOf(key, url, requestModifier, numberOfRedirection));
 
-        Option<Integer> isRedirect = Try(con::getResponseCode)
-                .andThenTry(con::disconnect)
-                .filter(this::isARedirection)
-                .toOption();
+        return location
+                .map(l -> getRealURL(l, requestModifier, numberOfRedirection+1))
+                .getOrElse(url);
+    }
 
-        String location = isRedirect.isDefined() ? addDomainIfRelative(url, con.getHeaderField("Location")) : "";
+    private static String keyOf(String url, Consumer<HttpRequestBase> requestModifier) {
+        if (requestModifier == NO_MODIFICATION) {
+            return url;
+        }
 
-        return isRedirect
-                .map(r -> getRealURL(location, connectionModifier, numberOfRedirection+1))
+        return Try(() -> new HttpGet(url))
+                .andThen(requestModifier)
+                .map(r -> List.of(r.getAllHeaders()).map(h -> h.getName().toLowerCase() + ": " + h.getValue()).sorted().prepend(url).mkString("\n"))
                 .getOrElse(url);
+    }
+
+    private Option<String> redirectionOf(String key, String url, Consumer<HttpRequestBase> requestModifier, Integer numberOfRedirection) {
+        Try<Redirection> redirection = Try(() -> new HttpGet(url))
+                .andThen(r -> r.setConfig(RequestConfig.copy(REQUEST_CONFIG).setRedirectsEnabled(false).build()))
+                .andThen(requestModifier)
+                .mapTry(r -> redirectionOf(url, r))
+                .onFailure(e -> log.error("Error during retrieval of the real URL for {} at {} redirection", url, numberOfRedirection, e));
+
+        redirection.filter(Redirection::isValid).forEach(r -> redirections.put(key, r));
+        return redirection.map(Redirection::getLocation).getOrElse(Option.none());
+    }
 
+    private Redirection redirectionOf(String url, HttpGet request) throws IOException {
+        try (CloseableHttpResponse response = client.execute(request)) {
+            int status = response.getStatusLine().getStatusCode();
+            if (!isARedirection(status)) {
+                return new Redirection(Option.none(), Instant.now().plus(REDIRECTION_TTL));
+            }
+
+            EntityUtils.consumeQuietly(response.getEntity());
+            Option<String> location = Option(response.getFirstHeader(LOCATION)).map(Header::getValue).map(v -> addDomainIfRelative(url, v));
+            return new Redirection(location, Instant.now().plus(timeToLiveOf(status, response)));
+        }
     }
+
     private Boolean isARedirection(int status) {
-        return status != HttpURLConnection.HTTP_OK && (status == HttpURLConnection.HTTP_MOVED_TEMP ||
-                status == HttpURLConnection.HTTP_MOVED_PERM ||
-                status == HttpURLConnection.HTTP_SEE_OTHER
-        );
+        return REDIRECTIONS.contains(status);
+    }
+
+    /**
+     * Temporary redirections often lead to signed urls which expire, so they are kept only as long as the server allows
+     * it with its Cache-Control or Expires headers, and never longer than the permanent ones
+     */
+    private static Duration timeToLiveOf(int status, CloseableHttpResponse response) {
+        if (PERMANENT_REDIRECTIONS.contains(status)) {
+            return REDIRECTION_TTL;
+        }
+
+        Option<String> cacheControl = Option(response.getFirstHeader(CACHE_CONTROL)).map(Header::getValue);
+        if (cacheControl.exists(c -> c.contains("no-store") || c.contains("no-cache"))) {
+            return Duration.ZERO;
+        }
+
+        Option<Duration> maxAge = cacheControl
+                .map(MAX_AGE::matcher)
+                .filter(Matcher::find)
+                .map(m -> Duration.ofSeconds(Long.valueOf(m.group(1))));
+
+        Option<Duration> expires = Option(response.getFirstHeader(EXPIRES))
+                .flatMap(h -> Option(DateUtils.parseDate(h.getValue())))
+                .map(d -> Duration.between(Instant.now(), d.toInstant()));
+
+        return maxAge.orElse(expires)
+                .filter(d -> !d.isNegative())
+                .map(d -> d.compareTo(REDIRECTION_TTL) > 0 ? REDIRECTION_TTL : d)
+                .getOrElse(Duration.ZERO);
+    }
+
+    /* Usage of the pool of connections */
+    public PoolStats poolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    public Integer numberOfCachedRedirections() {
+        return redirections.size();
     }
 
     /* Transform to Stream or Reader */
@@ -98,6 +260,132 @@ public class UrlService {
         return new BufferedReader(new InputStreamReader(asStream(url)));
     }
 
+    /**
+     * First bytes of the resource, requested with a range. The connection is closed once they are read, even if the
+     * server ignores the range and sends the whole resource
+     */
+    public byte[] firstBytesOf(String url, int size) throws IOException {
+        HttpGet request = new HttpGet(url);
+        request.setHeader(RANGE, "bytes=0-" + (size - 1));
+
+        try (CloseableHttpResponse response = client.execute(request)) {
+            int status = response.getStatusLine().getStatusCode();
+            if (status >= HttpURLConnection.HTTP_BAD_REQUEST || isNull(response.getEntity())) {
+                throw new IOException("Status " + status + " for " + url);
+            }
+
+            try (InputStream is = response.getEntity().getContent()) {
+                byte[] bytes = new byte[size];
+                return Arrays.copyOf(bytes, IOUtils.read(is, bytes));
+            }
+        }
+    }
+
+    /**
+     * Range of the resource from the byte {@code from} to the byte {@code to}, or to its end if {@code to} is null,
+     * through the pool of connections. The caller reads the body and closes the response
+     */
+    public CloseableHttpResponse getRange(String url, long from, Long to, int readTimeout) throws IOException {
+        HttpGet request = new HttpGet(url);
+        request.setConfig(RequestConfig.copy(REQUEST_CONFIG).setSocketTimeout(readTimeout).build());
+        request.setHeader(RANGE, "bytes=" + from + "-" + (isNull(to) ? "" : to));
+        return client.execute(request);
+    }
+
+    /**
+     * Whole resource through the pool of connections, requested with the user agent of the caller. The caller reads the
+     * body and closes the response
+     */
+    public CloseableHttpResponse open(String url, String userAgent) throws IOException {
+        HttpGet request = new HttpGet(url);
+        request.setHeader(USER_AGENT_KEY, userAgent);
+        return client.execute(request);
+    }
+
+    /* Single fetch of a resource during an update */
+    /**
+     * Every url fetched by {@link #fetch(String)} while the block runs in this thread is downloaded only once,
+     * so the signature of a podcast and the parsing of its items share the same download
+     */
+    public static <T> T fetchingOnce(Supplier<T> block) {
+        if (nonNull(FETCHED.get())) {
+            return block.get();
+        }
+
+        FETCHED.set(new ConcurrentHashMap<>());
+        try {
+            return block.get();
+        } finally {
+            FETCHED.remove();
+        }
+    }
+
+    /**
+     * The block, run later by another thread, shares the fetching context of the current thread, so the details of
+     * items fetched in parallel during an update reuse the pages already fetched by this update
+     */
+    public static <T> Supplier<T> withFetchingContext(Supplier<T> block) {
+        Map<String, Fetched> context = FETCHED.get();
+        if (isNull(context)) {
+            return block;
+        }
+
+        return () -> {
+            Map<String, Fetched> previous = FETCHED.get();
+            FETCHED.set(context);
+            try {
+                return block.get();
+            } finally {
+                if (isNull(previous)) FETCHED.remove(); else FETCHED.set(previous);
+            }
+        };
+    }
+
+    public Fetched fetch(String url) throws IOException {
+        return fetch(url, null, null);
+    }
+
+    /**
+     * Conditional fetch with the validators of a previous response. Only successful responses are kept in the fetching
+     * context, so a later fetch of the same url after a {@code 304} or an error still gets the content
+     */
+    public Fetched fetch(String url, String etag, String lastModified) throws IOException {
+        Map<String, Fetched> fetched = FETCHED.get();
+        if (isNull(fetched)) {
+            return download(url, etag, lastModified);
+        }
+
+        Fetched body = fetched.get(url);
+        if (isNull(body)) {
+            body = download(url, etag, lastModified);
+            if (body.isSuccessful()) fetched.put(url, body);
+        }
+        return body;
+    }
+
+    /* The body is read once from the connection, its signature is computed while it is read */
+    private Fetched download(String url, String etag, String lastModified) throws IOException {
+        HttpGet request = new HttpGet(url);
+        if (nonNull(etag)) request.setHeader(IF_NONE_MATCH, etag);
+        if (nonNull(lastModified)) request.setHeader(IF_MODIFIED_SINCE, lastModified);
+
+        try (CloseableHttpResponse response = client.execute(request)) {
+            int status = response.getStatusLine().getStatusCode();
+            String newEtag = Option(response.getFirstHeader(ETAG)).map(Header::getValue).getOrNull();
+            String newLastModified = Option(response.getFirstHeader(LAST_MODIFIED)).map(Header::getValue).getOrNull();
+
+            MessageDigest md5 = DigestUtils.getMd5Digest();
+            if (isNull(response.getEntity())) {
+                return new Fetched(status, new byte[0], Hex.encodeHexString(md5.digest()), newEtag, newLastModified);
+            }
+
+            try (InputStream is = new DigestInputStream(response.getEntity().getContent(), md5)) {
+                byte[] body = IOUtils.toByteArray(is);
+                return new Fetched(status, body, Hex.encodeHexString(md5.digest()), newEtag, newLastModified);
+            }
+        }
+    }
+
     /* Relative and absolute URL transformation */
     public String addDomainIfRelative(String urlWithDomain, String mayBeRelativeUrl) {
         if (mayBeRelativeUrl.contains(PROTOCOL_SEPARATOR)) {
@@ -130,5 +418,58 @@ public class UrlService {
         return protocol + url;
     }
 
+    @Value
+    public static class Fetched {
+        private final int status;
+        private final byte[] body;
+        /* MD5 of the body, computed while it was downloaded */
+        private final String signature;
+        private final String etag;
+        private final String lastModified;
 
+        public Boolean isNotModified() {
+            return status == HttpURLConnection.HTTP_NOT_MODIFIED;
+        }
+
+        public Boolean isSuccessful() {
+            return status >= HttpURLConnection.HTTP_OK && status < HttpURLConnection.HTTP_MULT_CHOICE;
+        }
+
+        public int length() {
+            return body.length;
+        }
+
+        public InputStream asStream() {
+            return new ByteArrayInputStream(body);
+        }
+
+        public BufferedReader asReader() {
+            return new BufferedReader(new InputStreamReader(asStream(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /* Least recently used redirections are dropped first */
+    private static class Redirections extends LinkedHashMap<String, Redirection> {
+
+        private static final long serialVersionUID = 1L;
+
+        Redirections() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Redirection> eldest) {
+            return size() > MAX_CACHED_REDIRECTIONS;
+        }
+    }
+
+    @Value
+    private static class Redirection {
+        private final Option<String> location;
+        private final Instant expiresAt;
+
+        Boolean isValid() {
+            return Instant.now().isBefore(expiresAt);
+        }
+    }
 }
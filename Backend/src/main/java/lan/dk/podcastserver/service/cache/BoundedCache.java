@@ -0,0 +1,209 @@
+package lan.dk.podcastserver.service.cache;
+
+import lan.dk.podcastserver.service.properties.Caches;
+import lombok.Value;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.ToLongFunction;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Cache bounded by a number of entries and a total weight, the least recently used entries being evicted first.
+ * Entries also expire after a time to live. The weight of an entry is only computed if the weight is limited. A put
+ * only looks at the least recently used entries, dropped while they are expired or the cache is over its limits.
+ */
+public class BoundedCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final Caches.Limits limits;
+    private final ToLongFunction<Object> weigher;
+    private final Clock clock;
+
+    private final Entries entries = new Entries();
+    private long weight = 0L;
+    private long hits = 0L;
+    private long misses = 0L;
+    private long evictions = 0L;
+    private long expirations = 0L;
+
+    public BoundedCache(String name, Caches.Limits limits, ToLongFunction<Object> weigher, Clock clock) {
+        super(true);
+        this.name = name;
+        this.limits = limits;
+        this.weigher = weigher;
+        this.clock = clock;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return entries;
+    }
+
+    @Override
+    protected synchronized Object lookup(Object key) {
+        Entry entry = entries.get(key);
+
+        if (!isNull(entry) && entry.isExpiredAt(clock.millis())) {
+            remove(key);
+            expirations++;
+            entry = null;
+        }
+
+        if (isNull(entry)) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return entry.getValue();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (!isNull(cached)) {
+            return (T) cached.get();
+        }
+
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object storeValue = toStoreValue(value);
+        long weightOfValue = limits.getMaximumWeight() > 0 ? weigher.applyAsLong(storeValue) : 0L;
+        long expiration = limits.getTimeToLive() > 0 ? clock.millis() + limits.getTimeToLive() * 1000 : Long.MAX_VALUE;
+
+        synchronized (this) {
+            remove(key);
+
+            if (limits.getMaximumWeight() > 0 && weightOfValue > limits.getMaximumWeight()) {
+                evictions++;
+                return;
+            }
+
+            weight += weightOfValue;
+            entries.put(key, new Entry(storeValue, weightOfValue, expiration));
+        }
+    }
+
+    @Override
+    public synchronized ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper cached = get(key);
+        if (isNull(cached)) {
+            put(key, value);
+        }
+        return cached;
+    }
+
+    @Override
+    public synchronized void evict(Object key) {
+        remove(key);
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0L;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(entries.size(), weight, hits, misses, evictions, expirations, limits.getMaximumSize(), limits.getMaximumWeight(), limits.getTimeToLive());
+    }
+
+    private void remove(Object key) {
+        Entry removed = entries.remove(key);
+        if (!isNull(removed)) {
+            weight -= removed.getWeight();
+        }
+    }
+
+    private boolean isOverLimits() {
+        return (limits.getMaximumSize() > 0 && entries.size() > limits.getMaximumSize())
+                || (limits.getMaximumWeight() > 0 && weight > limits.getMaximumWeight());
+    }
+
+    /* Ordered by access, the eldest entry is the least recently used */
+    private class Entries extends LinkedHashMap<Object, Entry> {
+
+        private static final long serialVersionUID = 1L;
+
+        Entries() {
+            super(16, 0.75f, true);
+        }
+
+        /* Eldest entries are dropped here, so the map is never asked to remove one itself */
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+            long now = clock.millis();
+            Iterator<Entry> iterator = values().iterator();
+
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+
+                if (entry.isExpiredAt(now)) {
+                    expirations++;
+                } else if (isOverLimits()) {
+                    evictions++;
+                } else {
+                    break;
+                }
+
+                weight -= entry.getWeight();
+                iterator.remove();
+            }
+
+            return false;
+        }
+    }
+
+    @Value
+    private static class Entry {
+        private final Object value;
+        private final long weight;
+        private final long expiration;
+
+        boolean isExpiredAt(long time) {
+            return expiration <= time;
+        }
+    }
+
+    @Value
+    public static class Stats {
+        private final long size;
+        private final long weight;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long expirations;
+        private final Long maximumSize;
+        private final Long maximumWeight;
+        private final Long timeToLive;
+
+        public double getHitRatio() {
+            return hits + misses == 0 ? 0D : (double) hits / (hits + misses);
+        }
+    }
+}
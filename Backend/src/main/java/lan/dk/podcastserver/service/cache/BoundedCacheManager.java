@@ -0,0 +1,41 @@
+package lan.dk.podcastserver.service.cache;
+
+import lan.dk.podcastserver.service.properties.Caches;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Caches are created on their first use, with the limits of their name in {@link Caches}
+ */
+public class BoundedCacheManager implements CacheManager {
+
+    private final Caches caches;
+    private final ToLongFunction<Object> weigher;
+    private final Clock clock;
+    private final ConcurrentMap<String, BoundedCache> cacheByName = new ConcurrentHashMap<>();
+
+    public BoundedCacheManager(Caches caches, ToLongFunction<Object> weigher, Clock clock) {
+        this.caches = caches;
+        this.weigher = weigher;
+        this.clock = clock;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return cacheByName.computeIfAbsent(name, n -> new BoundedCache(n, caches.of(n), weigher, clock));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(cacheByName.keySet());
+    }
+}
@@ -0,0 +1,26 @@
+package lan.dk.podcastserver.service.cache;
+
+import org.springframework.boot.actuate.cache.CacheStatistics;
+import org.springframework.boot.actuate.cache.CacheStatisticsProvider;
+import org.springframework.boot.actuate.cache.DefaultCacheStatistics;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Publishes the size and the hit ratio of the bounded caches as cache.* metrics
+ */
+@Component
+public class BoundedCacheStatisticsProvider implements CacheStatisticsProvider<BoundedCache> {
+
+    @Override
+    public CacheStatistics getCacheStatistics(CacheManager cacheManager, BoundedCache cache) {
+        BoundedCache.Stats stats = cache.stats();
+
+        DefaultCacheStatistics statistics = new DefaultCacheStatistics();
+        statistics.setSize(stats.getSize());
+        statistics.setGetCacheCounts(stats.getHits(), stats.getMisses());
+        return statistics;
+    }
+}
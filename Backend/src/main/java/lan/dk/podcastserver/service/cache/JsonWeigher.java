@@ -0,0 +1,40 @@
+package lan.dk.podcastserver.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.vavr.jackson.datatype.VavrModule;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+
+import java.util.function.ToLongFunction;
+
+import static io.vavr.API.Try;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Weight of a cached value as the number of bytes of its JSON. Unlike the mapper of the application, lazy relations
+ * not loaded yet are left out, weighing an entry never reads the database.
+ */
+@Slf4j
+public class JsonWeigher implements ToLongFunction<Object> {
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+            .registerModules(new Hibernate5Module(), new JavaTimeModule(), new VavrModule());
+
+    @Override
+    public long applyAsLong(Object value) {
+        return Try(() -> {
+            CountingOutputStream counter = new CountingOutputStream(new NullOutputStream());
+            mapper.writeValue(counter, value);
+            return counter.getByteCount();
+        })
+                .onFailure(e -> log.debug("Weight of {} unknown", value, e))
+                .getOrElse(0L);
+    }
+}
@@ -0,0 +1,52 @@
+package lan.dk.podcastserver.service.factory;
+
+import com.github.axet.wget.info.DownloadInfo;
+import com.github.axet.wget.info.URLInfo;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * {@link DownloadInfo} keeping the validators (ETag, Last-Modified) sent by the server during extraction,
+ * to check later if a partial file is still a prefix of the remote resource.
+ */
+public class ResumableDownloadInfo extends DownloadInfo {
+
+    private static final long serialVersionUID = 1L;
+    private static final String ETAG = "ETag";
+    private static final String LAST_MODIFIED = "Last-Modified";
+
+    private String eTag;
+    private String lastModified;
+
+    public ResumableDownloadInfo(URL source) {
+        super(source);
+    }
+
+    @Override
+    protected HttpURLConnection extractRange(URLInfo info) throws IOException {
+        return keepValidators(super.extractRange(info));
+    }
+
+    @Override
+    protected HttpURLConnection extractNormal(URLInfo info) throws IOException {
+        return keepValidators(super.extractNormal(info));
+    }
+
+    private synchronized HttpURLConnection keepValidators(HttpURLConnection connection) {
+        eTag = connection.getHeaderField(ETAG);
+        lastModified = connection.getHeaderField(LAST_MODIFIED);
+        return connection;
+    }
+
+    public synchronized String getETag() {
+        return eTag;
+    }
+
+    public synchronized String getLastModified() {
+        return lastModified;
+    }
+}
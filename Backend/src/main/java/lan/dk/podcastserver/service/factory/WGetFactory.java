@@ -30,6 +30,6 @@ public class WGetFactory {
     }
 
     public DownloadInfo newDownloadInfo(String url) throws MalformedURLException {
-        return new DownloadInfo(new URL(url));
+        return new ResumableDownloadInfo(new URL(url));
     }
 }
@@ -0,0 +1,35 @@
+package lan.dk.podcastserver.service.health;
+
+import io.vavr.Tuple;
+import io.vavr.collection.List;
+import lan.dk.podcastserver.service.cache.BoundedCache;
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * Entries, hits, evictions and limits of each cache, exposed on /caches
+ */
+@Component
+public class CacheEndpoint extends AbstractEndpoint<Map<String, BoundedCache.Stats>> {
+
+    private final CacheManager cacheManager;
+
+    public CacheEndpoint(CacheManager cacheManager) {
+        super("caches");
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public Map<String, BoundedCache.Stats> invoke() {
+        return List.ofAll(cacheManager.getCacheNames())
+                .map(cacheManager::getCache)
+                .filter(BoundedCache.class::isInstance)
+                .map(BoundedCache.class::cast)
+                .toJavaMap(c -> Tuple.of(c.getName(), c.stats()));
+    }
+}
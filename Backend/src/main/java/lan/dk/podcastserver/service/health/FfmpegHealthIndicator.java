@@ -0,0 +1,40 @@
+package lan.dk.podcastserver.service.health;
+
+import io.vavr.collection.List;
+import lan.dk.podcastserver.utils.custom.ffmpeg.CustomRunProcessFunc;
+import lan.dk.podcastserver.utils.custom.ffmpeg.ProcessJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@Component
+@RequiredArgsConstructor
+public class FfmpegHealthIndicator extends AbstractHealthIndicator {
+
+    private final CustomRunProcessFunc runProcessFunc;
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) throws Exception {
+        List<ProcessJob.Stats> history = runProcessFunc.history();
+
+        // @formatter:off
+        builder.up()
+            .withDetail("running", runProcessFunc.running().toJavaList())
+            .withDetail("averageSpawnLatency", average(history.map(ProcessJob.Stats::getSpawnLatency)))
+            .withDetail("failures", history.count(s -> !Objects.equals(s.getExitCode(), 0)))
+            .withDetail("lastJobs", history.toJavaList())
+        .build();
+        // @formatter:on
+    }
+
+    private static long average(List<Long> values) {
+        List<Long> known = values.filter(Objects::nonNull);
+        return known.isEmpty() ? 0L : known.sum().longValue() / known.size();
+    }
+}
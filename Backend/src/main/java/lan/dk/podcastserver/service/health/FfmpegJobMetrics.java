@@ -0,0 +1,43 @@
+package lan.dk.podcastserver.service.health;
+
+import io.vavr.collection.List;
+import lan.dk.podcastserver.service.FfmpegService;
+import lan.dk.podcastserver.utils.custom.ffmpeg.CustomRunProcessFunc;
+import lan.dk.podcastserver.utils.custom.ffmpeg.ProcessJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@Component
+@RequiredArgsConstructor
+public class FfmpegJobMetrics implements PublicMetrics {
+
+    private final FfmpegService ffmpegService;
+    private final CustomRunProcessFunc runProcessFunc;
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<ProcessJob.Stats> history = runProcessFunc.history();
+
+        return List.<Metric<?>>of(
+                new Metric<>("ffmpeg.jobs.active", ffmpegService.activeJobs()),
+                new Metric<>("ffmpeg.jobs.queued", ffmpegService.queuedJobs()),
+                new Metric<>("ffmpeg.jobs.max", ffmpegService.maxJobs()),
+                new Metric<>("ffmpeg.jobs.running", runProcessFunc.running().size()),
+                new Metric<>("ffmpeg.jobs.failures", history.count(s -> !Objects.equals(s.getExitCode(), 0))),
+                new Metric<>("ffmpeg.jobs.spawn.latency", average(history.map(ProcessJob.Stats::getSpawnLatency)))
+        ).toJavaList();
+    }
+
+    private static long average(List<Long> values) {
+        List<Long> known = values.filter(Objects::nonNull);
+        return known.isEmpty() ? 0L : known.sum().longValue() / known.size();
+    }
+}
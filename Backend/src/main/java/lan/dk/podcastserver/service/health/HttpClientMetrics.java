@@ -0,0 +1,34 @@
+package lan.dk.podcastserver.service.health;
+
+import io.vavr.collection.List;
+import lan.dk.podcastserver.service.UrlService;
+import lombok.RequiredArgsConstructor;
+import org.apache.http.pool.PoolStats;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@Component
+@RequiredArgsConstructor
+public class HttpClientMetrics implements PublicMetrics {
+
+    private final UrlService urlService;
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        PoolStats stats = urlService.poolStats();
+
+        return List.<Metric<?>>of(
+                new Metric<>("httpclient.pool.leased", stats.getLeased()),
+                new Metric<>("httpclient.pool.available", stats.getAvailable()),
+                new Metric<>("httpclient.pool.pending", stats.getPending()),
+                new Metric<>("httpclient.pool.max", stats.getMax()),
+                new Metric<>("httpclient.redirections.cached", urlService.numberOfCachedRedirections())
+        ).toJavaList();
+    }
+}
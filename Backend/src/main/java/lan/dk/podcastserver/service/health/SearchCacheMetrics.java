@@ -0,0 +1,34 @@
+package lan.dk.podcastserver.service.health;
+
+import io.vavr.collection.List;
+import lan.dk.podcastserver.manager.SearchCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchCacheMetrics implements PublicMetrics {
+
+    private final SearchCache searchCache;
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        long hits = searchCache.hits();
+        long misses = searchCache.misses();
+        double ratio = hits + misses == 0 ? 0D : (double) hits / (hits + misses);
+
+        return List.<Metric<?>>of(
+                new Metric<>("search.cache.generation", searchCache.generation()),
+                new Metric<>("search.cache.hit", hits),
+                new Metric<>("search.cache.miss", misses),
+                new Metric<>("search.cache.hit.ratio", ratio)
+        ).toJavaList();
+    }
+}
@@ -0,0 +1,32 @@
+package lan.dk.podcastserver.service.health;
+
+import io.vavr.collection.List;
+import lan.dk.podcastserver.manager.SearchIndexer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchIndexMetrics implements PublicMetrics {
+
+    private final SearchIndexer searchIndexer;
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        SearchIndexer.Progress progress = searchIndexer.progress();
+
+        return List.<Metric<?>>of(
+                new Metric<>("search.index.rebuilding", searchIndexer.isRebuilding() ? 1 : 0),
+                new Metric<>("search.index.rebuild.total", progress.total()),
+                new Metric<>("search.index.rebuild.loaded", progress.loaded()),
+                new Metric<>("search.index.rebuild.added", progress.added())
+        ).toJavaList();
+    }
+}
@@ -0,0 +1,46 @@
+package lan.dk.podcastserver.service.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@Getter @Setter
+@Accessors(chain = true)
+@ConfigurationProperties("podcastserver.bandwidth")
+public class Bandwidth {
+
+    /**
+     * Bytes per second for all the downloads, 0 for no limit
+     */
+    private Long limit = 0L;
+    /**
+     * Bytes per second for each download, 0 for no limit
+     */
+    private Long limitByDownload = 0L;
+    /**
+     * Global limits replacing the default one during a period of the day
+     */
+    private List<Profile> profiles = new ArrayList<>();
+
+    @Getter @Setter
+    @Accessors(chain = true)
+    public static class Profile {
+        private LocalTime from = LocalTime.MIDNIGHT;
+        private LocalTime to = LocalTime.MIDNIGHT;
+        private Long limit = 0L;
+
+        public boolean contains(LocalTime time) {
+            return from.isAfter(to)
+                    ? !time.isBefore(from) || time.isBefore(to)
+                    : !time.isBefore(from) && time.isBefore(to);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package lan.dk.podcastserver.service.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@Getter @Setter
+@Accessors(chain = true)
+@ConfigurationProperties("podcastserver.cache")
+public class Caches {
+
+    /**
+     * Limits of the caches without specific limits
+     */
+    private Limits defaults = new Limits();
+    /**
+     * Limits by name of cache
+     */
+    private Map<String, Limits> specs = new HashMap<>();
+
+    public Caches() {
+        specs.put("search", new Limits().setMaximumSize(200L).setMaximumWeight(32L * 1024 * 1024).setTimeToLive(3600L));
+    }
+
+    public Limits of(String name) {
+        return specs.getOrDefault(name, defaults);
+    }
+
+    @Getter @Setter
+    @Accessors(chain = true)
+    public static class Limits {
+        /**
+         * Number of entries, the least recently used are evicted first, 0 for no limit
+         */
+        private Long maximumSize = 1000L;
+        /**
+         * Sum of the serialized size of the entries in bytes, 0 for no limit
+         */
+        private Long maximumWeight = 0L;
+        /**
+         * Seconds an entry is kept after being written, 0 for no limit
+         */
+        private Long timeToLive = 0L;
+    }
+}
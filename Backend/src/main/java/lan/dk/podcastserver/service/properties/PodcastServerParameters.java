@@ -36,10 +36,38 @@ public class PodcastServerParameters {
      * Max Update podcast in parallel
      */
     Integer maxUpdateParallels = 3;
+    /**
+     * Max duration of an update of podcasts, in minutes, podcasts not updated at its end are cancelled
+     */
+    Integer updateTimeout = 30;
+    /**
+     * Number of concurrent fetch of item details, shared by all the updates
+     */
+    Integer concurrentFetchByUpdate = 8;
     /**
      * Number of concurrent download
      */
     Integer concurrentDownload = 3;
+    /**
+     * Number of concurrent download on a same host, 0 for no limit
+     */
+    Integer concurrentDownloadByHost = 0;
+    /**
+     * Number of concurrent download of a same podcast, 0 for no limit
+     */
+    Integer concurrentDownloadByPodcast = 0;
+    /**
+     * Number of parallel connections used to download one file over HTTP or the segments of a HLS stream, 1 to disable segmentation
+     */
+    Integer concurrentSegmentByDownload = 4;
+    /**
+     * Number of concurrent download of covers
+     */
+    Integer concurrentCoverDownload = 4;
+    /**
+     * Number of concurrent download of covers on the same host, 0 for no limit
+     */
+    Integer concurrentCoverDownloadByHost = 2;
     /**
      * Number of retry to download an item
      */
@@ -56,6 +84,10 @@ public class PodcastServerParameters {
      * Number of item by default in RSS exposed by the Podcast Server
      */
     Long rssDefaultNumberItem = 50L;
+    /**
+     * Max number of items read in a RSS feed during an update, 0 for no limit
+     */
+    Integer maxItemsByFeed = 0;
 
     //** GETTER OF THE PARAMETERS **//
     public ZonedDateTime limitDownloadDate() { return now().minusDays(numberOfDayToDownload); }
@@ -1,34 +1,88 @@
 package lan.dk.podcastserver.utils.custom.ffmpeg;
 
 import io.vavr.collection.List;
+import io.vavr.collection.Queue;
 import net.bramp.ffmpeg.RunProcessFunction;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.isNull;
 
 
 /**
  * Created by kevin on 24/07/2016.
+ *
+ * Registry of the ffmpeg jobs. A job is registered with a token and bound to the thread running it,
+ * so the process spawned by this thread is handed directly to the job.
  */
 public class CustomRunProcessFunc extends RunProcessFunction {
 
-    private List<ProcessListener> listeners = List.empty();
+    private static final int HISTORY_SIZE = 50;
+    private static final ThreadLocal<ProcessJob> CURRENT_JOB = new ThreadLocal<>();
+
+    private final AtomicLong tokens = new AtomicLong();
+    private final Map<Long, ProcessJob> running = new ConcurrentHashMap<>();
+    private volatile Queue<ProcessJob.Stats> history = Queue.empty();
 
     @Override
     public Process run(java.util.List<String> args) throws IOException {
-        Process p = super.run(args);
+        ProcessJob job = CURRENT_JOB.get();
+        if (isNull(job)) {
+            return super.run(args);
+        }
+
+        try {
+            Process p = super.run(args);
+            job.spawned(p);
+            return p;
+        } catch (IOException e) {
+            job.failed(e);
+            throw e;
+        }
+    }
+
+    public ProcessJob register(String name) {
+        ProcessJob job = new ProcessJob(tokens.incrementAndGet(), name);
+        running.put(job.getToken(), job);
+        return job;
+    }
 
-        this.listeners = listeners.remove(
-            listeners
-                    .find(pl -> args.contains(pl.url()))
-                    .map(pl -> pl.process(p))
-                    .getOrElse(ProcessListener.DEFAULT_PROCESS_LISTENER)
-        );
+    /**
+     * Run the task in the current thread, the process it spawns is given to the job
+     */
+    public void execute(ProcessJob job, Runnable task) {
+        CURRENT_JOB.set(job);
+        try {
+            task.run();
+        } finally {
+            CURRENT_JOB.remove();
+            end(job);
+        }
+    }
+
+    /**
+     * For a job which couldn't be run
+     */
+    public void abort(ProcessJob job, Throwable e) {
+        job.failed(e);
+        end(job);
+    }
+
+    public List<ProcessJob.Stats> running() {
+        return List.ofAll(running.values()).map(ProcessJob::stats);
+    }
 
-        return p;
+    public List<ProcessJob.Stats> history() {
+        return history.toList();
     }
 
-    public CustomRunProcessFunc add(ProcessListener pl) {
-        this.listeners = listeners.append(pl);
-        return this;
+    private synchronized void end(ProcessJob job) {
+        job.ended();
+        running.remove(job.getToken());
+        Queue<ProcessJob.Stats> appended = history.append(job.stats());
+        history = appended.size() > HISTORY_SIZE ? appended.tail() : appended;
     }
 }
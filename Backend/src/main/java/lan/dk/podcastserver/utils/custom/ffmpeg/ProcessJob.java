@@ -0,0 +1,69 @@
+package lan.dk.podcastserver.utils.custom.ffmpeg;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.vavr.API.Option;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ *
+ * A run of ffmpeg registered in the {@link CustomRunProcessFunc}, its process is available as soon as it is spawned.
+ */
+@RequiredArgsConstructor
+public class ProcessJob {
+
+    @Getter private final long token;
+    @Getter private final String name;
+    private final long submittedAt = System.nanoTime();
+    private final CompletableFuture<Process> process = new CompletableFuture<>();
+    private volatile long spawnedAt;
+    private volatile long endedAt;
+    private volatile Integer exitCode;
+
+    public Future<Process> getProcess() {
+        return process;
+    }
+
+    void spawned(Process p) {
+        spawnedAt = System.nanoTime();
+        process.complete(p);
+    }
+
+    public void failed(Throwable e) {
+        process.completeExceptionally(e);
+    }
+
+    void ended() {
+        endedAt = System.nanoTime();
+        exitCode = Option(process.getNow(null))
+                .filter(p -> !p.isAlive())
+                .map(Process::exitValue)
+                .getOrNull();
+        process.completeExceptionally(new IllegalStateException("No process has been spawned by " + name));
+    }
+
+    public Stats stats() {
+        return new Stats(token, name, elapsed(submittedAt, spawnedAt), exitCode, elapsed(submittedAt, endedAt));
+    }
+
+    private static Long elapsed(long from, long to) {
+        return to == 0L ? null : TimeUnit.NANOSECONDS.toMillis(to - from);
+    }
+
+    @Value
+    public static class Stats {
+        private final long token;
+        private final String name;
+        /* in milliseconds */
+        private final Long spawnLatency;
+        private final Integer exitCode;
+        /* in milliseconds */
+        private final Long wallTime;
+    }
+}
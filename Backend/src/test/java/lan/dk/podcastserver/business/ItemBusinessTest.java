@@ -1,13 +1,13 @@
 package lan.dk.podcastserver.business;
 
 import com.querydsl.core.types.Predicate;
-import io.vavr.collection.List;
 import io.vavr.collection.Set;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
 import lan.dk.podcastserver.entity.Status;
 import lan.dk.podcastserver.entity.Tag;
 import lan.dk.podcastserver.manager.ItemDownloadManager;
+import lan.dk.podcastserver.manager.SearchIndexer;
 import lan.dk.podcastserver.repository.ItemRepository;
 import lan.dk.podcastserver.service.MimeTypeService;
 import lan.dk.podcastserver.service.properties.PodcastServerParameters;
@@ -31,7 +31,6 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.UUID;
-import java.util.stream.IntStream;
 
 import static io.vavr.API.Set;
 import static lan.dk.podcastserver.assertion.Assertions.assertThat;
@@ -51,6 +50,7 @@ public class ItemBusinessTest {
     private @Mock ItemRepository itemRepository;
     private @Mock PodcastBusiness podcastBusiness;
     private @Mock MimeTypeService mimeTypeService;
+    private @Mock SearchIndexer searchIndexer;
     private @InjectMocks ItemBusiness itemBusiness;
 
     @Before
@@ -121,12 +121,12 @@ public class ItemBusinessTest {
     }
 
     @Test
-    public void should_reindex() throws InterruptedException {
+    public void should_reindex() {
         /* Given */
         /* When */
         itemBusiness.reindex();
         /* Then */
-        verify(itemRepository, times(1)).reindex();
+        verify(searchIndexer, times(1)).rebuild();
     }
 
     @Test
@@ -147,6 +147,8 @@ public class ItemBusinessTest {
         verify(itemRepository, times(1)).findOne(eq(itemId));
         verify(itemDownloadManager, times(1)).isInDownloadingQueue(eq(item));
         verify(item, times(1)).reset();
+        verify(itemDownloadManager, times(1)).discardPartialDownload(eq(item));
+        verify(itemDownloadManager, times(1)).saveState(eq(item));
         verify(itemRepository, times(1)).save(eq(item));
     }
 
@@ -231,23 +233,22 @@ public class ItemBusinessTest {
     }
 
     @Test
-    public void should_find_by_tags_and_full_text_without_specific_order() {
+    public void should_find_by_tags_and_full_text() {
         /* Given */
         String term = "Foo";
         Set<Tag> tags = io.vavr.collection.HashSet.of(new Tag().setName("Discovery"), new Tag().setName("Fun"));
-        PageRequest pageRequest = new PageRequest(1, 3, Sort.Direction.fromString("DESC"), "title");
+        PageRequest pageRequest = new PageRequest(1, 3, Sort.Direction.fromString("DESC"), "pubDate");
         PageImpl<Item> pageResponse = new PageImpl<>(new ArrayList<>());
 
-        when(itemRepository.fullTextSearch(eq(term))).thenReturn(List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()));
-        when(itemRepository.findAll(any(Predicate.class), any(PageRequest.class))).thenReturn(pageResponse);
+        when(itemRepository.fullTextSearch(eq(term), eq(tags), eq(Set(Status.FINISH)), eq(pageRequest))).thenReturn(pageResponse);
 
         /* When */
         Page<Item> byTagsAndFullTextTerm = itemBusiness.findByTagsAndFullTextTerm(term, tags, Set(Status.FINISH), pageRequest);
 
         /* Then */
         PageAssert.assertThat(byTagsAndFullTextTerm).isSameAs(pageResponse);
-        verify(itemRepository, times(1)).fullTextSearch(eq(term));
-        verify(itemRepository, times(1)).findAll(any(Predicate.class), eq(pageRequest));
+        verify(itemRepository, times(1)).fullTextSearch(eq(term), eq(tags), eq(Set(Status.FINISH)), eq(pageRequest));
+        verify(itemRepository, never()).findAll(any(Predicate.class), any(PageRequest.class));
     }
 
     @Test
@@ -268,24 +269,33 @@ public class ItemBusinessTest {
     }
 
     @Test
-    public void should_find_by_tags_and_full_text_with_pertinence_order_asc() {
+    public void should_find_by_tags_without_sort_on_pertinence() {
         /* Given */
-        String term = "Foo";
-        Set<Tag> tags = io.vavr.collection.HashSet.of(new Tag().setName("Discovery"), new Tag().setName("Fun"));
-        PageRequest pageRequest = new PageRequest(1, 3, Sort.Direction.fromString("ASC"), "pertinence");
-        List<Item> itemsFrom1To20 = IntStream.range(1, 20)
-                .mapToObj(id -> new Item().setId(UUID.randomUUID()))
-                .collect(List.collector());
+        PageRequest pageRequest = new PageRequest(0, 12, new Sort(new Sort.Order(Sort.Direction.DESC, "pertinence"), new Sort.Order(Sort.Direction.ASC, "title")));
+        PageImpl<Item> pageResponse = new PageImpl<>(new ArrayList<>());
+
+        when(itemRepository.findAll(any(Predicate.class), any(PageRequest.class))).thenReturn(pageResponse);
+
+        /* When */
+        Page<Item> byTags = itemBusiness.findByTagsAndFullTextTerm(null, io.vavr.collection.HashSet.empty(), Set(Status.FINISH), pageRequest);
 
-        when(itemRepository.fullTextSearch(eq(term))).thenReturn(itemsFrom1To20.map(Item::getId));
-        when(itemRepository.findAll(any(Predicate.class))).thenReturn(itemsFrom1To20);
+        /* Then */
+        PageAssert.assertThat(byTags).isSameAs(pageResponse);
+        verify(itemRepository, times(1)).findAll(any(Predicate.class), eq(new PageRequest(0, 12, Sort.Direction.ASC, "title")));
+    }
+
+    @Test
+    public void should_find_by_tags_without_sort_if_only_sorted_on_pertinence() {
+        /* Given */
+        PageRequest pageRequest = new PageRequest(0, 12, Sort.Direction.DESC, "pertinence");
+        PageImpl<Item> pageResponse = new PageImpl<>(new ArrayList<>());
+
+        when(itemRepository.findAll(any(Predicate.class), any(PageRequest.class))).thenReturn(pageResponse);
 
         /* When */
-        Page<Item> pageOfItem = itemBusiness.findByTagsAndFullTextTerm(term, tags, Set(Status.FINISH), pageRequest);
+        itemBusiness.findByTagsAndFullTextTerm("", io.vavr.collection.HashSet.empty(), Set(Status.FINISH), pageRequest);
 
         /* Then */
-        assertThat(pageOfItem.getContent()).contains(itemsFrom1To20.get(15),itemsFrom1To20.get(14),itemsFrom1To20.get(13));
-        verify(itemRepository, times(1)).fullTextSearch(eq(term));
-        verify(itemRepository, times(1)).findAll(any(Predicate.class));
+        verify(itemRepository, times(1)).findAll(any(Predicate.class), eq(new PageRequest(0, 12)));
     }
 }
@@ -1,15 +1,13 @@
 package lan.dk.podcastserver.business.stats;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
 import io.vavr.collection.HashSet;
 import io.vavr.collection.List;
 import io.vavr.collection.Set;
-import lan.dk.podcastserver.business.PodcastBusiness;
-import lan.dk.podcastserver.entity.Item;
-import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.entity.DailyStat;
 import lan.dk.podcastserver.manager.worker.selector.UpdaterSelector;
 import lan.dk.podcastserver.manager.worker.updater.AbstractUpdater;
-import lan.dk.podcastserver.repository.ItemRepository;
+import lan.dk.podcastserver.repository.DailyStatRepository;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -17,22 +15,20 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import java.time.LocalDate;
-import java.time.ZonedDateTime;
 import java.util.UUID;
 
-import static java.time.temporal.ChronoUnit.DAYS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
+
 /**
  * Created by kevin on 05/08/15 for Podcast Server
  */
 @RunWith(MockitoJUnitRunner.class)
 public class StatsBusinessTest {
 
-    private @Mock ItemRepository itemRepository;
-    private @Mock PodcastBusiness podcastBusiness;
+    private @Mock DailyStatRepository dailyStatRepository;
     private @Mock UpdaterSelector updaterSelector;
     private @InjectMocks StatsBusiness statsBusiness;
 
@@ -41,15 +37,16 @@ public class StatsBusinessTest {
     private static final AbstractUpdater.Type BE_IN_SPORT = new AbstractUpdater.Type("BeInSport", "BeInSport");
     private static final AbstractUpdater.Type RSS = new AbstractUpdater.Type("RSS", "RSS");
 
+    @Before
+    public void beforeEach() {
+        when(updaterSelector.types()).thenReturn(HashSet.of(RSS, BE_IN_SPORT, CANAL_PLUS, YOUTUBE));
+    }
+
     @Test
     public void should_stats_all_by_download_date() {
         /* Given */
-        when(updaterSelector.types()).thenReturn(HashSet.of(RSS, BE_IN_SPORT, CANAL_PLUS, YOUTUBE));
-
-        when(itemRepository.findByTypeAndExpression(eq(RSS), any(BooleanExpression.class))).thenReturn(generateItems(5));
-        when(itemRepository.findByTypeAndExpression(eq(BE_IN_SPORT), any(BooleanExpression.class))).thenReturn(HashSet.empty());
-        when(itemRepository.findByTypeAndExpression(eq(CANAL_PLUS), any(BooleanExpression.class))).thenReturn(generateItems(10));
-        when(itemRepository.findByTypeAndExpression(eq(YOUTUBE), any(BooleanExpression.class))).thenReturn(generateItems(50));
+        when(dailyStatRepository.sumByTypeAndDateAfter(eq(DailyStat.Kind.DOWNLOAD), any(LocalDate.class)))
+                .thenReturn(generateStats("RSS", 5).appendAll(generateStats("CanalPlus", 10)).appendAll(generateStats("Youtube", 50)));
 
         /* When */
         List<StatsPodcastType> statsPodcastTypes = statsBusiness.allStatsByTypeAndDownloadDate(1);
@@ -64,12 +61,8 @@ public class StatsBusinessTest {
     @Test
     public void should_stats_all_by_creation_date() {
         /* Given */
-        when(updaterSelector.types()).thenReturn(HashSet.of(RSS, BE_IN_SPORT, CANAL_PLUS, YOUTUBE));
-
-        when(itemRepository.findByTypeAndExpression(eq(RSS), any(BooleanExpression.class))).thenReturn(generateItems(5));
-        when(itemRepository.findByTypeAndExpression(eq(BE_IN_SPORT), any(BooleanExpression.class))).thenReturn(HashSet.empty());
-        when(itemRepository.findByTypeAndExpression(eq(CANAL_PLUS), any(BooleanExpression.class))).thenReturn(generateItems(10));
-        when(itemRepository.findByTypeAndExpression(eq(YOUTUBE), any(BooleanExpression.class))).thenReturn(generateItems(50));
+        when(dailyStatRepository.sumByTypeAndDateAfter(eq(DailyStat.Kind.CREATION), any(LocalDate.class)))
+                .thenReturn(generateStats("RSS", 5).appendAll(generateStats("CanalPlus", 10)).appendAll(generateStats("Youtube", 50)));
 
         /* When */
         List<StatsPodcastType> statsPodcastTypes = statsBusiness.allStatsByTypeAndCreationDate(1);
@@ -84,74 +77,82 @@ public class StatsBusinessTest {
     @Test
     public void should_stats_all_by_publication_date() {
         /* Given */
-        when(updaterSelector.types()).thenReturn(HashSet.of(RSS, BE_IN_SPORT, CANAL_PLUS, YOUTUBE));
-
-        when(itemRepository.findByTypeAndExpression(eq(RSS), any(BooleanExpression.class))).thenReturn(generateItems(5));
-        when(itemRepository.findByTypeAndExpression(eq(BE_IN_SPORT), any(BooleanExpression.class))).thenReturn(HashSet.empty());
-        when(itemRepository.findByTypeAndExpression(eq(CANAL_PLUS), any(BooleanExpression.class))).thenReturn(generateItems(10));
-        when(itemRepository.findByTypeAndExpression(eq(YOUTUBE), any(BooleanExpression.class))).thenReturn(generateItems(50));
+        when(dailyStatRepository.sumByTypeAndDateAfter(eq(DailyStat.Kind.PUBLICATION), eq(LocalDate.now().minusMonths(1))))
+                .thenReturn(generateStats("RSS", 5).appendAll(generateStats("CanalPlus", 10)).appendAll(generateStats("Youtube", 50)));
 
         /* When */
         List<StatsPodcastType> statsPodcastTypes = statsBusiness.allStatsByTypeAndPubDate(1);
 
         /* Then */
-        assertThat(statsPodcastTypes).hasSize(3);
+        assertThat(statsPodcastTypes).extracting(StatsPodcastType::getType).containsExactly("CanalPlus", "RSS", "Youtube");
         assertThat(statsPodcastTypes.get(0).getValues()).hasSize(10);
         assertThat(statsPodcastTypes.get(1).getValues()).hasSize(5);
         assertThat(statsPodcastTypes.get(2).getValues()).hasSize(50);
     }
 
-    private Set<Item> generateItems(Integer numberOfItem) {
-        return HashSet.rangeClosed(1, numberOfItem)
-                // FlatMap To object to avoid repartion 1 per date
-                .map(i -> new Item()
-                        .setId(UUID.randomUUID())
-                        .setPubDate(ZonedDateTime.now().minusDays(i))
-                        .setDownloadDate(ZonedDateTime.now().minusDays(i))
-                        .setCreationDate(ZonedDateTime.now().minusDays(i))
-                );
+    @Test
+    public void should_ignore_stats_of_type_without_updater() {
+        /* Given */
+        when(dailyStatRepository.sumByTypeAndDateAfter(eq(DailyStat.Kind.PUBLICATION), any(LocalDate.class)))
+                .thenReturn(generateStats("Unknown", 5));
+
+        /* When */
+        List<StatsPodcastType> statsPodcastTypes = statsBusiness.allStatsByTypeAndPubDate(1);
+
+        /* Then */
+        assertThat(statsPodcastTypes).isEmpty();
     }
 
     @Test
     public void should_generate_stats_by_downloadDate_for_podcast() {
         /* Given */
-        Podcast podcast = new Podcast().setItems(generateItems(356).toJavaSet());
-        when(podcastBusiness.findOne(any(UUID.class))).thenReturn(podcast);
+        UUID id = UUID.randomUUID();
+        when(dailyStatRepository.findByPodcastAndKindAfter(eq(id), eq(DailyStat.Kind.DOWNLOAD), eq(LocalDate.now().minusMonths(6))))
+                .thenReturn(generateStats("RSS", 180));
 
         /* When */
-        Set<NumberOfItemByDateWrapper> numberOfItemByDateWrappers = statsBusiness.statsByDownloadDate(UUID.randomUUID(), 6L);
+        Set<NumberOfItemByDateWrapper> numberOfItemByDateWrappers = statsBusiness.statsByDownloadDate(id, 6L);
 
         /* Then */
-        Long days = DAYS.between(LocalDate.now().minusMonths(6), LocalDate.now())-1;
-        assertThat(numberOfItemByDateWrappers).hasSize(days.intValue());
+        assertThat(numberOfItemByDateWrappers).hasSize(180);
+        assertThat(numberOfItemByDateWrappers.map(NumberOfItemByDateWrapper::getNumberOfItems)).containsOnly(2);
     }
 
-
     @Test
     public void should_generate_stats_by_pubdate_for_podcast() {
         /* Given */
-        Podcast podcast = new Podcast().setItems(generateItems(356).toJavaSet());
-        when(podcastBusiness.findOne(any(UUID.class))).thenReturn(podcast);
+        UUID id = UUID.randomUUID();
+        when(dailyStatRepository.findByPodcastAndKindAfter(eq(id), eq(DailyStat.Kind.PUBLICATION), eq(LocalDate.now().minusMonths(2))))
+                .thenReturn(generateStats("RSS", 60));
 
         /* When */
-        Set<NumberOfItemByDateWrapper> numberOfItemByDateWrappers = statsBusiness.statsByPubDate(UUID.randomUUID(), 2L);
+        Set<NumberOfItemByDateWrapper> numberOfItemByDateWrappers = statsBusiness.statsByPubDate(id, 2L);
 
         /* Then */
-        Long days = DAYS.between(LocalDate.now().minusMonths(2), LocalDate.now())-1;
-        assertThat(numberOfItemByDateWrappers).hasSize(days.intValue());
+        assertThat(numberOfItemByDateWrappers).hasSize(60);
     }
 
     @Test
     public void should_generate_stats_by_creationdate_for_podcast() {
         /* Given */
-        Podcast podcast = new Podcast().setItems(generateItems(356).toJavaSet());
-        when(podcastBusiness.findOne(any(UUID.class))).thenReturn(podcast);
+        UUID id = UUID.randomUUID();
+        when(dailyStatRepository.findByPodcastAndKindAfter(eq(id), eq(DailyStat.Kind.CREATION), eq(LocalDate.now().minusMonths(2))))
+                .thenReturn(generateStats("RSS", 60));
 
         /* When */
-        Set<NumberOfItemByDateWrapper> numberOfItemByDateWrappers = statsBusiness.statsByCreationDate(UUID.randomUUID(), 2L);
+        Set<NumberOfItemByDateWrapper> numberOfItemByDateWrappers = statsBusiness.statsByCreationDate(id, 2L);
 
         /* Then */
-        Long days = DAYS.between(LocalDate.now().minusMonths(2), LocalDate.now())-1;
-        assertThat(numberOfItemByDateWrappers).hasSize(days.intValue());
+        assertThat(numberOfItemByDateWrappers).hasSize(60);
+    }
+
+    private static List<DailyStat> generateStats(String type, Integer numberOfDays) {
+        return List.rangeClosed(1, numberOfDays)
+                .map(i -> DailyStat.builder()
+                        .type(type)
+                        .date(LocalDate.now().minusDays(i))
+                        .numberOfItems(2L)
+                        .build()
+                );
     }
 }
@@ -0,0 +1,186 @@
+package lan.dk.podcastserver.business.update;
+
+import io.vavr.collection.HashSet;
+import io.vavr.collection.List;
+import io.vavr.collection.Set;
+import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.repository.ItemRepository;
+import lan.dk.podcastserver.repository.PodcastRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import static lan.dk.podcastserver.business.update.UpdatePlanner.MAX_DELAY;
+import static lan.dk.podcastserver.business.update.UpdatePlanner.MIN_DELAY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.only;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class UpdatePlannerTest {
+
+    private static final ZonedDateTime NOW = ZonedDateTime.parse("2026-10-17T12:00:00+02:00");
+
+    private @Mock ItemRepository itemRepository;
+    private @Mock PodcastRepository podcastRepository;
+    private @InjectMocks UpdatePlanner updatePlanner;
+
+    @Before
+    public void beforeEach() {
+        when(itemRepository.findLastPubDates(any(UUID.class), anyInt())).thenReturn(List.empty());
+    }
+
+    @Test
+    public void should_expect_next_publication_after_median_interval() {
+        /* Given */
+        List<ZonedDateTime> pubDates = List.of(NOW.minusDays(1), NOW.minusDays(2), NOW.minusDays(3), NOW.minusDays(10));
+
+        /* When */
+        ZonedDateTime expected = UpdatePlanner.expectedPublicationOf(pubDates).get();
+
+        /* Then */
+        assertThat(expected).isEqualTo(NOW);
+    }
+
+    @Test
+    public void should_not_expect_publication_without_history() {
+        assertThat(UpdatePlanner.expectedPublicationOf(List.of(NOW))).isEmpty();
+    }
+
+    @Test
+    public void should_plan_update_at_expected_publication() {
+        /* Given */
+        List<ZonedDateTime> pubDates = List.of(NOW.minusHours(2), NOW.minusHours(8), NOW.minusHours(14));
+
+        /* When */
+        ZonedDateTime next = UpdatePlanner.nextUpdateOf(pubDates, 0, NOW);
+
+        /* Then */
+        assertThat(next).isEqualTo(NOW.plusHours(4));
+    }
+
+    @Test
+    public void should_back_off_exponentially_when_publication_is_late() {
+        /* Given */
+        List<ZonedDateTime> pubDates = List.of(NOW.minusDays(1), NOW.minusDays(2));
+
+        /* When */
+        ZonedDateTime first = UpdatePlanner.nextUpdateOf(pubDates, 1, NOW.plusHours(1));
+        ZonedDateTime third = UpdatePlanner.nextUpdateOf(pubDates, 3, NOW.plusHours(1));
+
+        /* Then */
+        assertThat(first).isEqualTo(NOW.plusHours(1).plus(MIN_DELAY.multipliedBy(2)));
+        assertThat(third).isEqualTo(NOW.plusHours(1).plus(MIN_DELAY.multipliedBy(8)));
+    }
+
+    @Test
+    public void should_not_wait_more_than_max_delay() {
+        /* Given */
+        List<ZonedDateTime> pubDates = List.of(NOW.minusMonths(1), NOW.minusMonths(7));
+
+        /* When */
+        ZonedDateTime next = UpdatePlanner.nextUpdateOf(pubDates, 20, NOW);
+
+        /* Then */
+        assertThat(next).isEqualTo(NOW.plus(MAX_DELAY));
+    }
+
+    @Test
+    public void should_spread_first_updates_before_their_due_time() {
+        /* Given */
+        Set<Podcast> podcasts = HashSet.range(0, 50).map(i -> new Podcast().setId(UUID.randomUUID()).setTitle("podcast " + i));
+
+        /* When */
+        Set<Podcast> dueNow = updatePlanner.due(podcasts, NOW);
+        Set<Podcast> dueLater = updatePlanner.due(podcasts, NOW.plus(MIN_DELAY));
+
+        /* Then */
+        assertThat(dueNow.size()).isLessThan(podcasts.size());
+        assertThat(dueNow.addAll(dueLater)).hasSize(podcasts.size());
+        podcasts.forEach(p -> assertThat(updatePlanner.dueAt(p.getId()).get()).isAfter(NOW));
+    }
+
+    @Test
+    public void should_plan_next_update_after_an_update() {
+        /* Given */
+        Podcast podcast = new Podcast().setId(UUID.randomUUID()).setTitle("podcast");
+        when(itemRepository.findLastPubDates(eq(podcast.getId()), anyInt())).thenReturn(List.of(NOW.minusHours(1), NOW.minusHours(7)));
+        updatePlanner.due(HashSet.of(podcast), NOW);
+
+        /* When */
+        updatePlanner.updated(podcast, true, NOW);
+
+        /* Then */
+        ZonedDateTime dueAt = updatePlanner.dueAt(podcast.getId()).get();
+        assertThat(dueAt).isBetween(NOW.plusHours(5).minus(Duration.ofHours(5).minus(MIN_DELAY).dividedBy(10)), NOW.plusHours(5));
+        assertThat(updatePlanner.due(HashSet.of(podcast), NOW.plusHours(4))).isEmpty();
+        assertThat(updatePlanner.due(HashSet.of(podcast), NOW.plusHours(5))).containsOnly(podcast);
+        verify(podcastRepository, only()).updateNextUpdate(podcast.getId(), dueAt);
+    }
+
+    @Test
+    public void should_spread_next_updates_of_podcasts_with_the_same_history() {
+        /* Given */
+        Set<Podcast> podcasts = HashSet.range(0, 50).map(i -> new Podcast().setId(UUID.randomUUID()).setTitle("podcast " + i));
+
+        /* When */
+        podcasts.forEach(p -> updatePlanner.updated(p, false, NOW));
+
+        /* Then */
+        Set<ZonedDateTime> dueAt = podcasts.map(p -> updatePlanner.dueAt(p.getId()).get());
+        assertThat(dueAt.size()).isGreaterThan(1);
+        dueAt.forEach(d -> assertThat(d).isBetween(NOW.plus(MIN_DELAY), NOW.plus(MIN_DELAY.multipliedBy(2))));
+    }
+
+    @Test
+    public void should_plan_again_the_next_update_kept_with_the_podcast() {
+        /* Given */
+        Podcast podcast = new Podcast().setId(UUID.randomUUID()).setTitle("podcast").setNextUpdate(NOW.plusHours(3));
+
+        /* When */
+        Set<Podcast> due = updatePlanner.due(HashSet.of(podcast), NOW);
+
+        /* Then */
+        assertThat(due).isEmpty();
+        assertThat(updatePlanner.dueAt(podcast.getId())).contains(NOW.plusHours(3));
+    }
+
+    @Test
+    public void should_not_plan_again_a_next_update_already_passed() {
+        /* Given */
+        Podcast podcast = new Podcast().setId(UUID.randomUUID()).setTitle("podcast").setNextUpdate(NOW.minusHours(3));
+
+        /* When */
+        updatePlanner.due(HashSet.of(podcast), NOW);
+
+        /* Then */
+        assertThat(updatePlanner.dueAt(podcast.getId()).get()).isAfterOrEqualTo(NOW);
+    }
+
+    @Test
+    public void should_forget_deleted_podcasts() {
+        /* Given */
+        Podcast podcast = new Podcast().setId(UUID.randomUUID()).setTitle("podcast");
+        updatePlanner.due(HashSet.of(podcast), NOW);
+
+        /* When */
+        updatePlanner.due(HashSet.empty(), NOW);
+
+        /* Then */
+        assertThat(updatePlanner.dueAt(podcast.getId())).isEmpty();
+    }
+}
@@ -9,6 +9,7 @@ import lan.dk.podcastserver.business.CoverBusiness;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
 import lan.dk.podcastserver.entity.Status;
+import lan.dk.podcastserver.manager.CoverDownloadQueue;
 import lan.dk.podcastserver.manager.worker.selector.UpdaterSelector;
 import lan.dk.podcastserver.manager.worker.updater.Updater;
 import lan.dk.podcastserver.repository.ItemRepository;
@@ -22,6 +23,8 @@ import org.mockito.*;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.Validator;
@@ -46,6 +49,7 @@ public class UpdatePodcastBusinessTest {
 
     private static Path rootFolder = Paths.get("/tmp/podcast/");
     private @Captor ArgumentCaptor<Item> ITEM_ARGUMENT_CAPTOR;
+    private @Captor ArgumentCaptor<Set<Item>> ITEMS_ARGUMENT_CAPTOR;
 
     private @Mock PodcastRepository podcastRepository;
     private @Mock ItemRepository itemRepository;
@@ -56,6 +60,9 @@ public class UpdatePodcastBusinessTest {
     private @Spy ThreadPoolTaskExecutor manualExecutor = new ThreadPoolTaskExecutor();
     private @Mock Validator validator;
     private @Mock CoverBusiness coverBusiness;
+    private @Mock UpdatePlanner updatePlanner;
+    private @Mock CoverDownloadQueue coverDownloadQueue;
+    private @Mock TransactionTemplate transactionTemplate;
     private @InjectMocks UpdatePodcastBusiness updatePodcastBusiness;
 
     @Before
@@ -64,6 +71,8 @@ public class UpdatePodcastBusinessTest {
         updatePodcastBusiness.setTimeOut(1, TimeUnit.SECONDS);
         updateExecutor.initialize();
         manualExecutor.initialize();
+        when(podcastServerParameters.getUpdateTimeout()).thenReturn(30);
+        when(transactionTemplate.execute(any())).then(i -> i.getArgumentAt(0, TransactionCallback.class).doInTransaction(null));
     }
 
     @Test
@@ -143,6 +152,44 @@ public class UpdatePodcastBusinessTest {
 
         verify(podcastRepository, times(podcasts.size())).save(any(Podcast.class));
         verify(validator, times(10)).validate(any(Item.class));
+        verify(updatePlanner, times(1)).updated(podcast3, true);
+        verify(updatePlanner, times(1)).updated(podcast1, false);
+        verify(updatePlanner, times(1)).updated(podcast2, false);
+    }
+
+    @Test
+    public void should_update_only_due_podcasts() {
+        /* Given */
+        Podcast podcast1 = new Podcast().setTitle("podcast1").setUrl("http://foo.bar.com/1");
+        Podcast podcast2 = new Podcast().setTitle("podcast2").setUrl("http://foo.bar.com/2");
+        Updater updater = mock(Updater.class);
+        Set<Podcast> podcasts = HashSet.of(podcast1, podcast2);
+        when(podcastRepository.findByUrlIsNotNull()).thenReturn(podcasts);
+        when(updatePlanner.due(podcasts)).thenReturn(HashSet.of(podcast2));
+        when(updaterSelector.of(anyString())).thenReturn(updater);
+        when(updater.update(any(Podcast.class))).thenReturn(Updater.NO_MODIFICATION_TUPLE);
+
+        /* When */
+        updatePodcastBusiness.updateDuePodcasts();
+
+        /* Then */
+        verify(updater, times(1)).update(podcast2);
+        verify(updater, never()).update(podcast1);
+        verify(updatePlanner, times(1)).updated(podcast2, false);
+    }
+
+    @Test
+    public void should_do_nothing_if_no_podcast_is_due() {
+        /* Given */
+        Set<Podcast> podcasts = HashSet.of(new Podcast().setTitle("podcast1"));
+        when(podcastRepository.findByUrlIsNotNull()).thenReturn(podcasts);
+        when(updatePlanner.due(podcasts)).thenReturn(HashSet.empty());
+
+        /* When */
+        updatePodcastBusiness.updateDuePodcasts();
+
+        /* Then */
+        verifyZeroInteractions(updaterSelector, template);
     }
 
     @Test
@@ -175,6 +222,30 @@ public class UpdatePodcastBusinessTest {
         assertThat(podcast.getLastUpdate()).isNull();
     }
 
+    @Test
+    public void should_forget_signature_and_validators_if_items_are_not_saved() {
+        /* Given */
+        Podcast podcast = new Podcast().setTitle("podcast1").setUrl("http://an.superb.url/").setSignature("XYZ").setEtag("\"123\"").setContentLength(3);
+        Updater updater = mock(Updater.class);
+        when(podcastRepository.findOne(any(UUID.class))).thenReturn(podcast);
+        when(updaterSelector.of(anyString())).thenReturn(updater);
+        when(updater.update(any(Podcast.class))).then(i -> {
+            Podcast p = (Podcast) i.getArguments()[0];
+            return Tuple.of(p, generateItems(10, p), (Predicate<Item>) item -> true);
+        });
+        when(validator.validate(any(Item.class))).thenReturn(HashSet.<ConstraintViolation<Item>>empty().toJavaSet());
+        doThrow(RuntimeException.class).when(itemRepository).save(any(Iterable.class));
+
+        /* When */
+        updatePodcastBusiness.updatePodcast(UUID.randomUUID());
+
+        /* Then */
+        assertThat(podcast.getSignature()).isEmpty();
+        assertThat(podcast.getEtag()).isNull();
+        assertThat(podcast.getContentLength()).isNull();
+        verify(podcastRepository, times(1)).save(podcast);
+    }
+
     @Test
     public void should_update_a_podcast() {
         /* Given */
@@ -210,7 +281,7 @@ public class UpdatePodcastBusinessTest {
     public void should_not_handle_too_long_update() {
         /* Given */
         ThreadPoolTaskExecutor manualExecutor = new ThreadPoolTaskExecutor();
-        updatePodcastBusiness = new UpdatePodcastBusiness(podcastRepository, itemRepository, updaterSelector, template, podcastServerParameters, updateExecutor, manualExecutor, validator, coverBusiness);
+        updatePodcastBusiness = new UpdatePodcastBusiness(podcastRepository, itemRepository, updaterSelector, template, podcastServerParameters, updateExecutor, manualExecutor, validator, coverBusiness, updatePlanner, coverDownloadQueue, transactionTemplate);
         updatePodcastBusiness.setTimeOut(1, TimeUnit.MILLISECONDS);
         manualExecutor.initialize();
 
@@ -237,12 +308,126 @@ public class UpdatePodcastBusinessTest {
         verify(podcastRepository, times(1)).save(any(Podcast.class));
     }
 
+    @Test
+    public void should_handle_podcasts_in_order_of_completion() {
+        /* Given */
+        ThreadPoolTaskExecutor updateExecutor = new ThreadPoolTaskExecutor();
+        updateExecutor.setCorePoolSize(2);
+        updateExecutor.initialize();
+        updatePodcastBusiness = new UpdatePodcastBusiness(podcastRepository, itemRepository, updaterSelector, template, podcastServerParameters, updateExecutor, manualExecutor, validator, coverBusiness, updatePlanner, coverDownloadQueue, transactionTemplate);
+        updatePodcastBusiness.setTimeOut(500, TimeUnit.MILLISECONDS);
+
+        Podcast slow = new Podcast().setTitle("slow").setUrl("http://slow.com/");
+        Podcast fast = new Podcast().setTitle("fast").setUrl("http://fast.com/");
+        Updater updater = mock(Updater.class);
+        when(podcastRepository.findByUrlIsNotNull()).thenReturn(HashSet.of(slow, fast));
+        when(updaterSelector.of(anyString())).thenReturn(updater);
+        when(updater.update(eq(slow))).then(i -> {
+            TimeUnit.SECONDS.sleep(15);
+            return Updater.NO_MODIFICATION_TUPLE;
+        });
+        when(updater.update(eq(fast))).then(i -> Tuple.of(fast, generateItems(3, fast), (Predicate<Item>) item -> true));
+        when(validator.validate(any(Item.class))).thenReturn(HashSet.<ConstraintViolation<Item>>empty().toJavaSet());
+
+        /* When */
+        updatePodcastBusiness.updatePodcast();
+
+        /* Then */
+        assertThat(fast.getLastUpdate()).isNotNull();
+        assertThat(slow).hasLastUpdate(null);
+        UpdateProgress progress = updatePodcastBusiness.getProgress();
+        assertThat(progress.isUpdating()).isFalse();
+        assertThat(progress.getTotal()).isEqualTo(2);
+        assertThat(progress.getDone()).isEqualTo(1);
+        assertThat(progress.getFailed()).isEqualTo(1);
+        assertThat(progress.getPending()).isEqualTo(0);
+        assertThat(progress.getSlowest().head().getTitle()).isEqualTo("slow");
+        verify(coverDownloadQueue, times(1)).add(ITEMS_ARGUMENT_CAPTOR.capture());
+        assertThat(ITEMS_ARGUMENT_CAPTOR.getValue()).hasSize(3);
+        verify(template, atLeast(3)).convertAndSend(eq("/topic/updating"), any(UpdateProgress.class));
+    }
+
+    @Test
+    public void should_stop_update_at_global_deadline() {
+        /* Given */
+        updatePodcastBusiness.setGlobalTimeOut(200, TimeUnit.MILLISECONDS);
+        Podcast podcast = new Podcast().setTitle("podcast").setUrl("http://slow.com/");
+        Updater updater = mock(Updater.class);
+        when(podcastRepository.findOne(any(UUID.class))).thenReturn(podcast);
+        when(updaterSelector.of(anyString())).thenReturn(updater);
+        when(updater.update(any(Podcast.class))).then(i -> {
+            TimeUnit.SECONDS.sleep(15);
+            return Updater.NO_MODIFICATION_TUPLE;
+        });
+
+        /* When */
+        updatePodcastBusiness.updatePodcast(UUID.randomUUID());
+
+        /* Then */
+        assertThat(updatePodcastBusiness.isUpdating()).isFalse();
+        assertThat(updatePodcastBusiness.getProgress().getFailed()).isEqualTo(1);
+        verify(podcastRepository, never()).save(any(Podcast.class));
+    }
+
+    @Test
+    public void should_keep_progress_of_each_update_running() throws InterruptedException {
+        /* Given */
+        Podcast slow = new Podcast().setTitle("slow").setUrl("http://slow.com/");
+        Podcast manual = new Podcast().setTitle("manual").setUrl("http://manual.com/");
+        Updater updater = mock(Updater.class);
+        java.util.concurrent.CountDownLatch fullUpdateStarted = new java.util.concurrent.CountDownLatch(1);
+        java.util.concurrent.CountDownLatch endOfFullUpdate = new java.util.concurrent.CountDownLatch(1);
+        when(podcastRepository.findByUrlIsNotNull()).thenReturn(HashSet.of(slow));
+        when(podcastRepository.findOne(any(UUID.class))).thenReturn(manual);
+        when(updaterSelector.of(anyString())).thenReturn(updater);
+        when(updater.update(eq(slow))).then(i -> {
+            fullUpdateStarted.countDown();
+            endOfFullUpdate.await();
+            return Updater.NO_MODIFICATION_TUPLE;
+        });
+        when(updater.update(eq(manual))).thenReturn(Updater.NO_MODIFICATION_TUPLE);
+        java.util.concurrent.CompletableFuture<Void> fullUpdate = java.util.concurrent.CompletableFuture.runAsync(updatePodcastBusiness::updatePodcast);
+        fullUpdateStarted.await();
+
+        /* When */
+        updatePodcastBusiness.updatePodcast(UUID.randomUUID());
+
+        /* Then */
+        assertThat(updatePodcastBusiness.isUpdating()).isTrue();
+        assertThat(updatePodcastBusiness.getProgress().getTotal()).isEqualTo(1);
+        assertThat(updatePodcastBusiness.getProgress().getPending()).isEqualTo(1);
+        endOfFullUpdate.countDown();
+        fullUpdate.join();
+        assertThat(updatePodcastBusiness.isUpdating()).isFalse();
+    }
+
+    @Test
+    public void should_stop_update_at_deadline_of_parameters() {
+        /* Given */
+        when(podcastServerParameters.getUpdateTimeout()).thenReturn(0);
+        Podcast podcast = new Podcast().setTitle("podcast").setUrl("http://slow.com/");
+        Updater updater = mock(Updater.class);
+        when(podcastRepository.findOne(any(UUID.class))).thenReturn(podcast);
+        when(updaterSelector.of(anyString())).thenReturn(updater);
+        when(updater.update(any(Podcast.class))).then(i -> {
+            TimeUnit.SECONDS.sleep(15);
+            return Updater.NO_MODIFICATION_TUPLE;
+        });
+
+        /* When */
+        updatePodcastBusiness.updatePodcast(UUID.randomUUID());
+
+        /* Then */
+        assertThat(updatePodcastBusiness.getProgress().getFailed()).isEqualTo(1);
+        verify(podcastServerParameters, times(1)).getUpdateTimeout();
+    }
+
     @Test
     public void should_get_number_of_active_count() {
         /* Given */
         ThreadPoolTaskExecutor updateExecutor = mock(ThreadPoolTaskExecutor.class);
         ThreadPoolTaskExecutor manualExecutor = mock(ThreadPoolTaskExecutor.class);
-        updatePodcastBusiness = new UpdatePodcastBusiness(podcastRepository, itemRepository, updaterSelector, template, podcastServerParameters, updateExecutor, manualExecutor, validator, coverBusiness);
+        updatePodcastBusiness = new UpdatePodcastBusiness(podcastRepository, itemRepository, updaterSelector, template, podcastServerParameters, updateExecutor, manualExecutor, validator, coverBusiness, updatePlanner, coverDownloadQueue, transactionTemplate);
 
         /* When */
         Integer numberOfActiveThread = updatePodcastBusiness.getUpdaterActiveCount();
@@ -8,6 +8,7 @@ import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalTime;
 
 import static lan.dk.podcastserver.service.MimeTypeService.TikaProbeContentType;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -60,6 +61,18 @@ public class BeanConfigScanTest {
         assertThat(convertedPath).isEqualTo(Paths.get(path));
     }
 
+    @Test
+    public void should_provide_a_converter_from_string_to_local_time() {
+        /* Given */
+        Converter<String, LocalTime> c = beanConfigScan.localTimeConverter();
+
+        /* When */
+        LocalTime convertedTime = c.convert("22:30");
+
+        /* Then */
+        assertThat(convertedTime).isEqualTo(LocalTime.of(22, 30));
+    }
+
     @Test
     public void should_provide_a_converter_from_string_to_vavr_set() {
         /* GIVEN */
@@ -0,0 +1,25 @@
+package lan.dk.podcastserver.config;
+
+import lan.dk.podcastserver.service.cache.BoundedCache;
+import lan.dk.podcastserver.service.cache.BoundedCacheManager;
+import lan.dk.podcastserver.service.properties.Caches;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+public class CacheConfigTest {
+
+    private CacheConfig cacheConfig = new CacheConfig();
+
+    @Test
+    public void should_provide_a_bounded_cache_manager() {
+        /* When */
+        BoundedCacheManager cacheManager = cacheConfig.cacheManager(new Caches());
+
+        /* Then */
+        assertThat(cacheManager.getCache("search")).isInstanceOf(BoundedCache.class);
+    }
+}
@@ -37,6 +37,20 @@ public class ExecutorsConfigTest {
         assertThat(((ThreadPoolTaskExecutor) asyncExecutor).getThreadNamePrefix()).contains("Update");
     }
 
+    @Test
+    public void should_generate_update_fetch_executor() {
+        /* Given */
+        when(podcastServerParameters.getConcurrentFetchByUpdate()).thenReturn(8);
+
+        /* When */
+        ThreadPoolTaskExecutor executor = executorsConfig.updateFetchExecutor();
+
+        /* Then */
+        assertThat(executor.getCorePoolSize()).isEqualTo(8);
+        assertThat(executor.getMaxPoolSize()).isEqualTo(8);
+        assertThat(executor.getThreadNamePrefix()).contains("Update-Fetch");
+    }
+
     @Test
     public void should_generate_single_thread_executor() {
         /* When */
@@ -63,4 +77,19 @@ public class ExecutorsConfigTest {
         assertThat(executor.getThreadNamePrefix()).contains("Downloader");
     }
 
+    @Test
+    public void should_generate_bounded_ffmpeg_executor() {
+        /* Given */
+        when(podcastServerParameters.getConcurrentDownload()).thenReturn(3);
+
+        /* When */
+        ThreadPoolTaskExecutor executor = executorsConfig.ffmpegJobExecutor();
+
+        /* Then */
+        assertThat(executor.getCorePoolSize()).isEqualTo(12);
+        assertThat(executor.getMaxPoolSize()).isEqualTo(12);
+        assertThat(executor.getThreadPoolExecutor().getQueue().remainingCapacity()).isEqualTo(12);
+        assertThat(executor.getThreadNamePrefix()).contains("Ffmpeg");
+    }
+
 }
@@ -1,6 +1,8 @@
 package lan.dk.podcastserver.controller.task;
 
+import io.vavr.collection.HashMap;
 import io.vavr.collection.HashSet;
+import io.vavr.collection.Map;
 import io.vavr.collection.Queue;
 import io.vavr.collection.Set;
 import lan.dk.podcastserver.entity.Item;
@@ -113,6 +115,64 @@ public class IDMControllerTest {
         verify(IDM, only()).setLimitParallelDownload(eq(3));
     }
 
+    @Test
+    public void should_get_bandwidth_limit() {
+        /* Given */
+        when(IDM.getBandwidthLimit()).thenReturn(1024L);
+        /* When */
+        long limit = idmController.getBandwidthLimit();
+        /* Then */
+        assertThat(limit).isEqualTo(1024L);
+        verify(IDM, only()).getBandwidthLimit();
+    }
+
+    @Test
+    public void should_set_bandwidth_limit() {
+        /* When */
+        idmController.setBandwidthLimit(1024L);
+        /* Then */
+        verify(IDM, only()).setBandwidthLimit(eq(1024L));
+    }
+
+    @Test
+    public void should_reset_bandwidth_limit() {
+        /* When */
+        idmController.resetBandwidthLimit();
+        /* Then */
+        verify(IDM, only()).setBandwidthLimit((Long) isNull());
+    }
+
+    @Test
+    public void should_get_bandwidth_limit_by_download() {
+        /* Given */
+        when(IDM.getBandwidthLimitByDownload()).thenReturn(512L);
+        /* When */
+        long limit = idmController.getBandwidthLimitByDownload();
+        /* Then */
+        assertThat(limit).isEqualTo(512L);
+        verify(IDM, only()).getBandwidthLimitByDownload();
+    }
+
+    @Test
+    public void should_set_bandwidth_limit_by_download() {
+        /* When */
+        idmController.setBandwidthLimitByDownload(512L);
+        /* Then */
+        verify(IDM, only()).setBandwidthLimitByDownload(eq(512L));
+    }
+
+    @Test
+    public void should_get_throughputs() {
+        /* Given */
+        UUID id = UUID.randomUUID();
+        when(IDM.getThroughputs()).thenReturn(HashMap.of(id, 2048L));
+        /* When */
+        Map<UUID, Long> throughputs = idmController.getThroughputs();
+        /* Then */
+        assertThat(throughputs.get(id).get()).isEqualTo(2048L);
+        verify(IDM, only()).getThroughputs();
+    }
+
     @Test
     public void should_launch_download() {
         /* Given */
@@ -0,0 +1,91 @@
+package lan.dk.podcastserver.entity.listener;
+
+import lan.dk.podcastserver.entity.Item;
+import lan.dk.podcastserver.entity.Podcast;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ItemListenerTest {
+
+    private @Mock ApplicationEventPublisher publisher;
+    private @Captor ArgumentCaptor<ItemChanged> events;
+    private ItemListener itemListener;
+
+    @Before
+    public void beforeEach() {
+        new ItemListener(publisher);
+        itemListener = new ItemListener();
+    }
+
+    @Test
+    public void should_publish_changes_of_items() {
+        /* Given */
+        ZonedDateTime now = ZonedDateTime.now();
+        Podcast podcast = new Podcast().setId(UUID.randomUUID());
+        Item item = new Item().setPodcast(podcast).setUrl("http://foo.bar.com/1.mp3").setPubDate(now);
+
+        /* When */
+        itemListener.persisted(item);
+        itemListener.updated(item);
+        itemListener.removed(item);
+
+        /* Then */
+        verify(publisher, times(3)).publishEvent(events.capture());
+        assertThat(events.getAllValues())
+                .extracting(ItemChanged::getType)
+                .containsExactly(ItemChanged.Type.PERSISTED, ItemChanged.Type.UPDATED, ItemChanged.Type.REMOVED);
+        assertThat(events.getValue().getPodcastId()).isEqualTo(podcast.getId());
+        assertThat(events.getValue().getUrl()).isEqualTo("http://foo.bar.com/1.mp3");
+        assertThat(events.getValue().getDates().getPubDate()).isEqualTo(now);
+    }
+
+    @Test
+    public void should_publish_dates_of_items_as_they_were_in_database() {
+        /* Given */
+        ZonedDateTime now = ZonedDateTime.now();
+        Item item = new Item().setUrl("http://foo.bar.com/1.mp3").setDownloadDate(now.minusDays(1));
+        itemListener.loaded(item);
+        item.setDownloadDate(now);
+
+        /* When */
+        itemListener.updated(item);
+        itemListener.updated(item);
+
+        /* Then */
+        verify(publisher, times(2)).publishEvent(events.capture());
+        assertThat(events.getAllValues().get(0).getPreviousDates().map(ItemDates::getDownloadDate)).contains(now.minusDays(1));
+        assertThat(events.getAllValues().get(0).getDates().getDownloadDate()).isEqualTo(now);
+        assertThat(events.getAllValues().get(1).getPreviousDates().map(ItemDates::getDownloadDate)).contains(now);
+    }
+
+    @Test
+    public void should_publish_persisted_items_without_previous_dates() {
+        /* Given */
+        Item item = new Item().setUrl("http://foo.bar.com/1.mp3");
+
+        /* When */
+        itemListener.persisted(item);
+
+        /* Then */
+        verify(publisher).publishEvent(events.capture());
+        assertThat(events.getValue().getPreviousDates()).isEmpty();
+        assertThat(item.getStoredDates()).isNotNull();
+    }
+}
@@ -0,0 +1,217 @@
+package lan.dk.podcastserver.manager;
+
+import io.vavr.collection.HashSet;
+import lan.dk.podcastserver.business.CoverBusiness;
+import lan.dk.podcastserver.entity.Cover;
+import lan.dk.podcastserver.entity.Item;
+import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.repository.ItemRepository;
+import lan.dk.podcastserver.service.properties.PodcastServerParameters;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CoverDownloadQueueTest {
+
+    private static final String COVER_URL = "http://foo.bar.com/cover.png";
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private @Mock CoverBusiness coverBusiness;
+    private @Mock ItemRepository itemRepository;
+    private @Mock PodcastServerParameters podcastServerParameters;
+    private @Mock TaskScheduler coverExecutor;
+    private @Mock SearchCache searchCache;
+    private CoverDownloadQueue coverDownloadQueue;
+    private List<Runnable> scheduled = new ArrayList<>();
+
+    @Before
+    public void beforeEach() {
+        coverDownloadQueue = new CoverDownloadQueue(coverBusiness, itemRepository, podcastServerParameters, coverExecutor, searchCache);
+        when(podcastServerParameters.getConcurrentCoverDownloadByHost()).thenReturn(2);
+        when(coverExecutor.schedule(any(Runnable.class), any(Date.class))).then(i -> {
+            scheduled.add(i.getArgumentAt(0, Runnable.class));
+            return null;
+        });
+        when(coverBusiness.getCoverPathOf(any(Item.class))).then(i -> folder.getRoot().toPath().resolve(i.getArgumentAt(0, Item.class).getId() + ".png"));
+    }
+
+    @Test
+    public void should_download_a_cover_once_for_items_with_the_same_url() throws IOException {
+        /* Given */
+        Item first = item(COVER_URL);
+        Item second = item(COVER_URL);
+        when(coverBusiness.download(any(Item.class))).then(i -> {
+            Files.write(coverBusiness.getCoverPathOf(i.getArgumentAt(0, Item.class)), new byte[]{1});
+            return true;
+        });
+
+        /* When */
+        coverDownloadQueue.add(HashSet.of(first, second));
+        runScheduled();
+
+        /* Then */
+        verify(coverBusiness, times(1)).download(any(Item.class));
+        assertThat(coverBusiness.getCoverPathOf(first)).exists();
+        assertThat(coverBusiness.getCoverPathOf(second)).exists();
+        verify(itemRepository, only()).updateCoverPending(eq(HashSet.of(first.getId(), second.getId())), eq(false));
+        verify(searchCache, only()).invalidate();
+    }
+
+    @Test
+    public void should_retry_a_failed_download_and_keep_its_remote_cover() {
+        /* Given */
+        Item item = item(COVER_URL);
+        when(coverBusiness.download(any(Item.class))).thenReturn(false);
+
+        /* When */
+        coverDownloadQueue.add(HashSet.of(item));
+        runScheduled();
+        runScheduled();
+        runScheduled();
+
+        /* Then */
+        verify(coverBusiness, times(CoverDownloadQueue.MAX_TRY)).download(eq(item));
+        verify(coverExecutor, times(CoverDownloadQueue.MAX_TRY)).schedule(any(Runnable.class), any(Date.class));
+        verify(itemRepository, never()).updateCoverPending(any(), any());
+        verify(searchCache, never()).invalidate();
+        assertThat(scheduled).isEmpty();
+    }
+
+    @Test
+    public void should_not_download_again_a_cover_which_has_failed() {
+        /* Given */
+        when(coverBusiness.download(any(Item.class))).thenReturn(false);
+        coverDownloadQueue.add(HashSet.of(item(COVER_URL)));
+        runScheduled();
+        runScheduled();
+        runScheduled();
+
+        /* When */
+        coverDownloadQueue.add(HashSet.of(item(COVER_URL)));
+
+        /* Then */
+        assertThat(scheduled).isEmpty();
+        verify(coverBusiness, times(CoverDownloadQueue.MAX_TRY)).download(any(Item.class));
+    }
+
+    @Test
+    public void should_queue_covers_kept_pending_once_the_queue_is_empty() {
+        /* Given */
+        Item first = item(COVER_URL);
+        Item second = item("http://foo.bar.com/other.png");
+        coverDownloadQueue.maxQueued = 1;
+        when(coverBusiness.download(any(Item.class))).thenReturn(true);
+        when(itemRepository.findAllWithCoverPending()).thenReturn(HashSet.of(second));
+        coverDownloadQueue.add(HashSet.of(first));
+        coverDownloadQueue.add(HashSet.of(second));
+        assertThat(scheduled).hasSize(1);
+
+        /* When */
+        runScheduled();
+
+        /* Then */
+        assertThat(scheduled).hasSize(1);
+        runScheduled();
+        verify(coverBusiness, times(1)).download(eq(second));
+        verify(itemRepository, times(1)).findAllWithCoverPending();
+    }
+
+    @Test
+    public void should_wait_if_too_many_covers_are_downloaded_from_the_host() {
+        /* Given */
+        Item first = item(COVER_URL);
+        Item second = item("http://foo.bar.com/other.png");
+        when(podcastServerParameters.getConcurrentCoverDownloadByHost()).thenReturn(1);
+        when(coverBusiness.download(eq(first))).then(i -> {
+            coverDownloadQueue.add(HashSet.of(second));
+            runScheduled();
+            return true;
+        });
+
+        /* When */
+        coverDownloadQueue.add(HashSet.of(first));
+        runScheduled();
+
+        /* Then */
+        verify(coverBusiness, never()).download(eq(second));
+        assertThat(scheduled).hasSize(1);
+    }
+
+    @Test
+    public void should_not_limit_downloads_by_host_if_limit_is_zero() {
+        /* Given */
+        Item first = item(COVER_URL);
+        Item second = item("http://foo.bar.com/other.png");
+        when(podcastServerParameters.getConcurrentCoverDownloadByHost()).thenReturn(0);
+        when(coverBusiness.download(eq(first))).then(i -> {
+            coverDownloadQueue.add(HashSet.of(second));
+            runScheduled();
+            return true;
+        });
+        when(coverBusiness.download(eq(second))).thenReturn(true);
+
+        /* When */
+        coverDownloadQueue.add(HashSet.of(first));
+        runScheduled();
+
+        /* Then */
+        verify(coverBusiness, times(1)).download(eq(second));
+        assertThat(scheduled).isEmpty();
+    }
+
+    @Test
+    public void should_ignore_items_without_cover() {
+        /* When */
+        coverDownloadQueue.add(HashSet.of(new Item().setId(UUID.randomUUID()), item(null)));
+
+        /* Then */
+        verify(coverExecutor, never()).schedule(any(Runnable.class), any(Date.class));
+    }
+
+    @Test
+    public void should_queue_covers_pending_at_startup() {
+        /* Given */
+        when(itemRepository.findAllWithCoverPending()).thenReturn(HashSet.of(item(COVER_URL), item("http://foo.bar.com/other.png")));
+
+        /* When */
+        coverDownloadQueue.addPendingCovers();
+
+        /* Then */
+        assertThat(scheduled).hasSize(2);
+    }
+
+    private void runScheduled() {
+        List<Runnable> tasks = new ArrayList<>(scheduled);
+        scheduled.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private static Item item(String coverUrl) {
+        return new Item()
+                .setId(UUID.randomUUID())
+                .setPodcast(new Podcast().setId(UUID.randomUUID()).setTitle("podcast"))
+                .setCover(Cover.builder().url(coverUrl).build());
+    }
+}
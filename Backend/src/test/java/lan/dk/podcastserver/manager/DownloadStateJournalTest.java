@@ -0,0 +1,222 @@
+package lan.dk.podcastserver.manager;
+
+import io.vavr.collection.HashSet;
+import lan.dk.podcastserver.config.JacksonConfig;
+import lan.dk.podcastserver.entity.DailyStat;
+import lan.dk.podcastserver.entity.Item;
+import lan.dk.podcastserver.entity.Status;
+import lan.dk.podcastserver.repository.ItemRepository;
+import lan.dk.podcastserver.service.properties.PodcastServerParameters;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import static lan.dk.podcastserver.manager.DownloadStateJournal.JOURNAL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class DownloadStateJournalTest {
+
+    @Mock ItemRepository itemRepository;
+    @Mock SearchCache searchCache;
+    @Mock PodcastServerParameters podcastServerParameters;
+    @Mock StatsRollup statsRollup;
+
+    private DownloadStateJournal journal;
+    private Path root;
+
+    @Before
+    public void beforeEach() throws IOException {
+        root = Files.createTempDirectory("podcast-server");
+        when(podcastServerParameters.getRootfolder()).thenReturn(root);
+        journal = new DownloadStateJournal(itemRepository, searchCache, new JacksonConfig().mapper(), podcastServerParameters, statsRollup);
+    }
+
+    @After
+    public void afterEach() {
+        FileSystemUtils.deleteRecursively(root.toFile());
+    }
+
+    @Test
+    public void should_append_state_to_the_journal_without_writing_in_database() {
+        /* Given */
+        Item item = new Item().setId(UUID.randomUUID()).setStatus(Status.STARTED);
+
+        /* When */
+        journal.record(item);
+
+        /* Then */
+        assertThat(root.resolve(JOURNAL)).exists();
+        verifyZeroInteractions(itemRepository);
+    }
+
+    @Test
+    public void should_write_status_transitions_in_bulk_and_keep_search_results() {
+        /* Given */
+        Item first = new Item().setId(UUID.randomUUID()).setStatus(Status.STARTED);
+        Item second = new Item().setId(UUID.randomUUID()).setStatus(Status.PAUSED);
+        journal.record(first);
+        journal.record(second);
+        journal.record(second.setStatus(Status.STARTED));
+
+        /* When */
+        journal.flush();
+
+        /* Then */
+        verify(itemRepository, only()).updateStatus(eq(HashSet.of(first.getId(), second.getId())), eq(Status.STARTED));
+        verify(searchCache, never()).invalidate();
+        assertThat(root.resolve(JOURNAL)).doesNotExist();
+    }
+
+    @Test
+    public void should_write_finished_download_and_invalidate_search_results() {
+        /* Given */
+        ZonedDateTime now = ZonedDateTime.now();
+        Item item = new Item()
+                .setId(UUID.randomUUID())
+                .setStatus(Status.FINISH)
+                .setLength(123L)
+                .setMimeType("audio/mp3")
+                .setFileName("file.mp3")
+                .setDownloadDate(now);
+        journal.record(item);
+
+        /* When */
+        journal.flush();
+
+        /* Then */
+        verify(itemRepository, only()).updateDownloadState(eq(item.getId()), eq(Status.FINISH), eq(123L), eq("audio/mp3"), eq("file.mp3"), eq(now), eq(0));
+        verify(searchCache, times(1)).invalidate();
+        verify(statsRollup, only()).changed(DailyStat.Kind.DOWNLOAD, now);
+    }
+
+    @Test
+    public void should_write_the_number_of_try_of_a_retried_download() {
+        /* Given */
+        Item item = new Item().setId(UUID.randomUUID()).setStatus(Status.STARTED).addATry();
+        journal.record(item);
+
+        /* When */
+        journal.flush();
+
+        /* Then */
+        verify(itemRepository, only()).updateDownloadState(eq(item.getId()), eq(Status.STARTED), any(), any(), any(), any(), eq(1));
+    }
+
+    @Test
+    public void should_keep_states_in_the_journal_if_database_is_not_available() {
+        /* Given */
+        Item item = new Item().setId(UUID.randomUUID()).setStatus(Status.STOPPED);
+        doThrow(RuntimeException.class).when(itemRepository).updateStatus(any(), any());
+        journal.record(item);
+
+        /* When */
+        journal.flush();
+
+        /* Then */
+        assertThat(root.resolve(JOURNAL)).exists();
+        verify(searchCache, never()).invalidate();
+    }
+
+    @Test
+    public void should_replay_the_journal_at_startup() {
+        /* Given */
+        Item item = new Item().setId(UUID.randomUUID()).setStatus(Status.STOPPED);
+        journal.record(item);
+        DownloadStateJournal afterCrash = new DownloadStateJournal(itemRepository, searchCache, new JacksonConfig().mapper(), podcastServerParameters, statsRollup);
+
+        /* When */
+        afterCrash.replay();
+
+        /* Then */
+        verify(itemRepository, only()).updateStatus(eq(HashSet.of(item.getId())), eq(Status.STOPPED));
+        assertThat(root.resolve(JOURNAL)).doesNotExist();
+    }
+
+    @Test
+    public void should_replay_interrupted_downloads_as_not_downloaded() {
+        /* Given */
+        Item started = new Item().setId(UUID.randomUUID()).setStatus(Status.STARTED);
+        Item paused = new Item().setId(UUID.randomUUID()).setStatus(Status.PAUSED);
+        journal.record(started);
+        journal.record(paused);
+        DownloadStateJournal afterCrash = new DownloadStateJournal(itemRepository, searchCache, new JacksonConfig().mapper(), podcastServerParameters, statsRollup);
+
+        /* When */
+        afterCrash.replay();
+
+        /* Then */
+        verify(itemRepository, times(1)).updateDownloadState(eq(started.getId()), eq(Status.NOT_DOWNLOADED), any(), any(), any(), any(), any());
+        verify(itemRepository, times(1)).updateDownloadState(eq(paused.getId()), eq(Status.NOT_DOWNLOADED), any(), any(), any(), any(), any());
+        verify(itemRepository, never()).updateStatus(any(), any());
+    }
+
+    @Test
+    public void should_write_a_reset_whole_over_a_pending_finished_download() {
+        /* Given */
+        Item item = new Item()
+                .setId(UUID.randomUUID())
+                .setStatus(Status.FINISH)
+                .setFileName("file.mp3")
+                .setDownloadDate(ZonedDateTime.now());
+        journal.record(item);
+        journal.record(new Item().setId(item.getId()).setStatus(Status.NOT_DOWNLOADED));
+
+        /* When */
+        journal.flush();
+
+        /* Then */
+        verify(itemRepository, only()).updateDownloadState(eq(item.getId()), eq(Status.NOT_DOWNLOADED), any(), any(), (String) isNull(), (ZonedDateTime) isNull(), eq(0));
+    }
+
+    @Test
+    public void should_keep_appended_states_after_a_sync() throws IOException {
+        /* Given */
+        Item item = new Item().setId(UUID.randomUUID()).setStatus(Status.STARTED);
+        journal.record(item);
+
+        /* When */
+        journal.sync();
+
+        /* Then */
+        assertThat(Files.readAllLines(root.resolve(JOURNAL))).hasSize(1);
+        verifyZeroInteractions(itemRepository);
+    }
+
+    @Test
+    public void should_flush_pending_states_at_shutdown() {
+        /* Given */
+        Item item = new Item().setId(UUID.randomUUID()).setStatus(Status.STOPPED);
+        journal.record(item);
+
+        /* When */
+        journal.close();
+
+        /* Then */
+        verify(itemRepository, only()).updateStatus(eq(HashSet.of(item.getId())), eq(Status.STOPPED));
+        assertThat(root.resolve(JOURNAL)).doesNotExist();
+    }
+
+    @Test
+    public void should_do_nothing_at_startup_without_journal() {
+        /* When */
+        journal.replay();
+
+        /* Then */
+        verifyZeroInteractions(itemRepository);
+    }
+}
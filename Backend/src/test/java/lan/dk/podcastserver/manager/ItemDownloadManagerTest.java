@@ -2,28 +2,39 @@ package lan.dk.podcastserver.manager;
 
 import io.vavr.Tuple;
 import io.vavr.Tuple2;
+import io.vavr.collection.HashMap;
 import io.vavr.collection.HashSet;
+import io.vavr.collection.LinkedHashSet;
+import io.vavr.collection.List;
 import io.vavr.collection.Set;
 import lan.dk.podcastserver.entity.Item;
+import lan.dk.podcastserver.entity.Podcast;
 import lan.dk.podcastserver.entity.Status;
 import lan.dk.podcastserver.manager.worker.downloader.Downloader;
 import lan.dk.podcastserver.manager.worker.downloader.NoOpDownloader;
+import lan.dk.podcastserver.manager.worker.downloader.PartialDownload;
 import lan.dk.podcastserver.manager.worker.selector.DownloaderSelector;
 import lan.dk.podcastserver.repository.ItemRepository;
+import lan.dk.podcastserver.service.BandwidthService;
+import lan.dk.podcastserver.service.FfmpegService;
 import lan.dk.podcastserver.service.properties.PodcastServerParameters;
 import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.mockito.verification.VerificationMode;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.FileSystemUtils;
 
+import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.ZonedDateTime;
 import java.util.Queue;
 import java.util.UUID;
@@ -53,13 +64,24 @@ public class ItemDownloadManagerTest {
     @Mock PodcastServerParameters podcastServerParameters;
     @Mock DownloaderSelector downloaderSelector;
     @Mock ThreadPoolTaskExecutor downloaderExecutor;
+    @Mock BandwidthService bandwidthService;
+    @Mock DownloadStateJournal downloadStateJournal;
+    @Mock FfmpegService ffmpegService;
 
-    @InjectMocks ItemDownloadManager itemDownloadManager;
+    ProgressBroadcaster progressBroadcaster;
+    ItemDownloadManager itemDownloadManager;
 
     private static final Item ITEM_1 = Item.builder().id(UUID.randomUUID()).status(Status.NOT_DOWNLOADED).url("http://now.where/" + 1).pubDate(ZonedDateTime.now()).build();
     private static final Item ITEM_2 = Item.builder().id(UUID.randomUUID()).status(Status.STARTED).url("http://now.where/" + 2).pubDate(ZonedDateTime.now()).build();
     private static final Item ITEM_3 = Item.builder().id(UUID.randomUUID()).status(Status.PAUSED).url("http://now.where/" + 3).pubDate(ZonedDateTime.now()).build();
 
+    @Before
+    public void beforeEach() {
+        progressBroadcaster = new ProgressBroadcaster(template);
+        itemDownloadManager = new ItemDownloadManager(template, itemRepository, podcastServerParameters, downloaderSelector, downloaderExecutor, bandwidthService, downloadStateJournal, ffmpegService, progressBroadcaster);
+        when(bandwidthService.available()).thenReturn(Long.MAX_VALUE);
+    }
+
     @Test
     public void should_get_limit_of_download () {
         /* Given */
@@ -78,6 +100,7 @@ public class ItemDownloadManagerTest {
         /* When */
         itemDownloadManager.setLimitParallelDownload(NUMBER_OF_DOWNLOAD + 1);
         /* Then */
+        verify(ffmpegService, times(1)).setConcurrentDownload(NUMBER_OF_DOWNLOAD + 1);
         verify(template, times(1)).convertAndSend(eq("/topic/waiting"), queueArgumentCaptor.capture());
         assertThat(queueArgumentCaptor.getValue()).isNotNull().isEmpty();
     }
@@ -275,7 +298,9 @@ public class ItemDownloadManagerTest {
         /* Then */
         verify(itemRepository, times(1)).findOne(integerArgumentCaptor.capture());
         assertThat(integerArgumentCaptor.getValue()).isEqualTo(item.getId());
-        verify(itemRepository, times(1)).save(eq(item));
+        assertThat(item.getStatus()).isEqualTo(Status.STOPPED);
+        verify(downloadStateJournal, times(1)).record(eq(item));
+        verify(itemRepository, never()).save(any(Item.class));
         verifyConvertAndSave(times(1));
     }
 
@@ -418,9 +443,145 @@ public class ItemDownloadManagerTest {
         itemDownloadManager.removeACurrentDownload(item);
         /* Then */
         assertThat(itemDownloadManager.getDownloadingQueue()).hasSize(0);
+        verify(bandwidthService, times(1)).release(eq(item.getId()));
         verifyConvertAndSave(times(1));
     }
 
+    @Test
+    public void should_consume_bandwidth_of_the_download() {
+        /* Given */
+        Item item = new Item().setId(UUID.randomUUID());
+        BandwidthService.Meter meter = mock(BandwidthService.Meter.class);
+        when(bandwidthService.meter(eq(item.getId()))).thenReturn(meter);
+
+        /* When */
+        itemDownloadManager.consumeBandwidth(item, 1024L);
+
+        /* Then */
+        verify(meter, times(1)).consume(eq(1024L));
+    }
+
+    @Test
+    public void should_record_bandwidth_of_an_external_download() {
+        /* Given */
+        Item item = new Item().setId(UUID.randomUUID());
+        BandwidthService.Meter meter = mock(BandwidthService.Meter.class);
+        when(bandwidthService.meter(eq(item.getId()))).thenReturn(meter);
+
+        /* When */
+        itemDownloadManager.recordBandwidth(item, 1024L);
+
+        /* Then */
+        verify(meter, times(1)).reserve(eq(1024L));
+        verify(meter, never()).consume(anyLong());
+    }
+
+    @Test
+    public void should_be_limited_by_the_limit_by_download() {
+        /* Given */
+        when(bandwidthService.getLimit()).thenReturn(0L);
+        when(bandwidthService.getLimitByDownload()).thenReturn(1024L);
+
+        /* When */
+        Boolean limited = itemDownloadManager.isBandwidthLimited();
+
+        /* Then */
+        assertThat(limited).isTrue();
+    }
+
+    @Test
+    public void should_not_start_download_if_bandwidth_is_fully_used() {
+        /* Given */
+        when(downloaderExecutor.getCorePoolSize()).thenReturn(NUMBER_OF_DOWNLOAD);
+        Item item = Item.builder().id(UUID.randomUUID()).url("1").status(Status.NOT_DOWNLOADED).build();
+        when(bandwidthService.available()).thenReturn(0L);
+        when(itemRepository.findAllToDownload(any())).thenReturn(HashSet.of(item));
+
+        /* When */
+        itemDownloadManager.launchDownload();
+
+        /* Then */
+        assertThat(itemDownloadManager.getWaitingQueue()).containsOnly(item);
+        verify(downloaderSelector, never()).of(anyString());
+    }
+
+    @Test
+    public void should_start_download_once_bandwidth_is_free() {
+        /* Given */
+        Downloader downloader = mock(Downloader.class);
+        when(downloaderExecutor.getCorePoolSize()).thenReturn(NUMBER_OF_DOWNLOAD);
+        Item item = Item.builder().id(UUID.randomUUID()).url("1").status(Status.NOT_DOWNLOADED).build();
+        when(bandwidthService.available()).thenReturn(0L, 1024L);
+        when(itemRepository.findAllToDownload(any())).thenReturn(HashSet.of(item));
+        when(downloaderSelector.of(anyString())).thenReturn(downloader);
+        when(downloader.setItem(any())).thenReturn(downloader);
+        when(downloader.setItemDownloadManager(any())).thenReturn(downloader);
+        itemDownloadManager.launchDownload();
+
+        /* When */
+        itemDownloadManager.startDownloadsWithFreeBandwidth();
+
+        /* Then */
+        assertThat(itemDownloadManager.getWaitingQueue()).isEmpty();
+        verify(downloaderExecutor, times(1)).execute(downloader);
+    }
+
+    @Test
+    public void should_broadcast_progression_of_downloads() {
+        /* Given */
+        Item item = new Item().setId(UUID.randomUUID()).setProgression(50);
+        when(bandwidthService.throughputs()).thenReturn(HashMap.of(item.getId(), 100L));
+        itemDownloadManager.progress(item, 1000L);
+
+        /* When */
+        itemDownloadManager.broadcastProgressions();
+
+        /* Then */
+        verify(template, times(1)).convertAndSend(eq("/topic/download/progress"), eq(List.of(new ProgressBroadcaster.Frame(item.getId(), 50, 100L, 10L))));
+    }
+
+    @Test
+    public void should_not_broadcast_progression_of_a_removed_download() {
+        /* Given */
+        Item item = new Item().setId(UUID.randomUUID()).setProgression(50);
+        when(bandwidthService.throughputs()).thenReturn(HashMap.empty());
+        itemDownloadManager.progress(item, 1000L);
+        itemDownloadManager.removeACurrentDownload(item);
+
+        /* When */
+        itemDownloadManager.broadcastProgressions();
+
+        /* Then */
+        verify(template, never()).convertAndSend(eq("/topic/download/progress"), any(Object.class));
+        verifyConvertAndSave(times(1));
+    }
+
+    @Test
+    public void should_save_state_in_the_journal() {
+        /* Given */
+        Item item = new Item().setId(UUID.randomUUID()).setStatus(Status.STARTED);
+
+        /* When */
+        itemDownloadManager.saveState(item);
+
+        /* Then */
+        verify(downloadStateJournal, only()).record(eq(item));
+    }
+
+    @Test
+    public void should_delegate_bandwidth_limit_to_the_service() {
+        /* Given */
+        when(bandwidthService.getLimit()).thenReturn(2048L);
+
+        /* When */
+        itemDownloadManager.setBandwidthLimit(1024L);
+        long limit = itemDownloadManager.getBandwidthLimit();
+
+        /* Then */
+        assertThat(limit).isEqualTo(2048L);
+        verify(bandwidthService, times(1)).setLimit(eq(1024L));
+    }
+
 
     @Test
     public void should_move_item_in_queue() {
@@ -606,9 +767,185 @@ public class ItemDownloadManagerTest {
         verifyPostLaunchDownload();
     }
 
+    @Test
+    public void should_not_start_more_download_than_allowed_on_a_same_host() {
+        /* Given */
+        when(podcastServerParameters.getConcurrentDownloadByHost()).thenReturn(1);
+        itemDownloadManager = new ItemDownloadManager(template, itemRepository, podcastServerParameters, downloaderSelector, downloaderExecutor, bandwidthService, downloadStateJournal, ffmpegService, progressBroadcaster);
+        Tuple2<Item, Downloader> first = generateDownloaderAndRegisterIt(UUID.randomUUID(), "http://host.a/1");
+        Tuple2<Item, Downloader> second = generateDownloaderAndRegisterIt(UUID.randomUUID(), "http://host.a/2");
+        Tuple2<Item, Downloader> third = generateDownloaderAndRegisterIt(UUID.randomUUID(), "http://host.b/1");
+        when(downloaderExecutor.getCorePoolSize()).thenReturn(3);
+        when(itemRepository.findAllToDownload(any())).thenReturn(HashSet.of(first._1(), second._1(), third._1()));
+
+        /* When */
+        itemDownloadManager.launchDownload();
+
+        /* Then */
+        assertThat(itemDownloadManager.getNumberOfCurrentDownload()).isEqualTo(2);
+        assertThat(itemDownloadManager.getItemsInDownloadingQueue().map(Item::getUrl)).contains("http://host.b/1");
+        assertThat(itemDownloadManager.getWaitingQueue())
+                .hasSize(1)
+                .allMatch(i -> i.getUrl().startsWith("http://host.a/"));
+        verifyPostLaunchDownload();
+    }
+
+    @Test
+    public void should_start_waiting_item_of_a_host_when_a_slot_is_freed() {
+        /* Given */
+        when(podcastServerParameters.getConcurrentDownloadByHost()).thenReturn(1);
+        itemDownloadManager = new ItemDownloadManager(template, itemRepository, podcastServerParameters, downloaderSelector, downloaderExecutor, bandwidthService, downloadStateJournal, ffmpegService, progressBroadcaster);
+        Tuple2<Item, Downloader> first = generateDownloaderAndRegisterIt(UUID.randomUUID(), "http://host.a/1");
+        Tuple2<Item, Downloader> second = generateDownloaderAndRegisterIt(UUID.randomUUID(), "http://host.a/2");
+        when(downloaderExecutor.getCorePoolSize()).thenReturn(3);
+        when(itemRepository.findAllToDownload(any())).thenReturn(HashSet.of(first._1(), second._1()));
+        itemDownloadManager.launchDownload();
+        Item started = itemDownloadManager.getItemsInDownloadingQueue().head();
+
+        /* When */
+        itemDownloadManager.removeACurrentDownload(started);
+
+        /* Then */
+        assertThat(itemDownloadManager.getNumberOfCurrentDownload()).isEqualTo(1);
+        assertThat(itemDownloadManager.getItemsInDownloadingQueue()).doesNotContain(started);
+        assertThat(itemDownloadManager.getWaitingQueue()).isEmpty();
+        verify(downloaderSelector, times(2)).of(anyString());
+        verifyPostLaunchDownload();
+    }
+
+    @Test
+    public void should_start_downloads_of_hosts_in_turn() {
+        /* Given */
+        Tuple2<Item, Downloader> first = generateDownloaderAndRegisterIt(UUID.randomUUID(), "http://host.a/1");
+        Tuple2<Item, Downloader> second = generateDownloaderAndRegisterIt(UUID.randomUUID(), "http://host.a/2");
+        Tuple2<Item, Downloader> third = generateDownloaderAndRegisterIt(UUID.randomUUID(), "http://host.b/1");
+        when(downloaderExecutor.getCorePoolSize()).thenReturn(2);
+        when(itemRepository.findAllToDownload(any())).thenReturn(LinkedHashSet.of(first._1(), second._1(), third._1()));
+
+        /* When */
+        itemDownloadManager.launchDownload();
+
+        /* Then */
+        assertThat(itemDownloadManager.getItemsInDownloadingQueue()).containsOnly(first._1(), third._1());
+        assertThat(itemDownloadManager.getWaitingQueue()).containsExactly(second._1());
+        verifyPostLaunchDownload();
+    }
+
+    @Test
+    public void should_count_a_relaunched_download_only_once_for_its_host() {
+        /* Given */
+        when(podcastServerParameters.getConcurrentDownloadByHost()).thenReturn(1);
+        when(podcastServerParameters.getNumberOfTry()).thenReturn(3);
+        itemDownloadManager = new ItemDownloadManager(template, itemRepository, podcastServerParameters, downloaderSelector, downloaderExecutor, bandwidthService, downloadStateJournal, ffmpegService, progressBroadcaster);
+        Tuple2<Item, Downloader> first = generateDownloaderAndRegisterIt(UUID.randomUUID(), "http://host.a/1");
+        Tuple2<Item, Downloader> second = generateDownloaderAndRegisterIt(UUID.randomUUID(), "http://host.a/2");
+        when(downloaderExecutor.getCorePoolSize()).thenReturn(3);
+        when(itemRepository.findAllToDownload(any())).thenReturn(LinkedHashSet.of(first._1(), second._1()));
+        itemDownloadManager.launchDownload();
+        itemDownloadManager.resetDownload(first._1());
+
+        /* When */
+        itemDownloadManager.removeACurrentDownload(first._1());
+
+        /* Then */
+        assertThat(itemDownloadManager.getItemsInDownloadingQueue()).containsOnly(second._1());
+        assertThat(itemDownloadManager.getWaitingQueue()).isEmpty();
+        verify(podcastServerParameters, times(1)).getNumberOfTry();
+        verifyPostLaunchDownload();
+    }
+
+    @Test
+    public void should_not_start_more_download_than_allowed_for_a_same_podcast() {
+        /* Given */
+        when(podcastServerParameters.getConcurrentDownloadByPodcast()).thenReturn(1);
+        itemDownloadManager = new ItemDownloadManager(template, itemRepository, podcastServerParameters, downloaderSelector, downloaderExecutor, bandwidthService, downloadStateJournal, ffmpegService, progressBroadcaster);
+        Podcast podcast = Podcast.builder().id(UUID.randomUUID()).build();
+        Tuple2<Item, Downloader> first = generateDownloaderAndRegisterIt(UUID.randomUUID(), "http://host.a/1");
+        Tuple2<Item, Downloader> second = generateDownloaderAndRegisterIt(UUID.randomUUID(), "http://host.b/2");
+        first._1().setPodcast(podcast);
+        second._1().setPodcast(podcast);
+        when(downloaderExecutor.getCorePoolSize()).thenReturn(3);
+        when(itemRepository.findAllToDownload(any())).thenReturn(HashSet.of(first._1(), second._1()));
+
+        /* When */
+        itemDownloadManager.launchDownload();
+
+        /* Then */
+        assertThat(itemDownloadManager.getNumberOfCurrentDownload()).isEqualTo(1);
+        assertThat(itemDownloadManager.getWaitingQueue()).hasSize(1);
+        verifyPostLaunchDownload();
+    }
+
+    @Test
+    public void should_resume_partial_downloads_and_discard_those_not_to_download() throws IOException {
+        /* Given */
+        Path root = Files.createTempDirectory("podcast-server");
+        Item toResume = Item.builder().id(UUID.randomUUID()).status(Status.NOT_DOWNLOADED).url("http://now.where/resume").build();
+        Item stopped = Item.builder().id(UUID.randomUUID()).status(Status.STOPPED).url("http://now.where/stopped").build();
+        Path resumed = partial(root.resolve("podcast").resolve("resume.mp3.psdownload"), toResume.getId());
+        Path discarded = partial(root.resolve("podcast").resolve("stopped.mp3.psdownload"), stopped.getId());
+        Path orphan = partial(root.resolve("podcast").resolve("orphan.mp3.psdownload"), UUID.randomUUID());
+        when(podcastServerParameters.getRootfolder()).thenReturn(root);
+        when(itemRepository.findOne(any(UUID.class))).then(i -> List.of(toResume, stopped).find(item -> item.getId().equals(i.getArguments()[0])).getOrElse(() -> null));
+
+        /* When */
+        itemDownloadManager.resumePartialDownloads();
+
+        /* Then */
+        assertThat(itemDownloadManager.getWaitingQueue()).containsExactly(toResume);
+        assertThat(resumed).exists();
+        assertThat(discarded).doesNotExist();
+        assertThat(discarded.resolveSibling(discarded.getFileName() + PartialDownload.EXTENSION)).doesNotExist();
+        assertThat(orphan).doesNotExist();
+        verify(itemRepository, times(3)).findOne(any(UUID.class));
+        verifyConvertAndSave(times(1));
+        FileSystemUtils.deleteRecursively(root.toFile());
+    }
+
+    @Test
+    public void should_discard_partial_download_of_a_stopped_download() throws IOException {
+        /* Given */
+        Path root = Files.createTempDirectory("podcast-server");
+        Tuple2<Item, Downloader> entry = generateDownloaderAndRegisterIt(UUID.randomUUID());
+        entry._1().setPodcast(Podcast.builder().title("podcast").build());
+        Path discarded = partial(root.resolve("podcast").resolve("file.mp3.psdownload"), entry._1().getId());
+        when(podcastServerParameters.getRootfolder()).thenReturn(root);
+        when(downloaderExecutor.getCorePoolSize()).thenReturn(1);
+        when(itemRepository.findAllToDownload(any())).thenReturn(HashSet.of(entry._1()));
+        itemDownloadManager.launchDownload();
+
+        /* When */
+        itemDownloadManager.stopDownload(entry._1().getId());
+
+        /* Then */
+        verify(entry._2(), times(1)).stopDownload();
+        assertThat(discarded).doesNotExist();
+        verifyPostLaunchDownload();
+        FileSystemUtils.deleteRecursively(root.toFile());
+    }
+
+    private static Path partial(Path file, UUID itemId) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[]{1});
+        PartialDownload.builder().partial(file).itemId(itemId).length(10L).build().save();
+        return file;
+    }
+
+    private Tuple2<Item, Downloader> generateDownloaderAndRegisterIt(UUID id, String url) {
+        final Downloader mockDownloader = mock(Downloader.class);
+        Item item = Item.builder().id(id).url(url).numberOfTry(0).build();
+        when(downloaderSelector.of(eq(url))).thenReturn(mockDownloader);
+        when(mockDownloader.setItem(any())).thenReturn(mockDownloader);
+        when(mockDownloader.setItemDownloadManager(any())).thenReturn(mockDownloader);
+        when(mockDownloader.getItem()).thenReturn(item);
+        return Tuple.of(item, mockDownloader);
+    }
+
     @After
     public void afterEach() {
         verify(podcastServerParameters, atLeast(1)).getRootfolder();
+        verify(podcastServerParameters, atLeast(1)).getConcurrentDownloadByHost();
+        verify(podcastServerParameters, atLeast(1)).getConcurrentDownloadByPodcast();
         verifyNoMoreInteractions(template, itemRepository, podcastServerParameters, downloaderSelector);
     }
 
@@ -0,0 +1,97 @@
+package lan.dk.podcastserver.manager;
+
+import io.vavr.collection.List;
+import lan.dk.podcastserver.entity.Item;
+import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.entity.listener.ItemChanged;
+import lan.dk.podcastserver.repository.ItemRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ItemUrlIndexTest {
+
+    private static final UUID PODCAST_ID = UUID.randomUUID();
+
+    private @Mock ItemRepository itemRepository;
+    private ItemUrlIndex itemUrlIndex;
+
+    @Before
+    public void beforeEach() {
+        itemUrlIndex = new ItemUrlIndex(itemRepository);
+        when(itemRepository.findUrlsByPodcast(PODCAST_ID)).thenReturn(List.of("http://foo.bar.com/1.mp3", "http://foo.bar.com/2.mp3"));
+    }
+
+    @Test
+    public void should_find_urls_of_podcast() {
+        /* When */
+        Boolean first = itemUrlIndex.contains(PODCAST_ID, "http://foo.bar.com/1.mp3");
+        Boolean second = itemUrlIndex.contains(PODCAST_ID, "http://foo.bar.com/2.mp3");
+        Boolean third = itemUrlIndex.contains(PODCAST_ID, "http://foo.bar.com/3.mp3");
+
+        /* Then */
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+        verify(itemRepository, times(1)).findUrlsByPodcast(PODCAST_ID);
+    }
+
+    @Test
+    public void should_not_contain_item_without_url_or_podcast() {
+        assertThat(itemUrlIndex.contains(null, "http://foo.bar.com/1.mp3")).isFalse();
+        assertThat(itemUrlIndex.contains(PODCAST_ID, null)).isFalse();
+        verifyZeroInteractions(itemRepository);
+    }
+
+    @Test
+    public void should_add_and_remove_urls_of_a_loaded_podcast() {
+        /* Given */
+        itemUrlIndex.contains(PODCAST_ID, "http://foo.bar.com/1.mp3");
+
+        /* When */
+        itemUrlIndex.add(PODCAST_ID, "http://foo.bar.com/3.mp3");
+        itemUrlIndex.remove(PODCAST_ID, "http://foo.bar.com/1.mp3");
+
+        /* Then */
+        assertThat(itemUrlIndex.contains(PODCAST_ID, "http://foo.bar.com/1.mp3")).isFalse();
+        assertThat(itemUrlIndex.contains(PODCAST_ID, "http://foo.bar.com/2.mp3")).isTrue();
+        assertThat(itemUrlIndex.contains(PODCAST_ID, "http://foo.bar.com/3.mp3")).isTrue();
+    }
+
+    @Test
+    public void should_not_load_podcast_when_an_item_is_added() {
+        /* When */
+        itemUrlIndex.add(PODCAST_ID, "http://foo.bar.com/3.mp3");
+
+        /* Then */
+        verifyZeroInteractions(itemRepository);
+    }
+
+    @Test
+    public void should_be_updated_by_changes_of_items() {
+        /* Given */
+        Podcast podcast = new Podcast().setId(PODCAST_ID);
+        itemUrlIndex.contains(PODCAST_ID, "http://foo.bar.com/1.mp3");
+
+        /* When */
+        itemUrlIndex.onItemChanged(ItemChanged.of(ItemChanged.Type.PERSISTED, new Item().setPodcast(podcast).setUrl("http://foo.bar.com/3.mp3")));
+        itemUrlIndex.onItemChanged(ItemChanged.of(ItemChanged.Type.REMOVED, new Item().setPodcast(podcast).setUrl("http://foo.bar.com/2.mp3")));
+        itemUrlIndex.onItemChanged(ItemChanged.of(ItemChanged.Type.UPDATED, new Item().setPodcast(podcast).setUrl("http://foo.bar.com/4.mp3")));
+
+        /* Then */
+        assertThat(itemUrlIndex.contains(PODCAST_ID, "http://foo.bar.com/3.mp3")).isTrue();
+        assertThat(itemUrlIndex.contains(PODCAST_ID, "http://foo.bar.com/2.mp3")).isFalse();
+        assertThat(itemUrlIndex.contains(PODCAST_ID, "http://foo.bar.com/4.mp3")).isFalse();
+    }
+}
@@ -0,0 +1,85 @@
+package lan.dk.podcastserver.manager;
+
+import io.vavr.collection.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.UUID;
+
+import static lan.dk.podcastserver.manager.ProgressBroadcaster.WS_TOPIC_PROGRESS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ProgressBroadcasterTest {
+
+    @Mock SimpMessagingTemplate template;
+    @Captor ArgumentCaptor<List<ProgressBroadcaster.Frame>> framesCaptor;
+
+    private ProgressBroadcaster progressBroadcaster;
+
+    @Before
+    public void beforeEach() {
+        progressBroadcaster = new ProgressBroadcaster(template);
+    }
+
+    @Test
+    public void should_send_all_progressions_in_one_frame() {
+        /* Given */
+        UUID first = UUID.randomUUID(), second = UUID.randomUUID();
+        progressBroadcaster.update(first, 10, 1_000L);
+        progressBroadcaster.update(first, 25, 2_500L);
+        progressBroadcaster.update(second, 50, 500L);
+
+        /* When */
+        progressBroadcaster.broadcast(id -> 100L);
+
+        /* Then */
+        verify(template, times(1)).convertAndSend(eq(WS_TOPIC_PROGRESS), framesCaptor.capture());
+        assertThat(framesCaptor.getValue()).containsOnly(
+                new ProgressBroadcaster.Frame(first, 25, 100L, 75L),
+                new ProgressBroadcaster.Frame(second, 50, 100L, 5L)
+        );
+    }
+
+    @Test
+    public void should_send_only_changes_since_previous_broadcast() {
+        /* Given */
+        UUID first = UUID.randomUUID(), second = UUID.randomUUID();
+        progressBroadcaster.update(first, 10, 1_000L);
+        progressBroadcaster.update(second, 10, 1_000L);
+        progressBroadcaster.broadcast(id -> 0L);
+        progressBroadcaster.update(first, 10, 1_000L);
+        progressBroadcaster.update(second, 20, 2_000L);
+
+        /* When */
+        progressBroadcaster.broadcast(id -> 0L);
+
+        /* Then */
+        verify(template, times(2)).convertAndSend(eq(WS_TOPIC_PROGRESS), framesCaptor.capture());
+        assertThat(framesCaptor.getValue()).containsOnly(new ProgressBroadcaster.Frame(second, 20, 0L, ProgressBroadcaster.UNKNOWN));
+    }
+
+    @Test
+    public void should_send_nothing_if_nothing_has_changed() {
+        /* Given */
+        UUID id = UUID.randomUUID();
+        progressBroadcaster.update(id, 10, 1_000L);
+        progressBroadcaster.remove(id);
+
+        /* When */
+        progressBroadcaster.broadcast(i -> 0L);
+
+        /* Then */
+        verify(template, never()).convertAndSend(anyString(), any(Object.class));
+    }
+}
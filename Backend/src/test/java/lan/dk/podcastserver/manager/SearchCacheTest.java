@@ -0,0 +1,153 @@
+package lan.dk.podcastserver.manager;
+
+import lan.dk.podcastserver.entity.Item;
+import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.entity.Tag;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SearchCacheTest {
+
+    private static final String[] PROPERTIES = {"title", "length", "status", "numberOfTry"};
+
+    @Mock EntityManagerFactory entityManagerFactory;
+    @Mock EntityPersister persister;
+
+    private ConcurrentMapCacheManager cacheManager;
+    private SearchCache searchCache;
+    private SearchCache.Invalidation invalidation;
+
+    @Before
+    public void beforeEach() {
+        cacheManager = new ConcurrentMapCacheManager(SearchCache.NAME);
+        searchCache = new SearchCache(cacheManager, entityManagerFactory);
+        invalidation = new SearchCache.Invalidation(searchCache);
+        when(persister.getPropertyNames()).thenReturn(PROPERTIES);
+    }
+
+    @Test
+    public void should_search_once_for_the_same_parameters() {
+        /* Given */
+        AtomicInteger searches = new AtomicInteger();
+
+        /* When */
+        String first = searchCache.get(() -> "result " + searches.incrementAndGet(), "Foo", 1);
+        String second = searchCache.get(() -> "result " + searches.incrementAndGet(), "Foo", 1);
+        String other = searchCache.get(() -> "result " + searches.incrementAndGet(), "Bar", 1);
+
+        /* Then */
+        assertThat(first).isEqualTo("result 1").isEqualTo(second);
+        assertThat(other).isEqualTo("result 2");
+        assertThat(searchCache.hits()).isEqualTo(1);
+        assertThat(searchCache.misses()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_search_again_in_a_new_generation() {
+        /* Given */
+        AtomicInteger searches = new AtomicInteger();
+        searchCache.get(() -> "result " + searches.incrementAndGet(), "Foo");
+
+        /* When */
+        searchCache.invalidate();
+        String result = searchCache.get(() -> "result " + searches.incrementAndGet(), "Foo");
+
+        /* Then */
+        assertThat(result).isEqualTo("result 2");
+        assertThat(searchCache.generation()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_keep_results_of_previous_generations_to_the_eviction_of_the_cache() {
+        /* Given */
+        searchCache.get(() -> "result", "Foo");
+
+        /* When */
+        searchCache.invalidate();
+
+        /* Then */
+        assertThat(cacheManager.getCache(SearchCache.NAME).get(new SimpleKey(0L, "Foo"))).isNotNull();
+    }
+
+    @Test
+    public void should_drop_results_of_previous_generations_on_clear() {
+        /* Given */
+        searchCache.get(() -> "result", "Foo");
+
+        /* When */
+        searchCache.clear();
+
+        /* Then */
+        assertThat(cacheManager.getCache(SearchCache.NAME).get(new SimpleKey(0L, "Foo"))).isNull();
+        assertThat(searchCache.generation()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_invalidate_when_a_searched_property_of_an_item_changes() {
+        /* When */
+        invalidation.onPostUpdate(updateOf(new Item(), 1, 2));
+
+        /* Then */
+        assertThat(searchCache.generation()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_keep_the_generation_when_other_properties_of_an_item_change() {
+        /* When */
+        invalidation.onPostUpdate(updateOf(new Item(), 1, 3));
+
+        /* Then */
+        assertThat(searchCache.generation()).isEqualTo(0);
+    }
+
+    @Test
+    public void should_invalidate_when_changes_of_an_item_are_unknown() {
+        /* When */
+        invalidation.onPostUpdate(new PostUpdateEvent(new Item(), UUID.randomUUID(), null, null, null, persister, null));
+
+        /* Then */
+        assertThat(searchCache.generation()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_invalidate_when_a_tag_changes() {
+        /* When */
+        invalidation.onPostUpdate(updateOf(new Tag(), 0));
+
+        /* Then */
+        assertThat(searchCache.generation()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_invalidate_only_for_new_items() {
+        /* When */
+        invalidation.onPostInsert(new PostInsertEvent(new Podcast(), UUID.randomUUID(), null, persister, null));
+        invalidation.onPostInsert(new PostInsertEvent(new Item(), UUID.randomUUID(), null, persister, null));
+
+        /* Then */
+        assertThat(searchCache.generation()).isEqualTo(1);
+    }
+
+    private PostUpdateEvent updateOf(Object entity, int... dirtyProperties) {
+        return new PostUpdateEvent(entity, UUID.randomUUID(), null, null, dirtyProperties, persister, null);
+    }
+}
@@ -0,0 +1,244 @@
+package lan.dk.podcastserver.manager;
+
+import io.vavr.collection.HashSet;
+import lan.dk.podcastserver.repository.ItemRepository;
+import lan.dk.podcastserver.service.properties.PodcastServerParameters;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SearchIndexerTest {
+
+    @Mock ItemRepository itemRepository;
+    @Mock PodcastServerParameters podcastServerParameters;
+    @InjectMocks SearchIndexer searchIndexer;
+
+    private Path root;
+
+    @Before
+    public void beforeEach() throws IOException {
+        root = Files.createTempDirectory("podcast-server");
+        Files.write(root.resolve(SearchIndexer.MAPPING_VERSION_FILE), String.valueOf(SearchIndexer.MAPPING_VERSION).getBytes());
+        when(podcastServerParameters.getRootfolder()).thenReturn(root);
+    }
+
+    @After
+    public void afterEach() {
+        FileSystemUtils.deleteRecursively(root.toFile());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_rebuild_once_at_a_time() {
+        /* Given */
+        CompletableFuture<Void> running = new CompletableFuture<>();
+        doReturn(running).when(itemRepository).reindex(any());
+
+        /* When */
+        Future<?> first = searchIndexer.rebuild();
+        Future<?> second = searchIndexer.rebuild();
+
+        /* Then */
+        assertThat(first).isSameAs(running).isSameAs(second);
+        assertThat(searchIndexer.isRebuilding()).isTrue();
+        verify(itemRepository, times(1)).reindex(same(searchIndexer.progress()));
+    }
+
+    @Test
+    public void should_rebuild_again_once_finished() {
+        /* Given */
+        doReturn(CompletableFuture.completedFuture(null)).when(itemRepository).reindex(any());
+        searchIndexer.rebuild();
+
+        /* When */
+        searchIndexer.rebuild();
+
+        /* Then */
+        assertThat(searchIndexer.isRebuilding()).isFalse();
+        verify(itemRepository, times(2)).reindex(any());
+    }
+
+    @Test
+    public void should_do_nothing_if_index_is_consistent() {
+        /* Given */
+        when(itemRepository.countIndexed()).thenReturn(2L);
+        when(itemRepository.count()).thenReturn(2L);
+
+        /* When */
+        searchIndexer.check();
+
+        /* Then */
+        verify(itemRepository, never()).findAllIndexedIds();
+        verify(itemRepository, never()).findAllIds();
+        verify(itemRepository, never()).index(any());
+        verify(itemRepository, never()).purge(any());
+        verify(itemRepository, never()).reindex(any());
+    }
+
+    @Test
+    public void should_fix_differences_between_index_and_database() {
+        /* Given */
+        UUID indexed = UUID.randomUUID(), missing = UUID.randomUUID(), removed = UUID.randomUUID();
+        when(itemRepository.countIndexed()).thenReturn(2L);
+        when(itemRepository.count()).thenReturn(3L);
+        when(itemRepository.findAllIndexedIds()).thenReturn(HashSet.of(indexed, removed));
+        when(itemRepository.findAllIds()).thenReturn(HashSet.of(indexed, missing));
+
+        /* When */
+        searchIndexer.check();
+
+        /* Then */
+        verify(itemRepository, times(1)).index(HashSet.of(missing));
+        verify(itemRepository, times(1)).purge(HashSet.of(removed));
+        verify(itemRepository, never()).reindex(any());
+    }
+
+    @Test
+    public void should_rebuild_an_empty_index() {
+        /* Given */
+        when(itemRepository.count()).thenReturn(1L);
+        when(itemRepository.findAllIndexedIds()).thenReturn(HashSet.empty());
+        when(itemRepository.findAllIds()).thenReturn(HashSet.of(UUID.randomUUID()));
+        doReturn(new CompletableFuture<>()).when(itemRepository).reindex(any());
+
+        /* When */
+        searchIndexer.check();
+
+        /* Then */
+        verify(itemRepository, times(1)).reindex(any());
+        verify(itemRepository, never()).index(any());
+    }
+
+    @Test
+    public void should_rebuild_an_index_too_far_from_the_database() {
+        /* Given */
+        when(itemRepository.countIndexed()).thenReturn(1L);
+        when(itemRepository.count()).thenReturn((long) SearchIndexer.MAX_FIXES + 1);
+        when(itemRepository.findAllIndexedIds()).thenReturn(HashSet.of(UUID.randomUUID()));
+        when(itemRepository.findAllIds()).thenReturn(HashSet.fill(SearchIndexer.MAX_FIXES + 1, UUID::randomUUID));
+        doReturn(new CompletableFuture<>()).when(itemRepository).reindex(any());
+
+        /* When */
+        searchIndexer.check();
+
+        /* Then */
+        verify(itemRepository, times(1)).reindex(any());
+        verify(itemRepository, never()).index(any());
+        verify(itemRepository, never()).purge(any());
+    }
+
+    @Test
+    public void should_rebuild_an_index_built_with_another_mapping() throws IOException {
+        /* Given */
+        Files.write(root.resolve(SearchIndexer.MAPPING_VERSION_FILE), "1".getBytes());
+        doReturn(new CompletableFuture<>()).when(itemRepository).reindex(any());
+
+        /* When */
+        searchIndexer.check();
+
+        /* Then */
+        verify(itemRepository, times(1)).reindex(any());
+        verify(itemRepository, never()).findAllIndexedIds();
+        assertThat(root.resolve(SearchIndexer.MAPPING_VERSION_FILE)).hasContent("1");
+    }
+
+    @Test
+    public void should_save_the_mapping_version_once_the_rebuild_has_completed() throws IOException {
+        /* Given */
+        Files.write(root.resolve(SearchIndexer.MAPPING_VERSION_FILE), "1".getBytes());
+        CompletableFuture<Void> running = new CompletableFuture<>();
+        doReturn(running).when(itemRepository).reindex(any());
+        searchIndexer.check();
+
+        /* When */
+        running.complete(null);
+        searchIndexer.check();
+
+        /* Then */
+        verify(itemRepository, times(1)).reindex(any());
+        assertThat(root.resolve(SearchIndexer.MAPPING_VERSION_FILE)).hasContent(String.valueOf(SearchIndexer.MAPPING_VERSION));
+    }
+
+    @Test
+    public void should_rebuild_again_an_index_whose_rebuild_has_failed() throws IOException {
+        /* Given */
+        Files.write(root.resolve(SearchIndexer.MAPPING_VERSION_FILE), "1".getBytes());
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException());
+        doReturn(failed).when(itemRepository).reindex(any());
+        searchIndexer.check();
+
+        /* When */
+        searchIndexer.check();
+
+        /* Then */
+        verify(itemRepository, times(2)).reindex(any());
+        assertThat(root.resolve(SearchIndexer.MAPPING_VERSION_FILE)).hasContent("1");
+    }
+
+    @Test
+    public void should_rebuild_an_index_without_mapping_version() throws IOException {
+        /* Given */
+        Files.delete(root.resolve(SearchIndexer.MAPPING_VERSION_FILE));
+        doReturn(new CompletableFuture<>()).when(itemRepository).reindex(any());
+
+        /* When */
+        searchIndexer.check();
+
+        /* Then */
+        verify(itemRepository, times(1)).reindex(any());
+        assertThat(root.resolve(SearchIndexer.MAPPING_VERSION_FILE)).doesNotExist();
+    }
+
+    @Test
+    public void should_not_check_during_a_rebuild() {
+        /* Given */
+        doReturn(new CompletableFuture<>()).when(itemRepository).reindex(any());
+        searchIndexer.rebuild();
+
+        /* When */
+        searchIndexer.check();
+
+        /* Then */
+        verify(itemRepository, never()).countIndexed();
+        verify(itemRepository, never()).findAllIndexedIds();
+        verify(itemRepository, never()).findAllIds();
+    }
+
+    @Test
+    public void should_report_progress_of_the_rebuild() {
+        /* Given */
+        SearchIndexer.Progress progress = searchIndexer.progress();
+
+        /* When */
+        progress.addToTotalCount(200);
+        progress.entitiesLoaded(100);
+        progress.documentsBuilt(100);
+        progress.documentsAdded(50);
+        progress.indexingCompleted();
+
+        /* Then */
+        assertThat(progress.total()).isEqualTo(200L);
+        assertThat(progress.loaded()).isEqualTo(100L);
+        assertThat(progress.added()).isEqualTo(50L);
+    }
+}
@@ -0,0 +1,131 @@
+package lan.dk.podcastserver.manager;
+
+import io.vavr.collection.List;
+import lan.dk.podcastserver.entity.DailyStat;
+import lan.dk.podcastserver.entity.Item;
+import lan.dk.podcastserver.entity.listener.ItemChanged;
+import lan.dk.podcastserver.entity.listener.ItemDates;
+import lan.dk.podcastserver.repository.DailyStatRepository;
+import lan.dk.podcastserver.repository.ItemRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class StatsRollupTest {
+
+    private static final ZonedDateTime NOW = ZonedDateTime.now();
+    private static final LocalDate TODAY = NOW.toLocalDate();
+
+    private @Mock ItemRepository itemRepository;
+    private @Mock DailyStatRepository dailyStatRepository;
+    private StatsRollup statsRollup;
+
+    @Before
+    public void beforeEach() {
+        statsRollup = new StatsRollup(itemRepository, dailyStatRepository);
+        when(itemRepository.countByDay(any(DailyStat.Kind.class))).thenReturn(List.empty());
+        when(itemRepository.countByDay(any(DailyStat.Kind.class), any(LocalDate.class))).thenReturn(List.empty());
+    }
+
+    @Test
+    public void should_rebuild_every_kind_of_stat() {
+        /* When */
+        statsRollup.rebuild();
+
+        /* Then */
+        verify(dailyStatRepository, times(1)).replace(eq(DailyStat.Kind.PUBLICATION), eq(List.empty()));
+        verify(dailyStatRepository, times(1)).replace(eq(DailyStat.Kind.CREATION), eq(List.empty()));
+        verify(dailyStatRepository, times(1)).replace(eq(DailyStat.Kind.DOWNLOAD), eq(List.empty()));
+    }
+
+    @Test
+    public void should_refresh_changed_days_once() {
+        /* Given */
+        ZonedDateTime noon = TODAY.atTime(12, 0).atZone(ZoneId.systemDefault());
+        statsRollup.changed(DailyStat.Kind.DOWNLOAD, noon);
+        statsRollup.changed(DailyStat.Kind.DOWNLOAD, noon.plusHours(1));
+        statsRollup.changed(DailyStat.Kind.PUBLICATION, null);
+
+        /* When */
+        statsRollup.refresh();
+        statsRollup.refresh();
+
+        /* Then */
+        verify(itemRepository, times(1)).countByDay(DailyStat.Kind.DOWNLOAD, TODAY);
+        verify(dailyStatRepository, only()).replace(eq(DailyStat.Kind.DOWNLOAD), eq(TODAY), eq(List.empty()));
+        verifyNoMoreInteractions(itemRepository);
+    }
+
+    @Test
+    public void should_mark_days_in_the_zone_of_the_server() {
+        /* Given */
+        ZonedDateTime date = NOW.withZoneSameInstant(ZoneId.of("Pacific/Kiritimati"));
+
+        /* When */
+        statsRollup.changed(DailyStat.Kind.CREATION, date);
+        statsRollup.refresh();
+
+        /* Then */
+        verify(itemRepository, only()).countByDay(DailyStat.Kind.CREATION, TODAY);
+    }
+
+    @Test
+    public void should_mark_days_of_an_item_changed() {
+        /* Given */
+        Item item = new Item().setPubDate(NOW).setCreationDate(NOW);
+
+        /* When */
+        statsRollup.onItemChanged(ItemChanged.of(ItemChanged.Type.PERSISTED, item));
+        statsRollup.refresh();
+
+        /* Then */
+        verify(itemRepository, times(1)).countByDay(DailyStat.Kind.PUBLICATION, TODAY);
+        verify(itemRepository, times(1)).countByDay(DailyStat.Kind.CREATION, TODAY);
+        verify(itemRepository, never()).countByDay(eq(DailyStat.Kind.DOWNLOAD), any(LocalDate.class));
+    }
+
+    @Test
+    public void should_mark_the_day_an_item_leaves_and_the_one_it_goes_to() {
+        /* Given */
+        Item item = new Item().setPubDate(NOW).setCreationDate(NOW).setDownloadDate(NOW.minusDays(2));
+        item.setStoredDates(ItemDates.of(item));
+        item.setDownloadDate(NOW);
+
+        /* When */
+        statsRollup.onItemChanged(ItemChanged.of(ItemChanged.Type.UPDATED, item));
+        statsRollup.refresh();
+
+        /* Then */
+        verify(itemRepository, times(1)).countByDay(DailyStat.Kind.DOWNLOAD, TODAY);
+        verify(itemRepository, times(1)).countByDay(DailyStat.Kind.DOWNLOAD, TODAY.minusDays(2));
+    }
+
+    @Test
+    public void should_mark_the_day_an_item_reset_leaves() {
+        /* Given */
+        Item item = new Item().setPubDate(NOW).setCreationDate(NOW).setDownloadDate(NOW);
+        item.setStoredDates(ItemDates.of(item));
+        item.setDownloadDate(null);
+
+        /* When */
+        statsRollup.onItemChanged(ItemChanged.of(ItemChanged.Type.UPDATED, item));
+        statsRollup.refresh();
+
+        /* Then */
+        verify(itemRepository, times(1)).countByDay(DailyStat.Kind.DOWNLOAD, TODAY);
+    }
+}
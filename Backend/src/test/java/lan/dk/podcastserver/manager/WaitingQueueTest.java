@@ -0,0 +1,248 @@
+package lan.dk.podcastserver.manager;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.collection.Queue;
+import io.vavr.control.Option;
+import lan.dk.podcastserver.entity.Item;
+import lan.dk.podcastserver.entity.Status;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+public class WaitingQueueTest {
+
+    private static final Item ITEM_1 = Item.builder().id(UUID.randomUUID()).status(Status.NOT_DOWNLOADED).url("http://now.where/1").build();
+    private static final Item ITEM_2 = Item.builder().id(UUID.randomUUID()).status(Status.NOT_DOWNLOADED).url("http://now.where/2").build();
+    private static final Item ITEM_3 = Item.builder().id(UUID.randomUUID()).status(Status.NOT_DOWNLOADED).url("http://now.where/3").build();
+
+    private WaitingQueue queue;
+
+    @Before
+    public void beforeEach() {
+        queue = new WaitingQueue();
+    }
+
+    @Test
+    public void should_keep_insertion_order() {
+        /* When */
+        queue.addAll(List.of(ITEM_1, ITEM_2, ITEM_3));
+
+        /* Then */
+        assertThat(queue.snapshot()).containsExactly(ITEM_1, ITEM_2, ITEM_3);
+        assertThat(queue.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void should_not_add_twice_the_same_item() {
+        /* Given */
+        queue.add(ITEM_1);
+
+        /* When */
+        boolean added = queue.add(ITEM_1);
+
+        /* Then */
+        assertThat(added).isFalse();
+        assertThat(queue.snapshot()).containsExactly(ITEM_1);
+    }
+
+    @Test
+    public void should_not_accept_item_without_id() {
+        /* When */
+        boolean added = queue.add(new Item().setUrl("http://now.where/no-id"));
+
+        /* Then */
+        assertThat(added).isFalse();
+        assertThat(queue.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void should_find_and_remove_by_id() {
+        /* Given */
+        queue.addAll(List.of(ITEM_1, ITEM_2, ITEM_3));
+
+        /* When */
+        boolean removed = queue.remove(ITEM_2);
+
+        /* Then */
+        assertThat(removed).isTrue();
+        assertThat(queue.contains(ITEM_2)).isFalse();
+        assertThat(queue.find(ITEM_3.getId()).get()).isSameAs(ITEM_3);
+        assertThat(queue.snapshot()).containsExactly(ITEM_1, ITEM_3);
+    }
+
+    @Test
+    public void should_poll_in_order() {
+        /* Given */
+        queue.addAll(List.of(ITEM_1, ITEM_2));
+
+        /* When */
+        Option<Item> first = queue.poll();
+        Option<Item> second = queue.poll();
+        Option<Item> none = queue.poll();
+
+        /* Then */
+        assertThat(first.get()).isSameAs(ITEM_1);
+        assertThat(second.get()).isSameAs(ITEM_2);
+        assertThat(none.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void should_poll_first_matching_item_and_keep_others_in_place() {
+        /* Given */
+        queue.addAll(List.of(ITEM_1, ITEM_2, ITEM_3));
+
+        /* When */
+        Option<Item> polled = queue.pollFirst(i -> i.getUrl().endsWith("2"));
+
+        /* Then */
+        assertThat(polled.get()).isSameAs(ITEM_2);
+        assertThat(queue.snapshot()).containsExactly(ITEM_1, ITEM_3);
+    }
+
+    @Test
+    public void should_move_item() {
+        /* Given */
+        queue.addAll(List.of(ITEM_1, ITEM_2, ITEM_3));
+
+        /* When */
+        queue.move(ITEM_1.getId(), 2);
+        queue.move(ITEM_3.getId(), 0);
+
+        /* Then */
+        assertThat(queue.snapshot()).containsExactly(ITEM_3, ITEM_2, ITEM_1);
+    }
+
+    @Test
+    public void should_move_item_at_the_end_if_position_is_out_of_bound() {
+        /* Given */
+        queue.addAll(List.of(ITEM_1, ITEM_2, ITEM_3));
+
+        /* When */
+        queue.move(ITEM_1.getId(), 42);
+
+        /* Then */
+        assertThat(queue.snapshot()).containsExactly(ITEM_2, ITEM_3, ITEM_1);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void should_reject_move_of_unknown_item() {
+        /* Given */
+        queue.addAll(List.of(ITEM_1, ITEM_2, ITEM_3));
+
+        /* When */
+        queue.move(UUID.randomUUID(), 1);
+    }
+
+    @Test
+    public void should_clear() {
+        /* Given */
+        queue.addAll(List.of(ITEM_1, ITEM_2, ITEM_3));
+
+        /* When */
+        queue.clear();
+
+        /* Then */
+        assertThat(queue.isEmpty()).isTrue();
+        assertThat(queue.snapshot()).isEmpty();
+        assertThat(queue.contains(ITEM_1)).isFalse();
+    }
+
+    @Test
+    public void should_enqueue_move_and_drain_a_large_queue() {
+        /* Given */
+        int numberOfItems = 50_000;
+        List<Item> items = List.range(0, numberOfItems)
+                .map(i -> Item.builder().id(UUID.randomUUID()).url("http://now.where/" + i).build());
+
+        /* When */
+        queue.addAll(items);
+        items.zipWithIndex().forEach(t -> queue.move(t._1().getId(), (t._2() * 7919) % numberOfItems));
+        int drained = 0;
+        while (queue.poll().isDefined()) drained++;
+
+        /* Then */
+        assertThat(drained).isEqualTo(numberOfItems);
+        assertThat(queue.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void should_keep_the_order_of_the_previous_queue_in_less_time() {
+        /* Given */
+        List<Item> items = List.range(0, 5_000)
+                .map(i -> Item.builder().id(UUID.randomUUID()).url("http://now.where/" + i).build());
+        scenario(new WaitingQueue(), items.take(500));
+        scenario(new PreviousQueue(), items.take(500));
+
+        /* When */
+        long start = System.nanoTime();
+        List<Item> order = scenario(new WaitingQueue(), items);
+        long duration = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<Item> previousOrder = scenario(new PreviousQueue(), items);
+        long previousDuration = System.nanoTime() - start;
+
+        /* Then */
+        assertThat(order).containsExactlyElementsOf(previousOrder);
+        assertThat(duration).isLessThan(previousDuration);
+    }
+
+    /* Items are enqueued twice, moved, a part of them removed, and the others drained, in the order of the queue */
+    private static List<Item> scenario(WaitingQueue queue, List<Item> items) {
+        int size = items.size();
+        queue.addAll(items);
+        queue.addAll(items);
+        items.zipWithIndex().forEach(t -> queue.move(t._1().getId(), (t._2() * 7919) % size));
+        items.zipWithIndex().filter(t -> t._2() % 3 == 0).forEach(t -> queue.remove(t._1()));
+
+        List<Item> drained = List.empty();
+        for (Option<Item> item = queue.poll(); item.isDefined(); item = queue.poll()) {
+            drained = drained.prepend(item.get());
+        }
+        return drained.reverse();
+    }
+
+    /* Waiting list of the download manager before the WaitingQueue, a vavr Queue copied on each change */
+    private static class PreviousQueue extends WaitingQueue {
+
+        private Queue<Item> waitingQueue = Queue.empty();
+
+        @Override
+        synchronized void addAll(Iterable<Item> items) {
+            items.forEach(item -> {
+                if (!waitingQueue.contains(item)) waitingQueue = waitingQueue.enqueue(item);
+            });
+        }
+
+        @Override
+        synchronized boolean remove(Item item) {
+            boolean contains = waitingQueue.contains(item);
+            waitingQueue = waitingQueue.remove(item);
+            return contains;
+        }
+
+        @Override
+        synchronized Option<Item> poll() {
+            if (waitingQueue.isEmpty()) return Option.none();
+
+            Tuple2<Item, Queue<Item>> dequeue = waitingQueue.dequeue();
+            waitingQueue = dequeue._2();
+            return Option.of(dequeue._1());
+        }
+
+        @Override
+        synchronized void move(UUID id, int position) {
+            List<Item> copyWL = List.ofAll(waitingQueue);
+            Item itemToMove = copyWL.find(item -> item.getId().equals(id)).get();
+            List<Item> reorderList = copyWL.removeFirst(item -> item.getId().equals(id));
+            waitingQueue = Queue.ofAll(reorderList.insert(Math.min(position, reorderList.size()), itemToMove));
+        }
+    }
+}
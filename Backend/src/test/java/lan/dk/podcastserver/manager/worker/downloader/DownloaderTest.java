@@ -8,6 +8,7 @@ import lan.dk.podcastserver.manager.ItemDownloadManager;
 import lan.dk.podcastserver.repository.ItemRepository;
 import lan.dk.podcastserver.repository.PodcastRepository;
 import lan.dk.podcastserver.service.MimeTypeService;
+import lan.dk.podcastserver.service.ProcessService;
 import lan.dk.podcastserver.service.properties.PodcastServerParameters;
 import lan.dk.utils.IOUtils;
 import org.junit.Before;
@@ -30,6 +31,7 @@ import static io.vavr.API.Try;
 import static lan.dk.podcastserver.manager.worker.downloader.AbstractDownloader.WS_TOPIC_DOWNLOAD;
 import static lan.dk.utils.IOUtils.ROOT_TEST_PATH;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.*;
@@ -48,6 +50,7 @@ public class DownloaderTest {
     private @Mock SimpMessagingTemplate template;
     // private @Mock MimeTypeService mimeTypeService;
     private @Mock ItemDownloadManager itemDownloadManager;
+    private @Mock ProcessService processService;
     private @InjectMocks SimpleDownloader simpleDownloader;
 
 
@@ -81,8 +84,6 @@ public class DownloaderTest {
         /* Given */
         simpleDownloader.setItem(item);
 
-        when(podcastRepository.findOne(eq(podcast.getId()))).thenReturn(podcast);
-        when(itemRepository.save(any(Item.class))).then(i -> i.getArguments()[0]);
 
         /* When */
         simpleDownloader.run();
@@ -90,8 +91,7 @@ public class DownloaderTest {
 
         /* Then */
         assertThat(item.getStatus()).isEqualTo(Status.STOPPED);
-        verify(podcastRepository, atLeast(1)).findOne(eq(podcast.getId()));
-        verify(itemRepository, atLeast(1)).save(eq(item));
+        verify(itemDownloadManager, atLeast(1)).saveState(eq(item));
         verify(template, atLeast(1)).convertAndSend(eq(WS_TOPIC_DOWNLOAD), same(item));
         assertThat(simpleDownloader.target).isEqualTo(IOUtils.ROOT_TEST_PATH.resolve("A Fake typeless Podcast").resolve("file.mp4" + TEMPORARY_EXTENSION));
     }
@@ -101,16 +101,13 @@ public class DownloaderTest {
         /* Given */
         simpleDownloader.setItem(item);
 
-        when(podcastRepository.findOne(eq(podcast.getId()))).thenReturn(podcast);
-        when(itemRepository.save(any(Item.class))).then(i -> i.getArguments()[0]);
 
         /* When */
         simpleDownloader.finishDownload();
 
         /* Then */
         assertThat(item.getStatus()).isEqualTo(Status.STOPPED);
-        verify(podcastRepository, atLeast(1)).findOne(eq(podcast.getId()));
-        verify(itemRepository, atLeast(1)).save(eq(item));
+        verify(itemDownloadManager, atLeast(1)).saveState(eq(item));
         verify(template, atLeast(1)).convertAndSend(eq(WS_TOPIC_DOWNLOAD), same(item));
         assertThat(simpleDownloader.target).isNull();
     }
@@ -120,16 +117,13 @@ public class DownloaderTest {
         /* Given */
         simpleDownloader.setItem(item);
 
-        when(podcastRepository.findOne(eq(podcast.getId()))).thenReturn(podcast);
-        when(itemRepository.save(any(Item.class))).then(i -> i.getArguments()[0]);
 
         /* When */
         simpleDownloader.pauseDownload();
 
         /* Then */
         assertThat(item.getStatus()).isEqualTo(Status.PAUSED);
-        verify(podcastRepository, atLeast(1)).findOne(eq(podcast.getId()));
-        verify(itemRepository, atLeast(1)).save(eq(item));
+        verify(itemDownloadManager, atLeast(1)).saveState(eq(item));
         verify(template, atLeast(1)).convertAndSend(eq(WS_TOPIC_DOWNLOAD), same(item));
     }
 
@@ -138,8 +132,6 @@ public class DownloaderTest {
         /* Given */
         simpleDownloader.setItem(item);
 
-        when(podcastRepository.findOne(eq(podcast.getId()))).thenReturn(podcast);
-        when(itemRepository.save(any(Item.class))).then(i -> i.getArguments()[0]);
 
         /* When */
         simpleDownloader.run();
@@ -156,8 +148,6 @@ public class DownloaderTest {
         /* Given */
         simpleDownloader.setItem(item);
 
-        when(podcastRepository.findOne(eq(podcast.getId()))).thenReturn(podcast);
-        when(itemRepository.save(any(Item.class))).then(i -> i.getArguments()[0]);
 
         /* When */
         simpleDownloader.run();
@@ -203,8 +193,6 @@ public class DownloaderTest {
         simpleDownloader.setItem(item.setUrl("http://foo.bar.com/bash"));
 
         when(podcastServerParameters.getRootfolder()).thenReturn(Paths.get("/"));
-        when(podcastRepository.findOne(eq(podcast.getId()))).thenReturn(podcast);
-        when(itemRepository.save(any(Item.class))).then(i -> i.getArguments()[0]);
 
         /* When */
         simpleDownloader.getTargetFile(item);
@@ -214,20 +202,34 @@ public class DownloaderTest {
     }
 
     @Test
-    public void should_save_sync_with_podcast() {
+    public void should_save_state_through_the_download_manager() {
         /* Given */
         simpleDownloader.setItem(item);
 
-        doThrow(RuntimeException.class).when(podcastRepository).findOne(any(UUID.class));
-
         /* When */
-        simpleDownloader.saveSyncWithPodcast();
+        simpleDownloader.saveState();
 
         /* Then */
         assertThat(simpleDownloader.getItem()).isSameAs(item);
+        verify(itemDownloadManager, times(1)).saveState(eq(item));
         verify(itemRepository, never()).save(any(Item.class));
     }
 
+    @Test
+    public void should_record_bytes_of_an_external_process_without_suspending_it() {
+        /* Given */
+        simpleDownloader.setItem(item.setId(UUID.randomUUID()).setStatus(Status.STARTED));
+
+        /* When */
+        simpleDownloader.recordBandwidth(1000L);
+        simpleDownloader.recordBandwidth(2500L);
+
+        /* Then */
+        verify(itemDownloadManager, times(1)).recordBandwidth(item, 1000L);
+        verify(itemDownloadManager, times(1)).recordBandwidth(item, 1500L);
+        verifyZeroInteractions(processService);
+    }
+
     @Test
     public void should_get_item_standard() {
         /* Given */
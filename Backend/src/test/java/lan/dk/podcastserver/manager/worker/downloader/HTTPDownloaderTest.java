@@ -94,8 +94,6 @@ public class HTTPDownloaderTest {
         DownloadInfo downloadInfo = mock(DownloadInfo.class);
         WGet wGet = mock(WGet.class);
 
-        when(podcastRepository.findOne(eq(podcast.getId()))).thenReturn(podcast);
-        when(itemRepository.save(any(Item.class))).then(i -> i.getArguments()[0]);
         when(urlService.getRealURL(anyString())).then(i -> i.getArguments()[0]);
         when(wGetFactory.newDownloadInfo(anyString())).thenReturn(downloadInfo);
         when(wGetFactory.newWGet(any(DownloadInfo.class), any(File.class))).thenReturn(wGet);
@@ -111,8 +109,7 @@ public class HTTPDownloaderTest {
 
         /* Then */
         assertThat(item.getStatus()).isEqualTo(Status.FINISH);
-        verify(podcastRepository, atLeast(1)).findOne(eq(podcast.getId()));
-        verify(itemRepository, atLeast(1)).save(eq(item));
+        verify(itemDownloadManager, atLeast(1)).saveState(eq(item));
         verify(template, atLeast(1)).convertAndSend(eq(WS_TOPIC_DOWNLOAD), same(item));
         assertThat(httpDownloader.target).isEqualTo(IOUtils.ROOT_TEST_PATH.resolve("A Fake Http Podcast").resolve("file.mp4"));
     }
@@ -125,8 +122,6 @@ public class HTTPDownloaderTest {
         DownloadInfo downloadInfo = mock(DownloadInfo.class);
         WGet wGet = mock(WGet.class);
 
-        when(podcastRepository.findOne(eq(podcast.getId()))).thenReturn(podcast);
-        when(itemRepository.save(any(Item.class))).then(i -> i.getArguments()[0]);
         when(urlService.getRealURL(anyString())).then(i -> i.getArguments()[0]);
         when(wGetFactory.newDownloadInfo(anyString())).thenReturn(downloadInfo);
         when(wGetFactory.newWGet(any(DownloadInfo.class), any(File.class))).thenReturn(wGet);
@@ -139,8 +134,7 @@ public class HTTPDownloaderTest {
 
         /* Then */
         assertThat(item.getStatus()).isEqualTo(Status.STOPPED);
-        verify(podcastRepository, atLeast(1)).findOne(eq(podcast.getId()));
-        verify(itemRepository, atLeast(1)).save(eq(item));
+        verify(itemDownloadManager, atLeast(1)).saveState(eq(item));
         verify(template, atLeast(1)).convertAndSend(eq(WS_TOPIC_DOWNLOAD), same(item));
         assertThat(httpDownloader.target).isEqualTo(IOUtils.ROOT_TEST_PATH.resolve("A Fake Http Podcast").resolve("file.mp4" + TEMPORARY_EXTENSION));
     }
@@ -154,8 +148,6 @@ public class HTTPDownloaderTest {
         WGet wGet = mock(WGet.class);
         DownloadMultipartError error = mock(DownloadMultipartError.class);
 
-        when(podcastRepository.findOne(eq(podcast.getId()))).thenReturn(podcast);
-        when(itemRepository.save(any(Item.class))).then(i -> i.getArguments()[0]);
         when(urlService.getRealURL(anyString())).then(i -> i.getArguments()[0]);
         when(wGetFactory.newDownloadInfo(anyString())).thenReturn(downloadInfo);
         when(wGetFactory.newWGet(any(DownloadInfo.class), any(File.class))).thenReturn(wGet);
@@ -168,8 +160,7 @@ public class HTTPDownloaderTest {
 
         /* Then */
         assertThat(item.getStatus()).isEqualTo(Status.STOPPED);
-        verify(podcastRepository, atLeast(2)).findOne(eq(podcast.getId()));
-        verify(itemRepository, atLeast(2)).save(eq(item));
+        verify(itemDownloadManager, atLeast(2)).saveState(eq(item));
         verify(template, atLeast(1)).convertAndSend(eq(WS_TOPIC_DOWNLOAD), same(item));
     }
 
@@ -181,8 +172,6 @@ public class HTTPDownloaderTest {
         DownloadInfo downloadInfo = mock(DownloadInfo.class);
         WGet wGet = mock(WGet.class);
 
-        when(podcastRepository.findOne(eq(podcast.getId()))).thenReturn(podcast);
-        when(itemRepository.save(any(Item.class))).then(i -> i.getArguments()[0]);
         when(urlService.getRealURL(anyString())).then(i -> i.getArguments()[0]);
         when(wGetFactory.newDownloadInfo(anyString())).thenReturn(downloadInfo);
         when(wGetFactory.newWGet(any(DownloadInfo.class), any(File.class))).thenReturn(wGet);
@@ -193,8 +182,7 @@ public class HTTPDownloaderTest {
 
         /* Then */
         assertThat(item.getStatus()).isEqualTo(Status.STARTED);
-        verify(podcastRepository, atLeast(1)).findOne(eq(podcast.getId()));
-        verify(itemRepository, atLeast(1)).save(eq(item));
+        verify(itemDownloadManager, atLeast(1)).saveState(eq(item));
         verify(template, atLeast(1)).convertAndSend(eq(WS_TOPIC_DOWNLOAD), same(item));
     }
 
@@ -206,8 +194,6 @@ public class HTTPDownloaderTest {
         DownloadInfo downloadInfo = mock(DownloadInfo.class);
         WGet wGet = mock(WGet.class);
 
-        when(podcastRepository.findOne(eq(podcast.getId()))).thenReturn(podcast);
-        when(itemRepository.save(any(Item.class))).then(i -> i.getArguments()[0]);
         when(urlService.getRealURL(anyString())).then(i -> i.getArguments()[0]);
         when(wGetFactory.newDownloadInfo(anyString())).thenReturn(downloadInfo);
         when(wGetFactory.newWGet(any(DownloadInfo.class), any(File.class))).thenReturn(wGet);
@@ -218,8 +204,7 @@ public class HTTPDownloaderTest {
 
         /* Then */
         assertThat(item.getStatus()).isEqualTo(Status.STOPPED);
-        verify(podcastRepository, atLeast(2)).findOne(eq(podcast.getId()));
-        verify(itemRepository, atLeast(2)).save(eq(item));
+        verify(itemDownloadManager, atLeast(2)).saveState(eq(item));
         verify(template, atLeast(1)).convertAndSend(eq(WS_TOPIC_DOWNLOAD), same(item));
     }
 
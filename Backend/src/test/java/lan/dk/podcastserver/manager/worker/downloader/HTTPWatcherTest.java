@@ -157,7 +157,8 @@ public class HTTPWatcherTest {
         verify(downloader, never()).finishDownload();
         verify(downloader, never()).stopDownload();
         verify(itemDownloadManager, never()).removeACurrentDownload(any());
-        verify(downloader, times(1)).convertAndSaveBroadcast();
+        verify(downloader, times(1)).reportProgression(eq(5L));
+        verify(downloader, never()).convertAndSaveBroadcast();
     }
 
 }
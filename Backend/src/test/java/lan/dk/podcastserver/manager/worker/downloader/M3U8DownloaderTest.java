@@ -1,6 +1,8 @@
 package lan.dk.podcastserver.manager.worker.downloader;
 
 
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
 import io.vavr.API;
 import io.vavr.control.Try;
 import lan.dk.podcastserver.entity.Item;
@@ -10,16 +12,19 @@ import lan.dk.podcastserver.manager.ItemDownloadManager;
 import lan.dk.podcastserver.repository.ItemRepository;
 import lan.dk.podcastserver.repository.PodcastRepository;
 import lan.dk.podcastserver.service.*;
+import lan.dk.podcastserver.service.M3U8Service.MediaPlaylist;
 import lan.dk.podcastserver.service.properties.PodcastServerParameters;
 import lan.dk.utils.IOUtils;
 import net.bramp.ffmpeg.builder.FFmpegBuilder;
 import net.bramp.ffmpeg.progress.Progress;
 import net.bramp.ffmpeg.progress.ProgressListener;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.util.FileSystemUtils;
@@ -29,10 +34,12 @@ import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.jayway.awaitility.Awaitility.await;
 import static io.vavr.API.*;
 import static java.util.concurrent.CompletableFuture.runAsync;
@@ -50,6 +57,9 @@ import static org.mockito.Mockito.*;
 @RunWith(MockitoJUnitRunner.class)
 public class M3U8DownloaderTest {
 
+    private static final Integer PORT = 8089;
+    private static final String SEGMENTS_URL = "http://localhost:" + PORT + "/hls/";
+
     private @Mock PodcastRepository podcastRepository;
     private @Mock ItemRepository itemRepository;
     private @Mock PodcastServerParameters podcastServerParameters;
@@ -57,13 +67,15 @@ public class M3U8DownloaderTest {
     private @Mock MimeTypeService mimeTypeService;
     private @Mock ItemDownloadManager itemDownloadManager;
 
-    private @Mock UrlService urlService;
+    private @Spy UrlService urlService = new UrlService();
     private @Mock M3U8Service m3U8Service;
     private @Mock FfmpegService ffmpegService;
     private @Mock ProcessService processService;
 
     private @InjectMocks M3U8Downloader m3U8Downloader;
 
+    @Rule public WireMockRule wireMockRule = new WireMockRule(PORT);
+
     Podcast podcast;
     Item item;
 
@@ -83,12 +95,11 @@ public class M3U8DownloaderTest {
         m3U8Downloader.setItem(item);
         when(podcastServerParameters.getRootfolder()).thenReturn(IOUtils.ROOT_TEST_PATH);
         when(podcastServerParameters.getDownloadExtension()).thenReturn(".psdownload");
-        when(podcastRepository.findOne(eq(podcast.getId()))).thenReturn(podcast);
-        when(itemRepository.save(any(Item.class))).then(i -> i.getArguments()[0]);
 
         FileSystemUtils.deleteRecursively(ROOT_TEST_PATH.resolve(podcast.getTitle()).toFile());
         Try(() -> Files.createDirectories(ROOT_TEST_PATH));
         m3U8Downloader.postConstruct();
+        when(m3U8Service.findMediaPlaylist(anyString(), anyString())).thenReturn(None());
     }
 
     @Test
@@ -115,6 +126,141 @@ public class M3U8DownloaderTest {
         assertThat(item).hasProgression(9);
     }
 
+    @Test
+    public void should_download_segments_of_a_fragmented_mp4_stream() {
+        /* Given */
+        when(podcastServerParameters.getConcurrentSegmentByDownload()).thenReturn(2);
+        when(m3U8Service.findMediaPlaylist(anyString(), anyString())).thenReturn(Option(new MediaPlaylist(
+                Option(SEGMENTS_URL + "init.mp4"),
+                List(SEGMENTS_URL + "seg1.m4s", SEGMENTS_URL + "seg2.m4s", SEGMENTS_URL + "seg3.m4s"),
+                30d
+        )));
+        stubSegment("init.mp4", "init-");
+        stubSegment("seg1.m4s", "first-");
+        stubSegment("seg2.m4s", "second-");
+        stubSegment("seg3.m4s", "third");
+
+        /* When */
+        Item downloaded = m3U8Downloader.download();
+
+        /* Then */
+        assertThat(downloaded.getStatus()).isSameAs(Status.FINISH);
+        assertThat(item).hasProgression(100);
+        assertThat(Try(() -> new String(Files.readAllBytes(ROOT_TEST_PATH.resolve(podcast.getTitle()).resolve(item.getFileName())))).get())
+                .isEqualTo("init-first-second-third");
+        verify(ffmpegService, never()).getDurationOf(anyString(), anyString());
+        verify(ffmpegService, never()).download(anyString(), any(), any());
+        verify(ffmpegService, never()).remux(any(), any());
+    }
+
+    @Test
+    public void should_remux_segments_of_a_mpeg_ts_stream() {
+        /* Given */
+        when(podcastServerParameters.getConcurrentSegmentByDownload()).thenReturn(4);
+        when(m3U8Service.findMediaPlaylist(anyString(), anyString())).thenReturn(Option(new MediaPlaylist(
+                None(),
+                List(SEGMENTS_URL + "seg1.ts", SEGMENTS_URL + "seg2.ts"),
+                20d
+        )));
+        stubSegment("seg1.ts", "first-");
+        stubSegment("seg2.ts", "second");
+        when(ffmpegService.remux(any(), any())).then(i -> {
+            Path source = i.getArgumentAt(0, Path.class);
+            assertThat(new String(Files.readAllBytes(source))).isEqualTo("first-second");
+            return Files.copy(source, i.getArgumentAt(1, Path.class), StandardCopyOption.REPLACE_EXISTING);
+        });
+
+        /* When */
+        Item downloaded = m3U8Downloader.download();
+
+        /* Then */
+        assertThat(downloaded.getStatus()).isSameAs(Status.FINISH);
+        assertThat(ROOT_TEST_PATH.resolve(podcast.getTitle()).resolve(item.getFileName())).exists();
+        assertThat(ROOT_TEST_PATH.resolve(podcast.getTitle()).resolve(item.getFileName() + ".ts")).doesNotExist();
+        verify(ffmpegService, times(1)).remux(any(), any());
+    }
+
+    @Test
+    public void should_stop_if_segments_can_not_be_remuxed() {
+        /* Given */
+        when(podcastServerParameters.getConcurrentSegmentByDownload()).thenReturn(2);
+        when(m3U8Service.findMediaPlaylist(anyString(), anyString())).thenReturn(Option(new MediaPlaylist(
+                None(),
+                List(SEGMENTS_URL + "seg1.ts", SEGMENTS_URL + "seg2.ts"),
+                20d
+        )));
+        stubSegment("seg1.ts", "first-");
+        stubSegment("seg2.ts", "second");
+        doThrow(RuntimeException.class).when(ffmpegService).remux(any(), any());
+
+        /* When */
+        m3U8Downloader.download();
+
+        /* Then */
+        assertThat(item.getStatus()).isSameAs(Status.STOPPED);
+        assertThat(item.getFileName()).isNull();
+        verify(itemDownloadManager, atLeast(1)).removeACurrentDownload(eq(item));
+    }
+
+    @Test
+    public void should_stop_if_a_segment_can_not_be_downloaded() {
+        /* Given */
+        when(podcastServerParameters.getConcurrentSegmentByDownload()).thenReturn(2);
+        when(m3U8Service.findMediaPlaylist(anyString(), anyString())).thenReturn(Option(new MediaPlaylist(
+                Option(SEGMENTS_URL + "init.mp4"),
+                List(SEGMENTS_URL + "seg1.m4s"),
+                10d
+        )));
+        stubSegment("init.mp4", "init-");
+        stubFor(get(urlEqualTo("/hls/seg1.m4s")).willReturn(aResponse().withStatus(500)));
+
+        /* When */
+        m3U8Downloader.download();
+
+        /* Then */
+        assertThat(item.getStatus()).isSameAs(Status.STOPPED);
+        verify(itemDownloadManager, atLeast(1)).removeACurrentDownload(eq(item));
+        WireMock.verify(3, getRequestedFor(urlEqualTo("/hls/seg1.m4s")));
+    }
+
+    @Test
+    public void should_stop_if_the_playlist_has_no_segment() {
+        /* Given */
+        when(podcastServerParameters.getConcurrentSegmentByDownload()).thenReturn(2);
+        when(m3U8Service.findMediaPlaylist(anyString(), anyString())).thenReturn(Option(new MediaPlaylist(None(), List(), 0d)));
+
+        /* When */
+        m3U8Downloader.download();
+
+        /* Then */
+        assertThat(item.getStatus()).isSameAs(Status.STOPPED);
+        verify(itemDownloadManager, atLeast(1)).removeACurrentDownload(eq(item));
+        verify(ffmpegService, never()).remux(any(), any());
+    }
+
+    @Test
+    public void should_fetch_segments_with_the_user_agent_of_the_downloader() throws IOException {
+        /* Given */
+        when(podcastServerParameters.getConcurrentSegmentByDownload()).thenReturn(2);
+        when(m3U8Service.findMediaPlaylist(anyString(), anyString())).thenReturn(Option(new MediaPlaylist(
+                None(),
+                List(SEGMENTS_URL + "seg1.m4s"),
+                10d
+        )));
+        stubSegment("seg1.m4s", "first");
+
+        /* When */
+        m3U8Downloader.download();
+
+        /* Then */
+        verify(urlService, times(1)).open(eq(SEGMENTS_URL + "seg1.m4s"), eq(UrlService.USER_AGENT_DESKTOP));
+        WireMock.verify(1, getRequestedFor(urlEqualTo("/hls/seg1.m4s")).withHeader("User-Agent", equalTo(UrlService.USER_AGENT_DESKTOP)));
+    }
+
+    private void stubSegment(String name, String content) {
+        stubFor(get(urlEqualTo("/hls/" + name)).willReturn(aResponse().withStatus(200).withBody(content)));
+    }
+
     @Test
     public void should_be_compatible() {
         assertThat(m3U8Downloader.compatibility(item.getUrl())).isLessThan(Integer.MAX_VALUE/2);
@@ -255,4 +401,28 @@ public class M3U8DownloaderTest {
         /* Then */
         assertThat(targetFile).isSameAs(m3U8Downloader.target);
     }
+
+    @Test
+    public void should_read_the_stream_at_its_own_rate_under_a_limit_of_bandwidth() {
+        /* Given */
+        when(itemDownloadManager.isBandwidthLimited()).thenReturn(true);
+
+        /* When */
+        FFmpegBuilder command = m3U8Downloader.withBandwidthLimit(new FFmpegBuilder().addInput("http://foo.bar/com.m3u8").addOutput("/tmp/file.mp4").done());
+
+        /* Then */
+        assertThat(command.build()).startsWith("-y", "-v", "error", "-re");
+    }
+
+    @Test
+    public void should_read_the_stream_as_fast_as_possible_without_limit() {
+        /* Given */
+        when(itemDownloadManager.isBandwidthLimited()).thenReturn(false);
+
+        /* When */
+        FFmpegBuilder command = m3U8Downloader.withBandwidthLimit(new FFmpegBuilder().addInput("http://foo.bar/com.m3u8").addOutput("/tmp/file.mp4").done());
+
+        /* Then */
+        assertThat(command.build()).doesNotContain("-re");
+    }
 }
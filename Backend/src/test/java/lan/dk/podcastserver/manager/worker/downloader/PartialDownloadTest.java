@@ -0,0 +1,130 @@
+package lan.dk.podcastserver.manager.worker.downloader;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+public class PartialDownloadTest {
+
+    private static final UUID ITEM_ID = UUID.randomUUID();
+    private Path root;
+    private Path partial;
+
+    @Before
+    public void beforeEach() throws IOException {
+        root = Files.createTempDirectory("podcast-server");
+        partial = Files.createDirectories(root.resolve("Partial")).resolve("file.mp4.psdownload");
+        Files.write(partial, new byte[10]);
+    }
+
+    @After
+    public void afterEach() {
+        FileSystemUtils.deleteRecursively(root.toFile());
+    }
+
+    @Test
+    public void should_save_and_read_sidecar() {
+        /* Given */
+        PartialDownload partialDownload = PartialDownload.builder()
+                .partial(partial)
+                .itemId(ITEM_ID)
+                .url("http://a.fake.url/file.mp4")
+                .eTag("\"123\"")
+                .lastModified("Sat, 17 Oct 2026 10:00:00 GMT")
+                .length(100L)
+                .count(10L)
+                .build();
+
+        /* When */
+        partialDownload.save();
+        Option<PartialDownload> read = PartialDownload.of(partial);
+
+        /* Then */
+        assertThat(Files.exists(PartialDownload.sidecarOf(partial))).isTrue();
+        assertThat(read.isDefined()).isTrue();
+        assertThat(read.get().getItemId()).isEqualTo(ITEM_ID);
+        assertThat(read.get().getUrl()).isEqualTo("http://a.fake.url/file.mp4");
+        assertThat(read.get().getETag()).isEqualTo("\"123\"");
+        assertThat(read.get().getLastModified()).isEqualTo("Sat, 17 Oct 2026 10:00:00 GMT");
+        assertThat(read.get().getLength()).isEqualTo(100L);
+        assertThat(read.get().getCount()).isEqualTo(10L);
+        assertThat(read.get().getPartial()).isEqualTo(partial);
+    }
+
+    @Test
+    public void should_not_read_sidecar_if_partial_file_is_missing() throws IOException {
+        /* Given */
+        PartialDownload.builder().partial(partial).itemId(ITEM_ID).length(100L).build().save();
+        Files.delete(partial);
+
+        /* When */
+        Option<PartialDownload> read = PartialDownload.of(partial);
+
+        /* Then */
+        assertThat(read.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void should_delete_sidecar() {
+        /* Given */
+        PartialDownload.builder().partial(partial).itemId(ITEM_ID).length(100L).build().save();
+
+        /* When */
+        PartialDownload.delete(partial);
+
+        /* Then */
+        assertThat(Files.exists(PartialDownload.sidecarOf(partial))).isFalse();
+        assertThat(Files.exists(partial)).isTrue();
+    }
+
+    @Test
+    public void should_find_all_partial_downloads() {
+        /* Given */
+        PartialDownload.builder().partial(partial).itemId(ITEM_ID).length(100L).build().save();
+
+        /* When */
+        List<PartialDownload> partials = PartialDownload.findAll(root);
+
+        /* Then */
+        assertThat(partials.map(PartialDownload::getItemId)).containsExactly(ITEM_ID);
+    }
+
+    @Test
+    public void should_compare_with_etag_first() {
+        PartialDownload local = PartialDownload.builder().itemId(ITEM_ID).eTag("a").lastModified("date").length(100L).build();
+
+        assertThat(local.isSameResourceAs(local.toBuilder().build())).isTrue();
+        assertThat(local.isSameResourceAs(local.toBuilder().eTag("b").build())).isFalse();
+        assertThat(local.isSameResourceAs(local.toBuilder().length(200L).build())).isFalse();
+        assertThat(local.isSameResourceAs(local.toBuilder().itemId(UUID.randomUUID()).build())).isFalse();
+    }
+
+    @Test
+    public void should_compare_with_last_modified_if_no_etag() {
+        PartialDownload local = PartialDownload.builder().itemId(ITEM_ID).lastModified("date").length(100L).build();
+
+        assertThat(local.isSameResourceAs(local.toBuilder().build())).isTrue();
+        assertThat(local.isSameResourceAs(local.toBuilder().lastModified("other date").build())).isFalse();
+    }
+
+    @Test
+    public void should_compare_with_length_if_no_validator() {
+        PartialDownload local = PartialDownload.builder().itemId(ITEM_ID).length(100L).build();
+
+        assertThat(local.isSameResourceAs(local.toBuilder().build())).isTrue();
+        assertThat(local.isSameResourceAs(local.toBuilder().length(null).build())).isFalse();
+    }
+}
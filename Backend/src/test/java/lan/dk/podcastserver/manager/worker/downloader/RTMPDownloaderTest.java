@@ -72,7 +72,6 @@ public class RTMPDownloaderTest {
         when(podcastServerParameters.getDownloadExtension()).thenReturn(TEMPORARY_EXTENSION);
         when(externalTools.getRtmpdump()).thenReturn("/usr/local/bin/rtmpdump");
         when(podcastServerParameters.getRootfolder()).thenReturn(ROOT_TEST_PATH);
-        when(podcastRepository.findOne(eq(podcast.getId()))).thenReturn(podcast);
 
         rtmpDownloader.setItem(item);
         rtmpDownloader.setItemDownloadManager(itemDownloadManager);
@@ -0,0 +1,272 @@
+package lan.dk.podcastserver.manager.worker.downloader;
+
+import com.github.axet.wget.WGet;
+import com.github.axet.wget.info.DownloadInfo;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import io.vavr.collection.HashSet;
+import lan.dk.podcastserver.entity.Item;
+import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.entity.Status;
+import lan.dk.podcastserver.manager.ItemDownloadManager;
+import lan.dk.podcastserver.repository.ItemRepository;
+import lan.dk.podcastserver.repository.PodcastRepository;
+import lan.dk.podcastserver.service.UrlService;
+import lan.dk.podcastserver.service.factory.WGetFactory;
+import lan.dk.podcastserver.service.properties.PodcastServerParameters;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static lan.dk.podcastserver.manager.worker.downloader.AbstractDownloader.WS_TOPIC_DOWNLOAD;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SegmentedDownloaderTest {
+
+    private static final Integer PORT = 8089;
+    private static final String FILE_URL = "http://localhost:" + PORT + "/with/file.mp4";
+    private static final String TEMPORARY_EXTENSION = ".psdownload";
+    private static final byte[] CONTENT = "0123456789abcdefghijABCDEFGHIJ!#$%&()*+-".getBytes();
+
+    @Rule public WireMockRule wireMockRule = new WireMockRule(PORT);
+
+    private @Mock ItemRepository itemRepository;
+    private @Mock PodcastRepository podcastRepository;
+    private @Mock PodcastServerParameters podcastServerParameters;
+    private @Mock SimpMessagingTemplate template;
+    private @Mock WGetFactory wGetFactory;
+    private @Spy UrlService urlService = new UrlService();
+    private @Mock ItemDownloadManager itemDownloadManager;
+    private @InjectMocks SegmentedDownloader segmentedDownloader;
+
+    private Path root;
+    private Podcast podcast;
+    private Item item;
+
+    @Before
+    public void beforeEach() throws IOException {
+        root = Files.createTempDirectory("podcast-server");
+        item = new Item()
+                .setTitle("Title")
+                .setUrl(FILE_URL)
+                .setStatus(Status.NOT_DOWNLOADED);
+        podcast = Podcast.builder()
+                .id(UUID.randomUUID())
+                .title("A Fake Http Podcast")
+                .items(HashSet.<Item>empty().toJavaSet())
+                .build()
+                .add(item);
+
+        segmentedDownloader.setItemDownloadManager(itemDownloadManager);
+        segmentedDownloader.minimumSegmentSize = 15;
+        when(podcastServerParameters.getDownloadExtension()).thenReturn(TEMPORARY_EXTENSION);
+        segmentedDownloader.postConstruct();
+        when(podcastServerParameters.getRootfolder()).thenReturn(root);
+        when(podcastServerParameters.getConcurrentSegmentByDownload()).thenReturn(2);
+        doAnswer(i -> i.getArguments()[0]).when(urlService).getRealURL(anyString());
+    }
+
+    @After
+    public void afterEach() {
+        FileSystemUtils.deleteRecursively(root.toFile());
+    }
+
+    @Test
+    public void should_download_by_segments() throws IOException {
+        /* Given */
+        segmentedDownloader.setItem(item);
+        stubRangeFrom(0);
+        stubRange(20, 39);
+
+        /* When */
+        segmentedDownloader.run();
+
+        /* Then */
+        assertThat(item.getStatus()).isEqualTo(Status.FINISH);
+        assertThat(item.getProgression()).isEqualTo(100);
+        assertThat(segmentedDownloader.target).isEqualTo(root.resolve("A Fake Http Podcast").resolve("file.mp4"));
+        assertThat(Files.readAllBytes(segmentedDownloader.target)).isEqualTo(CONTENT);
+        assertThat(Files.exists(PartialDownload.sidecarOf(root.resolve("A Fake Http Podcast").resolve("file.mp4" + TEMPORARY_EXTENSION)))).isFalse();
+        verify(2, getRequestedFor(urlEqualTo("/with/file.mp4")));
+        verify(itemDownloadManager, atLeast(1)).removeACurrentDownload(eq(item));
+        verify(template, atLeast(1)).convertAndSend(eq(WS_TOPIC_DOWNLOAD), same(item));
+        verify(wGetFactory, never()).newDownloadInfo(anyString());
+    }
+
+    @Test
+    public void should_stop_download_and_keep_written_segments_if_a_segment_can_not_be_downloaded() throws IOException {
+        /* Given */
+        segmentedDownloader.setItem(item);
+        stubRangeFrom(0);
+        stubFor(get(urlEqualTo("/with/file.mp4"))
+                .withHeader("Range", equalTo("bytes=20-39"))
+                .willReturn(aResponse().withStatus(500)));
+
+        /* When */
+        segmentedDownloader.run();
+
+        /* Then */
+        assertThat(item.getStatus()).isEqualTo(Status.STOPPED);
+        assertThat(Arrays.copyOfRange(Files.readAllBytes(segmentedDownloader.target), 0, 20)).isEqualTo(Arrays.copyOfRange(CONTENT, 0, 20));
+        assertThat(PartialDownload.of(segmentedDownloader.target).map(PartialDownload::getSegments)).containsExactly("20-40");
+        verify(itemDownloadManager, atLeast(1)).removeACurrentDownload(eq(item));
+    }
+
+    @Test
+    public void should_stop_download_if_a_segment_stalls() {
+        /* Given */
+        segmentedDownloader.setItem(item);
+        segmentedDownloader.readTimeout = 100;
+        stubRangeFrom(0);
+        stubFor(get(urlEqualTo("/with/file.mp4"))
+                .withHeader("Range", equalTo("bytes=20-39"))
+                .willReturn(aResponse().withStatus(206).withFixedDelay(1000)));
+
+        /* When */
+        segmentedDownloader.run();
+
+        /* Then */
+        assertThat(item.getStatus()).isEqualTo(Status.STOPPED);
+        verify(itemDownloadManager, atLeast(1)).removeACurrentDownload(eq(item));
+    }
+
+    @Test
+    public void should_fallback_to_single_connection_if_range_is_not_supported() throws MalformedURLException {
+        /* Given */
+        segmentedDownloader.setItem(item);
+        DownloadInfo downloadInfo = mock(DownloadInfo.class);
+        WGet wGet = mock(WGet.class);
+        stubFor(get(urlEqualTo("/with/file.mp4"))
+                .willReturn(aResponse().withStatus(200).withBody(CONTENT)));
+        when(wGetFactory.newDownloadInfo(anyString())).thenReturn(downloadInfo);
+        when(wGetFactory.newWGet(any(DownloadInfo.class), any(File.class))).thenReturn(wGet);
+
+        /* When */
+        segmentedDownloader.run();
+
+        /* Then */
+        verify(wGetFactory, times(1)).newDownloadInfo(eq(FILE_URL));
+        verify(wGet, times(1)).download(any(AtomicBoolean.class), any(HTTPDownloader.HTTPWatcher.class));
+    }
+
+    @Test
+    public void should_fallback_to_single_connection_if_file_is_too_small() throws MalformedURLException {
+        /* Given */
+        segmentedDownloader.setItem(item);
+        segmentedDownloader.minimumSegmentSize = 1024;
+        stubRangeFrom(0);
+        when(wGetFactory.newDownloadInfo(anyString())).thenReturn(mock(DownloadInfo.class));
+        when(wGetFactory.newWGet(any(DownloadInfo.class), any(File.class))).thenReturn(mock(WGet.class));
+
+        /* When */
+        segmentedDownloader.run();
+
+        /* Then */
+        verify(wGetFactory, times(1)).newDownloadInfo(eq(FILE_URL));
+    }
+
+    @Test
+    public void should_resume_only_the_remaining_segments() throws IOException {
+        /* Given */
+        Path partial = prepareResume(40L, "20-40");
+        stubRangeFrom(20);
+
+        /* When */
+        segmentedDownloader.run();
+
+        /* Then */
+        assertThat(item.getStatus()).isEqualTo(Status.FINISH);
+        assertThat(item.getProgression()).isEqualTo(100);
+        assertThat(Files.readAllBytes(segmentedDownloader.target)).isEqualTo(CONTENT);
+        assertThat(Files.exists(PartialDownload.sidecarOf(partial))).isFalse();
+        verify(1, getRequestedFor(urlEqualTo("/with/file.mp4")).withHeader("Range", equalTo("bytes=20-")));
+        verify(0, getRequestedFor(urlEqualTo("/with/file.mp4")).withHeader("Range", equalTo("bytes=0-")));
+    }
+
+    @Test
+    public void should_restart_from_zero_if_remote_file_has_changed() throws IOException {
+        /* Given */
+        prepareResume(50L, "20-50");
+        stubRangeFrom(20);
+        stubRangeFrom(0);
+        stubRange(20, 39);
+
+        /* When */
+        segmentedDownloader.run();
+
+        /* Then */
+        assertThat(item.getStatus()).isEqualTo(Status.FINISH);
+        assertThat(Files.readAllBytes(segmentedDownloader.target)).isEqualTo(CONTENT);
+        verify(1, getRequestedFor(urlEqualTo("/with/file.mp4")).withHeader("Range", equalTo("bytes=0-")));
+    }
+
+    @Test
+    public void should_be_compatible_with_http_url_only_if_segmentation_is_enabled() {
+        assertThat(segmentedDownloader.compatibility("http://a.fake.url/with/file.mp4")).isEqualTo(Integer.MAX_VALUE-2);
+        assertThat(segmentedDownloader.compatibility("rtmp://a.fake.url/with/file.mp4")).isEqualTo(Integer.MAX_VALUE);
+
+        when(podcastServerParameters.getConcurrentSegmentByDownload()).thenReturn(1);
+        assertThat(segmentedDownloader.compatibility("http://a.fake.url/with/file.mp4")).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    private Path prepareResume(Long length, String segments) throws IOException {
+        item.setId(UUID.randomUUID());
+        segmentedDownloader.setItem(item);
+        Path partial = Files.createDirectories(root.resolve("A Fake Http Podcast")).resolve("file.mp4" + TEMPORARY_EXTENSION);
+        byte[] written = Arrays.copyOf(Arrays.copyOfRange(CONTENT, 0, 20), length.intValue());
+        Files.write(partial, written);
+        PartialDownload.builder()
+                .partial(partial)
+                .itemId(item.getId())
+                .url(FILE_URL)
+                .length(length)
+                .segments(segments)
+                .build()
+                .save();
+        return partial;
+    }
+
+    private void stubRangeFrom(int from) {
+        stubFor(get(urlEqualTo("/with/file.mp4"))
+                .withHeader("Range", equalTo("bytes=" + from + "-"))
+                .willReturn(aResponse()
+                        .withStatus(206)
+                        .withHeader("Content-Range", "bytes " + from + "-" + (CONTENT.length - 1) + "/" + CONTENT.length)
+                        .withBody(Arrays.copyOfRange(CONTENT, from, CONTENT.length))));
+    }
+
+    private void stubRange(int from, int to) {
+        stubFor(get(urlEqualTo("/with/file.mp4"))
+                .withHeader("Range", equalTo("bytes=" + from + "-" + to))
+                .willReturn(aResponse()
+                        .withStatus(206)
+                        .withHeader("Content-Range", "bytes " + from + "-" + to + "/" + CONTENT.length)
+                        .withBody(Arrays.copyOfRange(CONTENT, from, to + 1))));
+    }
+}
@@ -0,0 +1,111 @@
+package lan.dk.podcastserver.manager.worker.downloader;
+
+import io.vavr.control.Option;
+import lan.dk.podcastserver.manager.worker.downloader.Segments.Segment;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+public class SegmentsTest {
+
+    @Test
+    public void should_split_length_in_segments() {
+        /* Given */
+        Segments segments = new Segments(100, 3, 10);
+
+        /* When */
+        Segment first = segments.next().get();
+        Segment second = segments.next().get();
+        Segment third = segments.next().get();
+
+        /* Then */
+        assertThat(segments.count()).isEqualTo(3);
+        assertThat(first.toString()).isEqualTo("[0-33[");
+        assertThat(second.toString()).isEqualTo("[33-66[");
+        assertThat(third.toString()).isEqualTo("[66-100[");
+    }
+
+    @Test
+    public void should_not_create_segments_smaller_than_minimum() {
+        /* When */
+        Segments segments = new Segments(25, 4, 10);
+
+        /* Then */
+        assertThat(segments.count()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_take_over_the_end_of_the_biggest_segment() {
+        /* Given */
+        Segments segments = new Segments(100, 2, 10);
+        Segment first = segments.next().get();
+        Segment second = segments.next().get();
+        first.reserve(50);
+        second.reserve(10);
+
+        /* When */
+        Segment stolen = segments.next().get();
+
+        /* Then */
+        assertThat(second.toString()).isEqualTo("[60-80[");
+        assertThat(stolen.toString()).isEqualTo("[80-100[");
+    }
+
+    @Test
+    public void should_not_split_a_segment_too_small() {
+        /* Given */
+        Segments segments = new Segments(100, 2, 10);
+        segments.next().get().reserve(50);
+        segments.next().get().reserve(35);
+
+        /* When */
+        Option<Segment> next = segments.next();
+
+        /* Then */
+        assertThat(next.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void should_limit_reservation_to_the_end_of_the_segment() {
+        /* Given */
+        Segment segment = new Segment(0, 10);
+
+        /* When */
+        int reserved = segment.reserve(64);
+
+        /* Then */
+        assertThat(reserved).isEqualTo(10);
+        assertThat(segment.isDone()).isTrue();
+    }
+
+    @Test
+    public void should_keep_ranges_not_written() {
+        /* Given */
+        Segments segments = new Segments(100, 2, 10);
+        Segment first = segments.next().get();
+        first.written(first.reserve(20));
+        first.reserve(10);
+
+        /* When */
+        String remaining = segments.remaining();
+
+        /* Then */
+        assertThat(remaining).isEqualTo("20-50,50-100");
+        assertThat(segments.remainingBytes()).isEqualTo(80);
+    }
+
+    @Test
+    public void should_resume_from_ranges_not_written() {
+        /* When */
+        Segments segments = Segments.of("20-50,50-100", 4, 10);
+
+        /* Then */
+        assertThat(segments.count()).isEqualTo(4);
+        assertThat(segments.position()).isEqualTo(20);
+        assertThat(segments.next().get().toString()).isEqualTo("[20-50[");
+        assertThat(segments.next().get().toString()).isEqualTo("[50-100[");
+    }
+}
@@ -1,17 +1,22 @@
 package lan.dk.podcastserver.manager.worker.downloader;
 
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
 import com.mashape.unirest.http.HttpResponse;
 import com.mashape.unirest.http.exceptions.UnirestException;
 import com.mashape.unirest.request.GetRequest;
+import io.vavr.collection.List;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
 import lan.dk.podcastserver.entity.Status;
 import lan.dk.podcastserver.manager.ItemDownloadManager;
 import lan.dk.podcastserver.service.*;
+import lan.dk.podcastserver.service.M3U8Service.MediaPlaylist;
 import lan.dk.podcastserver.service.properties.PodcastServerParameters;
 import lan.dk.utils.IOUtils;
 import org.apache.commons.io.input.NullInputStream;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -22,9 +27,15 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static io.vavr.API.List;
+import static io.vavr.API.None;
 import static io.vavr.API.Option;
 import static io.vavr.API.Try;
 import static io.vavr.API.println;
@@ -38,6 +49,10 @@ import static org.mockito.Mockito.*;
 @RunWith(MockitoJUnitRunner.class)
 public class SixPlayDownloaderTest {
 
+    private static final Integer PORT = 8089;
+
+    @Rule public WireMockRule wireMockRule = new WireMockRule(PORT);
+
     private @Mock M3U8Service m3U8Service;
     private @Mock UrlService urlService;
     private @Mock SimpMessagingTemplate template;
@@ -59,6 +74,7 @@ public class SixPlayDownloaderTest {
                 .build()
         );
         downloader.setItemDownloadManager(itemDownloadManager);
+        when(m3U8Service.findMediaPlaylist(anyString(), anyString())).thenReturn(None());
     }
 
     @Test
@@ -157,10 +173,40 @@ public class SixPlayDownloaderTest {
         verify(jsonService, times(1)).parse(anyString());
         verify(htmlService, times(1)).get(anyString());
         verify(ffmpegService, times(21)).download(anyString(), any(), any());
-        verify(ffmpegService, times(42)).getDurationOf(anyString(), any());
+        verify(ffmpegService, times(21)).getDurationOf(anyString(), any());
         verify(ffmpegService, times(1)).concat(any(), anyVararg());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_join_segments_of_each_part_in_one_pass() throws IOException, URISyntaxException {
+        /* GIVEN */
+        when(htmlService.get(downloader.getItem().getUrl())).thenReturn(IOUtils.fileAsHtml("/remote/podcast/6play/best-of-ca-va-etre-leur-fete--p_2352.html"));
+        when(jsonService.parse(anyString())).then(i -> IOUtils.stringAsJson(i.getArgumentAt(0, String.class)));
+        when(podcastServerParameters.getRootfolder()).thenReturn(IOUtils.ROOT_TEST_PATH);
+        when(podcastServerParameters.getConcurrentSegmentByDownload()).thenReturn(4);
+        when(m3U8Service.findMediaPlaylist(anyString(), anyString()))
+                .thenReturn(Option(new MediaPlaylist(None(), List("http://localhost:" + PORT + "/hls/part.ts"), 10d)));
+        stubFor(get(urlEqualTo("/hls/part.ts")).willReturn(aResponse().withStatus(200).withBody("x")));
+        when(ffmpegService.concatStreams(any(), any(), any())).then(i -> {
+            List<Path> parts = i.getArgumentAt(1, List.class);
+            assertThat(parts.map(p -> Try(() -> new String(Files.readAllBytes(p))).get())).hasSize(21).containsOnly("x");
+            return Files.write(i.getArgumentAt(0, Path.class), StringUtils.repeat("x", parts.size()).getBytes());
+        });
+
+        /* WHEN  */
+        Item itemDownloader = downloader.download();
+
+        /* THEN  */
+        assertThat(itemDownloader.getStatus()).isEqualTo(Status.FINISH);
+        assertThat(itemDownloader.getProgression()).isEqualTo(100);
+        verify(m3U8Service, times(21)).findMediaPlaylist(anyString(), anyString());
+        verify(ffmpegService, times(1)).concatStreams(any(), any(), any());
+        verify(ffmpegService, never()).remux(any(), any());
+        verify(ffmpegService, never()).concat(any(), anyVararg());
+        verify(ffmpegService, never()).getDurationOf(anyString(), any());
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void should_transform_url_if_usp_hls_h264() throws IOException, URISyntaxException, UnirestException {
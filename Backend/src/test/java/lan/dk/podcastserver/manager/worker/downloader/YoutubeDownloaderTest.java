@@ -113,8 +113,6 @@ public class YoutubeDownloaderTest {
         youtubeDownloader.setItem(item);
 
         when(vGet.getContentExt(any())).thenCallRealMethod();
-        when(podcastRepository.findOne(eq(podcast.getId()))).thenReturn(podcast);
-        when(itemRepository.save(any(Item.class))).then(i -> i.getArguments()[0]);
         when(wGetFactory.parser(eq(item.getUrl()))).thenReturn(vGetParser);
         when(vGetParser.info(eq(new URL(item.getUrl())))).thenReturn(videoInfo);
         when(wGetFactory.newVGet(eq(videoInfo))).thenReturn(vGet);
@@ -143,8 +141,6 @@ public class YoutubeDownloaderTest {
         /* Given */
         youtubeDownloader.setItem(item.setStatus(Status.STARTED));
 
-        when(podcastRepository.findOne(eq(podcast.getId()))).thenReturn(podcast);
-        when(itemRepository.save(any(Item.class))).then(i -> i.getArguments()[0]);
         when(wGetFactory.parser(eq(item.getUrl()))).thenReturn(vGetParser);
         when(vGetParser.info(eq(new URL(item.getUrl())))).thenReturn(videoInfo);
         when(wGetFactory.newVGet(eq(videoInfo))).thenReturn(vGet);
@@ -205,8 +201,6 @@ public class YoutubeDownloaderTest {
 
         DownloadInfo info = mock(DownloadInfo.class);
 
-        when(podcastRepository.findOne(eq(podcast.getId()))).thenReturn(podcast);
-        when(itemRepository.save(any(Item.class))).then(i -> i.getArguments()[0]);
         when(wGetFactory.parser(eq(item.getUrl()))).thenReturn(vGetParser);
         when(vGetParser.info(eq(new URL(item.getUrl())))).thenReturn(videoInfo);
         when(wGetFactory.newVGet(eq(videoInfo))).thenReturn(vGet);
@@ -228,8 +222,7 @@ public class YoutubeDownloaderTest {
         /* Given */
         youtubeDownloader.setItem(item.setStatus(Status.STARTED));
 
-        when(podcastRepository.findOne(eq(podcast.getId()))).thenReturn(podcast.setTitle("bin"));
-        when(itemRepository.save(any(Item.class))).then(i -> i.getArguments()[0]);
+        podcast.setTitle("bin");
         when(podcastServerParameters.getRootfolder()).thenReturn(Paths.get("/"));
         when(wGetFactory.parser(eq(item.getUrl()))).thenReturn(vGetParser);
         when(vGetParser.info(eq(new URL(item.getUrl())))).thenReturn(videoInfo);
@@ -248,8 +241,6 @@ public class YoutubeDownloaderTest {
         /* Given */
         youtubeDownloader.setItem(item.setStatus(Status.STARTED));
 
-        when(podcastRepository.findOne(eq(podcast.getId()))).thenReturn(podcast);
-        when(itemRepository.save(any(Item.class))).then(i -> i.getArguments()[0]);
         when(wGetFactory.parser(eq(item.getUrl()))).thenReturn(vGetParser);
         when(vGetParser.info(eq(new URL(item.getUrl())))).thenReturn(videoInfo);
         when(wGetFactory.newVGet(eq(videoInfo))).thenReturn(vGet);
@@ -308,8 +299,6 @@ public class YoutubeDownloaderTest {
         /* Given */
         youtubeDownloader.setItem(item.setStatus(Status.STARTED));
 
-        when(podcastRepository.findOne(eq(podcast.getId()))).thenReturn(podcast);
-        when(itemRepository.save(any(Item.class))).then(i -> i.getArguments()[0]);
         when(itemDownloadManager.canBeReset(eq(item))).thenReturn(false);
         when(wGetFactory.parser(eq(item.getUrl()))).thenReturn(vGetParser);
         when(vGetParser.info(eq(new URL(item.getUrl())))).thenReturn(videoInfo);
@@ -1,14 +1,20 @@
 package lan.dk.podcastserver.manager.worker.updater;
 
+import io.vavr.collection.Iterator;
+import io.vavr.collection.List;
 import io.vavr.collection.Set;
 import lan.dk.podcastserver.entity.Cover;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.manager.ItemUrlIndex;
 import lan.dk.podcastserver.service.ImageService;
 import lan.dk.podcastserver.service.JdomService;
 import lan.dk.podcastserver.service.SignatureService;
+import lan.dk.podcastserver.service.properties.PodcastServerParameters;
 import lan.dk.utils.IOUtils;
+import org.jdom2.Element;
 import org.jdom2.JDOMException;
+import org.jdom2.Namespace;
 import org.jdom2.input.SAXBuilder;
 import org.junit.Before;
 import org.junit.Test;
@@ -22,8 +28,8 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.UUID;
 
-import static io.vavr.API.None;
 import static io.vavr.API.Option;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.AdditionalMatchers.not;
@@ -39,7 +45,9 @@ public class RSSUpdaterTest {
     private static final String MOCK_URL = "http://mockUrl.com/";
     private Podcast rssAppload;
 
+    private @Mock PodcastServerParameters podcastServerParameters;
     private @Mock SignatureService signatureService;
+    private @Mock ItemUrlIndex itemUrlIndex;
     private @Mock JdomService jdomService;
     private @Mock ImageService imageService;
     private @InjectMocks RSSUpdater rssUpdater;
@@ -48,8 +56,8 @@ public class RSSUpdaterTest {
     public void beforeEach() throws JDOMException, IOException, URISyntaxException {
         rssAppload = Podcast.builder().url(MOCK_URL).build();
 
-        when(jdomService.parse(eq(MOCK_URL))).thenReturn(IOUtils.fileAsXml(PODCAST_APPLOAD_URL));
-        when(jdomService.parse(not(eq(MOCK_URL)))).thenReturn(None());
+        when(jdomService.entriesOf(eq(MOCK_URL), eq("item"), eq(Namespace.NO_NAMESPACE))).then(i -> entriesOf(PODCAST_APPLOAD_URL));
+        when(jdomService.entriesOf(not(eq(MOCK_URL)), anyString(), any(Namespace.class))).thenReturn(Iterator.empty());
     }
 
     @Test
@@ -61,12 +69,53 @@ public class RSSUpdaterTest {
         Set<Item> items = rssUpdater.getItems(rssAppload);
 
         /* Then */
-        verify(jdomService, times(1)).parse(eq(MOCK_URL));
+        verify(jdomService, times(1)).entriesOf(eq(MOCK_URL), eq("item"), eq(Namespace.NO_NAMESPACE));
         verify(imageService, times(2)).getCoverFromURL(anyString());
         assertThat(items).hasSize(217)
                 .anySatisfy(i -> assertThat(i.getCover()).isNotEqualTo(Cover.DEFAULT_COVER));
     }
 
+    @Test
+    public void should_stream_the_same_items_as_the_document() throws JDOMException, IOException, URISyntaxException {
+        /* Given */
+        List<Element> elements = IOUtils.fileAsXml(PODCAST_APPLOAD_URL)
+                .map(d -> d.getRootElement().getChild("channel").getChildren("item"))
+                .map(List::ofAll)
+                .get();
+
+        /* When */
+        List<Element> entries = entriesOf(PODCAST_APPLOAD_URL).toList();
+
+        /* Then */
+        assertThat(entries.map(e -> e.getChildText("guid"))).containsExactlyElementsOf(elements.map(e -> e.getChildText("guid")));
+        assertThat(entries.map(e -> e.getChildText("description"))).containsExactlyElementsOf(elements.map(e -> e.getChildText("description")));
+    }
+
+    @Test
+    public void should_stop_reading_after_known_items() {
+        /* Given */
+        rssAppload.setId(UUID.randomUUID());
+        when(itemUrlIndex.contains(eq(rssAppload.getId()), anyString())).thenReturn(true);
+
+        /* When */
+        Set<Item> items = rssUpdater.getItems(rssAppload);
+
+        /* Then */
+        assertThat(items).hasSize(5);
+    }
+
+    @Test
+    public void should_read_at_most_the_max_number_of_items() {
+        /* Given */
+        when(podcastServerParameters.getMaxItemsByFeed()).thenReturn(10);
+
+        /* When */
+        Set<Item> items = rssUpdater.getItems(rssAppload);
+
+        /* Then */
+        assertThat(items).hasSize(10);
+    }
+
     @Test
     public void should_return_null_if_not_updatable_podcast() {
         /* Given */ Podcast podcastNotUpdatable = new Podcast().setUrl("http://notUpdatable.com");
@@ -97,4 +146,8 @@ public class RSSUpdaterTest {
     private Cover createCover(InvocationOnMock i) {
         return Cover.builder().url(i.getArgumentAt(0, String.class)).build();
     }
+
+    private static Iterator<Element> entriesOf(String file) {
+        return JdomService.entriesOf(IOUtils.fileAsStream(file), "item", Namespace.NO_NAMESPACE);
+    }
 }
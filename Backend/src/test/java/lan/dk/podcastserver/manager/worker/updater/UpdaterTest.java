@@ -3,8 +3,10 @@ package lan.dk.podcastserver.manager.worker.updater;
 import io.vavr.Tuple3;
 import io.vavr.collection.HashSet;
 import io.vavr.collection.Set;
+import io.vavr.control.Option;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Podcast;
+import lan.dk.podcastserver.manager.ItemUrlIndex;
 import lan.dk.podcastserver.service.SignatureService;
 import lan.dk.podcastserver.service.properties.PodcastServerParameters;
 import org.junit.After;
@@ -19,7 +21,9 @@ import java.util.UUID;
 import java.util.function.Predicate;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
 
 /**
  * Created by kevin on 22/06/15 for Podcast Server
@@ -31,6 +35,7 @@ public class UpdaterTest {
     private @Mock PodcastServerParameters podcastServerParameters;
     private @Mock SignatureService signatureService;
     private @Mock Validator validator;
+    private @Mock ItemUrlIndex itemUrlIndex;
     private @InjectMocks SimpleUpdater simpleUpdater;
 
     @Test
@@ -78,10 +83,9 @@ public class UpdaterTest {
     }
     
     @Test
-    public void should_filter_with_default_predicate() {
+    public void should_filter_with_default_predicate_if_podcast_is_not_saved() {
         /* Given */
         Podcast podcast = Podcast.builder()
-                    .id(UUID.randomUUID())
                     .url("http://a.fake.url/rss.xml")
                     .items(HashSet.<Item>empty().toJavaSet())
                 .build();
@@ -98,15 +102,107 @@ public class UpdaterTest {
 
     }
 
+    @Test
+    public void should_not_compute_signature_if_validated_page_is_unchanged() {
+        /* Given */
+        Podcast podcast = new Podcast().setUrl("http://a.fake.url/rss.xml").setSignature("XYZ");
+        SimpleUpdater updater = new SimpleUpdater(podcastServerParameters, signatureService, validator, itemUrlIndex) {
+            @Override
+            public Option<String> validatedUrlOf(Podcast p) {
+                return Option.of(p.getUrl());
+            }
+
+            @Override
+            public String signatureOf(Podcast p) {
+                throw new AssertionError("Signature shouldn't be computed");
+            }
+        };
+        when(signatureService.validate(podcast, podcast.getUrl())).thenReturn(new SignatureService.Validators(true, "\"123\"", null, null, null));
+
+        /* When */
+        Tuple3<Podcast, Set<Item>, Predicate<Item>> result = updater.update(podcast);
+
+        /* Then */
+        assertThat(result).isSameAs(Updater.NO_MODIFICATION_TUPLE);
+        assertThat(podcast.getSignature()).isEqualTo("XYZ");
+        verify(signatureService, times(1)).validate(podcast, podcast.getUrl());
+    }
+
+    @Test
+    public void should_compute_signature_if_validated_page_has_changed() {
+        /* Given */
+        Podcast podcast = new Podcast().setUrl("http://a.fake.url/rss.xml").setSignature("XYZ");
+        SimpleUpdater updater = new SimpleUpdater(podcastServerParameters, signatureService, validator, itemUrlIndex) {
+            @Override
+            public Option<String> validatedUrlOf(Podcast p) {
+                return Option.of(p.getUrl());
+            }
+        };
+        when(signatureService.validate(podcast, podcast.getUrl())).thenReturn(new SignatureService.Validators(false, "\"456\"", null, null, null));
+
+        /* When */
+        Tuple3<Podcast, Set<Item>, Predicate<Item>> result = updater.update(podcast);
+
+        /* Then */
+        assertThat(result).isNotSameAs(Updater.NO_MODIFICATION_TUPLE);
+        assertThat(podcast.getSignature()).isEqualTo("123456789");
+        assertThat(podcast.getEtag()).isEqualTo("\"456\"");
+        verify(signatureService, times(1)).validate(podcast, podcast.getUrl());
+    }
+
+    @Test
+    public void should_not_keep_signature_nor_validators_if_items_are_not_parsed() {
+        /* Given */
+        Podcast podcast = new Podcast().setUrl("http://a.fake.url/rss.xml").setSignature("XYZ").setEtag("\"123\"");
+        SimpleUpdater updater = new SimpleUpdater(podcastServerParameters, signatureService, validator, itemUrlIndex) {
+            @Override
+            public Option<String> validatedUrlOf(Podcast p) {
+                return Option.of(p.getUrl());
+            }
+
+            @Override
+            public Set<Item> getItems(Podcast p) {
+                throw new RuntimeException("Truncated feed");
+            }
+        };
+        when(signatureService.validate(podcast, podcast.getUrl())).thenReturn(new SignatureService.Validators(false, "\"456\"", null, null, null));
+
+        /* When */
+        Tuple3<Podcast, Set<Item>, Predicate<Item>> result = updater.update(podcast);
+
+        /* Then */
+        assertThat(result).isSameAs(Updater.NO_MODIFICATION_TUPLE);
+        assertThat(podcast.getSignature()).isEqualTo("XYZ");
+        assertThat(podcast.getEtag()).isEqualTo("\"123\"");
+    }
+
+    @Test
+    public void should_filter_with_index_of_urls() {
+        /* Given */
+        Podcast podcast = new Podcast().setId(UUID.randomUUID()).setUrl("http://a.fake.url/rss.xml");
+        Item existing = new Item().setUrl("http://a.fake.url/1.mp3");
+        Item newOne = new Item().setUrl("http://a.fake.url/2.mp3");
+        when(itemUrlIndex.contains(podcast.getId(), existing.getUrl())).thenReturn(true);
+        when(itemUrlIndex.contains(podcast.getId(), newOne.getUrl())).thenReturn(false);
+
+        /* When */
+        Predicate<Item> notIn = simpleUpdater.notIn(podcast);
+
+        /* Then */
+        assertThat(notIn.test(existing)).isFalse();
+        assertThat(notIn.test(newOne)).isTrue();
+        verify(itemUrlIndex, times(2)).contains(eq(podcast.getId()), anyString());
+    }
+
     @After
     public void afterEach() {
-        verifyNoMoreInteractions(podcastServerParameters, signatureService, validator);
+        verifyNoMoreInteractions(podcastServerParameters, signatureService, validator, itemUrlIndex);
     }
 
     static class SimpleUpdater extends AbstractUpdater {
 
-        public SimpleUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator) {
-            super(podcastServerParameters, signatureService, validator);
+        public SimpleUpdater(PodcastServerParameters podcastServerParameters, SignatureService signatureService, Validator validator, ItemUrlIndex itemUrlIndex) {
+            super(podcastServerParameters, signatureService, validator, itemUrlIndex);
         }
 
         @Override
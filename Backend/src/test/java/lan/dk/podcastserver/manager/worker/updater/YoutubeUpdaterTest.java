@@ -1,6 +1,7 @@
 package lan.dk.podcastserver.manager.worker.updater;
 
 import io.vavr.collection.HashSet;
+import io.vavr.collection.Iterator;
 import io.vavr.collection.List;
 import io.vavr.collection.Set;
 import lan.dk.podcastserver.entity.Item;
@@ -11,7 +12,9 @@ import lan.dk.podcastserver.service.JsonService;
 import lan.dk.podcastserver.service.SignatureService;
 import lan.dk.podcastserver.service.properties.Api;
 import lan.dk.utils.IOUtils;
+import org.jdom2.Element;
 import org.jdom2.JDOMException;
+import org.jdom2.Namespace;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -24,7 +27,6 @@ import java.net.URISyntaxException;
 
 import static io.vavr.API.List;
 import static io.vavr.API.None;
-import static lan.dk.utils.IOUtils.fileAsXml;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.AdditionalMatchers.and;
 import static org.mockito.AdditionalMatchers.not;
@@ -71,14 +73,14 @@ public class YoutubeUpdaterTest {
                 .url("https://www.youtube.com/user/androiddevelopers")
                 .build();
         when(htmlService.get(anyString())).thenReturn(IOUtils.fileAsHtml("/remote/podcast/youtube/androiddevelopers.html"));
-        when(jdomService.parse(anyString())).then(i -> fileAsXml("/remote/podcast/youtube/youtube.androiddevelopers.xml"));
+        when(jdomService.entriesOf(anyString(), eq("entry"), any(Namespace.class))).then(i -> entriesOf("/remote/podcast/youtube/youtube.androiddevelopers.xml"));
 
         /* When */
         Set<Item> items = youtubeUpdater.getItems(podcast);
 
         /* Then */
         assertThat(items).hasSize(15);
-        verify(jdomService, only()).parse(eq("https://www.youtube.com/feeds/videos.xml?channel_id=UCVHFbqXqoYvEWM1Ddxl0QDg"));
+        verify(jdomService, only()).entriesOf(eq("https://www.youtube.com/feeds/videos.xml?channel_id=UCVHFbqXqoYvEWM1Ddxl0QDg"), eq("entry"), any(Namespace.class));
         verify(htmlService, only()).get(eq("https://www.youtube.com/user/androiddevelopers"));
     }
 
@@ -90,14 +92,14 @@ public class YoutubeUpdaterTest {
                 .url("https://www.youtube.com/playlist?list=PLAD454F0807B6CB80")
                 .build();
 
-        when(jdomService.parse(anyString())).thenReturn(fileAsXml("/remote/podcast/youtube/joueurdugrenier.playlist.xml"));
+        when(jdomService.entriesOf(anyString(), eq("entry"), any(Namespace.class))).then(i -> entriesOf("/remote/podcast/youtube/joueurdugrenier.playlist.xml"));
 
         /* When */
         Set<Item> items = youtubeUpdater.getItems(podcast);
 
         /* Then */
         assertThat(items).hasSize(15);
-        verify(jdomService, only()).parse(eq("https://www.youtube.com/feeds/videos.xml?playlist_id=PLAD454F0807B6CB80"));
+        verify(jdomService, only()).entriesOf(eq("https://www.youtube.com/feeds/videos.xml?playlist_id=PLAD454F0807B6CB80"), eq("entry"), any(Namespace.class));
     }
 
     @Test
@@ -108,7 +110,7 @@ public class YoutubeUpdaterTest {
                 .build();
 
         when(htmlService.get(any(String.class))).thenReturn(IOUtils.fileAsHtml("/remote/podcast/youtube/androiddevelopers.html"));
-        when(jdomService.parse(anyString())).thenReturn(fileAsXml("/remote/podcast/youtube/youtube.androiddevelopers.xml"));
+        when(jdomService.entriesOf(anyString(), eq("entry"), any(Namespace.class))).then(i -> entriesOf("/remote/podcast/youtube/youtube.androiddevelopers.xml"));
         when(signatureService.generateMD5Signature(anyString())).thenReturn("Signature");
 
         /* When */
@@ -116,7 +118,7 @@ public class YoutubeUpdaterTest {
 
         /* Then */
         assertThat(signature).isEqualTo("Signature");
-        verify(jdomService, only()).parse(eq("https://www.youtube.com/feeds/videos.xml?channel_id=UCVHFbqXqoYvEWM1Ddxl0QDg"));
+        verify(jdomService, only()).entriesOf(eq("https://www.youtube.com/feeds/videos.xml?channel_id=UCVHFbqXqoYvEWM1Ddxl0QDg"), eq("entry"), any(Namespace.class));
         verify(htmlService, only()).get(eq("https://www.youtube.com/user/androiddevelopers"));
     }
 
@@ -127,7 +129,7 @@ public class YoutubeUpdaterTest {
                 .build();
 
         when(htmlService.get(any(String.class))).thenReturn(IOUtils.fileAsHtml("/remote/podcast/youtube/androiddevelopers.html"));
-        when(jdomService.parse(anyString())).thenReturn(None());
+        doThrow(RuntimeException.class).when(jdomService).entriesOf(anyString(), eq("entry"), any(Namespace.class));
 
 
         /* When */
@@ -145,7 +147,7 @@ public class YoutubeUpdaterTest {
                 .build();
 
         when(htmlService.get(anyString())).thenReturn(None());
-        when(jdomService.parse(anyString())).thenReturn(None());
+        when(jdomService.entriesOf(anyString(), anyString(), any(Namespace.class))).thenReturn(Iterator.empty());
 
         /* When */
         Set<Item> items = youtubeUpdater.getItems(podcast);
@@ -162,7 +164,7 @@ public class YoutubeUpdaterTest {
                 .build();
 
         when(htmlService.get(any(String.class))).thenReturn(None());
-        when(jdomService.parse(eq("https://www.youtube.com/feeds/videos.xml?channel_id="))).thenReturn(None());
+        when(jdomService.entriesOf(eq("https://www.youtube.com/feeds/videos.xml?channel_id="), anyString(), any(Namespace.class))).thenReturn(Iterator.empty());
 
         /* When */
         Set<Item> items = youtubeUpdater.getItems(podcast);
@@ -179,14 +181,14 @@ public class YoutubeUpdaterTest {
                 .build();
 
         when(htmlService.get(any(String.class))).thenReturn(None());
-        when(jdomService.parse(eq("https://www.youtube.com/feeds/videos.xml?channel_id="))).thenReturn(None());
+        when(jdomService.entriesOf(eq("https://www.youtube.com/feeds/videos.xml?channel_id="), anyString(), any(Namespace.class))).thenReturn(Iterator.empty());
 
         /* When */
         Set<Item> items = youtubeUpdater.getItems(podcast);
 
         /* Then */
         assertThat(items).hasSize(0);
-        verify(jdomService, only()).parse(eq("https://www.youtube.com/feeds/videos.xml?channel_id="));
+        verify(jdomService, only()).entriesOf(eq("https://www.youtube.com/feeds/videos.xml?channel_id="), eq("entry"), any(Namespace.class));
         verify(htmlService, only()).get(eq("https://www.youtube.com/user/androiddevelopers"));
     }
 
@@ -255,4 +257,8 @@ public class YoutubeUpdaterTest {
         /* Then */
         assertThat(results).contains(1);
     }
+
+    private static Iterator<Element> entriesOf(String file) {
+        return JdomService.entriesOf(IOUtils.fileAsStream(file), "entry", Namespace.getNamespace("http://www.w3.org/2005/Atom"));
+    }
 }
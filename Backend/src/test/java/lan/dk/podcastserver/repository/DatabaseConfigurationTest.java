@@ -32,10 +32,11 @@ public class DatabaseConfigurationTest {
     private static final Operation DELETE_ALL_PODCASTS = deleteAllFrom("PODCAST");
     private static final Operation DELETE_ALL_ITEMS = deleteAllFrom("ITEM");
     private static final Operation DELETE_ALL_TAGS = sequenceOf(deleteAllFrom("PODCAST_TAGS"), deleteAllFrom("TAG"));
+    private static final Operation DELETE_ALL_DAILY_STATS = deleteAllFrom("DAILY_STAT");
     private static final Operation DELETE_ALL_PLAYLIST = Operations.sequenceOf(deleteAllFrom("WATCH_LIST_ITEMS"), deleteAllFrom("WATCH_LIST"));
 
     public static final DateTimeFormatter formatter = new DateTimeFormatterBuilder().append(DateTimeFormatter.ISO_LOCAL_DATE).appendLiteral(" ").append(DateTimeFormatter.ISO_LOCAL_TIME).toFormatter();
-    public static final Operation DELETE_ALL = sequenceOf(DELETE_ALL_PLAYLIST, DELETE_ALL_ITEMS, DELETE_ALL_TAGS, DELETE_ALL_PODCASTS, DELETE_ALL_TAGS);
+    public static final Operation DELETE_ALL = sequenceOf(DELETE_ALL_DAILY_STATS, DELETE_ALL_PLAYLIST, DELETE_ALL_ITEMS, DELETE_ALL_TAGS, DELETE_ALL_PODCASTS, DELETE_ALL_TAGS);
 
     @Bean FullTextEntityManager fullTextEntityManager(EntityManager entityManager) {
         return getFullTextEntityManager(entityManager);
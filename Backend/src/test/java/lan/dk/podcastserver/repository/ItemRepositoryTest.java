@@ -4,7 +4,10 @@ import com.ninja_squad.dbsetup.DbSetup;
 import com.ninja_squad.dbsetup.DbSetupTracker;
 import com.ninja_squad.dbsetup.destination.DataSourceDestination;
 import com.ninja_squad.dbsetup.operation.Operation;
+import io.vavr.collection.HashSet;
+import io.vavr.collection.List;
 import io.vavr.collection.Set;
+import lan.dk.podcastserver.entity.DailyStat;
 import lan.dk.podcastserver.entity.Item;
 import lan.dk.podcastserver.entity.Status;
 import lan.dk.podcastserver.manager.worker.updater.AbstractUpdater;
@@ -158,6 +161,39 @@ public class ItemRepositoryTest {
                 .contains("Geek INC 124");
     }
 
+    @Test
+    public void should_count_items_by_podcast_and_day() {
+        /* Given */
+        dbSetupTracker.skipNextLaunch();
+
+        /* When */
+        List<DailyStat> byPubDate = itemRepository.countByDay(DailyStat.Kind.PUBLICATION);
+        List<DailyStat> byDownloadDate = itemRepository.countByDay(DailyStat.Kind.DOWNLOAD);
+
+        /* Then */
+        assertThat(byPubDate).hasSize(5);
+        assertThat(byPubDate.map(DailyStat::getNumberOfItems)).containsOnly(1L);
+        assertThat(byDownloadDate)
+                .extracting(DailyStat::getType)
+                .containsOnly("RSS", "YOUTUBE", "YOUTUBE");
+        assertThat(byDownloadDate.map(DailyStat::getDate)).contains(now().toLocalDate(), now().minusDays(15).toLocalDate());
+    }
+
+    @Test
+    public void should_count_items_by_podcast_of_a_day() {
+        /* Given */
+        dbSetupTracker.skipNextLaunch();
+
+        /* When */
+        List<DailyStat> stats = itemRepository.countByDay(DailyStat.Kind.PUBLICATION, now().minusDays(15).toLocalDate());
+
+        /* Then */
+        assertThat(stats)
+                .hasSize(2)
+                .extracting(DailyStat::getPodcastId)
+                .containsOnly(UUID.fromString("e9c89e7f-7a8a-43ad-8425-ba2dbad2c561"), UUID.fromString("67b56578-454b-40a5-8d55-5fe1a14673e8"));
+    }
+
     @Test
     public void should_save_an_item() {
         /* Given */
@@ -167,4 +203,20 @@ public class ItemRepositoryTest {
         /* Then */
         assertThat(savedItem.getCreationDate()).isNotNull();
     }
+
+    @Test
+    public void should_update_status_of_many_items() {
+        /* Given */
+        UUID first = UUID.fromString("817a4626-6fd2-457e-8d27-69ea5acdc828");
+        UUID second = UUID.fromString("43fb990f-0b5e-413f-920c-6de217f9ecdd");
+
+        /* When */
+        long updated = itemRepository.updateStatus(HashSet.of(first, second), Status.PAUSED);
+
+        /* Then */
+        assertThat(updated).isEqualTo(2L);
+        assertThat(itemRepository.findByStatus(Status.PAUSED))
+                .extracting(Item::getId)
+                .containsOnly(first, second);
+    }
 }
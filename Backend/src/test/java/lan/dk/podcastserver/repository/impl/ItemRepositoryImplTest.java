@@ -1,23 +1,34 @@
 package lan.dk.podcastserver.repository.impl;
 
+import io.vavr.collection.HashSet;
 import io.vavr.collection.List;
+import io.vavr.collection.Set;
 import lan.dk.podcastserver.entity.Item;
+import lan.dk.podcastserver.entity.Status;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SortField;
 import org.hibernate.CacheMode;
 import org.hibernate.search.MassIndexer;
 import org.hibernate.search.SearchFactory;
-import org.hibernate.search.batchindexing.impl.SimpleIndexingProgressMonitor;
+import org.hibernate.search.batchindexing.MassIndexerProgressMonitor;
+import org.hibernate.search.engine.ProjectionConstants;
 import org.hibernate.search.jpa.FullTextEntityManager;
 import org.hibernate.search.jpa.FullTextQuery;
 import org.hibernate.search.query.dsl.*;
-import org.hibernate.transform.ResultTransformer;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatcher;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.AdditionalMatchers.or;
@@ -33,89 +44,189 @@ public class ItemRepositoryImplTest {
     @Mock FullTextEntityManager fullTextEntityManager;
     @InjectMocks ItemRepositoryImpl itemRepositoryImpl;
 
+    private BooleanJunction booleanJunction;
+    private TermMatchingContext termMatchingContext;
+    private QueryBuilder queryBuilder;
+
     @Test
-    public void should_reindex() throws InterruptedException {
+    @SuppressWarnings("unchecked")
+    public void should_reindex_in_background() {
         /* Given */
         MassIndexer massIndexer = mock(MassIndexer.class);
+        MassIndexerProgressMonitor monitor = mock(MassIndexerProgressMonitor.class);
+        Future future = CompletableFuture.completedFuture(null);
         when(fullTextEntityManager.createIndexer(any())).thenReturn(massIndexer);
+        when(massIndexer.typesToIndexInParallel(anyInt())).thenReturn(massIndexer);
         when(massIndexer.batchSizeToLoadObjects(anyInt())).thenReturn(massIndexer);
         when(massIndexer.cacheMode(any())).thenReturn(massIndexer);
         when(massIndexer.idFetchSize(anyInt())).thenReturn(massIndexer);
         when(massIndexer.threadsToLoadObjects(anyInt())).thenReturn(massIndexer);
         when(massIndexer.progressMonitor(any())).thenReturn(massIndexer);
+        when(massIndexer.start()).thenReturn(future);
 
         /* When */
-        itemRepositoryImpl.reindex();
+        Future<?> reindex = itemRepositoryImpl.reindex(monitor);
 
         /* Then */
+        assertThat(reindex).isSameAs(future);
         verify(fullTextEntityManager, times(1)).createIndexer(eq(Item.class));
-        verify(massIndexer, times(1)).batchSizeToLoadObjects(eq(25));
-        verify(massIndexer, times(1)).cacheMode(eq(CacheMode.NORMAL));
-        verify(massIndexer, times(1)).idFetchSize(eq(150));
-        verify(massIndexer, times(1)).threadsToLoadObjects(eq(1));
-        verify(massIndexer, times(1)).progressMonitor(isA(SimpleIndexingProgressMonitor.class));
-        verify(massIndexer, times(1)).startAndWait();
+        verify(massIndexer, times(1)).batchSizeToLoadObjects(eq(100));
+        verify(massIndexer, times(1)).cacheMode(eq(CacheMode.IGNORE));
+        verify(massIndexer, times(1)).idFetchSize(eq(1000));
+        verify(massIndexer, times(1)).threadsToLoadObjects(intThat(new ArgumentMatcher<Integer>() {
+            @Override
+            public boolean matches(Object threads) {
+                return (Integer) threads >= 1 && (Integer) threads <= 4;
+            }
+        }));
+        verify(massIndexer, times(1)).progressMonitor(same(monitor));
+        verify(massIndexer, never()).startAndWait();
     }
 
     @Test
-    public void should_return_empty_array_if_no_word() {
-        assertThat(itemRepositoryImpl.fullTextSearch("")).hasSize(0);
+    @SuppressWarnings("unchecked")
+    public void should_find_ids_of_the_index() {
+        /* Given */
+        UUID first = UUID.randomUUID(), second = UUID.randomUUID();
+        FullTextQuery fullTextQuery = mockQueryDsl();
+        AllContext allContext = mock(AllContext.class);
+        when(queryBuilder.all()).thenReturn(allContext);
+        when(allContext.createQuery()).thenReturn(mock(Query.class));
+        when(fullTextQuery.setProjection(anyVararg())).thenReturn(fullTextQuery);
+        when(fullTextQuery.getResultList()).thenReturn(List.of(new Object[]{first}, new Object[]{second}).toJavaList());
+
+        /* When */
+        Set<UUID> ids = itemRepositoryImpl.findAllIndexedIds();
+
+        /* Then */
+        assertThat(ids).containsOnly(first, second);
+        verify(fullTextQuery, times(1)).setProjection(ProjectionConstants.ID);
     }
-    
+
     @Test
-    @SuppressWarnings("unchecked")
-    public void should_search_fulltext() {
+    public void should_count_items_of_the_index() {
         /* Given */
-        List<UUID> results = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
-        SearchFactory searchFactory = mock(SearchFactory.class);
-        QueryContextBuilder queryContextBuilder = mock(QueryContextBuilder.class);
-        EntityContext entityContext = mock(EntityContext.class);
-        QueryBuilder queryBuilder = mock(QueryBuilder.class);
-        BooleanJunction booleanJunction = mock(BooleanJunction.class);
-        TermContext termContext = mock(TermContext.class);
-        TermMatchingContext termMatchingContext = mock(TermMatchingContext.class);
-        TermTermination termTermination = mock(TermTermination.class);
-        FullTextQuery fullTextQuery = mock(FullTextQuery.class);
+        FullTextQuery fullTextQuery = mockQueryDsl();
+        AllContext allContext = mock(AllContext.class);
+        when(queryBuilder.all()).thenReturn(allContext);
+        when(allContext.createQuery()).thenReturn(mock(Query.class));
+        when(fullTextQuery.getResultSize()).thenReturn(42);
 
-        when(fullTextEntityManager.getSearchFactory()).thenReturn(searchFactory);
-        when(searchFactory.buildQueryBuilder()).thenReturn(queryContextBuilder);
-        when(queryContextBuilder.forEntity(any())).thenReturn(entityContext);
-        when(entityContext.get()).thenReturn(queryBuilder);
-        when(queryBuilder.bool()).thenReturn(booleanJunction);
-        when(queryBuilder.keyword()).thenReturn(termContext);
-        when(termContext.onFields(anyVararg())).thenReturn(termMatchingContext);
-        when(termMatchingContext.matching(anyString())).thenReturn(termTermination);
-        when(termTermination.createQuery()).thenReturn(mock(Query.class));
-        when(booleanJunction.must(any())).thenReturn(mock(MustJunction.class));
-        when(fullTextEntityManager.createFullTextQuery(any(), any())).thenReturn(fullTextQuery);
-        when(booleanJunction.createQuery()).thenReturn(mock(Query.class));
-        when(fullTextQuery.setProjection(anyString())).thenReturn(fullTextQuery);
-        when(fullTextQuery.setResultTransformer(any(ResultTransformer.class))).thenReturn(fullTextQuery);
-        when(fullTextQuery.getResultList()).thenReturn(results.toJavaList());
+        /* When */
+        long count = itemRepositoryImpl.countIndexed();
+
+        /* Then */
+        assertThat(count).isEqualTo(42L);
+        verify(fullTextQuery, times(1)).setMaxResults(0);
+        verify(fullTextQuery, never()).getResultList();
+    }
+
+    @Test
+    public void should_index_items_by_batch() {
+        /* Given */
+        Set<UUID> ids = HashSet.fill(150, UUID::randomUUID);
+        when(fullTextEntityManager.find(eq(Item.class), any())).then(i -> new Item().setId(i.getArgumentAt(1, UUID.class)));
 
         /* When */
-        List<UUID> list = itemRepositoryImpl.fullTextSearch("A super query");
+        itemRepositoryImpl.index(ids);
 
         /* Then */
-        assertThat(list.toJavaList()).containsExactlyElementsOf(results);
+        verify(fullTextEntityManager, times(150)).index(any(Item.class));
+        verify(fullTextEntityManager, times(2)).flushToIndexes();
+        verify(fullTextEntityManager, times(2)).clear();
+    }
+
+    @Test
+    public void should_purge_items_from_the_index() {
+        /* Given */
+        UUID first = UUID.randomUUID(), second = UUID.randomUUID();
+
+        /* When */
+        itemRepositoryImpl.purge(HashSet.of(first, second));
+
+        /* Then */
+        verify(fullTextEntityManager, times(1)).purge(Item.class, first);
+        verify(fullTextEntityManager, times(1)).purge(Item.class, second);
+    }
 
+    @Test
+    public void should_return_empty_page_if_no_word() {
+        /* When */
+        Page<Item> page = itemRepositoryImpl.fullTextSearch("", HashSet.empty(), HashSet.empty(), new PageRequest(0, 12));
+
+        /* Then */
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getTotalElements()).isEqualTo(0);
+        verify(fullTextEntityManager, never()).createFullTextQuery(any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_search_fulltext_with_paging_and_sort_in_index() {
+        /* Given */
+        List<Item> results = List.of(new Item(), new Item(), new Item());
+        FullTextQuery fullTextQuery = mockQueryDsl();
+        when(fullTextQuery.getResultList()).thenReturn(results.toJavaList());
+        when(fullTextQuery.getResultSize()).thenReturn(42);
+        PageRequest pageRequest = new PageRequest(2, 3, Sort.Direction.DESC, "pubDate");
+
+        /* When */
+        Page<Item> page = itemRepositoryImpl.fullTextSearch("A super query", HashSet.empty(), HashSet.of(Status.FINISH), pageRequest);
+
+        /* Then */
+        assertThat(page.getContent()).containsExactlyElementsOf(results);
+        assertThat(page.getTotalElements()).isEqualTo(42);
         verify(termMatchingContext, times(3)).matching(or(or(eq("A"), eq("super")), eq("query")));
-        verify(booleanJunction, times(3)).must(any());
+        verify(termMatchingContext, times(1)).matching(eq("FINISH"));
+        verify(booleanJunction, times(4)).must(any());
+        verify(fullTextQuery, times(1)).setSort(argThat(sortedOn("pubDate", true)));
+        verify(fullTextQuery, times(1)).setFirstResult(eq(6));
+        verify(fullTextQuery, times(1)).setMaxResults(eq(3));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_search_fulltext_by_relevance() {
+        /* Given */
+        FullTextQuery fullTextQuery = mockQueryDsl();
+        when(fullTextQuery.getResultList()).thenReturn(List.of(new Item()).toJavaList());
+        when(fullTextQuery.getResultSize()).thenReturn(1);
+
+        /* When */
+        itemRepositoryImpl.fullTextSearch("query", HashSet.empty(), HashSet.empty(), new PageRequest(0, 12, Sort.Direction.DESC, "pertinence"));
+
+        /* Then */
+        verify(booleanJunction, times(1)).must(any());
+        verify(fullTextQuery, times(1)).setSort(argThat(sortedOn(null, false)));
     }
 
     @Test
     @SuppressWarnings("unchecked")
     public void should_search_fulltext_and_find_nothing() {
         /* Given */
+        FullTextQuery fullTextQuery = mockQueryDsl();
+        when(fullTextQuery.getResultList()).thenReturn(null);
+        when(fullTextQuery.getResultSize()).thenReturn(0);
+
+        /* When */
+        Page<Item> page = itemRepositoryImpl.fullTextSearch("A super query", HashSet.empty(), HashSet.empty(), new PageRequest(0, 12));
+
+        /* Then */
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getTotalElements()).isEqualTo(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private FullTextQuery mockQueryDsl() {
         SearchFactory searchFactory = mock(SearchFactory.class);
         QueryContextBuilder queryContextBuilder = mock(QueryContextBuilder.class);
         EntityContext entityContext = mock(EntityContext.class);
-        QueryBuilder queryBuilder = mock(QueryBuilder.class);
-        BooleanJunction booleanJunction = mock(BooleanJunction.class);
+        queryBuilder = mock(QueryBuilder.class);
         TermContext termContext = mock(TermContext.class);
-        TermMatchingContext termMatchingContext = mock(TermMatchingContext.class);
         TermTermination termTermination = mock(TermTermination.class);
         FullTextQuery fullTextQuery = mock(FullTextQuery.class);
+        booleanJunction = mock(BooleanJunction.class);
+        termMatchingContext = mock(TermMatchingContext.class);
 
         when(fullTextEntityManager.getSearchFactory()).thenReturn(searchFactory);
         when(searchFactory.buildQueryBuilder()).thenReturn(queryContextBuilder);
@@ -124,38 +235,27 @@ public class ItemRepositoryImplTest {
         when(queryBuilder.bool()).thenReturn(booleanJunction);
         when(queryBuilder.keyword()).thenReturn(termContext);
         when(termContext.onFields(anyVararg())).thenReturn(termMatchingContext);
+        when(termContext.onField(anyString())).thenReturn(termMatchingContext);
+        when(termMatchingContext.ignoreFieldBridge()).thenReturn(termMatchingContext);
         when(termMatchingContext.matching(anyString())).thenReturn(termTermination);
         when(termTermination.createQuery()).thenReturn(mock(Query.class));
         when(booleanJunction.must(any())).thenReturn(mock(MustJunction.class));
-        when(fullTextEntityManager.createFullTextQuery(any(), any())).thenReturn(fullTextQuery);
+        when(booleanJunction.should(any())).thenReturn(booleanJunction);
         when(booleanJunction.createQuery()).thenReturn(mock(Query.class));
-        when(fullTextQuery.setProjection(anyString())).thenReturn(fullTextQuery);
-        when(fullTextQuery.setResultTransformer(any(ResultTransformer.class))).thenReturn(fullTextQuery);
-        when(fullTextQuery.getResultList()).thenReturn(null);
-
-        /* When */
-        List<UUID> list = itemRepositoryImpl.fullTextSearch("A super query");
-
-        /* Then */
-        assertThat(list.toJavaList()).hasSize(0);
-    }
-
-    @Test
-    public void should_extract_id() {
-        Object[] objects = {1};
-        String[] aliases = {"id"};
-        assertThat(new ItemRepositoryImpl.HibernateIdExtractor().transformTuple(objects, aliases))
-                .isEqualTo(1);
+        when(fullTextEntityManager.createFullTextQuery(any(), any())).thenReturn(fullTextQuery);
+        when(fullTextQuery.setSort(any())).thenReturn(fullTextQuery);
+        when(fullTextQuery.setFirstResult(anyInt())).thenReturn(fullTextQuery);
+        when(fullTextQuery.setMaxResults(anyInt())).thenReturn(fullTextQuery);
+        return fullTextQuery;
     }
 
-    @Test
-    @SuppressWarnings("unchecked")
-    public void should_not_revert_extraction() {
-        List<String> collection = List.of("Elem1", "Elem2");
-        assertThat(new ItemRepositoryImpl.HibernateIdExtractor().transformList(collection.toJavaList()))
-                .isNotEmpty()
-                .hasSize(collection.size())
-                .containsAll(collection);
+    private static ArgumentMatcher<org.apache.lucene.search.Sort> sortedOn(String field, boolean reverse) {
+        return new ArgumentMatcher<org.apache.lucene.search.Sort>() {
+            @Override
+            public boolean matches(Object argument) {
+                SortField first = ((org.apache.lucene.search.Sort) argument).getSort()[0];
+                return Objects.equals(first.getField(), field) && first.getReverse() == reverse;
+            }
+        };
     }
-
 }
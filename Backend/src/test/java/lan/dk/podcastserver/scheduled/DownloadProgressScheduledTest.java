@@ -0,0 +1,42 @@
+package lan.dk.podcastserver.scheduled;
+
+import lan.dk.podcastserver.manager.ItemDownloadManager;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class DownloadProgressScheduledTest {
+
+    @Mock ItemDownloadManager itemDownloadManager;
+    @InjectMocks DownloadProgressScheduled downloadProgressScheduled;
+
+    @Test
+    public void should_broadcast_progressions_and_start_downloads_with_free_bandwidth() {
+        /* When */
+        downloadProgressScheduled.broadcastProgressions();
+
+        /* Then */
+        verify(itemDownloadManager, times(1)).broadcastProgressions();
+        verify(itemDownloadManager, times(1)).startDownloadsWithFreeBandwidth();
+    }
+
+    @Test
+    public void should_be_scheduled_every_second_or_by_property() throws NoSuchMethodException {
+        /* Given */
+        /* When */
+        String rate = ((Scheduled) DownloadProgressScheduled.class.getMethod("broadcastProgressions").getDeclaredAnnotations()[0]).fixedRateString();
+        /* Then */
+        assertThat(rate).contains("${podcastserver.download-progress-rate:", "1000", "}");
+    }
+}
@@ -0,0 +1,50 @@
+package lan.dk.podcastserver.scheduled;
+
+import lan.dk.podcastserver.manager.DownloadStateJournal;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.only;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class DownloadStateScheduledTest {
+
+    @Mock DownloadStateJournal downloadStateJournal;
+    @InjectMocks DownloadStateScheduled downloadStateScheduled;
+
+    @Test
+    public void should_flush_the_journal() {
+        /* When */
+        downloadStateScheduled.flush();
+
+        /* Then */
+        verify(downloadStateJournal, only()).flush();
+    }
+
+    @Test
+    public void should_sync_the_journal() {
+        /* When */
+        downloadStateScheduled.sync();
+
+        /* Then */
+        verify(downloadStateJournal, only()).sync();
+    }
+
+    @Test
+    public void should_be_scheduled_every_five_seconds_or_by_property() throws NoSuchMethodException {
+        /* Given */
+        /* When */
+        String rate = ((Scheduled) DownloadStateScheduled.class.getMethod("flush").getDeclaredAnnotations()[0]).fixedDelayString();
+        /* Then */
+        assertThat(rate).contains("${podcastserver.download-state-flush-rate:", "5000", "}");
+    }
+}
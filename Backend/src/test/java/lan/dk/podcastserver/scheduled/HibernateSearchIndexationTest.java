@@ -1,6 +1,6 @@
 package lan.dk.podcastserver.scheduled;
 
-import lan.dk.podcastserver.business.ItemBusiness;
+import lan.dk.podcastserver.manager.SearchIndexer;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -16,12 +16,12 @@ import static org.mockito.Mockito.verify;
 @RunWith(MockitoJUnitRunner.class)
 public class HibernateSearchIndexationTest {
 
-    @Mock ItemBusiness itemBusiness;
+    @Mock SearchIndexer searchIndexer;
     @InjectMocks HibernateSearchIndexation hibernateSearchIndexation;
 
     @Test
-    public void should_refresh_index() throws InterruptedException {
-        /* When */  hibernateSearchIndexation.refreshIndex();
-        /* Then */  verify(itemBusiness, times(1)).reindex();
+    public void should_check_index() {
+        /* When */  hibernateSearchIndexation.checkIndex();
+        /* Then */  verify(searchIndexer, times(1)).check();
     }
 }
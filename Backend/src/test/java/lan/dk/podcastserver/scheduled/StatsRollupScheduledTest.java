@@ -0,0 +1,39 @@
+package lan.dk.podcastserver.scheduled;
+
+import lan.dk.podcastserver.manager.StatsRollup;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.mockito.Mockito.only;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class StatsRollupScheduledTest {
+
+    @Mock StatsRollup statsRollup;
+    @InjectMocks StatsRollupScheduled statsRollupScheduled;
+
+    @Test
+    public void should_rebuild_the_rollup() {
+        /* When */
+        statsRollupScheduled.rebuild();
+
+        /* Then */
+        verify(statsRollup, only()).rebuild();
+    }
+
+    @Test
+    public void should_refresh_the_rollup() {
+        /* When */
+        statsRollupScheduled.refresh();
+
+        /* Then */
+        verify(statsRollup, only()).refresh();
+    }
+}
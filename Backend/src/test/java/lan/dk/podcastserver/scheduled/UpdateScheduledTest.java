@@ -8,6 +8,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -22,10 +23,18 @@ public class UpdateScheduledTest {
     @InjectMocks UpdateScheduled updateScheduled;
 
     @Test
-    public void should_update_and_download() {
+    public void should_download() {
         /* When */  updateScheduled.updateAndDownloadPodcast();
         /* Then */
-        verify(updatePodcastBusiness, times(1)).updatePodcast();
         verify(IDM, times(1)).launchDownload();
+        verify(updatePodcastBusiness, never()).updateDuePodcasts();
+    }
+
+    @Test
+    public void should_update_podcasts_due() {
+        /* When */  updateScheduled.updateDuePodcasts();
+        /* Then */
+        verify(updatePodcastBusiness, times(1)).updateDuePodcasts();
+        verify(IDM, never()).launchDownload();
     }
 }
@@ -0,0 +1,140 @@
+package lan.dk.podcastserver.service;
+
+import lan.dk.podcastserver.service.properties.Bandwidth;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+public class BandwidthServiceTest {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private Bandwidth bandwidth;
+
+    @Before
+    public void beforeEach() {
+        bandwidth = new Bandwidth()
+                .setLimit(1000L)
+                .setProfiles(singletonList(new Bandwidth.Profile().setFrom(LocalTime.of(1, 0)).setTo(LocalTime.of(7, 0)).setLimit(0L)));
+    }
+
+    @Test
+    public void should_use_limit_of_configuration() {
+        /* Given */
+        BandwidthService bandwidthService = new BandwidthService(bandwidth, at(12, 0));
+
+        /* When */
+        long limit = bandwidthService.getLimit();
+
+        /* Then */
+        assertThat(limit).isEqualTo(1000L);
+    }
+
+    @Test
+    public void should_use_limit_of_the_profile_of_the_moment() {
+        /* Given */
+        BandwidthService bandwidthService = new BandwidthService(bandwidth, at(3, 0));
+
+        /* When */
+        long limit = bandwidthService.getLimit();
+
+        /* Then */
+        assertThat(limit).isEqualTo(0L);
+    }
+
+    @Test
+    public void should_override_limit_at_runtime_and_reset_it() {
+        /* Given */
+        BandwidthService bandwidthService = new BandwidthService(bandwidth, at(12, 0));
+
+        /* When */
+        bandwidthService.setLimit(500L);
+        long overridden = bandwidthService.getLimit();
+        bandwidthService.setLimit(null);
+
+        /* Then */
+        assertThat(overridden).isEqualTo(500L);
+        assertThat(bandwidthService.getLimit()).isEqualTo(1000L);
+    }
+
+    @Test
+    public void should_not_wait_without_limit() {
+        /* Given */
+        BandwidthService bandwidthService = new BandwidthService(bandwidth, at(3, 0));
+
+        /* When */
+        long delay = bandwidthService.meter(UUID.randomUUID()).reserve(1_000_000L);
+
+        /* Then */
+        assertThat(delay).isEqualTo(0L);
+        assertThat(bandwidthService.available()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void should_wait_when_global_limit_is_exceeded() {
+        /* Given */
+        BandwidthService bandwidthService = new BandwidthService(bandwidth, at(12, 0));
+
+        /* When */
+        long delay = bandwidthService.meter(UUID.randomUUID()).reserve(2000L);
+
+        /* Then */
+        assertThat(delay).isBetween(TimeUnit.MILLISECONDS.toNanos(1500), TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    public void should_wait_when_limit_by_download_is_exceeded() {
+        /* Given */
+        BandwidthService bandwidthService = new BandwidthService(bandwidth.setLimitByDownload(100L), at(3, 0));
+
+        /* When */
+        long delay = bandwidthService.meter(UUID.randomUUID()).reserve(200L);
+
+        /* Then */
+        assertThat(delay).isBetween(TimeUnit.MILLISECONDS.toNanos(1500), TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    public void should_release_meter_of_a_download() {
+        /* Given */
+        BandwidthService bandwidthService = new BandwidthService(bandwidth, at(12, 0));
+        UUID id = UUID.randomUUID();
+        bandwidthService.meter(id);
+
+        /* When */
+        bandwidthService.release(id);
+
+        /* Then */
+        assertThat(bandwidthService.throughputs().containsKey(id)).isFalse();
+    }
+
+    @Test
+    public void should_expose_throughput_of_each_download() {
+        /* Given */
+        BandwidthService bandwidthService = new BandwidthService(bandwidth, at(3, 0));
+        UUID id = UUID.randomUUID();
+
+        /* When */
+        bandwidthService.meter(id).reserve(100L);
+
+        /* Then */
+        assertThat(bandwidthService.throughputs().get(id).isDefined()).isTrue();
+        assertThat(bandwidthService.throughputs().get(id).get()).isEqualTo(0L);
+    }
+
+    private static Clock at(int hour, int minute) {
+        return Clock.fixed(LocalDateTime.now().with(LocalTime.of(hour, minute)).atZone(ZONE).toInstant(), ZONE);
+    }
+}
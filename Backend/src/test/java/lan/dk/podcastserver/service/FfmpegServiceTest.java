@@ -1,7 +1,7 @@
 package lan.dk.podcastserver.service;
 
 import lan.dk.podcastserver.utils.custom.ffmpeg.CustomRunProcessFunc;
-import lan.dk.podcastserver.utils.custom.ffmpeg.ProcessListener;
+import lan.dk.podcastserver.utils.custom.ffmpeg.ProcessJob;
 import net.bramp.ffmpeg.FFmpegExecutor;
 import net.bramp.ffmpeg.FFprobe;
 import net.bramp.ffmpeg.builder.FFmpegBuilder;
@@ -12,15 +12,20 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import static io.vavr.API.List;
+import static io.vavr.API.Try;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
@@ -33,6 +38,7 @@ public class FfmpegServiceTest {
     @Mock CustomRunProcessFunc runFunc;
     @Mock FFprobe ffprobe;
     @Mock FFmpegExecutor ffmpegExecutor;
+    @Mock ThreadPoolTaskExecutor ffmpegJobExecutor;
     @InjectMocks FfmpegService ffmpegService;
 
     @Captor ArgumentCaptor<FFmpegBuilder> executorBuilderCaptor;
@@ -145,18 +151,64 @@ public class FfmpegServiceTest {
     public void should_download_with_ffmpeg() {
         /* Given */
         FFmpegJob job = mock(FFmpegJob.class);
-        when(runFunc.add(any(ProcessListener.class))).then(i -> {
-            ProcessListener pl = i.getArgumentAt(0, ProcessListener.class);
-            pl.process(mock(Process.class));
-            return runFunc;
-        });
+        CustomRunProcessFunc realRunFunc = new CustomRunProcessFunc();
+        ProcessJob processJob = realRunFunc.register("foo");
+        when(runFunc.register(eq("foo"))).thenReturn(processJob);
         when(ffmpegExecutor.createJob(any(), any())).then(i -> job);
+        doAnswer(i -> { i.getArgumentAt(0, Runnable.class).run(); return null; }).when(ffmpegJobExecutor).execute(any(Runnable.class));
+        doAnswer(i -> {
+            realRunFunc.execute(processJob, () -> Try(() -> realRunFunc.run(List("/bin/bash", "-c", "exit 0").toJavaList())));
+            return null;
+        }).when(runFunc).execute(same(processJob), same(job));
 
         /* When */
         Process p = ffmpegService.download("foo", new FFmpegBuilder(), d -> {});
 
         /* Then */
         assertThat(p).isNotNull();
+        assertThat(realRunFunc.history()).hasSize(1);
     }
 
+    @Test(expected = UncheckedIOException.class)
+    public void should_abort_job_if_no_more_thread_is_available() {
+        /* Given */
+        ProcessJob processJob = new ProcessJob(1L, "foo");
+        when(runFunc.register(eq("foo"))).thenReturn(processJob);
+        when(ffmpegExecutor.createJob(any(), any())).thenReturn(mock(FFmpegJob.class));
+        doThrow(TaskRejectedException.class).when(ffmpegJobExecutor).execute(any(Runnable.class));
+        doAnswer(i -> { processJob.failed(i.getArgumentAt(1, Throwable.class)); return null; }).when(runFunc).abort(same(processJob), any(Throwable.class));
+
+        /* When */
+        ffmpegService.download("foo", new FFmpegBuilder(), d -> {});
+
+        /* Then see @Test */
+    }
+
+    @Test
+    public void should_raise_the_number_of_jobs_with_the_limit_of_download() {
+        /* Given */
+        when(ffmpegJobExecutor.getMaxPoolSize()).thenReturn(12);
+
+        /* When */
+        ffmpegService.setConcurrentDownload(5);
+
+        /* Then */
+        InOrder order = inOrder(ffmpegJobExecutor);
+        order.verify(ffmpegJobExecutor).setMaxPoolSize(20);
+        order.verify(ffmpegJobExecutor).setCorePoolSize(20);
+    }
+
+    @Test
+    public void should_lower_the_number_of_jobs_with_the_limit_of_download() {
+        /* Given */
+        when(ffmpegJobExecutor.getMaxPoolSize()).thenReturn(12);
+
+        /* When */
+        ffmpegService.setConcurrentDownload(1);
+
+        /* Then */
+        InOrder order = inOrder(ffmpegJobExecutor);
+        order.verify(ffmpegJobExecutor).setCorePoolSize(4);
+        order.verify(ffmpegJobExecutor).setMaxPoolSize(4);
+    }
 }
@@ -1,11 +1,18 @@
 package lan.dk.podcastserver.service;
 
 import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.control.Option;
 import lan.dk.podcastserver.entity.Cover;
+import lan.dk.podcastserver.repository.CoverRepository;
+import org.assertj.core.api.Assertions;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 
@@ -13,7 +20,13 @@ import java.io.IOException;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static lan.dk.podcastserver.entity.CoverAssert.assertThat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
 
 /**
  * Created by kevin on 06/07/15 for Podcast Server
@@ -28,6 +41,7 @@ public class ImageServiceTest {
 
     @Spy
     UrlService urlService;
+    @Mock CoverRepository coverRepository;
     @InjectMocks ImageService imageService;
 
     @Test
@@ -55,6 +69,59 @@ public class ImageServiceTest {
                 .hasWidth(256)
                 .hasHeight(300)
                 .hasUrl(HTTP_LOCALHOST + imagePath);
+        verify(getRequestedFor(urlEqualTo(imagePath)).withHeader("Range", equalTo("bytes=0-32767")));
+        Mockito.verify(urlService, never()).asStream(anyString());
+    }
+
+    @Test
+    public void should_request_dimensions_of_an_image_only_once() throws IOException {
+        /* Given */
+        String imagePath = "/img/image.png";
+        stubFor(get(urlEqualTo(imagePath))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "image/png")
+                        .withBodyFile("img/image.png")));
+
+        /* When */
+        imageService.getCoverFromURL(HTTP_LOCALHOST + imagePath);
+        Cover cover = imageService.getCoverFromURL(HTTP_LOCALHOST + imagePath);
+
+        /* Then */
+        assertThat(cover).hasWidth(256).hasHeight(300);
+        Mockito.verify(urlService, times(1)).firstBytesOf(eq(HTTP_LOCALHOST + imagePath), anyInt());
+    }
+
+    @Test
+    public void should_use_dimensions_of_a_saved_cover() throws IOException {
+        /* Given */
+        String url = HTTP_LOCALHOST + "/img/image.png";
+        when(coverRepository.findFirstByUrlAndWidthNotNullAndHeightNotNull(url)).thenReturn(Cover.builder().url(url).width(100).height(200).build());
+
+        /* When */
+        Cover cover = imageService.getCoverFromURL(url);
+
+        /* Then */
+        assertThat(cover).hasWidth(100).hasHeight(200).hasUrl(url);
+        Mockito.verify(urlService, never()).firstBytesOf(anyString(), anyInt());
+    }
+
+    @Test
+    public void should_read_dimensions_from_header_of_images() {
+        /* Given */
+        byte[] gif = {'G', 'I', 'F', '8', '9', 'a', 0x2C, 0x01, (byte) 0xC8, 0x00};
+        byte[] jpeg = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0x00, 0x04, 0x00, 0x00,
+                (byte) 0xFF, (byte) 0xC0, 0x00, 0x11, 0x08, 0x00, (byte) 0xC8, 0x01, 0x2C, 0x03};
+
+        /* When */
+        Option<Tuple2<Integer, Integer>> gifDimensions = ImageService.dimensionsOf(gif);
+        Option<Tuple2<Integer, Integer>> jpegDimensions = ImageService.dimensionsOf(jpeg);
+        Option<Tuple2<Integer, Integer>> unknownDimensions = ImageService.dimensionsOf(new byte[]{'B', 'M', 0x00, 0x00});
+
+        /* Then */
+        Assertions.assertThat(gifDimensions).contains(Tuple.of(300, 200));
+        Assertions.assertThat(jpegDimensions).contains(Tuple.of(300, 200));
+        Assertions.assertThat(unknownDimensions).isEmpty();
     }
     
     @Test
@@ -7,6 +7,7 @@ import lan.dk.podcastserver.entity.*;
 import lan.dk.podcastserver.service.properties.PodcastServerParameters;
 import lan.dk.utils.IOUtils;
 import org.jdom2.Document;
+import org.jdom2.Namespace;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -14,6 +15,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.time.ZoneId;
@@ -153,7 +155,7 @@ public class JdomServiceTest {
     public void should_parse() throws IOException {
         /* Given */
         String url = "http://localhost:8181/a/valid.xml";
-        when(urlService.asStream(anyString())).then(i -> IOUtils.urlAsStream(i.getArgumentAt(0, String.class)));
+        when(urlService.fetch(anyString())).then(i -> new UrlService.Fetched(200, org.apache.commons.io.IOUtils.toByteArray(IOUtils.urlAsStream(i.getArgumentAt(0, String.class))), "signature", null, null));
         stubFor(get(urlEqualTo("/a/valid.xml"))
                 .willReturn(aResponse()
                         .withStatus(200)
@@ -164,7 +166,30 @@ public class JdomServiceTest {
 
         /* Then */
         assertThat(document.isDefined()).isTrue();
-        verify(urlService, only()).asStream(eq(url));
+        verify(urlService, only()).fetch(eq(url));
+    }
+
+    @Test
+    public void should_stream_entries() {
+        /* Given */
+        String xml = "<rss><channel><item><title>1</title></item><item><title>2</title></item></channel></rss>";
+
+        /* When */
+        List<String> titles = JdomService.entriesOf(new ByteArrayInputStream(xml.getBytes()), "item", Namespace.NO_NAMESPACE)
+                .map(e -> e.getChildText("title"))
+                .toList();
+
+        /* Then */
+        assertThat(titles).containsExactly("1", "2");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void should_raise_error_in_the_middle_of_the_stream() {
+        /* Given */
+        String xml = "<rss><channel><item><title>1</title></item><item><title>2</titl";
+
+        /* When */
+        JdomService.entriesOf(new ByteArrayInputStream(xml.getBytes()), "item", Namespace.NO_NAMESPACE).toList();
     }
 
     @Test
@@ -36,7 +36,7 @@ public class JsonServiceTest {
     @Test
     public void should_read_json_from_files() throws URISyntaxException, IOException {
         /* Given */
-        when(urlService.asReader(anyString())).thenReturn(IOUtils.fileAsReader("/remote/downloader/dailymotion/user.karimdebbache.json"));
+        when(urlService.fetch(anyString())).thenReturn(new UrlService.Fetched(200, IOUtils.fileAsString("/remote/downloader/dailymotion/user.karimdebbache.json").getBytes(), "signature", null, null));
 
         /* When */
         Option<DocumentContext> aFakeUrl = jsonService.parseUrl("http://foo.com/");
@@ -48,7 +48,7 @@ public class JsonServiceTest {
     @Test
     public void should_return_empty_if_error_during_parsing() throws IOException {
         /* Given */
-        doThrow(IOException.class).when(urlService).asReader(anyString());
+        doThrow(IOException.class).when(urlService).fetch(anyString());
 
         /* When */
         Option<DocumentContext> aFakeUrl = jsonService.parseUrl("http://foo.com/");
@@ -1,7 +1,10 @@
 package lan.dk.podcastserver.service;
 
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.request.GetRequest;
 import io.vavr.collection.List;
 import io.vavr.control.Option;
+import io.vavr.control.Try;
 import lan.dk.utils.IOUtils;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -99,4 +102,73 @@ public class M3U8ServiceTest {
         /* Then */
         assertThat(lastUrl).isNull();
     }
+
+    @Test
+    public void should_find_media_playlist_of_best_quality() {
+        /* Given */
+        String master = "http://a.custom.dom/video/master.m3u8";
+        String media = "http://a.custom.dom/video/high/media.m3u8";
+        stubPlaylist(master, "#EXTM3U\n" +
+                "#EXT-X-STREAM-INF:PROGRAM-ID=1,BANDWIDTH=100\n" +
+                "low/media.m3u8\n" +
+                "#EXT-X-STREAM-INF:PROGRAM-ID=1,BANDWIDTH=900\n" +
+                "high/media.m3u8\n");
+        stubPlaylist(media, "#EXTM3U\n" +
+                "#EXT-X-MAP:URI=\"init.mp4\"\n" +
+                "#EXTINF:10,\n" +
+                "seg1.m4s\n" +
+                "#EXTINF:10,\n" +
+                "/other/seg2.m4s?token=1\n" +
+                "#EXT-X-ENDLIST\n");
+        when(urlService.addDomainIfRelative(anyString(), anyString())).thenCallRealMethod();
+
+        /* When */
+        Option<M3U8Service.MediaPlaylist> playlist = m3U8Service.findMediaPlaylist(master, UrlService.USER_AGENT_DESKTOP);
+
+        /* Then */
+        assertThat(playlist.isDefined()).isTrue();
+        assertThat(playlist.get().isFragmentedMp4()).isTrue();
+        assertThat(playlist.get().getInit().get()).isEqualTo("http://a.custom.dom/video/high/init.mp4");
+        assertThat(playlist.get().getSegments()).containsExactly(
+                "http://a.custom.dom/video/high/seg1.m4s",
+                "http://a.custom.dom/other/seg2.m4s?token=1"
+        );
+        assertThat(playlist.get().getDuration()).isEqualTo(20d);
+    }
+
+    @Test
+    public void should_not_handle_live_playlist() {
+        /* Given */
+        String url = "http://a.custom.dom/live.m3u8";
+        stubPlaylist(url, "#EXTM3U\n#EXTINF:10,\nseg1.ts\n");
+
+        /* When */
+        Option<M3U8Service.MediaPlaylist> playlist = m3U8Service.findMediaPlaylist(url, UrlService.USER_AGENT_DESKTOP);
+
+        /* Then */
+        assertThat(playlist.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void should_not_handle_encrypted_playlist() {
+        /* Given */
+        String url = "http://a.custom.dom/encrypted.m3u8";
+        stubPlaylist(url, "#EXTM3U\n#EXT-X-KEY:METHOD=AES-128,URI=\"key\"\n#EXTINF:10,\nseg1.ts\n#EXT-X-ENDLIST\n");
+
+        /* When */
+        Option<M3U8Service.MediaPlaylist> playlist = m3U8Service.findMediaPlaylist(url, UrlService.USER_AGENT_DESKTOP);
+
+        /* Then */
+        assertThat(playlist.isEmpty()).isTrue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubPlaylist(String url, String content) {
+        GetRequest request = mock(GetRequest.class);
+        HttpResponse<String> response = mock(HttpResponse.class);
+        when(urlService.get(eq(url))).thenReturn(request);
+        when(request.header(anyString(), anyString())).thenReturn(request);
+        Try.run(() -> when(request.asString()).thenReturn(response));
+        when(response.getBody()).thenReturn(content);
+    }
 }
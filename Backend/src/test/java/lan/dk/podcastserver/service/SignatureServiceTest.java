@@ -1,20 +1,19 @@
 package lan.dk.podcastserver.service;
 
+import lan.dk.podcastserver.entity.Podcast;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.CounterService;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.StringReader;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.anyString;
-import static org.mockito.Mockito.doThrow;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 /**
  * Created by kevin on 04/09/15 for Podcast Server
@@ -22,15 +21,18 @@ import static org.mockito.Mockito.when;
 @RunWith(MockitoJUnitRunner.class)
 public class SignatureServiceTest {
 
+    private static final String URL = "http://foo.bar.com/rss.xml";
+
     @Mock
     UrlService urlService;
+    @Mock CounterService counterService;
     @InjectMocks SignatureService signatureService;
 
     @Test
     public void should_generate_md5_from_stream() throws IOException {
         /* Given */
         String stringStream = "azertyuiopqsdfghjklmwxcvbn";
-        when(urlService.asReader(anyString())).thenReturn(new BufferedReader(new StringReader(stringStream)));
+        when(urlService.fetch(anyString())).thenReturn(new UrlService.Fetched(200, stringStream.getBytes(), DigestUtils.md5Hex(stringStream), null, null));
 
         /* When */
         String s = signatureService.generateSignatureFromURL("");
@@ -42,7 +44,7 @@ public class SignatureServiceTest {
     @Test
     public void should_return_empty_string_if_error_during_connection() throws IOException {
         /* Given */
-        doThrow(IOException.class).when(urlService).asReader(anyString());
+        doThrow(IOException.class).when(urlService).fetch(anyString());
 
         /* When */
         String s = signatureService.generateSignatureFromURL("");
@@ -60,4 +62,112 @@ public class SignatureServiceTest {
         /* Then */
         assertThat(s).isEqualTo(DigestUtils.md5Hex(stringStream));
     }
+
+    @Test
+    public void should_be_unchanged_if_server_answers_not_modified() throws IOException {
+        /* Given */
+        Podcast podcast = new Podcast().setSignature("XYZ").setEtag("\"123\"").setLastModified("Sat, 17 Oct 2026 10:00:00 GMT");
+        when(urlService.fetch(URL, "\"123\"", "Sat, 17 Oct 2026 10:00:00 GMT")).thenReturn(new UrlService.Fetched(304, new byte[0], DigestUtils.md5Hex(""), null, null));
+
+        /* When */
+        SignatureService.Validators validators = signatureService.validate(podcast, URL);
+
+        /* Then */
+        assertThat(validators.getUnchanged()).isTrue();
+        assertThat(validators.getEtag()).isEqualTo("\"123\"");
+        assertThat(validators.getLastModified()).isEqualTo("Sat, 17 Oct 2026 10:00:00 GMT");
+        verify(counterService).increment(SignatureService.NOT_MODIFIED);
+    }
+
+    @Test
+    public void should_be_unchanged_if_content_is_the_same() throws IOException {
+        /* Given */
+        String content = "azertyuiopqsdfghjklmwxcvbn";
+        Podcast podcast = new Podcast().setSignature("XYZ").setContentLength(content.length()).setContentDigest(DigestUtils.md5Hex(content));
+        when(urlService.fetch(URL, null, null)).thenReturn(new UrlService.Fetched(200, content.getBytes(), DigestUtils.md5Hex(content), null, null));
+
+        /* When */
+        SignatureService.Validators validators = signatureService.validate(podcast, URL);
+
+        /* Then */
+        assertThat(validators.getUnchanged()).isTrue();
+        verify(counterService).increment(SignatureService.SAME_CONTENT);
+    }
+
+    @Test
+    public void should_be_changed_and_return_new_validators() throws IOException {
+        /* Given */
+        String content = "azertyuiopqsdfghjklmwxcvbn";
+        Podcast podcast = new Podcast().setSignature("XYZ").setEtag("\"123\"").setContentLength(3).setContentDigest(DigestUtils.md5Hex("foo"));
+        when(urlService.fetch(URL, "\"123\"", null)).thenReturn(new UrlService.Fetched(200, content.getBytes(), DigestUtils.md5Hex(content), "\"456\"", "Sat, 17 Oct 2026 10:00:00 GMT"));
+
+        /* When */
+        SignatureService.Validators validators = signatureService.validate(podcast, URL);
+
+        /* Then */
+        assertThat(validators.getUnchanged()).isFalse();
+        assertThat(validators.getEtag()).isEqualTo("\"456\"");
+        assertThat(validators.getLastModified()).isEqualTo("Sat, 17 Oct 2026 10:00:00 GMT");
+        assertThat(validators.getContentLength()).isEqualTo(content.length());
+        assertThat(validators.getContentDigest()).isEqualTo(DigestUtils.md5Hex(content));
+        assertThat(podcast.getEtag()).isEqualTo("\"123\"");
+        assertThat(podcast.getContentLength()).isEqualTo(3);
+        verify(counterService).increment(SignatureService.CHANGED);
+    }
+
+    @Test
+    public void should_not_send_validators_if_update_is_forced() throws IOException {
+        /* Given */
+        String content = "azertyuiopqsdfghjklmwxcvbn";
+        Podcast podcast = new Podcast().setSignature("").setEtag("\"123\"").setContentLength(content.length()).setContentDigest(DigestUtils.md5Hex(content));
+        when(urlService.fetch(URL)).thenReturn(new UrlService.Fetched(200, content.getBytes(), DigestUtils.md5Hex(content), "\"123\"", null));
+
+        /* When */
+        SignatureService.Validators validators = signatureService.validate(podcast, URL);
+
+        /* Then */
+        assertThat(validators.getUnchanged()).isFalse();
+        verify(urlService, never()).fetch(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void should_be_changed_if_error_during_validation() throws IOException {
+        /* Given */
+        Podcast podcast = new Podcast().setSignature("XYZ").setEtag("\"123\"");
+        doThrow(IOException.class).when(urlService).fetch(anyString(), anyString(), anyString());
+
+        /* When */
+        SignatureService.Validators validators = signatureService.validate(podcast, URL);
+
+        /* Then */
+        assertThat(validators).isSameAs(SignatureService.Validators.NONE);
+        verifyZeroInteractions(counterService);
+    }
+
+    @Test
+    public void should_apply_validators_to_podcast() {
+        /* Given */
+        Podcast podcast = new Podcast().setEtag("\"123\"").setContentLength(3);
+        SignatureService.Validators validators = new SignatureService.Validators(false, "\"456\"", null, 26, "digest");
+
+        /* When */
+        validators.applyTo(podcast);
+
+        /* Then */
+        assertThat(podcast.getEtag()).isEqualTo("\"456\"");
+        assertThat(podcast.getContentLength()).isEqualTo(26);
+        assertThat(podcast.getContentDigest()).isEqualTo("digest");
+    }
+
+    @Test
+    public void should_not_apply_missing_validators() {
+        /* Given */
+        Podcast podcast = new Podcast().setEtag("\"123\"");
+
+        /* When */
+        SignatureService.Validators.NONE.applyTo(podcast);
+
+        /* Then */
+        assertThat(podcast.getEtag()).isEqualTo("\"123\"");
+    }
 }
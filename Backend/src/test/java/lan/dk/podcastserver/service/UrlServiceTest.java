@@ -3,14 +3,19 @@ package lan.dk.podcastserver.service;
 import com.github.tomakehurst.wiremock.junit.WireMockRule;
 import com.mashape.unirest.request.GetRequest;
 import com.mashape.unirest.request.HttpRequestWithBody;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static io.vavr.API.Try;
 import static java.util.stream.Collectors.joining;
 import static lan.dk.podcastserver.service.UrlService.USER_AGENT_DESKTOP;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -86,7 +91,7 @@ public class UrlServiceTest {
                         .withHeader("Content-Type", "application/x-mpegURL")));
 
         /* When */
-        String lastUrl = urlService.getRealURL(host("/my/ressources1.m3u8"), c -> c.setRequestProperty("User-Agent", USER_AGENT_DESKTOP));
+        String lastUrl = urlService.getRealURL(host("/my/ressources1.m3u8"), r -> r.setHeader("User-Agent", USER_AGENT_DESKTOP));
         /* Then */
         assertThat(lastUrl).isEqualTo(host("/my/ressources3.m3u8"));
     }
@@ -102,11 +107,103 @@ public class UrlServiceTest {
                         .withHeader("Content-Type", "application/x-mpegURL")));
 
         /* When */
-        String lastUrl = urlService.getRealURL(host("/my/ressources1.m3u8"), c -> c.setRequestProperty("User-Agent", USER_AGENT_DESKTOP));
+        String lastUrl = urlService.getRealURL(host("/my/ressources1.m3u8"), r -> r.setHeader("User-Agent", USER_AGENT_DESKTOP));
         /* Then */
         assertThat(lastUrl).isEqualTo(host("/my/ressources3.m3u8"));
     }
     
+    @Test
+    public void should_resolve_known_redirections_without_request() {
+        /* Given */
+        doRedirection("/my/ressources1.m3u8", host("/my/ressources2.m3u8"));
+        stubFor(get(urlEqualTo("/my/ressources2.m3u8"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/x-mpegURL")));
+
+        /* When */
+        String first = urlService.getRealURL(host("/my/ressources1.m3u8"));
+        String second = urlService.getRealURL(host("/my/ressources1.m3u8"));
+
+        /* Then */
+        assertThat(first).isEqualTo(host("/my/ressources2.m3u8"));
+        assertThat(second).isEqualTo(host("/my/ressources2.m3u8"));
+        assertThat(urlService.numberOfCachedRedirections()).isEqualTo(2);
+        verify(1, getRequestedFor(urlEqualTo("/my/ressources1.m3u8")));
+        verify(1, getRequestedFor(urlEqualTo("/my/ressources2.m3u8")));
+    }
+
+    @Test
+    public void should_keep_redirections_by_headers_of_the_request() {
+        /* Given */
+        stubFor(get(urlEqualTo("/my/ressources1.m3u8")).withHeader("User-Agent", equalTo(USER_AGENT_DESKTOP))
+                .willReturn(aResponse().withStatus(301).withHeader("Location", host("/my/desktop.m3u8"))));
+        stubFor(get(urlEqualTo("/my/ressources1.m3u8")).withHeader("User-Agent", equalTo(UrlService.USER_AGENT_MOBILE))
+                .willReturn(aResponse().withStatus(301).withHeader("Location", host("/my/mobile.m3u8"))));
+        stubFor(get(urlMatching("/my/(desktop|mobile).m3u8")).willReturn(aResponse().withStatus(200)));
+
+        /* When */
+        String desktop = urlService.getRealURL(host("/my/ressources1.m3u8"), r -> r.setHeader("User-Agent", USER_AGENT_DESKTOP));
+        String mobile = urlService.getRealURL(host("/my/ressources1.m3u8"), r -> r.setHeader("User-Agent", UrlService.USER_AGENT_MOBILE));
+
+        /* Then */
+        assertThat(desktop).isEqualTo(host("/my/desktop.m3u8"));
+        assertThat(mobile).isEqualTo(host("/my/mobile.m3u8"));
+        verify(2, getRequestedFor(urlEqualTo("/my/ressources1.m3u8")));
+    }
+
+    @Test
+    public void should_close_connections_of_the_pool() {
+        /* Given */
+        stubFor(get(urlEqualTo("/my/ressources1.m3u8")).willReturn(aResponse().withStatus(200).withBody("foo")));
+        Try(() -> urlService.fetch(host("/my/ressources1.m3u8")));
+
+        /* When */
+        urlService.close();
+
+        /* Then */
+        assertThat(Try(() -> urlService.getRange(host("/my/ressources1.m3u8"), 0, null, 1000)).isFailure()).isTrue();
+    }
+
+    @Test
+    public void should_not_keep_temporary_redirections() {
+        /* Given */
+        stubFor(get(urlEqualTo("/my/ressources1.m3u8"))
+                .willReturn(aResponse()
+                        .withStatus(302)
+                        .withHeader("Location", host("/my/ressources2.m3u8?signature=1"))));
+        stubFor(get(urlEqualTo("/my/ressources2.m3u8?signature=1"))
+                .willReturn(aResponse().withStatus(200)));
+
+        /* When */
+        urlService.getRealURL(host("/my/ressources1.m3u8"));
+        String second = urlService.getRealURL(host("/my/ressources1.m3u8"));
+
+        /* Then */
+        assertThat(second).isEqualTo(host("/my/ressources2.m3u8?signature=1"));
+        verify(2, getRequestedFor(urlEqualTo("/my/ressources1.m3u8")));
+    }
+
+    @Test
+    public void should_keep_temporary_redirections_as_long_as_allowed_by_the_server() {
+        /* Given */
+        stubFor(get(urlEqualTo("/my/ressources1.m3u8"))
+                .willReturn(aResponse()
+                        .withStatus(307)
+                        .withHeader("Cache-Control", "public, max-age=60")
+                        .withHeader("Location", host("/my/ressources2.m3u8"))));
+        stubFor(get(urlEqualTo("/my/ressources2.m3u8"))
+                .willReturn(aResponse().withStatus(200)));
+
+        /* When */
+        urlService.getRealURL(host("/my/ressources1.m3u8"));
+        String second = urlService.getRealURL(host("/my/ressources1.m3u8"));
+
+        /* Then */
+        assertThat(second).isEqualTo(host("/my/ressources2.m3u8"));
+        verify(1, getRequestedFor(urlEqualTo("/my/ressources1.m3u8")));
+    }
+
     @Test(expected = RuntimeException.class)
     public void should_recject_after_too_many_redirection() {
         /* Given */
@@ -142,6 +239,125 @@ public class UrlServiceTest {
         assertThat(br.lines().collect(joining())).isEqualTo("A body for testing");
     }
 
+    @Test
+    public void should_fetch_url_with_its_signature() throws IOException {
+        /* Given */
+        stubFor(get(urlEqualTo("/file.txt"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withBody("A body for testing")
+                )
+        );
+
+        /* When */
+        UrlService.Fetched fetched = urlService.fetch(HTTP_LOCALHOST + "/file.txt");
+
+        /* Then */
+        assertThat(fetched.getStatus()).isEqualTo(200);
+        assertThat(fetched.asReader().lines().collect(joining())).isEqualTo("A body for testing");
+        assertThat(fetched.getSignature()).isEqualTo(DigestUtils.md5Hex("A body for testing"));
+    }
+
+    @Test
+    public void should_fetch_url_only_once_in_a_fetching_context() {
+        /* Given */
+        stubFor(get(urlEqualTo("/file.txt"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withBody("A body for testing")
+                )
+        );
+
+        /* When */
+        UrlService.Fetched fetched = UrlService.fetchingOnce(() -> {
+            UrlService.Fetched first = Try(() -> urlService.fetch(HTTP_LOCALHOST + "/file.txt")).get();
+            UrlService.Fetched second = Try(() -> urlService.fetch(HTTP_LOCALHOST + "/file.txt")).get();
+            assertThat(second).isSameAs(first);
+            return second;
+        });
+        Try(() -> urlService.fetch(HTTP_LOCALHOST + "/file.txt")).get();
+
+        /* Then */
+        assertThat(fetched.getSignature()).isEqualTo(DigestUtils.md5Hex("A body for testing"));
+        verify(2, getRequestedFor(urlEqualTo("/file.txt")));
+    }
+
+    @Test
+    public void should_fetch_again_an_url_in_error_in_a_fetching_context() {
+        /* Given */
+        stubFor(get(urlEqualTo("/file.txt"))
+                .willReturn(aResponse()
+                        .withStatus(503)
+                        .withBody("Unavailable")
+                )
+        );
+
+        /* When */
+        UrlService.Fetched fetched = UrlService.fetchingOnce(() -> {
+            Try(() -> urlService.fetch(HTTP_LOCALHOST + "/file.txt")).get();
+            return Try(() -> urlService.fetch(HTTP_LOCALHOST + "/file.txt")).get();
+        });
+
+        /* Then */
+        assertThat(fetched.getStatus()).isEqualTo(503);
+        assertThat(fetched.isSuccessful()).isFalse();
+        verify(2, getRequestedFor(urlEqualTo("/file.txt")));
+    }
+
+    @Test
+    public void should_share_fetching_context_with_other_threads() throws Exception {
+        /* Given */
+        stubFor(get(urlEqualTo("/file.txt"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withBody("A body for testing")
+                )
+        );
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        /* When */
+        UrlService.Fetched fromOtherThread = UrlService.fetchingOnce(() -> {
+            UrlService.Fetched first = Try(() -> urlService.fetch(HTTP_LOCALHOST + "/file.txt")).get();
+            Supplier<UrlService.Fetched> fetch = UrlService.withFetchingContext(() -> Try(() -> urlService.fetch(HTTP_LOCALHOST + "/file.txt")).get());
+            UrlService.Fetched second = Try(() -> executor.submit(fetch::get).get()).get();
+            assertThat(second).isSameAs(first);
+            return second;
+        });
+        executor.shutdown();
+
+        /* Then */
+        assertThat(fromOtherThread.getSignature()).isEqualTo(DigestUtils.md5Hex("A body for testing"));
+        verify(1, getRequestedFor(urlEqualTo("/file.txt")));
+    }
+
+    @Test
+    public void should_send_validators_and_not_keep_not_modified_response() throws IOException {
+        /* Given */
+        stubFor(get(urlEqualTo("/file.txt"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("ETag", "\"123\"")
+                        .withHeader("Last-Modified", "Sat, 17 Oct 2026 10:00:00 GMT")
+                        .withBody("A body for testing")
+                )
+        );
+        stubFor(get(urlEqualTo("/file.txt"))
+                .withHeader("If-None-Match", equalTo("\"123\""))
+                .willReturn(aResponse().withStatus(304))
+        );
+
+        /* When */
+        UrlService.Fetched notModified = UrlService.fetchingOnce(() -> Try(() -> urlService.fetch(HTTP_LOCALHOST + "/file.txt", "\"123\"", null)).get());
+        UrlService.Fetched fetched = urlService.fetch(HTTP_LOCALHOST + "/file.txt");
+
+        /* Then */
+        assertThat(notModified.isNotModified()).isTrue();
+        assertThat(notModified.length()).isEqualTo(0);
+        assertThat(fetched.isNotModified()).isFalse();
+        assertThat(fetched.getEtag()).isEqualTo("\"123\"");
+        assertThat(fetched.getLastModified()).isEqualTo("Sat, 17 Oct 2026 10:00:00 GMT");
+    }
+
     @Test
     public void should_not_add_protocol_to_url() {
         /* GIVEN */
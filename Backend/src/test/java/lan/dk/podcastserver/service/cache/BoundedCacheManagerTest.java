@@ -0,0 +1,56 @@
+package lan.dk.podcastserver.service.cache;
+
+import lan.dk.podcastserver.service.properties.Caches;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.Cache;
+
+import java.time.Clock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+public class BoundedCacheManagerTest {
+
+    private Caches caches;
+    private BoundedCacheManager cacheManager;
+
+    @Before
+    public void beforeEach() {
+        caches = new Caches();
+        caches.getSpecs().put("podcasts", new Caches.Limits().setMaximumSize(10L).setTimeToLive(60L));
+        cacheManager = new BoundedCacheManager(caches, v -> 1L, Clock.systemUTC());
+    }
+
+    @Test
+    public void should_create_cache_with_its_limits() {
+        /* When */
+        Cache podcasts = cacheManager.getCache("podcasts");
+
+        /* Then */
+        assertThat(podcasts).isInstanceOf(BoundedCache.class);
+        assertThat(((BoundedCache) podcasts).stats()).extracting("maximumSize", "timeToLive").containsExactly(10L, 60L);
+    }
+
+    @Test
+    public void should_create_cache_with_default_limits() {
+        /* When */
+        Cache types = cacheManager.getCache("types");
+
+        /* Then */
+        assertThat(((BoundedCache) types).stats()).extracting("maximumSize", "timeToLive").containsExactly(1000L, 0L);
+    }
+
+    @Test
+    public void should_return_the_same_cache_for_a_name() {
+        /* When */
+        Cache first = cacheManager.getCache("search");
+        Cache second = cacheManager.getCache("search");
+
+        /* Then */
+        assertThat(first).isSameAs(second);
+        assertThat(cacheManager.getCacheNames()).containsOnly("search");
+    }
+}
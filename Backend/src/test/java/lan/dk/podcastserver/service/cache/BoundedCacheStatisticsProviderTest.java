@@ -0,0 +1,34 @@
+package lan.dk.podcastserver.service.cache;
+
+import lan.dk.podcastserver.service.properties.Caches;
+import org.junit.Test;
+import org.springframework.boot.actuate.cache.CacheStatistics;
+
+import java.time.Clock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+public class BoundedCacheStatisticsProviderTest {
+
+    private BoundedCacheStatisticsProvider provider = new BoundedCacheStatisticsProvider();
+
+    @Test
+    public void should_provide_size_and_hit_ratio() {
+        /* Given */
+        BoundedCache cache = new BoundedCache("search", new Caches.Limits(), v -> 1L, Clock.systemUTC());
+        cache.put("first", 1);
+        cache.get("first");
+        cache.get("second");
+
+        /* When */
+        CacheStatistics statistics = provider.getCacheStatistics(null, cache);
+
+        /* Then */
+        assertThat(statistics.getSize()).isEqualTo(1L);
+        assertThat(statistics.getHitRatio()).isEqualTo(0.5D);
+        assertThat(statistics.getMissRatio()).isEqualTo(0.5D);
+    }
+}
@@ -0,0 +1,214 @@
+package lan.dk.podcastserver.service.cache;
+
+import lan.dk.podcastserver.service.properties.Caches;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.cache.Cache;
+
+import java.time.Clock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class BoundedCacheTest {
+
+    @Mock Clock clock;
+    private Caches.Limits limits;
+
+    @Before
+    public void beforeEach() {
+        limits = new Caches.Limits().setMaximumSize(2L).setMaximumWeight(0L).setTimeToLive(0L);
+        when(clock.millis()).thenReturn(0L);
+    }
+
+    @Test
+    public void should_get_value_put_in_cache() {
+        /* Given */
+        BoundedCache cache = new BoundedCache("search", limits, v -> 1L, clock);
+
+        /* When */
+        cache.put("foo", "bar");
+        cache.put("empty", null);
+
+        /* Then */
+        assertThat(cache.getName()).isEqualTo("search");
+        assertThat(cache.get("foo", String.class)).isEqualTo("bar");
+        assertThat(cache.get("empty").get()).isNull();
+        assertThat(cache.get("other")).isNull();
+        assertThat(cache.stats()).extracting("size", "hits", "misses").containsExactly(2L, 2L, 1L);
+    }
+
+    @Test
+    public void should_evict_least_recently_used_entry() {
+        /* Given */
+        BoundedCache cache = new BoundedCache("search", limits, v -> 1L, clock);
+        cache.put("first", 1);
+        cache.put("second", 2);
+        cache.get("first");
+
+        /* When */
+        cache.put("third", 3);
+
+        /* Then */
+        assertThat(cache.get("first")).isNotNull();
+        assertThat(cache.get("second")).isNull();
+        assertThat(cache.get("third")).isNotNull();
+        assertThat(cache.stats().getEvictions()).isEqualTo(1L);
+    }
+
+    @Test
+    public void should_evict_entries_until_weight_fits() {
+        /* Given */
+        limits.setMaximumSize(0L).setMaximumWeight(10L);
+        BoundedCache cache = new BoundedCache("search", limits, v -> ((String) v).length(), clock);
+        cache.put("first", "12345");
+        cache.put("second", "1234");
+
+        /* When */
+        cache.put("third", "123");
+
+        /* Then */
+        assertThat(cache.get("first")).isNull();
+        assertThat(cache.stats()).extracting("size", "weight", "evictions").containsExactly(2L, 7L, 1L);
+    }
+
+    @Test
+    public void should_not_keep_entry_heavier_than_the_limit() {
+        /* Given */
+        limits.setMaximumWeight(3L);
+        BoundedCache cache = new BoundedCache("search", limits, v -> ((String) v).length(), clock);
+
+        /* When */
+        cache.put("first", "12345");
+
+        /* Then */
+        assertThat(cache.get("first")).isNull();
+        assertThat(cache.stats()).extracting("size", "weight", "evictions").containsExactly(0L, 0L, 1L);
+    }
+
+    @Test
+    public void should_expire_entries_after_time_to_live() {
+        /* Given */
+        limits.setTimeToLive(60L);
+        BoundedCache cache = new BoundedCache("search", limits, v -> 1L, clock);
+        cache.put("first", 1);
+
+        /* When */
+        when(clock.millis()).thenReturn(59_999L);
+        Cache.ValueWrapper beforeExpiration = cache.get("first");
+        when(clock.millis()).thenReturn(60_000L);
+        Cache.ValueWrapper afterExpiration = cache.get("first");
+
+        /* Then */
+        assertThat(beforeExpiration).isNotNull();
+        assertThat(afterExpiration).isNull();
+        assertThat(cache.stats()).extracting("size", "expirations").containsExactly(0L, 1L);
+    }
+
+    @Test
+    public void should_drop_expired_entries_least_recently_used_on_put() {
+        /* Given */
+        limits.setMaximumSize(10L).setTimeToLive(60L);
+        BoundedCache cache = new BoundedCache("search", limits, v -> 1L, clock);
+        cache.put("first", 1);
+        when(clock.millis()).thenReturn(30_000L);
+        cache.put("second", 2);
+
+        /* When */
+        when(clock.millis()).thenReturn(60_000L);
+        cache.put("third", 3);
+
+        /* Then */
+        assertThat(cache.stats()).extracting("size", "expirations", "evictions").containsExactly(2L, 1L, 0L);
+        assertThat(cache.get("second")).isNotNull();
+    }
+
+    @Test
+    public void should_load_value_if_missing() {
+        /* Given */
+        BoundedCache cache = new BoundedCache("search", limits, v -> 1L, clock);
+        cache.put("first", "cached");
+
+        /* When */
+        String cached = cache.get("first", () -> "loaded");
+        String loaded = cache.get("second", () -> "loaded");
+
+        /* Then */
+        assertThat(cached).isEqualTo("cached");
+        assertThat(loaded).isEqualTo("loaded");
+        assertThat(cache.get("second", String.class)).isEqualTo("loaded");
+    }
+
+    @Test
+    public void should_wrap_error_during_loading() {
+        /* Given */
+        BoundedCache cache = new BoundedCache("search", limits, v -> 1L, clock);
+
+        /* When */
+        assertThatThrownBy(() -> cache.get("first", () -> { throw new IllegalStateException(); }))
+        /* Then */
+                .isInstanceOf(Cache.ValueRetrievalException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void should_put_only_if_absent() {
+        /* Given */
+        BoundedCache cache = new BoundedCache("search", limits, v -> 1L, clock);
+        cache.put("first", 1);
+
+        /* When */
+        Cache.ValueWrapper existing = cache.putIfAbsent("first", 2);
+        Cache.ValueWrapper absent = cache.putIfAbsent("second", 3);
+
+        /* Then */
+        assertThat(existing.get()).isEqualTo(1);
+        assertThat(absent).isNull();
+        assertThat(cache.get("second", Integer.class)).isEqualTo(3);
+    }
+
+    @Test
+    public void should_evict_and_clear() {
+        /* Given */
+        limits.setMaximumWeight(100L);
+        BoundedCache cache = new BoundedCache("search", limits, v -> 10L, clock);
+        cache.put("first", 1);
+        cache.put("second", 2);
+
+        /* When */
+        cache.evict("first");
+        long weightAfterEviction = cache.stats().getWeight();
+        cache.clear();
+
+        /* Then */
+        assertThat(weightAfterEviction).isEqualTo(10L);
+        assertThat(cache.stats()).extracting("size", "weight").containsExactly(0L, 0L);
+        assertThat(cache.getNativeCache()).isNotNull();
+    }
+
+    @Test
+    public void should_compute_hit_ratio() {
+        /* Given */
+        BoundedCache cache = new BoundedCache("search", limits, v -> 1L, clock);
+        double ratioWithoutRead = cache.stats().getHitRatio();
+        cache.put("first", 1);
+
+        /* When */
+        cache.get("first");
+        cache.get("first");
+        cache.get("first");
+        cache.get("second");
+
+        /* Then */
+        assertThat(ratioWithoutRead).isEqualTo(0D);
+        assertThat(cache.stats().getHitRatio()).isEqualTo(0.75D);
+    }
+}
@@ -0,0 +1,50 @@
+package lan.dk.podcastserver.service.cache;
+
+import lan.dk.podcastserver.entity.Item;
+import lan.dk.podcastserver.entity.Podcast;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+public class JsonWeigherTest {
+
+    private JsonWeigher weigher = new JsonWeigher();
+
+    @Test
+    public void should_weigh_value_by_the_size_of_its_json() {
+        /* When */
+        long weight = weigher.applyAsLong("foo");
+
+        /* Then */
+        assertThat(weight).isEqualTo(5L);
+    }
+
+    @Test
+    public void should_weigh_entities() {
+        /* Given */
+        Item item = new Item().setTitle("Title").setUrl("http://foo.bar/item.mp3").setPodcast(new Podcast().setTitle("Podcast"));
+
+        /* When */
+        long weight = weigher.applyAsLong(item);
+
+        /* Then */
+        assertThat(weight).isGreaterThan(0L);
+    }
+
+    @Test
+    public void should_weigh_nothing_if_value_can_not_be_serialized() {
+        /* Given */
+        Object loop = new Object() {
+            public Object getSelf() { return this; }
+        };
+
+        /* When */
+        long weight = weigher.applyAsLong(loop);
+
+        /* Then */
+        assertThat(weight).isEqualTo(0L);
+    }
+}
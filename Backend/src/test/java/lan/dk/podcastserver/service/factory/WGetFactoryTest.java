@@ -72,7 +72,7 @@ public class WGetFactoryTest {
         DownloadInfo downloadInfo = wGetFactory.newDownloadInfo(url);
 
         /* Then */
-        assertThat(downloadInfo).isNotNull().isInstanceOf(DownloadInfo.class);
+        assertThat(downloadInfo).isNotNull().isInstanceOf(ResumableDownloadInfo.class);
     }
 
 }
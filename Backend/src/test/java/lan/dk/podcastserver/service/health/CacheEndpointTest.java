@@ -0,0 +1,35 @@
+package lan.dk.podcastserver.service.health;
+
+import lan.dk.podcastserver.service.cache.BoundedCache;
+import lan.dk.podcastserver.service.cache.BoundedCacheManager;
+import lan.dk.podcastserver.service.properties.Caches;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+public class CacheEndpointTest {
+
+    @Test
+    public void should_expose_stats_of_each_cache() {
+        /* Given */
+        BoundedCacheManager cacheManager = new BoundedCacheManager(new Caches(), v -> 1L, Clock.systemUTC());
+        cacheManager.getCache("search").put("first", 1);
+        cacheManager.getCache("podcasts").get("first");
+        CacheEndpoint endpoint = new CacheEndpoint(cacheManager);
+
+        /* When */
+        Map<String, BoundedCache.Stats> stats = endpoint.invoke();
+
+        /* Then */
+        assertThat(endpoint.getId()).isEqualTo("caches");
+        assertThat(stats).containsOnlyKeys("search", "podcasts");
+        assertThat(stats.get("search").getSize()).isEqualTo(1L);
+        assertThat(stats.get("podcasts").getMisses()).isEqualTo(1L);
+    }
+}
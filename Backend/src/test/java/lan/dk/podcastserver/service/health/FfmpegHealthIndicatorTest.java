@@ -0,0 +1,49 @@
+package lan.dk.podcastserver.service.health;
+
+import lan.dk.podcastserver.utils.custom.ffmpeg.CustomRunProcessFunc;
+import lan.dk.podcastserver.utils.custom.ffmpeg.ProcessJob;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.Collections;
+
+import static io.vavr.API.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.when;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class FfmpegHealthIndicatorTest {
+
+    @Mock CustomRunProcessFunc runProcessFunc;
+    @InjectMocks FfmpegHealthIndicator ffmpegHealthIndicator;
+
+    @Test
+    public void should_generate_health_information() {
+        /* Given */
+        ProcessJob.Stats first = new ProcessJob.Stats(1L, "first", 10L, 0, 1000L);
+        ProcessJob.Stats second = new ProcessJob.Stats(2L, "second", 30L, 1, 2000L);
+        when(runProcessFunc.running()).thenReturn(List());
+        when(runProcessFunc.history()).thenReturn(List(first, second));
+
+        /* When */
+        Health health = ffmpegHealthIndicator.health();
+
+        /* Then */
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).contains(
+                entry("running", Collections.emptyList()),
+                entry("averageSpawnLatency", 20L),
+                entry("failures", 1),
+                entry("lastJobs", List(first, second).toJavaList())
+        );
+    }
+}
@@ -0,0 +1,54 @@
+package lan.dk.podcastserver.service.health;
+
+import lan.dk.podcastserver.service.FfmpegService;
+import lan.dk.podcastserver.utils.custom.ffmpeg.CustomRunProcessFunc;
+import lan.dk.podcastserver.utils.custom.ffmpeg.ProcessJob;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.Collection;
+
+import static io.vavr.API.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.when;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class FfmpegJobMetricsTest {
+
+    @Mock FfmpegService ffmpegService;
+    @Mock CustomRunProcessFunc runProcessFunc;
+    @InjectMocks FfmpegJobMetrics ffmpegJobMetrics;
+
+    @Test
+    public void should_expose_usage_of_the_pool_of_jobs() {
+        /* Given */
+        ProcessJob.Stats first = new ProcessJob.Stats(1L, "first", 10L, 0, 1000L);
+        ProcessJob.Stats second = new ProcessJob.Stats(2L, "second", 30L, 1, 2000L);
+        when(ffmpegService.activeJobs()).thenReturn(2);
+        when(ffmpegService.queuedJobs()).thenReturn(1);
+        when(ffmpegService.maxJobs()).thenReturn(12);
+        when(runProcessFunc.running()).thenReturn(List(first));
+        when(runProcessFunc.history()).thenReturn(List(first, second));
+
+        /* When */
+        Collection<Metric<?>> metrics = ffmpegJobMetrics.metrics();
+
+        /* Then */
+        assertThat(metrics).extracting(Metric::getName, m -> m.getValue().intValue()).containsOnly(
+                tuple("ffmpeg.jobs.active", 2),
+                tuple("ffmpeg.jobs.queued", 1),
+                tuple("ffmpeg.jobs.max", 12),
+                tuple("ffmpeg.jobs.running", 1),
+                tuple("ffmpeg.jobs.failures", 1),
+                tuple("ffmpeg.jobs.spawn.latency", 20)
+        );
+    }
+}
@@ -0,0 +1,45 @@
+package lan.dk.podcastserver.service.health;
+
+import lan.dk.podcastserver.service.UrlService;
+import org.apache.http.pool.PoolStats;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.when;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class HttpClientMetricsTest {
+
+    @Mock UrlService urlService;
+    @InjectMocks HttpClientMetrics httpClientMetrics;
+
+    @Test
+    public void should_expose_usage_of_the_pool_of_connections() {
+        /* Given */
+        when(urlService.poolStats()).thenReturn(new PoolStats(2, 1, 3, 100));
+        when(urlService.numberOfCachedRedirections()).thenReturn(12);
+
+        /* When */
+        Collection<Metric<?>> metrics = httpClientMetrics.metrics();
+
+        /* Then */
+        assertThat(metrics).extracting(Metric::getName, m -> m.getValue().intValue()).containsOnly(
+                tuple("httpclient.pool.leased", 2),
+                tuple("httpclient.pool.pending", 1),
+                tuple("httpclient.pool.available", 3),
+                tuple("httpclient.pool.max", 100),
+                tuple("httpclient.redirections.cached", 12)
+        );
+    }
+}
@@ -0,0 +1,54 @@
+package lan.dk.podcastserver.service.health;
+
+import lan.dk.podcastserver.manager.SearchCache;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.when;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SearchCacheMetricsTest {
+
+    @Mock SearchCache searchCache;
+    @InjectMocks SearchCacheMetrics searchCacheMetrics;
+
+    @Test
+    public void should_expose_hit_ratio_of_the_search_cache() {
+        /* Given */
+        when(searchCache.generation()).thenReturn(7L);
+        when(searchCache.hits()).thenReturn(3L);
+        when(searchCache.misses()).thenReturn(1L);
+
+        /* When */
+        Collection<Metric<?>> metrics = searchCacheMetrics.metrics();
+
+        /* Then */
+        assertThat(metrics).extracting(Metric::getName, m -> m.getValue().doubleValue()).containsOnly(
+                tuple("search.cache.generation", 7D),
+                tuple("search.cache.hit", 3D),
+                tuple("search.cache.miss", 1D),
+                tuple("search.cache.hit.ratio", 0.75D)
+        );
+    }
+
+    @Test
+    public void should_have_no_hit_ratio_before_any_search() {
+        /* When */
+        Collection<Metric<?>> metrics = searchCacheMetrics.metrics();
+
+        /* Then */
+        assertThat(metrics).extracting(Metric::getName, m -> m.getValue().doubleValue())
+                .contains(tuple("search.cache.hit.ratio", 0D));
+    }
+}
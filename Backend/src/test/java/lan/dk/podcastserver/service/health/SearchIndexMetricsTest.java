@@ -0,0 +1,47 @@
+package lan.dk.podcastserver.service.health;
+
+import lan.dk.podcastserver.manager.SearchIndexer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.when;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SearchIndexMetricsTest {
+
+    @Mock SearchIndexer searchIndexer;
+    @InjectMocks SearchIndexMetrics searchIndexMetrics;
+
+    @Test
+    public void should_expose_progress_of_the_rebuild() {
+        /* Given */
+        SearchIndexer.Progress progress = new SearchIndexer.Progress();
+        progress.addToTotalCount(200);
+        progress.entitiesLoaded(150);
+        progress.documentsAdded(100);
+        when(searchIndexer.progress()).thenReturn(progress);
+        when(searchIndexer.isRebuilding()).thenReturn(true);
+
+        /* When */
+        Collection<Metric<?>> metrics = searchIndexMetrics.metrics();
+
+        /* Then */
+        assertThat(metrics).extracting(Metric::getName, m -> m.getValue().longValue()).containsOnly(
+                tuple("search.index.rebuilding", 1L),
+                tuple("search.index.rebuild.total", 200L),
+                tuple("search.index.rebuild.loaded", 150L),
+                tuple("search.index.rebuild.added", 100L)
+        );
+    }
+}
@@ -0,0 +1,75 @@
+package lan.dk.podcastserver.service.properties;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalTime;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+public class BandwidthTest {
+
+    private Bandwidth bandwidth;
+
+    @Before
+    public void beforeEach() {
+        bandwidth = new Bandwidth();
+    }
+
+    @Test
+    public void should_have_default_value() {
+        /* Given */
+        /* When */
+        /* Then */
+        assertThat(bandwidth.getLimit()).isEqualTo(0L);
+        assertThat(bandwidth.getLimitByDownload()).isEqualTo(0L);
+        assertThat(bandwidth.getProfiles()).isEmpty();
+    }
+
+    @Test
+    public void should_have_specified_values() {
+        /* Given */
+        Bandwidth.Profile night = new Bandwidth.Profile().setFrom(LocalTime.of(1, 0)).setTo(LocalTime.of(7, 0)).setLimit(0L);
+
+        /* When */
+        bandwidth
+                .setLimit(1024L)
+                .setLimitByDownload(512L)
+                .setProfiles(singletonList(night));
+
+        /* Then */
+        assertThat(bandwidth.getLimit()).isEqualTo(1024L);
+        assertThat(bandwidth.getLimitByDownload()).isEqualTo(512L);
+        assertThat(bandwidth.getProfiles()).containsExactly(night);
+    }
+
+    @Test
+    public void should_contain_time_of_a_profile_in_the_day() {
+        /* Given */
+        Bandwidth.Profile profile = new Bandwidth.Profile().setFrom(LocalTime.of(9, 0)).setTo(LocalTime.of(18, 0));
+
+        /* When */
+        /* Then */
+        assertThat(profile.contains(LocalTime.of(9, 0))).isTrue();
+        assertThat(profile.contains(LocalTime.of(12, 30))).isTrue();
+        assertThat(profile.contains(LocalTime.of(18, 0))).isFalse();
+        assertThat(profile.contains(LocalTime.of(8, 59))).isFalse();
+    }
+
+    @Test
+    public void should_contain_time_of_a_profile_over_midnight() {
+        /* Given */
+        Bandwidth.Profile profile = new Bandwidth.Profile().setFrom(LocalTime.of(22, 0)).setTo(LocalTime.of(6, 0));
+
+        /* When */
+        /* Then */
+        assertThat(profile.contains(LocalTime.of(23, 0))).isTrue();
+        assertThat(profile.contains(LocalTime.of(2, 0))).isTrue();
+        assertThat(profile.contains(LocalTime.of(6, 0))).isFalse();
+        assertThat(profile.contains(LocalTime.of(12, 0))).isFalse();
+    }
+}
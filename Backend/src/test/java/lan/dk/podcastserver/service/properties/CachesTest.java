@@ -0,0 +1,44 @@
+package lan.dk.podcastserver.service.properties;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Created by kevin on 17/10/2026 for Podcast Server
+ */
+public class CachesTest {
+
+    private Caches caches;
+
+    @Before
+    public void beforeEach() {
+        caches = new Caches();
+    }
+
+    @Test
+    public void should_have_default_value() {
+        /* Given */
+        /* When */
+        /* Then */
+        assertThat(caches.getDefaults()).extracting("maximumSize", "maximumWeight", "timeToLive").containsExactly(1000L, 0L, 0L);
+        assertThat(caches.of("search")).extracting("maximumSize", "maximumWeight", "timeToLive").containsExactly(200L, 33554432L, 3600L);
+        assertThat(caches.of("podcasts")).isSameAs(caches.getDefaults());
+    }
+
+    @Test
+    public void should_have_specified_values() {
+        /* Given */
+        Caches.Limits defaults = new Caches.Limits().setMaximumSize(10L).setMaximumWeight(1024L).setTimeToLive(60L);
+        Caches.Limits podcasts = new Caches.Limits().setMaximumSize(5L);
+
+        /* When */
+        caches.setDefaults(defaults);
+        caches.getSpecs().put("podcasts", podcasts);
+
+        /* Then */
+        assertThat(caches.of("podcasts")).isSameAs(podcasts);
+        assertThat(caches.of("types")).isSameAs(defaults);
+    }
+}
@@ -35,6 +35,9 @@ public class PodcastServerParametersTest {
         assertThat(parameters.getRootfolder()).isEqualTo(ROOT_FOLDER);
         assertThat(parameters.getCoverDefaultName()).isEqualTo("cover");
         assertThat(parameters.getConcurrentDownload()).isEqualTo(3);
+        assertThat(parameters.getConcurrentDownloadByHost()).isEqualTo(0);
+        assertThat(parameters.getConcurrentDownloadByPodcast()).isEqualTo(0);
+        assertThat(parameters.getConcurrentSegmentByDownload()).isEqualTo(4);
         assertThat(parameters.getNumberOfTry()).isEqualTo(10);
         assertThat(parameters.getRssDefaultNumberItem()).isEqualTo(50L);
         assertThat(parameters.limitToKeepCoverOnDisk())
@@ -53,6 +56,9 @@ public class PodcastServerParametersTest {
         parameters.setDownloadExtension(".psdownload");
         parameters.setMaxUpdateParallels(5);
         parameters.setConcurrentDownload(5);
+        parameters.setConcurrentDownloadByHost(2);
+        parameters.setConcurrentDownloadByPodcast(1);
+        parameters.setConcurrentSegmentByDownload(2);
         parameters.setNumberOfTry(20);
         parameters.setNumberOfDayToDownload(5L);
         parameters.setNumberOfDayToSaveCover(5L);
@@ -67,6 +73,9 @@ public class PodcastServerParametersTest {
         assertThat(parameters.getCoverDefaultName()).isEqualTo("default");
 
         assertThat(parameters.getConcurrentDownload()).isEqualTo(5);
+        assertThat(parameters.getConcurrentDownloadByHost()).isEqualTo(2);
+        assertThat(parameters.getConcurrentDownloadByPodcast()).isEqualTo(1);
+        assertThat(parameters.getConcurrentSegmentByDownload()).isEqualTo(2);
         assertThat(parameters.getNumberOfTry()).isEqualTo(20);
 
         assertThat(parameters.getRssDefaultNumberItem()).isEqualTo(25L);
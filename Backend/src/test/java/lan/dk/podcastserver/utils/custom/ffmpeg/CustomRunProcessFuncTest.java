@@ -4,8 +4,11 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static io.vavr.API.List;
+import static io.vavr.API.Try;
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
@@ -14,17 +17,65 @@ import static org.assertj.core.api.Assertions.assertThat;
 public class CustomRunProcessFuncTest {
 
     @Test
-    public void should_get_process_from_listener() throws IOException, ExecutionException, InterruptedException {
+    public void should_give_process_to_the_job_running_in_the_thread() throws IOException, ExecutionException, InterruptedException, TimeoutException {
         /* Given */
         CustomRunProcessFunc cp = new CustomRunProcessFunc();
-        ProcessListener pl = new ProcessListener("anUrl");
+        ProcessJob job = cp.register("anUrl");
+        Process[] spawned = {null};
 
         /* When */
-        Process p = cp.add(pl).run(List("/bin/bash", "anUrl", "Foo", "Bar").toJavaList());
+        cp.execute(job, () -> spawned[0] = Try(() -> cp.run(List("/bin/bash", "-c", "exit 0").toJavaList())).get());
 
         /* Then */
-        assertThat(p).isSameAs(pl.process());
-        assertThat(pl.getProcess().get()).isSameAs(p);
+        assertThat(job.getProcess().get(1, TimeUnit.SECONDS)).isSameAs(spawned[0]);
+        assertThat(cp.running()).isEmpty();
+        assertThat(cp.history()).hasSize(1);
+        assertThat(cp.history().head().getName()).isEqualTo("anUrl");
+        assertThat(cp.history().head().getSpawnLatency()).isNotNull();
+        assertThat(cp.history().head().getWallTime()).isNotNull();
     }
 
+    @Test
+    public void should_not_give_process_launched_outside_of_a_job() throws IOException {
+        /* Given */
+        CustomRunProcessFunc cp = new CustomRunProcessFunc();
+        ProcessJob job = cp.register("anUrl");
+
+        /* When */
+        Process p = cp.run(List("/bin/bash", "-c", "exit 0").toJavaList());
+
+        /* Then */
+        assertThat(p).isNotNull();
+        assertThat(job.getProcess().isDone()).isFalse();
+        assertThat(cp.running()).hasSize(1);
+    }
+
+    @Test
+    public void should_fail_job_if_no_process_has_been_spawned() {
+        /* Given */
+        CustomRunProcessFunc cp = new CustomRunProcessFunc();
+        ProcessJob job = cp.register("anUrl");
+
+        /* When */
+        cp.execute(job, () -> {});
+
+        /* Then */
+        assertThat(Try(() -> job.getProcess().get()).isFailure()).isTrue();
+        assertThat(cp.history().head().getSpawnLatency()).isNull();
+    }
+
+    @Test
+    public void should_fail_job_which_can_not_be_run() {
+        /* Given */
+        CustomRunProcessFunc cp = new CustomRunProcessFunc();
+        ProcessJob job = cp.register("anUrl");
+
+        /* When */
+        cp.abort(job, new RuntimeException("Rejected"));
+
+        /* Then */
+        assertThat(Try(() -> job.getProcess().get()).isFailure()).isTrue();
+        assertThat(cp.running()).isEmpty();
+        assertThat(cp.history()).hasSize(1);
+    }
 }
@@ -32,6 +32,11 @@ export default class UpdatingStatusComponent {
             .updating$
             .subscribe(isUpdating => this.$scope.$evalAsync(() => this.isUpdating = isUpdating));
 
+        this.progressSub = this.DownloadManager
+            .updateProgress$
+            .filter(progress => progress !== null)
+            .subscribe(progress => this.$scope.$evalAsync(() => this.progress = progress));
+
         let liParent = this.$element.parent().parent()[0];
 
         if (liParent && liParent.tagName === 'LI') {
@@ -45,9 +50,16 @@ export default class UpdatingStatusComponent {
 
     $onDestroy() {
         this.isUpdatingSub.dispose();
+        this.progressSub.dispose();
     }
 
     updateStatus(message) {
-        this.isUpdating = message.body;
+        this.isUpdating = message.body.updating;
+    }
+
+    get title() {
+        if (!this.progress) return '';
+        let slowest = this.progress.slowest.map(s => `${s.title} (${Math.round(s.duration / 1000)}s)`).join(', ');
+        return `${this.progress.done + this.progress.failed}/${this.progress.total} - ${this.progress.failed} en erreur` + (slowest ? ` - ${slowest}` : '');
     }
 }
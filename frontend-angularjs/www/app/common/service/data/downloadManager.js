@@ -11,8 +11,10 @@ export default class DownloadManager {
 
     WS_DOWNLOAD_BASE = '/app/download';
     download$ = new Rx.ReplaySubject(0);
+    progress$ = new Rx.ReplaySubject(0);
     waiting$ = new Rx.ReplaySubject(0);
     updating$ = new Rx.BehaviorSubject(null);
+    updateProgress$ = new Rx.BehaviorSubject(null);
     
     constructor(ngstomp, $http) {
         "ngInject";
@@ -21,12 +23,18 @@ export default class DownloadManager {
 
         this.ngstomp.subscribeTo('/topic/download').withBodyInJson().withDigest(false)
                 .callback(m => this.download$.onNext(m.body))
+            .and()
+                .subscribeTo('/topic/download/progress').withBodyInJson().withDigest(false)
+                .callback(m => m.body.forEach(p => this.progress$.onNext(p)))
             .and()
                 .subscribeTo('/topic/waiting').withBodyInJson().withDigest(false)
                 .callback(m => this.waiting$.onNext(m.body))
             .and()
                 .subscribeTo('/topic/updating').withBodyInJson().withDigest(false)
-                .callback(m => this.updating$.onNext(m.body))
+                .callback(m => {
+                    this.updateProgress$.onNext(m.body);
+                    this.updating$.onNext(m.body.updating);
+                })
             .connect();
     }
 
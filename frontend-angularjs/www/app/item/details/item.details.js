@@ -46,6 +46,7 @@ export default class ItemDetailCtrl {
 
         this.subscription = this.DonwloadManager
             .download$
+            .merge(this.DonwloadManager.progress$)
             .filter(item => item.id === this.item.id)
             .subscribe(item => this.$scope.$evalAsync(() => Object.assign(this.item, item)));
     }
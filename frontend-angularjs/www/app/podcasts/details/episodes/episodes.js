@@ -42,6 +42,7 @@ export default class PodcastItemsListComponent {
 
         this.subscription = this.DownloadManager
             .download$
+            .merge(this.DownloadManager.progress$)
             .filter(item => this.podcast.items.some(elem => elem.id === item.id))
             .subscribe(item => this.$scope.$evalAsync(() => Object.assign(this.podcast.items.find(elem => elem.id === item.id), item)));
 
@@ -77,6 +77,7 @@ export default class ItemSearchCtrl {
 
         this.elemInPageSub = this.DownloadManager
             .download$
+            .merge(this.DownloadManager.progress$)
             .filter(item => this.items.some(elem => elem.id === item.id))
             .subscribe(item => this.$scope.$evalAsync(() => Object.assign(this.items.find(elem => elem.id === item.id), item)));
 